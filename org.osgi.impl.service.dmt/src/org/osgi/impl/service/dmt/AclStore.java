@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0 
+ *******************************************************************************/
+package org.osgi.impl.service.dmt;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.osgi.service.dmt.Acl;
+
+/**
+ * The ACLs of the DMT, stored in a persistent trie of URI segments.
+ * <p>
+ * The trie only contains the nodes that have an ACL, and their ancestors.
+ * Each entry keeps the effective ACL of its node, which is the ACL of the
+ * node itself or else the effective ACL of its parent. The effective ACL of
+ * any other node is the one of its nearest ancestor in the trie, so looking
+ * it up takes one hash lookup per URI segment.
+ * <p>
+ * Entries are immutable. A change copies the entries on the path to the
+ * changed node, and the entries below it whose effective ACL changes, and
+ * then publishes the new root in a single write. Readers never lock and
+ * always see a consistent trie. Taking a snapshot with {@link #copy()}
+ * shares all entries, so it costs the same whatever the number of ACLs.
+ * <p>
+ * All nodes passed to this class must be absolute. Empty ACLs must not be
+ * stored.
+ * 
+ * @author $Id$
+ */
+class AclStore {
+	private static final Map<String,Entry>	NO_CHILDREN	= Collections
+			.emptyMap();
+
+	private volatile Entry					root;
+
+	/**
+	 * @param rootAcl the ACL of the root node, must not be {@code null}
+	 */
+	AclStore(Acl rootAcl) {
+		root = new Entry(".", rootAcl, rootAcl, NO_CHILDREN);
+	}
+
+	private AclStore(Entry root) {
+		this.root = root;
+	}
+
+	/**
+	 * @return the ACL set on the given node, or {@code null}
+	 */
+	Acl get(Node node) {
+		Entry entry = find(root, node.getPath());
+		return entry == null ? null : entry.acl;
+	}
+
+	/**
+	 * @return the ACL that applies to the given node, never {@code null}
+	 */
+	Acl getEffective(Node node) {
+		String[] path = node.getPath();
+		return effective(root, path, path.length);
+	}
+
+	/**
+	 * Sets the ACL of a node.
+	 * 
+	 * @param node the node
+	 * @param acl the new ACL of the node, must not be empty
+	 */
+	synchronized void put(Node node, Acl acl) {
+		String[] path = node.getPath();
+		Entry entry = find(root, path);
+		if (entry == root) {
+			root = new Entry(root.name, acl, null, root.children).inherit(null);
+			return;
+		}
+		// no effective ACL yet, so that the children are updated
+		Map<String,Entry> children = entry == null ? NO_CHILDREN
+				: entry.children;
+		root = replace(root, path,
+				new Entry(path[path.length - 1], acl, null, children));
+	}
+
+	/**
+	 * Removes the ACL of a node. The ACL of the root node cannot be removed.
+	 * 
+	 * @param node the node
+	 */
+	synchronized void remove(Node node) {
+		String[] path = node.getPath();
+		Entry entry = find(root, path);
+		if (entry == null || entry == root)
+			return;
+		root = replace(root, path,
+				new Entry(entry.name, null, null, entry.children));
+	}
+
+	/**
+	 * Moves the ACLs of a node and its descendants to another node.
+	 * 
+	 * @param node the node to move the ACLs of
+	 * @param newNode the node to move the ACLs to, or {@code null} to remove
+	 *            them
+	 */
+	synchronized void move(Node node, Node newNode) {
+		String[] path = node.getPath();
+		Entry entry = find(root, path);
+		if (entry == null || entry == root)
+			return;
+
+		Entry r = replace(root, path, null);
+		if (newNode != null) {
+			String[] newPath = newNode.getPath();
+			Entry target = merge(find(r, newPath),
+					newPath[newPath.length - 1], entry,
+					effective(r, newPath, newPath.length - 1));
+			r = replace(r, newPath, target);
+		}
+		root = r;
+	}
+
+	/**
+	 * Replaces the ACLs of a node and its descendants with the ones in a
+	 * snapshot of this store.
+	 * 
+	 * @param node the node
+	 * @param snapshot the snapshot, taken with {@link #copy()}
+	 */
+	synchronized void restore(Node node, AclStore snapshot) {
+		String[] path = node.getPath();
+		Entry entry = find(snapshot.root, path);
+		if (path.length == 1)
+			root = entry;
+		else
+			root = replace(root, path, entry);
+	}
+
+	/**
+	 * @return a snapshot of this store, which is not affected by later
+	 *         changes to this store
+	 */
+	AclStore copy() {
+		return new AclStore(root);
+	}
+
+	// Returns the effective ACL of the node given by the first 'length'
+	// segments of the path.
+	private static Acl effective(Entry root, String[] path, int length) {
+		Entry entry = root;
+		for (int i = 1; i < length; i++) {
+			Entry child = entry.children.get(path[i]);
+			if (child == null)
+				break;
+			entry = child;
+		}
+		return entry.effective;
+	}
+
+	private static Entry find(Entry root, String[] path) {
+		Entry entry = root;
+		for (int i = 1; i < path.length && entry != null; i++)
+			entry = entry.children.get(path[i]);
+		return entry;
+	}
+
+	// Returns a copy of the root in which the entry at the given path is
+	// replaced, or removed if replacement is null.
+	private static Entry replace(Entry root, String[] path,
+			Entry replacement) {
+		return replace(root, path, 1, replacement);
+	}
+
+	// precondition: entry is the entry of path[i - 1], 0 < i < path.length
+	private static Entry replace(Entry entry, String[] path, int i,
+			Entry replacement) {
+		String name = path[i];
+		Entry child;
+		if (i == path.length - 1)
+			child = replacement == null ? null
+					: replacement.inherit(entry.effective);
+		else {
+			Entry old = entry.children.get(name);
+			if (old == null) {
+				if (replacement == null)
+					return entry;
+				old = new Entry(name, null, entry.effective, NO_CHILDREN);
+			}
+			child = replace(old, path, i + 1, replacement);
+		}
+		return entry.withChild(name, child);
+	}
+
+	// Merges the entries of 'moved' into the entries of 'existing', which
+	// may be null. The ACLs of 'moved' take precedence.
+	private static Entry merge(Entry existing, String name, Entry moved,
+			Acl parentEffective) {
+		Acl acl = moved.acl != null ? moved.acl
+				: existing == null ? null : existing.acl;
+		Acl effective = acl != null ? acl : parentEffective;
+
+		Map<String,Entry> children = new HashMap<>();
+		if (existing != null)
+			for (Entry child : existing.children.values())
+				children.put(child.name, child.inherit(effective));
+		for (Entry child : moved.children.values())
+			children.put(child.name, merge(children.get(child.name),
+					child.name, child, effective));
+
+		return new Entry(name, acl, effective,
+				children.isEmpty() ? NO_CHILDREN : children);
+	}
+
+	private static final class Entry {
+		final String			name;
+		final Acl				acl;
+		final Acl				effective;
+		final Map<String,Entry>	children;
+
+		Entry(String name, Acl acl, Acl effective,
+				Map<String,Entry> children) {
+			this.name = name;
+			this.acl = acl;
+			this.effective = effective;
+			this.children = children;
+		}
+
+		// Returns this entry with the effective ACLs recomputed for the given
+		// effective ACL of the parent. Entries whose effective ACL does not
+		// change are shared.
+		Entry inherit(Acl parentEffective) {
+			Acl newEffective = acl != null ? acl : parentEffective;
+			if (newEffective == effective)
+				return this;
+
+			Map<String,Entry> newChildren = children;
+			if (!children.isEmpty()) {
+				newChildren = new HashMap<>();
+				for (Entry child : children.values())
+					newChildren.put(child.name, child.inherit(newEffective));
+			}
+			return new Entry(name, acl, newEffective, newChildren);
+		}
+
+		// Returns a copy of this entry with the given child, which is
+		// removed if it is null or not needed.
+		Entry withChild(String childName, Entry child) {
+			Map<String,Entry> newChildren = new HashMap<>(children);
+			if (child == null || child.isUnused())
+				newChildren.remove(childName);
+			else
+				newChildren.put(childName, child);
+			return new Entry(name, acl, effective,
+					newChildren.isEmpty() ? NO_CHILDREN : newChildren);
+		}
+
+		boolean isUnused() {
+			return acl == null && children.isEmpty();
+		}
+	}
+}
@@ -27,6 +27,7 @@ import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.BundleException;
 import org.osgi.framework.ServiceRegistration;
+import org.osgi.impl.service.dmt.export.DmtAdminMetrics;
 import org.osgi.impl.service.dmt.export.DmtPrincipalPermissionAdmin;
 import org.osgi.service.cm.ManagedService;
 import org.osgi.service.dmt.DmtAdmin;
@@ -49,6 +50,7 @@ public class DmtAdminActivator implements BundleActivator {
 	private ServiceRegistration<NotificationService>	notificationReg;
 	private ServiceRegistration< ? >					adminFactoryReg;
 	private ServiceRegistration< ? >					permissionReg;
+	private ServiceRegistration<DmtAdminMetrics>		metricsReg;
     
     private Field factoryContext;
     private DmtAdminFactory dmtAdminFactory;
@@ -102,6 +104,9 @@ public class DmtAdminActivator implements BundleActivator {
             properties.put("service.pid", DMT_PERMISSION_ADMIN_SERVICE_PID);
             permissionReg = bc.registerService(services, 
                     dmtPermissionAdmin, properties);
+
+			metricsReg = bc.registerService(DmtAdminMetrics.class,
+					dmtAdmin.getMetrics(), null);
             
             // adding default (all) permissions for remote principal "admin"
 			Map<String,PermissionInfo[]> permissions = dmtPermissionAdmin
@@ -120,9 +125,6 @@ public class DmtAdminActivator implements BundleActivator {
 
 	@Override
 	public void stop(BundleContext bc) throws BundleException {
-        // stopping event delivery to listeners directly registered in DmtAdmin
-        dmtAdminFactory.stop();
-        
 	    // unsetting our context from the private variable in DmtServiceFactory
         try {
         	if ( factoryContext != null )
@@ -135,6 +137,12 @@ public class DmtAdminActivator implements BundleActivator {
 		notificationReg.unregister();
         adminFactoryReg.unregister();
         permissionReg.unregister();
+        metricsReg.unregister();
+        
+        // stopping event delivery to listeners directly registered in
+        // DmtAdmin, only now so that the events of the sessions closed by
+        // the bundles releasing the service above are still delivered
+        dmtAdminFactory.stop();
         
 		context.getPluginDispatcher().removeMappingListener(dmtAdmin);
         // stopping everything in the context (e.g. service trackers)
@@ -23,7 +23,6 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.Vector;
@@ -79,6 +78,8 @@ public class DmtAdminCore
     private DmtPrincipalPermissionAdmin dmtPermissionAdmin;
     
     private List<SessionWrapper> openSessions; // a list of DmtSession refs to open sessions
+    private final SessionLockManager sessionLocks = new SessionLockManager();
+    private final DmtMetrics metrics = new DmtMetrics();
 
 	public DmtAdminCore(DmtPrincipalPermissionAdmin dmtPermissionAdmin,
             Context context) throws InvalidSyntaxException {
@@ -99,7 +100,7 @@ public class DmtAdminCore
 		return getSession(null, subtreeUri, lockMode, initiatingBundle);
 	}
 
-	public synchronized DmtSession getSession(String principal,
+	public DmtSession getSession(String principal,
             String subtreeUri, int lockMode, Bundle initiatingBundle) throws DmtException {
 		
         checkLockMode(lockMode);
@@ -115,12 +116,25 @@ public class DmtAdminCore
                 lockMode, permissions, context, this, initiatingBundle);
                 
         // passing the normalized variant of the subtreeUri parameter
-		waitUntilNoConflictingSessions(session.getRootNode(), lockMode);
-		session.open();
-        openSessions.add(session); 
+		waitUntilNoConflictingSessions(session, lockMode);
+		boolean opened = false;
+		try {
+			// Only the wait for the lock happens outside the monitor. Opening
+			// the session and adding it to openSessions is done under the
+			// same monitor as pluginMappingChanged, so that a mapping change
+			// cannot slip in between the two and miss the new session.
+			synchronized (this) {
+				session.open();
+				openSessions.add(session);
+			}
+			opened = true;
+		} finally {
+			if (!opened)
+				sessionLocks.release(session);
+		}
         
         // it must be ensured that releaseSession is called for each session
-        // that is added to the list, otherwise threads might get stuck
+        // that is opened, otherwise threads might get stuck
         return session;
 	}
 
@@ -166,55 +180,46 @@ public class DmtAdminCore
                     "Unknown lockMode '" + lockMode + "' specified.");
     }
     
-    // Note, that this does not provide fair scheduling of waiting sessions,
-    // the order of sessions depends on the order of thread activation when
-    // notifyAll is called.  Some threads may be "starved", i.e. timed out.
-    private void waitUntilNoConflictingSessions(Node subtreeNode, int lockMode) 
-            throws DmtException {
-        final long timeLimit = System.currentTimeMillis() + getSessionCreationTimeout();
-        
-        while(conflictsWithOpenSessions(subtreeNode, lockMode)) {
-            long timeLeft = timeLimit - System.currentTimeMillis();
-            
-            // throw exception if this session cannot run and time runs out
-            if(timeLeft <= 0) 
-                throw new DmtException(subtreeNode.getUri(), 
-                        DmtException.SESSION_CREATION_TIMEOUT,
-                        "Session creation timed out because of concurrent " +
-                        "sessions blocking access to Device Management Tree.");
-            
-            try {
-                wait(timeLeft);
-			} catch (InterruptedException e) {
-				// ignore
-			}
-            
-            // if wait() terminated because of timeout, then there must still
-            // be a conflict (if the code works as it should)
+    // Sessions that conflict with each other are scheduled in the order in
+    // which they asked for the lock, see SessionLockManager.
+    private void waitUntilNoConflictingSessions(DmtSessionImpl session,
+            int lockMode) throws DmtException {
+        Node subtreeNode = session.getRootNode();
+        long start = metrics.start();
+        boolean acquired;
+        try {
+            acquired = sessionLocks.acquire(session, subtreeNode, lockMode,
+                    getSessionCreationTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            metrics.stopSessionWait(start, lockMode);
+            throw new DmtException(subtreeNode.getUri(),
+                    DmtException.SESSION_CREATION_TIMEOUT,
+                    "Interrupted while waiting for concurrent sessions " +
+                    "blocking access to Device Management Tree.", e);
         }
-    }
-    
-    private boolean conflictsWithOpenSessions(Node subtreeNode, int lockMode) {
-		Iterator<SessionWrapper> i = openSessions.iterator();
-        while (i.hasNext()) {
-            DmtSessionImpl openSession = i.next();
-            if(subtreeNode.isOnSameBranch(openSession.getRootNode()) && 
-                    (lockMode != DmtSession.LOCK_TYPE_SHARED || 
-                     openSession.getLockType() != DmtSession.LOCK_TYPE_SHARED))
-                return true; // only two shared sessions can be on one branch
+        metrics.stopSessionWait(start, lockMode);
+        if (!acquired) {
+            metrics.sessionCreationTimeout(lockMode);
+            throw new DmtException(subtreeNode.getUri(), 
+                    DmtException.SESSION_CREATION_TIMEOUT,
+                    "Session creation timed out because of concurrent " +
+                    "sessions blocking access to Device Management Tree.");
         }
-        return false;
     }
 
-    synchronized void releaseSession(DmtSession session) {
-        if(!openSessions.remove(session))
+    void releaseSession(DmtSession session) {
+        openSessions.remove(session);
+        if(!sessionLocks.release(session))
             context.log(LogService.LOG_INFO, "Session release notification " +
                     "from unknown session!", null);
-        
-        notifyAll(); // wake all waiting sessions, and reevaluate conflicts
     }
     
 
+	DmtMetrics getMetrics() {
+		return metrics;
+	}
+
 	long getSessionCreationTimeout() {
 		if ( sessionOpenTimeout == -1) {
 			sessionOpenTimeout = AccessController
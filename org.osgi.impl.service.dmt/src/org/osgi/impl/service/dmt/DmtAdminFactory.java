@@ -43,8 +43,7 @@ public class DmtAdminFactory implements ServiceFactory<DmtAdmin> {
         
         this.dmtAdmin = dmtAdmin;
         localEventProxy = new LocalEventProxy();
-        
-        new Thread(localEventProxy).start();
+        localEventProxy.start();
         
 		delegates = new Vector<>();
     }
@@ -70,22 +69,39 @@ public class DmtAdminFactory implements ServiceFactory<DmtAdmin> {
     }
     
     class LocalEventProxy implements Runnable {
-        private boolean running = false;
+        // the maximum time stop() waits for the queued events to be delivered
+        private static final long STOP_TIMEOUT = 10000;
+        
+        private volatile boolean running = true;
+        private final Thread thread = new Thread(this, "DMT event delivery");
+        
+        void start() {
+            EventDispatcher.startLocalEvents();
+            thread.start();
+        }
         
         @Override
 		public void run() {
-            running = true;
-            
-            while(running) {
+            // after stop() the loop goes on until the queue is empty, so that
+            // the events of the sessions closed on shutdown are delivered
+            while(true) {
                 DmtEventCore event = EventDispatcher.getNextLocalEvent(10000);
                 if(event != null)
                 	// events are now dispatched by the dmtAdmin centrally
                 	dmtAdmin.dispatchEvent(event);
+                else if(!running)
+                    return;
             }
         }
         
         void stop() {
             running = false;
+            EventDispatcher.stopLocalEvents();
+            try {
+                thread.join(STOP_TIMEOUT);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
 }
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0 
+ *******************************************************************************/
+
+package org.osgi.impl.service.dmt;
+
+import java.security.AccessController;
+import java.security.Permission;
+import java.security.PrivilegedAction;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.osgi.framework.AdminPermission;
+import org.osgi.impl.service.dmt.export.DmtAdminMetrics;
+import org.osgi.service.dmt.DmtSession;
+
+/**
+ * Records the session lock waits of DmtAdminCore and the latency of the
+ * plugin calls made by PluginSessionWrapper. While disabled, a measurement
+ * only costs reading the enabled flag.
+ */
+class DmtMetrics implements DmtAdminMetrics {
+	static final String	METRICS_ENABLED_PROPERTY	= "org.osgi.impl.service.dmt.metrics";
+
+	// upper bounds of the histogram buckets in microseconds
+	private static final long[]	BUCKET_BOUNDS	= {
+			10, 100, 1000, 10000, 100000, 1000000, 10000000
+	};
+
+	private static final String[]	LOCK_MODE_NAMES	= {
+			"shared", "exclusive", "atomic"
+	};
+
+	// plugin calls on further roots are recorded under OTHER_PLUGIN_ROOTS
+	static final int				MAX_PLUGIN_ROOTS	= 256;
+	static final String				OTHER_PLUGIN_ROOTS	= "*";
+
+	private volatile boolean							enabled;
+
+	private final ConcurrentMap<String,Histogram>		histograms	= new ConcurrentHashMap<>();
+	private final ConcurrentMap<String,AtomicLong>		counters	= new ConcurrentHashMap<>();
+
+	// plugin call histograms by plugin root URI and operation, looked up
+	// without building the histogram name on each call
+	private final ConcurrentMap<String,ConcurrentMap<String,Histogram>>	pluginHistograms	= new ConcurrentHashMap<>();
+
+	DmtMetrics() {
+		enabled = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+			@Override
+			public Boolean run() {
+				return Boolean.valueOf(
+						Boolean.getBoolean(METRICS_ENABLED_PROPERTY));
+			}
+		}).booleanValue();
+	}
+
+	// returns the start time of a measurement, or 0 if metrics are disabled
+	long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	void stopSessionWait(long start, int lockMode) {
+		if (start != 0)
+			record(histograms, "session.wait." + lockModeName(lockMode),
+					start);
+	}
+
+	void sessionCreationTimeout(int lockMode) {
+		if (!enabled)
+			return;
+		String name = "session.creation.timeout." + lockModeName(lockMode);
+		AtomicLong counter = counters.get(name);
+		if (counter == null) {
+			AtomicLong newCounter = new AtomicLong();
+			counter = counters.putIfAbsent(name, newCounter);
+			if (counter == null)
+				counter = newCounter;
+		}
+		counter.incrementAndGet();
+	}
+
+	void stopPluginCall(long start, Node pluginRoot, String operation) {
+		if (start == 0)
+			return;
+		String root = pluginRoot.getUri();
+		ConcurrentMap<String,Histogram> operations = pluginHistograms
+				.get(root);
+		if (operations == null) {
+			// the limit may be exceeded slightly by concurrent calls
+			if (pluginHistograms.size() >= MAX_PLUGIN_ROOTS)
+				root = OTHER_PLUGIN_ROOTS;
+			operations = pluginHistograms.get(root);
+		}
+		if (operations == null) {
+			ConcurrentMap<String,Histogram> newOperations = new ConcurrentHashMap<>();
+			operations = pluginHistograms.putIfAbsent(root, newOperations);
+			if (operations == null)
+				operations = newOperations;
+		}
+		record(operations, operation, start);
+	}
+
+	private static void record(ConcurrentMap<String,Histogram> map,
+			String name, long start) {
+		long micros = (System.nanoTime() - start) / 1000;
+		Histogram histogram = map.get(name);
+		if (histogram == null) {
+			Histogram newHistogram = new Histogram();
+			histogram = map.putIfAbsent(name, newHistogram);
+			if (histogram == null)
+				histogram = newHistogram;
+		}
+		histogram.record(micros);
+	}
+
+	private static String lockModeName(int lockMode) {
+		return lockMode >= DmtSession.LOCK_TYPE_SHARED
+				&& lockMode <= DmtSession.LOCK_TYPE_ATOMIC
+						? LOCK_MODE_NAMES[lockMode]
+						: String.valueOf(lockMode);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		checkPermission(new AdminPermission());
+		this.enabled = enabled;
+	}
+
+	@Override
+	public long[] getBucketBounds() {
+		return BUCKET_BOUNDS.clone();
+	}
+
+	@Override
+	public Map<String,long[]> getHistograms() {
+		Map<String,long[]> result = new HashMap<>();
+		for (Map.Entry<String,Histogram> entry : histograms.entrySet())
+			result.put(entry.getKey(), entry.getValue().getCounts());
+		for (Map.Entry<String,ConcurrentMap<String,Histogram>> root : pluginHistograms
+				.entrySet())
+			for (Map.Entry<String,Histogram> entry : root.getValue()
+					.entrySet())
+				result.put(pluginHistogramName(root.getKey(), entry.getKey()),
+						entry.getValue().getCounts());
+		return result;
+	}
+
+	@Override
+	public Map<String,Long> getTotalTimes() {
+		Map<String,Long> result = new HashMap<>();
+		for (Map.Entry<String,Histogram> entry : histograms.entrySet())
+			result.put(entry.getKey(), Long.valueOf(entry.getValue().total.get()));
+		for (Map.Entry<String,ConcurrentMap<String,Histogram>> root : pluginHistograms
+				.entrySet())
+			for (Map.Entry<String,Histogram> entry : root.getValue()
+					.entrySet())
+				result.put(pluginHistogramName(root.getKey(), entry.getKey()),
+						Long.valueOf(entry.getValue().total.get()));
+		return result;
+	}
+
+	@Override
+	public Map<String,Long> getCounters() {
+		Map<String,Long> result = new HashMap<>();
+		for (Map.Entry<String,AtomicLong> entry : counters.entrySet())
+			result.put(entry.getKey(), Long.valueOf(entry.getValue().get()));
+		return result;
+	}
+
+	@Override
+	public void reset() {
+		checkPermission(new AdminPermission());
+		histograms.clear();
+		counters.clear();
+		pluginHistograms.clear();
+	}
+
+	private static void checkPermission(Permission p) {
+		SecurityManager sm = System.getSecurityManager();
+		if (sm != null)
+			sm.checkPermission(p);
+	}
+
+	private static String pluginHistogramName(String root, String operation) {
+		return "plugin." + operation + " " + root;
+	}
+
+	private static final class Histogram {
+		// one bucket for each bound, and one for the values above the last
+		final AtomicLongArray	counts	= new AtomicLongArray(
+				BUCKET_BOUNDS.length + 1);
+		final AtomicLong		total	= new AtomicLong();
+
+		Histogram() {
+			super();
+		}
+
+		void record(long micros) {
+			int bucket = 0;
+			while (bucket < BUCKET_BOUNDS.length
+					&& micros > BUCKET_BOUNDS[bucket])
+				bucket++;
+			counts.incrementAndGet(bucket);
+			total.addAndGet(micros);
+		}
+
+		long[] getCounts() {
+			long[] result = new long[counts.length()];
+			for (int i = 0; i < result.length; i++)
+				result[i] = counts.get(i);
+			return result;
+		}
+	}
+}
@@ -27,15 +27,19 @@ import java.security.Permissions;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.security.ProtectionDomain;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.osgi.framework.Bundle;
 import org.osgi.impl.service.dmt.dispatcher.Plugin;
@@ -48,7 +52,6 @@ import org.osgi.service.dmt.DmtException;
 import org.osgi.service.dmt.DmtIllegalStateException;
 import org.osgi.service.dmt.DmtSession;
 import org.osgi.service.dmt.MetaNode;
-import org.osgi.service.dmt.Uri;
 import org.osgi.service.dmt.security.DmtPermission;
 import org.osgi.service.dmt.security.DmtPrincipalPermission;
 import org.osgi.service.dmt.spi.DataPlugin;
@@ -70,11 +73,7 @@ public class DmtSessionImpl implements DmtSession {
 	private static final Class< ? >[]	PERMISSION_CONSTRUCTOR_SIG	= new Class[] {
 			String.class, String.class };
 
-	private static Hashtable<Node,Acl>	acls;
-
-	// Stores the ACL table at the start of each transaction in an atomic
-	// session. Can be static because atomic session cannot run in parallel.
-	private static Hashtable<Node,Acl>	savedAcls;
+	private static AclStore				acls;
 
 	static {
 		init_acls();
@@ -91,12 +90,26 @@ public class DmtSessionImpl implements DmtSession {
 
 	private EventDispatcher eventStore;
 	private List<PluginSessionWrapper>	dataPlugins;
-	private int state;
+	private volatile int				state;
+
+	// Reads in a shared session hold the read lock, so that several threads
+	// can read through the same session. Writes, state transitions, and
+	// reads in sessions that can write hold the write lock, as plugin
+	// sessions opened for writing are never called concurrently. Each
+	// plugin session is still called by one thread at a time, see
+	// PluginSessionWrapper.
+	private final ReentrantReadWriteLock	sessionLock	= new ReentrantReadWriteLock();
+
+	// Snapshot of the ACLs at the start of each transaction in an atomic
+	// session, restored for the session subtree on rollback.
+	private AclStore					savedAcls;
 
 	@SuppressWarnings("unused")
 	private Bundle initiatingBundle;
-	
-	private Hashtable<String,Node>		validatedNodes;
+
+	// subtree in which a local caller was found to have Get permission for
+	// all nodes, set by the thread reading the values of the subtree
+	private final ThreadLocal<Node>		readableSubtree	= new ThreadLocal<>();
 
 	// Session creation is done in two phases:
 	// - DmtAdmin creates a new DmtSessionImpl instance (this should indicate
@@ -141,7 +154,7 @@ public class DmtSessionImpl implements DmtSession {
 
 		eventStore = new EventDispatcher(context, sessionId, initiatingBundle);
 
-		dataPlugins = new Vector<>();
+		dataPlugins = new CopyOnWriteArrayList<>();
 		state = STATE_CLOSED;
 	}
 
@@ -153,8 +166,7 @@ public class DmtSessionImpl implements DmtSession {
 		checkNodePermission(subtreeNode, Acl.GET);
 
 		if (lockMode == LOCK_TYPE_ATOMIC)
-			// shallow copy is enough, Nodes and Acls are immutable
-			savedAcls = new Hashtable<>(acls);
+			savedAcls = acls.copy();
 
 		state = STATE_OPEN;
 
@@ -177,6 +189,16 @@ public class DmtSessionImpl implements DmtSession {
 	// - false if any exception has been thrown in the commit/rollback methods
 	protected void invalidateSession(boolean rollback, boolean timeout,
 			Exception fatalException) {
+		Lock lock = lockForWriting();
+		try {
+			internalInvalidateSession(rollback, timeout, fatalException);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void internalInvalidateSession(boolean rollback, boolean timeout,
+			Exception fatalException) {
 		state = STATE_INVALID;
 		context.log(LogService.LOG_WARNING, "Invalidating session '"
 				+ sessionId + "' because of "
@@ -209,7 +231,7 @@ public class DmtSessionImpl implements DmtSession {
 	 */
 
 	@Override
-	public synchronized int getState() {
+	public int getState() {
 		return state;
 	}
 
@@ -237,23 +259,26 @@ public class DmtSessionImpl implements DmtSession {
 
 	// no other API methods can be called while this method is executed
 	@Override
-	public synchronized void close() throws DmtException {
-		checkSession();
+	public void close() throws DmtException {
+		Lock lock = lockForWriting();
+		try {
+			checkSession();
 
-		// changed to CLOSED if this method finishes without error
-		state = STATE_INVALID;
-		// clear cache
-		getValidatedNodeCache().clear();
+			// changed to CLOSED if this method finishes without error
+			state = STATE_INVALID;
 
-		try {
-			closeAndRelease(lockMode == LOCK_TYPE_ATOMIC);
+			try {
+				closeAndRelease(lockMode == LOCK_TYPE_ATOMIC);
+			} finally {
+				eventStore.dispatchSessionLifecycleEvent(DmtEvent.SESSION_CLOSED,
+						this.getRootUri(), this.getPrincipal(), this.lockMode,
+						false, null);
+			}
+
+			state = STATE_CLOSED;
 		} finally {
-			eventStore.dispatchSessionLifecycleEvent(DmtEvent.SESSION_CLOSED,
-					this.getRootUri(), this.getPrincipal(), this.lockMode,
-					false, null);
+			lock.unlock();
 		}
-
-		state = STATE_CLOSED;
 	}
 
 	private void closeAndRelease(boolean commit) throws DmtException {
@@ -289,21 +314,26 @@ public class DmtSessionImpl implements DmtSession {
 
 	// no other API methods can be called while this method is executed
 	@Override
-	public synchronized void commit() throws DmtException {
-		checkSession();
+	public void commit() throws DmtException {
+		Lock lock = lockForWriting();
+		try {
+			checkSession();
 
-		if (lockMode != LOCK_TYPE_ATOMIC)
-			throw new DmtIllegalStateException("Commit can only be requested "
-					+ "for atomic sessions.");
+			if (lockMode != LOCK_TYPE_ATOMIC)
+				throw new DmtIllegalStateException("Commit can only be requested "
+						+ "for atomic sessions.");
 
-		// changed back to OPEN if this method finishes without error
-		state = STATE_INVALID;
+			// changed back to OPEN if this method finishes without error
+			state = STATE_INVALID;
 
-		commitPlugins();
+			commitPlugins();
 
-		savedAcls = new Hashtable<>(acls);
+			savedAcls = acls.copy();
 
-		state = STATE_OPEN;
+			state = STATE_OPEN;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// precondition: lockMode == LOCK_TYPE_ATOMIC
@@ -336,21 +366,27 @@ public class DmtSessionImpl implements DmtSession {
 
 	// no other API methods can be called while this method is executed
 	@Override
-	public synchronized void rollback() throws DmtException {
-		checkSession();
+	public void rollback() throws DmtException {
+		Lock lock = lockForWriting();
+		try {
+			checkSession();
 
-		if (lockMode != LOCK_TYPE_ATOMIC)
-			throw new DmtIllegalStateException(
-					"Rollback can only be requested " + "for atomic sessions.");
+			if (lockMode != LOCK_TYPE_ATOMIC)
+				throw new DmtIllegalStateException(
+						"Rollback can only be requested " + "for atomic sessions.");
 
-		// changed back to OPEN if this method finishes without error
-		state = STATE_INVALID;
+			// changed back to OPEN if this method finishes without error
+			state = STATE_INVALID;
 
-		acls = new Hashtable<>(savedAcls);
+			// only this session can change the ACLs in its subtree
+			acls.restore(subtreeNode, savedAcls);
 
-		rollbackPlugins();
+			rollbackPlugins();
 
-		state = STATE_OPEN;
+			state = STATE_OPEN;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// precondition: lockMode == LOCK_TYPE_ATOMIC
@@ -378,15 +414,25 @@ public class DmtSessionImpl implements DmtSession {
 	}
 
 	@Override
-	public synchronized void execute(String nodeUri, String data)
+	public void execute(String nodeUri, String data)
 			throws DmtException {
-		internalExecute(nodeUri, null, data);
+		Lock lock = lockForWriting();
+		try {
+			internalExecute(nodeUri, null, data);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	@Override
-	public synchronized void execute(String nodeUri, String correlator,
+	public void execute(String nodeUri, String correlator,
 			String data) throws DmtException {
-		internalExecute(nodeUri, correlator, data);
+		Lock lock = lockForWriting();
+		try {
+			internalExecute(nodeUri, correlator, data);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// same as execute/3 but can be called internally, because it is not wrapped
@@ -424,7 +470,8 @@ public class DmtSessionImpl implements DmtSession {
 					.doPrivileged(new PrivilegedExceptionAction<Void>() {
 				@Override
 						public Void run() throws DmtException {
-					plugin.execute(session, node.getPath(), correlator, data);
+					plugin.execute(session, node.getPath().clone(), correlator,
+							data);
 					return null;
 				}
 			}, securityContext);
@@ -512,118 +559,147 @@ public class DmtSessionImpl implements DmtSession {
 	// requires DmtPermission with GET action, no ACL check done because there
 	// are no ACLs stored for non-existing nodes (in theory)
 	@Override
-	public synchronized boolean isNodeUri(String nodeUri) {
-		checkSession();
+	public boolean isNodeUri(String nodeUri) {
+		Lock lock = lockForReading();
 		try {
-			Node node = makeAbsoluteUri(nodeUri);
-			if (isScaffoldNode(node))
-				return true;
-			checkLocalPermission(node, writeAclCommands(Acl.GET));
-			checkNode(node, SHOULD_EXIST);
-			// not checking meta-data for the GET capability, the plugin must be
-			// prepared to answer isNodeUri() even if the node is not "gettable"
-		} catch (DmtException e) {
-			return false; // invalid node URI or error opening plugin
+			checkSession();
+			try {
+				Node node = makeAbsoluteUri(nodeUri);
+				if (isScaffoldNode(node))
+					return true;
+				checkLocalPermission(node, writeAclCommands(Acl.GET));
+				checkNode(node, SHOULD_EXIST);
+				// not checking meta-data for the GET capability, the plugin must be
+				// prepared to answer isNodeUri() even if the node is not "gettable"
+			} catch (DmtException e) {
+				return false; // invalid node URI or error opening plugin
+			}
+			return true;
+		} finally {
+			lock.unlock();
 		}
-		return true;
 	}
 
 	@Override
-	public synchronized boolean isLeafNode(String nodeUri) throws DmtException {
-		checkSession();
-		if (isScaffoldNode(nodeUri))
-			return false;
-//		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
-		Node node = makeAbsoluteUri(nodeUri);
-		checkOperation(node, Acl.GET, MetaNode.CMD_GET);
-		return isLeafNodeNoCheck(node);
+	public boolean isLeafNode(String nodeUri) throws DmtException {
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+			if (isScaffoldNode(nodeUri))
+				return false;
+	//		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
+			Node node = makeAbsoluteUri(nodeUri);
+			checkOperation(node, Acl.GET, MetaNode.CMD_GET);
+			return isLeafNodeNoCheck(node);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// GET property op
 	@Override
-	public synchronized Acl getNodeAcl(String nodeUri) throws DmtException {
-		checkSession();
-		// here we have to check the node existence, because the ACL is 
-		// maintained by the DmtAdmin, not by the plugin
-		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
-		checkOperation(node, Acl.GET, MetaNode.CMD_GET);
-		Acl acl = acls.get(node);
-		return acl == null ? null : acl;
+	public Acl getNodeAcl(String nodeUri) throws DmtException {
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+			// here we have to check the node existence, because the ACL is 
+			// maintained by the DmtAdmin, not by the plugin
+			Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
+			checkOperation(node, Acl.GET, MetaNode.CMD_GET);
+			return acls.get(node);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// GET property op
 	@Override
-	public synchronized Acl getEffectiveNodeAcl(String nodeUri)
+	public Acl getEffectiveNodeAcl(String nodeUri)
 			throws DmtException {
-		checkSession();
-		// here we have to check the node existence, because the ACL is 
-		// maintained by the DmtAdmin, not by the plugin
-		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
-		checkOperation(node, Acl.GET, MetaNode.CMD_GET);
-		return getEffectiveNodeAclNoCheck(node);
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+			// here we have to check the node existence, because the ACL is 
+			// maintained by the DmtAdmin, not by the plugin
+			Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
+			checkOperation(node, Acl.GET, MetaNode.CMD_GET);
+			return getEffectiveNodeAclNoCheck(node);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// REPLACE property op
 	@Override
-	public synchronized void setNodeAcl(String nodeUri, Acl acl)
+	public void setNodeAcl(String nodeUri, Acl acl)
 			throws DmtException {
-		checkWriteSession();
-		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
-
-		// check for REPLACE permission:
-		if (isLeafNodeNoCheck(node)) // on the parent node for leaf nodes
-			checkNodePermission(node.getParent(), Acl.REPLACE);
-		else
-			// on the node itself or the parent for interior nodes (parent will
-			// be ignored in case of the root node)
-			checkNodeOrParentPermission(node, Acl.REPLACE);
-
-		// Not checking REPLACE capability, node does not have to be modifiable
-		// to have an ACL associated with it. It should be possible to set
-		// ACLs everywhere, and the "Replace" Access Type seems to be given
-		// only for modifiable nodes.
-
-		// check that the new ACL is valid
-		if (node.isRoot() && (acl == null || !acl.isPermitted("*", Acl.ADD)))
-			// should be 405 "Forbidden" according to DMTND 7.7.1.2
-			throw new DmtException(node.getUri(),
-					DmtException.COMMAND_NOT_ALLOWED, "Root ACL must allow "
-							+ "the Add operation for all principals.");
+		Lock lock = lockForWriting();
+		try {
+			checkWriteSession();
+			Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
+
+			// check for REPLACE permission:
+			if (isLeafNodeNoCheck(node)) // on the parent node for leaf nodes
+				checkNodePermission(node.getParent(), Acl.REPLACE);
+			else
+				// on the node itself or the parent for interior nodes (parent will
+				// be ignored in case of the root node)
+				checkNodeOrParentPermission(node, Acl.REPLACE);
+
+			// Not checking REPLACE capability, node does not have to be modifiable
+			// to have an ACL associated with it. It should be possible to set
+			// ACLs everywhere, and the "Replace" Access Type seems to be given
+			// only for modifiable nodes.
+
+			// check that the new ACL is valid
+			if (node.isRoot() && (acl == null || !acl.isPermitted("*", Acl.ADD)))
+				// should be 405 "Forbidden" according to DMTND 7.7.1.2
+				throw new DmtException(node.getUri(),
+						DmtException.COMMAND_NOT_ALLOWED, "Root ACL must allow "
+								+ "the Add operation for all principals.");
 
-		if (acl == null || isEmptyAcl(acl))
-			acls.remove(node);
-		else
-			acls.put(node, acl);
+			if (acl == null || isEmptyAcl(acl))
+				acls.remove(node);
+			else
+				acls.put(node, acl);
 
-		getReadableDataSession(node).nodeChanged(node.getPath());
+			getReadableDataSession(node).nodeChanged(node.getPath());
 
-		enqueueEventWithCurrentAcl(DmtEvent.REPLACED, node, null);
+			enqueueEventWithCurrentAcl(DmtEvent.REPLACED, node, null);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	@Override
-	public synchronized MetaNode getMetaNode(String nodeUri)
+	public MetaNode getMetaNode(String nodeUri)
 			throws DmtException {
-		checkSession();
-		Node node = makeAbsoluteUri(nodeUri);
-		checkNodePermission(node, Acl.GET);
-		// not checking meta-data for the GET capability, meta-data should
-		// always be publicly available
-		MetaNode metaNode = null;
-		if (isScaffoldNode(nodeUri))
-			metaNode = new ScaffoldMetaNode();
-		else {
-			try {
-				metaNode = getMetaNodeNoCheck(node);
-			} catch (DmtException e) {
-				// if plugins does not provide such Metadata, then DmtAdmin must do that
-				if (e.getCode() == DmtException.NODE_NOT_FOUND && isSharedMountPoint(node)) 
-					metaNode = new SharedMountPointMetaNode( getParentScope(node));
-				else 
-					// forward original exception
-					throw e;
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+			Node node = makeAbsoluteUri(nodeUri);
+			checkNodePermission(node, Acl.GET);
+			// not checking meta-data for the GET capability, meta-data should
+			// always be publicly available
+			MetaNode metaNode = null;
+			if (isScaffoldNode(nodeUri))
+				metaNode = new ScaffoldMetaNode();
+			else {
+				try {
+					metaNode = getMetaNodeNoCheck(node);
+				} catch (DmtException e) {
+					// if plugins does not provide such Metadata, then DmtAdmin must do that
+					if (e.getCode() == DmtException.NODE_NOT_FOUND && isSharedMountPoint(node)) 
+						metaNode = new SharedMountPointMetaNode( getParentScope(node));
+					else 
+						// forward original exception
+						throw e;
+				}
 			}
+			return metaNode;
+		} finally {
+			lock.unlock();
 		}
-		return metaNode;
 	}
 	
 	/**
@@ -658,17 +734,22 @@ public class DmtSessionImpl implements DmtSession {
 	}
 
 	@Override
-	public synchronized DmtData getNodeValue(String nodeUri)
+	public DmtData getNodeValue(String nodeUri)
 			throws DmtException {
-		checkSession();
-		Node node = makeAbsoluteUri(nodeUri);
-		if (isScaffoldNode(nodeUri))
-			throw new DmtException(nodeUri, DmtException.COMMAND_NOT_ALLOWED, "This operation is not allowed on scaffold nodes.");
-		DmtData result = internalGetNodeValue(node);
-		if (result == null) {
-			throw new DmtException(nodeUri, DmtException.COMMAND_FAILED, "The node value cannot be null.");
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+			Node node = makeAbsoluteUri(nodeUri);
+			if (isScaffoldNode(nodeUri))
+				throw new DmtException(nodeUri, DmtException.COMMAND_NOT_ALLOWED, "This operation is not allowed on scaffold nodes.");
+			DmtData result = internalGetNodeValue(node);
+			if (result == null) {
+				throw new DmtException(nodeUri, DmtException.COMMAND_FAILED, "The node value cannot be null.");
+			}
+			return result;
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 
 	// also used by copy() to pass an already validated Node instead of a URI
@@ -679,6 +760,13 @@ public class DmtSessionImpl implements DmtSession {
 		boolean isLeafNode = pluginSession.isLeafNode(node.getPath());
 
 		DmtData data = pluginSession.getNodeValue(node.getPath());
+		checkDataFormat(node, isLeafNode, data);
+
+		return data;
+	}
+
+	private void checkDataFormat(Node node, boolean isLeafNode, DmtData data)
+			throws DmtException {
 		if (data != null ) {
 			boolean isLeafData = data.getFormat() != DmtData.FORMAT_NODE;
 			if (isLeafNode != isLeafData)
@@ -688,8 +776,132 @@ public class DmtSessionImpl implements DmtSession {
 						"Error retrieving node value, the type of the data "
 								+ "returned by the plugin does not match the node type.");
 		}
+	}
 
-		return data;
+	@Override
+	public DmtData[] getNodeValues(String[] nodeUris)
+			throws DmtException {
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+			if (nodeUris == null)
+				throw new DmtException((String) null, DmtException.INVALID_URI,
+						"The node URI array is null.");
+			Node[] nodes = new Node[nodeUris.length];
+			for (int i = 0; i < nodeUris.length; i++) {
+				nodes[i] = makeAbsoluteUri(nodeUris[i]);
+				if (isScaffoldNode(nodes[i]))
+					throw new DmtException(nodeUris[i], DmtException.COMMAND_NOT_ALLOWED, "This operation is not allowed on scaffold nodes.");
+			}
+			return internalGetNodeValues(nodes, false);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Map<String,DmtData> getSubtreeValues(String nodeUri,
+			int depth) throws DmtException {
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+			Node node = makeAbsoluteUri(nodeUri);
+			boolean isScaffold = isScaffoldNode(node);
+			if (!isScaffold)
+				checkNode(node, SHOULD_EXIST);
+
+			// a local caller that may read the whole subtree is only checked once
+			if (principal == null && hasLocalSubtreePermission(node, Acl.GET))
+				readableSubtree.set(node);
+			try {
+				List<Node> leafNodes = new ArrayList<>();
+				List<String> leafUris = new ArrayList<>();
+				collectLeafNodes(node, isScaffold, nodeUri, depth, leafNodes,
+						leafUris);
+
+				DmtData[] data = internalGetNodeValues(
+						leafNodes.toArray(new Node[leafNodes.size()]), true);
+				Map<String,DmtData> values = new LinkedHashMap<>();
+				for (int i = 0; i < data.length; i++)
+					values.put(leafUris.get(i), data[i]);
+				return values;
+			} finally {
+				readableSubtree.remove();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// collects the leaf nodes of the subtree in depth first order, checking
+	// Get permissions on the traversed interior nodes
+	private void collectLeafNodes(Node node, boolean isScaffold, String uri,
+			int depth, List<Node> leafNodes, List<String> leafUris)
+			throws DmtException {
+		if (!isScaffold && isLeafNodeNoCheck(node)) {
+			leafNodes.add(node);
+			leafUris.add(uri);
+			return;
+		}
+		if (depth == 0)
+			return;
+
+		String prefix = uri.length() == 0 ? "" : uri + "/";
+		// sorted by internalGetChildNodeNames
+		String[] children = internalGetChildNodeNames(node);
+		for (int i = 0; i < children.length; i++) {
+			Node child = node.appendSegment(children[i]);
+			collectLeafNodes(child, isScaffoldNode(child), prefix + children[i],
+					depth - 1, leafNodes, leafUris);
+		}
+	}
+
+	// Reads the values of the given nodes, asking each plugin session for the
+	// values of all its nodes at once. The nodes must not be scaffold nodes.
+	// If they are all known to be leaf nodes the plugins are not asked again.
+	private DmtData[] internalGetNodeValues(Node[] nodes, boolean leafNodes)
+			throws DmtException {
+		Map<PluginSessionWrapper,List<Integer>> pluginNodes = new LinkedHashMap<>();
+		for (int i = 0; i < nodes.length; i++) {
+			checkOperation(nodes[i], Acl.GET, MetaNode.CMD_GET);
+			PluginSessionWrapper pluginSession = getPluginSession(nodes[i],
+					false);
+			List<Integer> indexes = pluginNodes.get(pluginSession);
+			if (indexes == null) {
+				indexes = new ArrayList<>();
+				pluginNodes.put(pluginSession, indexes);
+			}
+			indexes.add(Integer.valueOf(i));
+		}
+
+		DmtData[] values = new DmtData[nodes.length];
+		for (Map.Entry<PluginSessionWrapper,List<Integer>> entry : pluginNodes
+				.entrySet()) {
+			PluginSessionWrapper pluginSession = entry.getKey();
+			List<Integer> indexes = entry.getValue();
+			String[][] paths = new String[indexes.size()][];
+			for (int j = 0; j < paths.length; j++)
+				paths[j] = nodes[indexes.get(j).intValue()].getPath();
+
+			DmtData[] data = pluginSession.getNodeValues(paths);
+			if (data == null || data.length != paths.length)
+				throw new DmtException(pluginSession.getSessionRoot().getUri(),
+						DmtException.COMMAND_FAILED,
+						"The plugin returned a wrong number of node values.");
+
+			for (int j = 0; j < paths.length; j++) {
+				Node node = nodes[indexes.get(j).intValue()];
+				if (data[j] == null)
+					throw new DmtException(node.getUri(),
+							DmtException.COMMAND_FAILED,
+							"The node value cannot be null.");
+				checkDataFormat(node,
+						leafNodes || pluginSession.isLeafNode(paths[j]),
+						data[j]);
+				values[indexes.get(j).intValue()] = data[j];
+			}
+		}
+		return values;
 	}
 
 	private void checkDescendantGetPermissions(Node node) throws DmtException {
@@ -707,11 +919,16 @@ public class DmtSessionImpl implements DmtSession {
 	}
 
 	@Override
-	public synchronized String[] getChildNodeNames(String nodeUri)
+	public String[] getChildNodeNames(String nodeUri)
 			throws DmtException {
-		checkSession();
-		Node node = makeAbsoluteUri(nodeUri);
-		return internalGetChildNodeNames(node);
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+			Node node = makeAbsoluteUri(nodeUri);
+			return internalGetChildNodeNames(node);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// public String[] getChildNodeNames(String[] nodePath) throws DmtException
@@ -825,13 +1042,18 @@ public class DmtSessionImpl implements DmtSession {
 
 	// GET property op
 	@Override
-	public synchronized String getNodeTitle(String nodeUri) throws DmtException {
-		checkSession();
-		Node node = makeAbsoluteUri(nodeUri);
-		if (isScaffoldNode(nodeUri))
-			return null;
-		else
-			return internalGetNodeTitle(node);
+	public String getNodeTitle(String nodeUri) throws DmtException {
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+			Node node = makeAbsoluteUri(nodeUri);
+			if (isScaffoldNode(nodeUri))
+				return null;
+			else
+				return internalGetNodeTitle(node);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// also used by copy() to pass an already validated Node instead of a URI
@@ -843,57 +1065,77 @@ public class DmtSessionImpl implements DmtSession {
 
 	// GET property op
 	@Override
-	public synchronized int getNodeVersion(String nodeUri) throws DmtException {
-		checkSession();
-//		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
-		Node node = makeAbsoluteUri(nodeUri);
-		checkOperation(node, Acl.GET, MetaNode.CMD_GET);
-		if (isScaffoldNode(nodeUri))
-			return 0;
-		else
-			return getReadableDataSession(node).getNodeVersion(node.getPath());
+	public int getNodeVersion(String nodeUri) throws DmtException {
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+	//		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
+			Node node = makeAbsoluteUri(nodeUri);
+			checkOperation(node, Acl.GET, MetaNode.CMD_GET);
+			if (isScaffoldNode(nodeUri))
+				return 0;
+			else
+				return getReadableDataSession(node).getNodeVersion(node.getPath());
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// GET property op
 	@Override
-	public synchronized Date getNodeTimestamp(String nodeUri)
+	public Date getNodeTimestamp(String nodeUri)
 			throws DmtException {
-		checkSession();
-//		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
-		Node node = makeAbsoluteUri(nodeUri);
-		checkOperation(node, Acl.GET, MetaNode.CMD_GET);
-		// return the node/segments creation time, if it's a timestamp 
-		if (isScaffoldNode(node))
-			return context.getPluginDispatcher().findSegment(node.getPath()).getCreationTime();
-//			throw new DmtException(node.getPath(),
-//					DmtException.FEATURE_NOT_SUPPORTED,
-//					"Timestamp is not available for this node from the DMTSubtree.");
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+	//		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
+			Node node = makeAbsoluteUri(nodeUri);
+			checkOperation(node, Acl.GET, MetaNode.CMD_GET);
+			// return the node/segments creation time, if it's a timestamp 
+			if (isScaffoldNode(node))
+				return context.getPluginDispatcher().findSegment(node.getPath()).getCreationTime();
+	//			throw new DmtException(node.getPath(),
+	//					DmtException.FEATURE_NOT_SUPPORTED,
+	//					"Timestamp is not available for this node from the DMTSubtree.");
 
-		return getReadableDataSession(node).getNodeTimestamp(node.getPath());
+			return getReadableDataSession(node).getNodeTimestamp(node.getPath());
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// GET property op
 	@Override
-	public synchronized int getNodeSize(String nodeUri) throws DmtException {
-		checkSession();
-		Node node = makeAbsoluteUri(nodeUri);
-		if ( isLeafNodeNoCheck(node) ) {
-			checkOperation(node, Acl.GET, MetaNode.CMD_GET);
-			return getReadableDataSession(node).getNodeSize(node.getPath());
+	public int getNodeSize(String nodeUri) throws DmtException {
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+			Node node = makeAbsoluteUri(nodeUri);
+			if ( isLeafNodeNoCheck(node) ) {
+				checkOperation(node, Acl.GET, MetaNode.CMD_GET);
+				return getReadableDataSession(node).getNodeSize(node.getPath());
+			}
+			else 
+				throw new DmtException(nodeUri, DmtException.COMMAND_NOT_ALLOWED, "getNodeSize is not allowed on non-leaf nodes" );
+		} finally {
+			lock.unlock();
 		}
-		else 
-			throw new DmtException(nodeUri, DmtException.COMMAND_NOT_ALLOWED, "getNodeSize is not allowed on non-leaf nodes" );
 	}
 
 	// GET property op
 	@Override
-	public synchronized String getNodeType(String nodeUri) throws DmtException {
-		checkSession();
-		Node node = makeAbsoluteUri(nodeUri);
-		if (isScaffoldNode(nodeUri))
-			return DmtConstants.DDF_SCAFFOLD;
-		else
-			return internalGetNodeType(node);
+	public String getNodeType(String nodeUri) throws DmtException {
+		Lock lock = lockForReading();
+		try {
+			checkSession();
+			Node node = makeAbsoluteUri(nodeUri);
+			if (isScaffoldNode(nodeUri))
+				return DmtConstants.DDF_SCAFFOLD;
+			else
+				return internalGetNodeType(node);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// also used by copy() to pass an already validated Node instead of a URI
@@ -905,18 +1147,23 @@ public class DmtSessionImpl implements DmtSession {
 
 	// REPLACE property op
 	@Override
-	public synchronized void setNodeTitle(String nodeUri, String title)
+	public void setNodeTitle(String nodeUri, String title)
 			throws DmtException {
-		checkWriteSession();
-		Node node = makeAbsoluteUri(nodeUri);
+		Lock lock = lockForWriting();
+		try {
+			checkWriteSession();
+			Node node = makeAbsoluteUri(nodeUri);
 
-		if (isScaffoldNode(nodeUri))
-			throw new DmtException(node.getPath(),
-					DmtException.COMMAND_NOT_ALLOWED,
-					"setting of the node title is not allowed for node: "
-							+ node.getPath());
+			if (isScaffoldNode(nodeUri))
+				throw new DmtException(node.getPath(),
+						DmtException.COMMAND_NOT_ALLOWED,
+						"setting of the node title is not allowed for node: "
+								+ node.getPath());
 
-		internalSetNodeTitle(node, title, true); // send event if successful
+			internalSetNodeTitle(node, title, true); // send event if successful
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// also used by copy() to pass an already validated Node instead of a URI
@@ -942,29 +1189,58 @@ public class DmtSessionImpl implements DmtSession {
 	}
 
 	@Override
-	public synchronized void setNodeValue(String nodeUri, DmtData data)
+	public void setNodeValue(String nodeUri, DmtData data)
 			throws DmtException {
-		if (isScaffoldNode(nodeUri)) {
-			Node node = makeAbsoluteUri(nodeUri);
-			throw new DmtException(node.getPath(),
-					DmtException.COMMAND_NOT_ALLOWED,
-					"setting of the node value is not allowed for node: "
-							+ node.getPath());
+		Lock lock = lockForWriting();
+		try {
+			if (isScaffoldNode(nodeUri)) {
+				Node node = makeAbsoluteUri(nodeUri);
+				throw new DmtException(node.getPath(),
+						DmtException.COMMAND_NOT_ALLOWED,
+						"setting of the node value is not allowed for node: "
+								+ node.getPath());
+			}
+			commonSetNodeValue(nodeUri, data);
+		} finally {
+			lock.unlock();
 		}
-		commonSetNodeValue(nodeUri, data);
 	}
 
 	@Override
-	public synchronized void setDefaultNodeValue(String nodeUri)
+	public void setDefaultNodeValue(String nodeUri)
 			throws DmtException {
-		if (isScaffoldNode(nodeUri)) {
-			Node node = makeAbsoluteUri(nodeUri);
-			throw new DmtException(node.getPath(),
-					DmtException.COMMAND_NOT_ALLOWED,
-					"setting of the default node value is not allowed for node: "
-							+ node.getPath());
+		Lock lock = lockForWriting();
+		try {
+			if (isScaffoldNode(nodeUri)) {
+				Node node = makeAbsoluteUri(nodeUri);
+				throw new DmtException(node.getPath(),
+						DmtException.COMMAND_NOT_ALLOWED,
+						"setting of the default node value is not allowed for node: "
+								+ node.getPath());
+			}
+			commonSetNodeValue(nodeUri, null);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void setNodeValues(String[] nodeUris, DmtData[] data)
+			throws DmtException {
+		Lock lock = lockForWriting();
+		try {
+			checkWriteSession();
+			if (nodeUris == null)
+				throw new DmtException((String) null, DmtException.INVALID_URI,
+						"The node URI array is null.");
+			if (data == null || data.length != nodeUris.length)
+				throw new DmtException((String) null, DmtException.COMMAND_FAILED,
+						"The number of values does not match the number of URIs.");
+			for (int i = 0; i < nodeUris.length; i++)
+				setNodeValue(nodeUris[i], data[i]);
+		} finally {
+			lock.unlock();
 		}
-		commonSetNodeValue(nodeUri, null);
 	}
 
 	private void commonSetNodeValue(String nodeUri, DmtData data)
@@ -1010,110 +1286,130 @@ public class DmtSessionImpl implements DmtSession {
 
 	// SyncML DMTND 7.5 (p16) Type: only the Get command is applicable!
 	@Override
-	public synchronized void setNodeType(String nodeUri, String type)
+	public void setNodeType(String nodeUri, String type)
 			throws DmtException {
-		checkWriteSession();
-		if (isScaffoldNode(nodeUri)) {
-			Node node = makeAbsoluteUri(nodeUri);
-			throw new DmtException(node.getPath(),
-					DmtException.COMMAND_NOT_ALLOWED,
-					"setting of the node type is not allowed for node: "
-							+ node.getPath());
-		}
+		Lock lock = lockForWriting();
+		try {
+			checkWriteSession();
+			if (isScaffoldNode(nodeUri)) {
+				Node node = makeAbsoluteUri(nodeUri);
+				throw new DmtException(node.getPath(),
+						DmtException.COMMAND_NOT_ALLOWED,
+						"setting of the node type is not allowed for node: "
+								+ node.getPath());
+			}
 
-//		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
-		Node node = makeAbsoluteUri(nodeUri);
-		checkOperation(node, Acl.REPLACE, MetaNode.CMD_REPLACE);
+	//		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
+			Node node = makeAbsoluteUri(nodeUri);
+			checkOperation(node, Acl.REPLACE, MetaNode.CMD_REPLACE);
 
-		MetaNode metaNode = getMetaNodeNoCheck(node);
-		if (metaNode != null && metaNode.getScope() == MetaNode.PERMANENT)
-			throw new DmtException(node.getUri(),
-					DmtException.METADATA_MISMATCH,
-					"Cannot set type property of permanent node.");
+			MetaNode metaNode = getMetaNodeNoCheck(node);
+			if (metaNode != null && metaNode.getScope() == MetaNode.PERMANENT)
+				throw new DmtException(node.getUri(),
+						DmtException.METADATA_MISMATCH,
+						"Cannot set type property of permanent node.");
 
-		if (isLeafNodeNoCheck(node))
-			checkMimeType(node, type);
+			if (isLeafNodeNoCheck(node))
+				checkMimeType(node, type);
 
-		// could check type string for interior nodes, but this impl. does not
-		// handle it anyway, so we leave it to the plugins if they need it
-		// (same in createInteriorNode/2)
+			// could check type string for interior nodes, but this impl. does not
+			// handle it anyway, so we leave it to the plugins if they need it
+			// (same in createInteriorNode/2)
 
-		getReadWriteDataSession(node).setNodeType(node.getPath(), type);
-		enqueueEventWithCurrentAcl(DmtEvent.REPLACED, node, null);
+			getReadWriteDataSession(node).setNodeType(node.getPath(), type);
+			enqueueEventWithCurrentAcl(DmtEvent.REPLACED, node, null);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	@Override
-	public synchronized void deleteNode(String nodeUri) throws DmtException {
-		checkWriteSession();
-		if (isScaffoldNode(nodeUri)) {
-			Node node = makeAbsoluteUri(nodeUri);
-			throw new DmtException(node.getPath(),
-					DmtException.COMMAND_NOT_ALLOWED,
-					"deleting is not allowed for node: " + node.getPath());
-		}
-
-		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
-
-		// sub-case of the next check, but gives a more specific error
-		if (node.isRoot())
-			throw new DmtException(node.getUri(),
-					DmtException.COMMAND_NOT_ALLOWED,
-					"Cannot delete root node.");
+	public void deleteNode(String nodeUri) throws DmtException {
+		Lock lock = lockForWriting();
+		try {
+			checkWriteSession();
+			if (isScaffoldNode(nodeUri)) {
+				Node node = makeAbsoluteUri(nodeUri);
+				throw new DmtException(node.getPath(),
+						DmtException.COMMAND_NOT_ALLOWED,
+						"deleting is not allowed for node: " + node.getPath());
+			}
 
-		if (node.equals(subtreeNode))
-			throw new DmtException(node.getUri(),
-					DmtException.COMMAND_NOT_ALLOWED,
-					"Cannot delete root node of the session.");
+			Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
 
-		checkOperation(node, Acl.DELETE, MetaNode.CMD_DELETE);
+			// sub-case of the next check, but gives a more specific error
+			if (node.isRoot())
+				throw new DmtException(node.getUri(),
+						DmtException.COMMAND_NOT_ALLOWED,
+						"Cannot delete root node.");
 
-		MetaNode metaNode = getMetaNodeNoCheck(node);
-		if (metaNode != null) {
-			if (metaNode.getScope() == MetaNode.PERMANENT)
+			if (node.equals(subtreeNode))
 				throw new DmtException(node.getUri(),
-						DmtException.METADATA_MISMATCH,
-						"Cannot delete permanent node.");
+						DmtException.COMMAND_NOT_ALLOWED,
+						"Cannot delete root node of the session.");
 
-			if (!metaNode.isZeroOccurrenceAllowed()) {
-				// maxOccurrence == 1 means that there cannot be other instances
-				// of this node, so it cannot be deleted. If maxOccurrence > 1
-				// then we have to check whether this is the last one.
-				if (metaNode.getMaxOccurrence() == 1)
-					throw new DmtException(node.getUri(),
-							DmtException.METADATA_MISMATCH,
-							"Metadata does not allow deleting the only "
-									+ "instance of this node.");
-				checkNodeIsInSession(node.getParent(), "(needed to determine"
-						+ "the number of siblings of the given node) ");
-				if (getNodeCardinality(node) == 1)
+			checkOperation(node, Acl.DELETE, MetaNode.CMD_DELETE);
+
+			MetaNode metaNode = getMetaNodeNoCheck(node);
+			if (metaNode != null) {
+				if (metaNode.getScope() == MetaNode.PERMANENT)
 					throw new DmtException(node.getUri(),
 							DmtException.METADATA_MISMATCH,
-							"Metadata does not allow deleting the last "
-									+ "instance of this node.");
+							"Cannot delete permanent node.");
+
+				if (!metaNode.isZeroOccurrenceAllowed()) {
+					// maxOccurrence == 1 means that there cannot be other instances
+					// of this node, so it cannot be deleted. If maxOccurrence > 1
+					// then we have to check whether this is the last one.
+					if (metaNode.getMaxOccurrence() == 1)
+						throw new DmtException(node.getUri(),
+								DmtException.METADATA_MISMATCH,
+								"Metadata does not allow deleting the only "
+										+ "instance of this node.");
+					checkNodeIsInSession(node.getParent(), "(needed to determine"
+							+ "the number of siblings of the given node) ");
+					if (getNodeCardinality(node) == 1)
+						throw new DmtException(node.getUri(),
+								DmtException.METADATA_MISMATCH,
+								"Metadata does not allow deleting the last "
+										+ "instance of this node.");
+				}
 			}
-		}
 
-		getReadWriteDataSession(node).deleteNode(node.getPath());
-		Acl acl = getEffectiveNodeAclNoCheck(node);
-		moveAclEntries(node, null);
-		enqueueEvent(DmtEvent.DELETED, node, null, acl);
+			getReadWriteDataSession(node).deleteNode(node.getPath());
+			Acl acl = getEffectiveNodeAclNoCheck(node);
+			moveAclEntries(node, null);
+			enqueueEvent(DmtEvent.DELETED, node, null, acl);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	@Override
-	public synchronized void createInteriorNode(String nodeUri)
+	public void createInteriorNode(String nodeUri)
 			throws DmtException {
-		checkWriteSession();
-		Node node = makeAbsoluteUri(nodeUri);
+		Lock lock = lockForWriting();
+		try {
+			checkWriteSession();
+			Node node = makeAbsoluteUri(nodeUri);
 
-		commonCreateInteriorNode(node, null, true, false);
+			commonCreateInteriorNode(node, null, true, false);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	@Override
-	public synchronized void createInteriorNode(String nodeUri, String type)
+	public void createInteriorNode(String nodeUri, String type)
 			throws DmtException {
-		checkWriteSession();
-		Node node = makeAbsoluteUri(nodeUri);
-		commonCreateInteriorNode(node, type, true, false);
+		Lock lock = lockForWriting();
+		try {
+			checkWriteSession();
+			Node node = makeAbsoluteUri(nodeUri);
+			commonCreateInteriorNode(node, type, true, false);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// - used by the other createInteriorNode variants
@@ -1175,28 +1471,43 @@ public class DmtSessionImpl implements DmtSession {
 	}
 
 	@Override
-	public synchronized void createLeafNode(String nodeUri) throws DmtException {
-		// not calling createLeafNode/3, because it is wrapped
-		checkWriteSession();
-		Node node = makeAbsoluteUri(nodeUri);
-		commonCreateLeafNode(node, null, null, true);
+	public void createLeafNode(String nodeUri) throws DmtException {
+		Lock lock = lockForWriting();
+		try {
+			// not calling createLeafNode/3, because it is wrapped
+			checkWriteSession();
+			Node node = makeAbsoluteUri(nodeUri);
+			commonCreateLeafNode(node, null, null, true);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	@Override
-	public synchronized void createLeafNode(String nodeUri, DmtData value)
+	public void createLeafNode(String nodeUri, DmtData value)
 			throws DmtException {
-		// not calling createLeafNode/3, because it is wrapped
-		checkWriteSession();
-		Node node = makeAbsoluteUri(nodeUri);
-		commonCreateLeafNode(node, value, null, true);
+		Lock lock = lockForWriting();
+		try {
+			// not calling createLeafNode/3, because it is wrapped
+			checkWriteSession();
+			Node node = makeAbsoluteUri(nodeUri);
+			commonCreateLeafNode(node, value, null, true);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	@Override
-	public synchronized void createLeafNode(String nodeUri, DmtData value,
+	public void createLeafNode(String nodeUri, DmtData value,
 			String mimeType) throws DmtException {
-		checkWriteSession();
-		Node node = makeAbsoluteUri(nodeUri);
-		commonCreateLeafNode(node, value, mimeType, true);
+		Lock lock = lockForWriting();
+		try {
+			checkWriteSession();
+			Node node = makeAbsoluteUri(nodeUri);
+			commonCreateLeafNode(node, value, mimeType, true);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	// - used by the other createLeafNode variants
@@ -1248,163 +1559,173 @@ public class DmtSessionImpl implements DmtSession {
 	// Tree may be left in an inconsistent state if there is an error when only
 	// part of the tree has been copied.
 	@Override
-	public synchronized void copy(String nodeUri, String newNodeUri,
+	public void copy(String nodeUri, String newNodeUri,
 			boolean recursive) throws DmtException {
-		checkWriteSession();
-		// SD: allow recursive copy operation on scaffold node
-		if (isScaffoldNode(nodeUri) && recursive == false) {
-			Node node = makeAbsoluteUri(nodeUri);
-			throw new DmtException(node.getPath(),
-					DmtException.COMMAND_NOT_ALLOWED,
-					"non-recursive copy action is not allowed for scaffold node: " + node.getPath());
-		}
+		Lock lock = lockForWriting();
+		try {
+			checkWriteSession();
+			// SD: allow recursive copy operation on scaffold node
+			if (isScaffoldNode(nodeUri) && recursive == false) {
+				Node node = makeAbsoluteUri(nodeUri);
+				throw new DmtException(node.getPath(),
+						DmtException.COMMAND_NOT_ALLOWED,
+						"non-recursive copy action is not allowed for scaffold node: " + node.getPath());
+			}
 
-		// TODO: Bundlefest simplification
+			// TODO: Bundlefest simplification
 
-		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
-		Node newNode = makeAbsoluteUriAndCheck(newNodeUri, SHOULD_NOT_EXIST);
-		if (node.isAncestorOf(newNode))
-			throw new DmtException(node.getUri(),
-					DmtException.COMMAND_NOT_ALLOWED,
-					"Cannot copy node to its descendant, '" + newNode + "'.");
+			Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
+			Node newNode = makeAbsoluteUriAndCheck(newNodeUri, SHOULD_NOT_EXIST);
+			if (node.isAncestorOf(newNode))
+				throw new DmtException(node.getUri(),
+						DmtException.COMMAND_NOT_ALLOWED,
+						"Cannot copy node to its descendant, '" + newNode + "'.");
 
-		// SD: This check is not valid anymore in the new implementation,
-		// because different parts of a nodes subtree can be handled by
-		// different plugins
-		// rather check for existing mountpoints below this node
+			// SD: This check is not valid anymore in the new implementation,
+			// because different parts of a nodes subtree can be handled by
+			// different plugins
+			// rather check for existing mountpoints below this node
 
-		// if (context.getPluginDispatcher()
-		// .handledBySameDataPlugin(node, newNode)) {
-		Plugin<DataPlugin> plugin = context.getPluginDispatcher()
-				.getDataPluginFor(
-				Uri.toPath(nodeUri));
-		if ((plugin.getMountPoints() == null || plugin.getMountPoints().size() == 0)) {
+			// if (context.getPluginDispatcher()
+			// .handledBySameDataPlugin(node, newNode)) {
+			Plugin<DataPlugin> plugin = context.getPluginDispatcher()
+					.getDataPluginFor(
+					node.getPath());
+			if ((plugin.getMountPoints() == null || plugin.getMountPoints().size() == 0)) {
 
-			Node newParentNode = newNode.getParent();
-			// newParentNode cannot be null, because newNode is a valid absolute
-			// nonexisting node, so it cannot be the root
+				Node newParentNode = newNode.getParent();
+				// newParentNode cannot be null, because newNode is a valid absolute
+				// nonexisting node, so it cannot be the root
 
-			ensureInteriorAncestors(newParentNode, false);
+				ensureInteriorAncestors(newParentNode, false);
 
-			// DMTND 7.7.1.5: "needs correct access rights for the equivalent
-			// Add, Delete, Get, and Replace commands"
-			copyPermissionCheck(node, newParentNode, newNode, recursive);
+				// DMTND 7.7.1.5: "needs correct access rights for the equivalent
+				// Add, Delete, Get, and Replace commands"
+				copyPermissionCheck(node, newParentNode, newNode, recursive);
 
-			checkNodeCapability(node, MetaNode.CMD_GET);
-			checkNodeCapability(newNode, MetaNode.CMD_ADD);
+				checkNodeCapability(node, MetaNode.CMD_GET);
+				checkNodeCapability(newNode, MetaNode.CMD_ADD);
 
-			checkNewNode(newNode);
-			checkMaxOccurrence(newNode);
+				checkNewNode(newNode);
+				checkMaxOccurrence(newNode);
 
-			// for leaf nodes: since we are not passing a data object to the
-			// plugin, checking the value and mime-type against the new
-			// meta-data is the responsibility of the plugin itself
+				// for leaf nodes: since we are not passing a data object to the
+				// plugin, checking the value and mime-type against the new
+				// meta-data is the responsibility of the plugin itself
 
-			try {
-				getReadWriteDataSession(newNode).copy(node.getPath(),
-						newNode.getPath(), recursive);
-				assignNewNodePermissions(newNode, newParentNode);
-			} catch (DmtException e) {
-				// fall back to generic algorithm if plugin doesn't support copy
-				if (e.getCode() != DmtException.FEATURE_NOT_SUPPORTED)
-					throw e;
+				try {
+					getReadWriteDataSession(newNode).copy(node.getPath(),
+							newNode.getPath(), recursive);
+					assignNewNodePermissions(newNode, newParentNode);
+				} catch (DmtException e) {
+					// fall back to generic algorithm if plugin doesn't support copy
+					if (e.getCode() != DmtException.FEATURE_NOT_SUPPORTED)
+						throw e;
 
-				// the above checks will be performed again, but we cannot even
-				// attempt to call the plugin without them
-				copyNoCheck(node, newNode, recursive);
-			}
-		} else
-			copyNoCheck(node, newNode, recursive); // does not trigger events
+					// the above checks will be performed again, but we cannot even
+					// attempt to call the plugin without them
+					copyNoCheck(node, newNode, recursive);
+				}
+			} else
+				copyNoCheck(node, newNode, recursive); // does not trigger events
 
-		Acl acl = getEffectiveNodeAclNoCheck(node);
-		Acl newAcl = getEffectiveNodeAclNoCheck(newNode);
-		Acl mergedAcl = mergeAcls(acl, newAcl);
-		enqueueEvent(DmtEvent.COPIED, node, newNode, mergedAcl);
+			Acl acl = getEffectiveNodeAclNoCheck(node);
+			Acl newAcl = getEffectiveNodeAclNoCheck(newNode);
+			Acl mergedAcl = mergeAcls(acl, newAcl);
+			enqueueEvent(DmtEvent.COPIED, node, newNode, mergedAcl);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	@Override
-	public synchronized void renameNode(String nodeUri, String newNodeName)
+	public void renameNode(String nodeUri, String newNodeName)
 			throws DmtException {
-		checkWriteSession();
-		if (isScaffoldNode(nodeUri)) {
-			Node node = makeAbsoluteUri(nodeUri);
-			throw new DmtException(node.getPath(),
-					DmtException.COMMAND_NOT_ALLOWED,
-					"renaming actions are not allowed for node: "
-							+ node.getPath());
-		}
+		Lock lock = lockForWriting();
+		try {
+			checkWriteSession();
+			if (isScaffoldNode(nodeUri)) {
+				Node node = makeAbsoluteUri(nodeUri);
+				throw new DmtException(node.getPath(),
+						DmtException.COMMAND_NOT_ALLOWED,
+						"renaming actions are not allowed for node: "
+								+ node.getPath());
+			}
 
-		Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
-		Node parent = node.getParent();
+			Node node = makeAbsoluteUriAndCheck(nodeUri, SHOULD_EXIST);
+			Node parent = node.getParent();
 
-		// sub-case of the next check, but gives a more specific error
-		if (parent == null)
-			throw new DmtException(node.getUri(),
-					DmtException.COMMAND_NOT_ALLOWED,
-					"Cannot rename root node.");
-
-		// SD: reordered a bit
-		checkOperation(node, Acl.REPLACE, MetaNode.CMD_REPLACE);
+			// sub-case of the next check, but gives a more specific error
+			if (parent == null)
+				throw new DmtException(node.getUri(),
+						DmtException.COMMAND_NOT_ALLOWED,
+						"Cannot rename root node.");
 
-		if (node.equals(subtreeNode))
-			throw new DmtException(node.getUri(),
-					DmtException.COMMAND_NOT_ALLOWED,
-					"Cannot rename root node of the session.");
+			// SD: reordered a bit
+			checkOperation(node, Acl.REPLACE, MetaNode.CMD_REPLACE);
 
-		String newName = Node.validateAndNormalizeNodeName(newNodeName);
-		Node newNode = parent.appendSegment(newName);
-		checkNode(newNode, SHOULD_NOT_EXIST);
-		checkNewNode(newNode);
+			if (node.equals(subtreeNode))
+				throw new DmtException(node.getUri(),
+						DmtException.COMMAND_NOT_ALLOWED,
+						"Cannot rename root node of the session.");
 
-		MetaNode metaNode = getMetaNodeNoCheck(node);
-		MetaNode newMetaNode = getMetaNodeNoCheck(newNode);
+			String newName = Node.validateAndNormalizeNodeName(newNodeName);
+			Node newNode = parent.appendSegment(newName);
+			checkNode(newNode, SHOULD_NOT_EXIST);
+			checkNewNode(newNode);
 
-		if (metaNode != null) {
-			if (metaNode.getScope() == MetaNode.PERMANENT)
-				throw new DmtException(node.getUri(),
-						DmtException.METADATA_MISMATCH,
-						"Cannot rename permanent node.");
+			MetaNode metaNode = getMetaNodeNoCheck(node);
+			MetaNode newMetaNode = getMetaNodeNoCheck(newNode);
 
-			int maxOcc = metaNode.getMaxOccurrence();
+			if (metaNode != null) {
+				if (metaNode.getScope() == MetaNode.PERMANENT)
+					throw new DmtException(node.getUri(),
+							DmtException.METADATA_MISMATCH,
+							"Cannot rename permanent node.");
+
+				int maxOcc = metaNode.getMaxOccurrence();
+
+				// sanity check: all siblings of a node must either have a
+				// cardinality of 1, or they must be part of the same multi-node
+				if (newMetaNode != null && maxOcc != newMetaNode.getMaxOccurrence())
+					throw new DmtException(
+							node.getUri(),
+							DmtException.COMMAND_FAILED,
+							"Cannot rename node, illegal meta-data found (a "
+									+ "member of a multi-node has a sibling with different "
+									+ "meta-data).");
+
+				// if this is a multi-node (maxOcc > 1), renaming does not affect
+				// the cardinality
+				if (maxOcc == 1 && !metaNode.isZeroOccurrenceAllowed())
+					throw new DmtException(node.getUri(),
+							DmtException.METADATA_MISMATCH,
+							"Metadata does not allow deleting last instance of "
+									+ "this node.");
+			}
 
-			// sanity check: all siblings of a node must either have a
-			// cardinality of 1, or they must be part of the same multi-node
-			if (newMetaNode != null && maxOcc != newMetaNode.getMaxOccurrence())
+			// the new node must be the same (leaf/interior) as the original
+			if (newMetaNode != null
+					&& newMetaNode.isLeaf() != isLeafNodeNoCheck(node))
 				throw new DmtException(
-						node.getUri(),
-						DmtException.COMMAND_FAILED,
-						"Cannot rename node, illegal meta-data found (a "
-								+ "member of a multi-node has a sibling with different "
-								+ "meta-data).");
-
-			// if this is a multi-node (maxOcc > 1), renaming does not affect
-			// the cardinality
-			if (maxOcc == 1 && !metaNode.isZeroOccurrenceAllowed())
-				throw new DmtException(node.getUri(),
+						newNode.getUri(),
 						DmtException.METADATA_MISMATCH,
-						"Metadata does not allow deleting last instance of "
-								+ "this node.");
-		}
+						"The destination of the rename operation is "
+								+ (newMetaNode.isLeaf() ? "a leaf" : "an interior")
+								+ " node according to the meta-data, which does not match "
+								+ "the source node.");
 
-		// the new node must be the same (leaf/interior) as the original
-		if (newMetaNode != null
-				&& newMetaNode.isLeaf() != isLeafNodeNoCheck(node))
-			throw new DmtException(
-					newNode.getUri(),
-					DmtException.METADATA_MISMATCH,
-					"The destination of the rename operation is "
-							+ (newMetaNode.isLeaf() ? "a leaf" : "an interior")
-							+ " node according to the meta-data, which does not match "
-							+ "the source node.");
-
-		// for leaf nodes: since we are not passing a data object to the
-		// plugin, checking the value and mime-type against the new
-		// meta-data is the responsibility of the plugin itself
+			// for leaf nodes: since we are not passing a data object to the
+			// plugin, checking the value and mime-type against the new
+			// meta-data is the responsibility of the plugin itself
 
-		getReadWriteDataSession(node).renameNode(node.getPath(), newName);
-		Acl acl = getEffectiveNodeAclNoCheck(node);
-		moveAclEntries(node, newNode);
-		enqueueEvent(DmtEvent.RENAMED, node, newNode, acl);
+			getReadWriteDataSession(node).renameNode(node.getPath(), newName);
+			Acl acl = getEffectiveNodeAclNoCheck(node);
+			moveAclEntries(node, newNode);
+			enqueueEvent(DmtEvent.RENAMED, node, newNode, acl);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -1445,6 +1766,21 @@ public class DmtSessionImpl implements DmtSession {
 						permissionCollection) });
 	}
 
+	// returns the locked session lock for a read operation
+	private Lock lockForReading() {
+		Lock lock = lockMode == LOCK_TYPE_SHARED ? sessionLock.readLock()
+				: sessionLock.writeLock();
+		lock.lock();
+		return lock;
+	}
+
+	// returns the locked session lock for a write operation or a state change
+	private Lock lockForWriting() {
+		Lock lock = sessionLock.writeLock();
+		lock.lock();
+		return lock;
+	}
+
 	private void checkSession() {
 		if (state != STATE_OPEN)
 			throw new DmtIllegalStateException(
@@ -1577,6 +1913,11 @@ public class DmtSessionImpl implements DmtSession {
 	// privileges are missing
 	private void checkNodePermission(Node node, int actions)
 			throws DmtException {
+		if (actions == Acl.GET) {
+			Node readable = readableSubtree.get();
+			if (readable != null && readable.isAncestorOf(node))
+				return;
+		}
 		checkNodeOrParentPermission(principal, node, actions, false);
 	}
 
@@ -1683,10 +2024,41 @@ public class DmtSessionImpl implements DmtSession {
 	}
 
 	// precondition: if 'writable' is true, session lock type must not be shared
-	// 'synchronized' is just indication, all entry points are synch'd anyway
-	private synchronized PluginSessionWrapper getPluginSession(Node node,
+	// Several readers of a shared session can get here at the same time, the
+	// open sessions are looked up without locking, but only one reader at a
+	// time may open a new plugin session.
+	private PluginSessionWrapper getPluginSession(Node node,
 			boolean writeOperation) throws DmtException {
+		// // Find the plugin that would/will handle the given node, and the
+		// root
+		// // of the (potential) session opened on it.
+		// PluginRegistration pluginRegistration =
+		// context.getPluginDispatcher().getDataPlugin(node);
+
+		// SD: path must be absolute
+		// get the reference of the responsible plugin from the new dispatcher
+		Plugin<DataPlugin> dispatcherPlugin = context.getPluginDispatcher()
+				.getDataPluginFor(node.getPath());
+		Node root = getLongestRootForPlugin(dispatcherPlugin, node);
 
+		PluginSessionWrapper wrappedPlugin = findPluginSession(node, root,
+				writeOperation);
+		if (wrappedPlugin != null)
+			return wrappedPlugin;
+
+		synchronized (dataPlugins) {
+			wrappedPlugin = findPluginSession(node, root, writeOperation);
+			if (wrappedPlugin != null)
+				return wrappedPlugin;
+			return openWrappedPluginSession(dispatcherPlugin, node, root,
+					writeOperation);
+		}
+	}
+
+	// returns the open plugin session that handles the given node, or null if
+	// a new session has to be opened on the given root
+	private PluginSessionWrapper findPluginSession(Node node, Node root,
+			boolean writeOperation) throws DmtException {
 		PluginSessionWrapper wrappedPlugin = null;
 		Node wrappedPluginRoot = null;
 
@@ -1704,18 +2076,6 @@ public class DmtSessionImpl implements DmtSession {
 			}
 		}
 
-		// // Find the plugin that would/will handle the given node, and the
-		// root
-		// // of the (potential) session opened on it.
-		// PluginRegistration pluginRegistration =
-		// context.getPluginDispatcher().getDataPlugin(node);
-
-		// SD: path must be absolute
-		// get the reference of the responsible plugin from the new dispatcher
-		Plugin<DataPlugin> dispatcherPlugin = context.getPluginDispatcher()
-				.getDataPluginFor(node.getPath());
-		Node root = getLongestRootForPlugin(dispatcherPlugin, node);
-
 		// If we found a plugin session handling the node, and the potential
 		// new plugin session root (defined by 'root') is not in its subtree,
 		// then use the open session. If there is no session yet, or if a new
@@ -1730,10 +2090,14 @@ public class DmtSessionImpl implements DmtSession {
 			return wrappedPlugin;
 		}
 
-		// No previously opened session found or another plugin that matches
-		// with a longer path, attempting to open session with
-		// correct lock type.
+		return null;
+	}
 
+	// No previously opened session found or another plugin that matches with
+	// a longer path, attempting to open session with correct lock type.
+	private PluginSessionWrapper openWrappedPluginSession(
+			Plugin<DataPlugin> dispatcherPlugin, Node node, Node root,
+			boolean writeOperation) throws DmtException {
 		DataPlugin plugin = context.getBundleContext().getService(
 				dispatcherPlugin.getReference());
 		ReadableDataSession pluginSession = null;
@@ -1753,11 +2117,12 @@ public class DmtSessionImpl implements DmtSession {
 			pluginSession = openPluginSession(plugin, root, pluginSessionType);
 		}
 
-		wrappedPlugin = new PluginSessionWrapper(
+		PluginSessionWrapper wrappedPlugin = new PluginSessionWrapper(
 				dispatcherPlugin.getReference(), pluginSession,
-				pluginSessionType, root, securityContext);
+				pluginSessionType, root,
+				getPluginRoot(dispatcherPlugin, node), securityContext,
+				dmtAdmin.getMetrics());
 
-		// this requires synchronized access
 		dataPlugins.add(wrappedPlugin);
 
 		// TODO: is this OK, while having the plugin "open" and "wrapped"
@@ -1767,18 +2132,23 @@ public class DmtSessionImpl implements DmtSession {
 
 	// SD: changed to return the longest root, instead of the first one found
 	private <P> Node getLongestRootForPlugin(Plugin<P> plugin, Node node) {
+		Node root = getPluginRoot(plugin, node);
+		return root.isAncestorOf(subtreeNode) ? subtreeNode : root;
+	}
+
+	// returns the deepest root the plugin is registered on that contains the
+	// given node
+	private <P> Node getPluginRoot(Plugin<P> plugin, Node node) {
 		// Node[] roots = plugin.getDataRoots();
 		List<Segment<P>> segments = plugin.getOwns();
 
 		Node longestRoot = null;
 		for (Segment<P> segment : segments) {
-			Node root = new Node(Uri.toPath(segment.getUri().toString()));
-			if (root.isAncestorOf(node)) {
-				Node n = root.isAncestorOf(subtreeNode) ? subtreeNode : root;
-				if (n.getUri().length() > ((longestRoot != null) ? longestRoot
-						.getUri().length() : 0))
-					longestRoot = n;
-			}
+			Node root = new Node(segment.getPath());
+			// all candidates are ancestors of 'node', the deepest one wins
+			if (root.isAncestorOf(node) && (longestRoot == null
+					|| root.getPath().length > longestRoot.getPath().length))
+				longestRoot = root;
 		}
 		if (longestRoot != null)
 			return longestRoot;
@@ -1790,7 +2160,8 @@ public class DmtSessionImpl implements DmtSession {
 			Node root, final int pluginSessionType) throws DmtException {
 
 		final DmtSession session = this;
-		final String[] rootPath = root.getPath();
+		// the plugin gets a copy of the segments of the shared node
+		final String[] rootPath = root.getPath().clone();
 
 		ReadableDataSession pluginSession;
 		try {
@@ -1997,12 +2368,8 @@ public class DmtSessionImpl implements DmtSession {
 	}
 
 	private Node makeAbsoluteUri(String nodeUri) throws DmtException {
-		// simple caching for validated uris
-		Node node = nodeUri != null ? (Node)getValidatedNodeCache().get(nodeUri) : null;
-		if ( node == null ) {
-			node = Node.validateAndNormalizeUri(nodeUri);
-			getValidatedNodeCache().put(nodeUri, node);
-		}
+		// validated uris are interned by Node
+		Node node = Node.validateAndNormalizeUri(nodeUri);
 		if (node.isAbsolute()) {
 			checkNodeIsInSession(node, "");
 			return node;
@@ -2056,39 +2423,11 @@ public class DmtSessionImpl implements DmtSession {
 	// Move ACL entries from 'node' to 'newNode'.
 	// If 'newNode' is 'null', the ACL entries are removed (moved to nowhere).
 	private static void moveAclEntries(Node node, Node newNode) {
-		synchronized (acls) {
-			Hashtable<Node,Acl> newEntries = null;
-			if (newNode != null)
-				newEntries = new Hashtable<>();
-			Iterator<Entry<Node,Acl>> i = acls.entrySet().iterator();
-			while (i.hasNext()) {
-				Entry<Node,Acl> entry = i.next();
-				Node relativeNode = node.getRelativeNode(entry.getKey());
-				if (relativeNode != null) {
-					if (newNode != null)
-						newEntries.put(
-								newNode.appendRelativeNode(relativeNode),
-								entry.getValue());
-					i.remove();
-				}
-			}
-			if (newNode != null)
-				acls.putAll(newEntries);
-		}
+		acls.move(node, newNode);
 	}
 
 	private static Acl getEffectiveNodeAclNoCheck(Node node) {
-		Acl acl;
-		synchronized (acls) {
-			acl = acls.get(node);
-			// must finish whithout NullPointerException, because root ACL must
-			// not be empty
-			while (acl == null || isEmptyAcl(acl)) {
-				node = node.getParent();
-				acl = acls.get(node);
-			}
-		}
-		return acl;
+		return acls.getEffective(node);
 	}
 
 	// precondition: node parameter must be an absolute node
@@ -2134,6 +2473,21 @@ public class DmtSessionImpl implements DmtSession {
 			sm.checkPermission(new DmtPermission(node.getUri(), actions));
 	}
 
+	// tells whether a local caller has the given permissions for all nodes in
+	// the subtree, checked with a single wildcard DmtPermission
+	private static boolean hasLocalSubtreePermission(Node node, int actions) {
+		SecurityManager sm = System.getSecurityManager();
+		if (sm == null)
+			return true;
+		try {
+			sm.checkPermission(new DmtPermission(node.getUri() + "*",
+					writeAclCommands(actions)));
+			return true;
+		} catch (SecurityException e) {
+			return false;
+		}
+	}
+
 	private static String capabilityName(int capability) {
 		switch (capability) {
 		case MetaNode.CMD_ADD:
@@ -2174,8 +2528,7 @@ public class DmtSessionImpl implements DmtSession {
 	}
 
 	static void init_acls() {
-		acls = new Hashtable<>();
-		acls.put(Node.ROOT_NODE, new Acl("Add=*&Get=*&Replace=*"));
+		acls = new AclStore(new Acl("Add=*&Get=*&Replace=*"));
 	}
 
 	@Override
@@ -2204,12 +2557,6 @@ public class DmtSessionImpl implements DmtSession {
 		return info.append(')').toString();
 	}
 
-	private Hashtable<String,Node> getValidatedNodeCache() {
-		if (validatedNodes == null)
-			validatedNodes = new Hashtable<>();
-		return validatedNodes;
-	}
-
 }
 
 
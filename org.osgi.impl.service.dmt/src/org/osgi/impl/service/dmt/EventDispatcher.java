@@ -22,11 +22,14 @@ import java.security.PrivilegedAction;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import org.osgi.framework.Bundle;
 import org.osgi.service.dmt.Acl;
@@ -39,39 +42,72 @@ import org.osgi.service.log.LogService;
 
 //Multi-purpose event store class:
 //- stores sets of node URIs for the different types of changes within an
-//atomic session
-//- contains a static event queue for the asynchronous local event delivery;
-//this queue is emptied by DmtAdminFactory, which forwards the events to all
-//locally registered DmtEventListeners
+//atomic session, merging consecutive changes of the same type into one event
+//- contains a static event queue for the asynchronous event delivery; this
+//queue is emptied by DmtAdminFactory, which completes the events, posts them
+//to Event Admin and forwards them to all locally registered DmtEventListeners,
+//so none of this work is done on the thread of the session
 public class EventDispatcher {
-	private static LinkedList<DmtEventCore> localEventQueue = new LinkedList<>();
+	private static LinkedList<PendingEvent>	eventQueue	= new LinkedList<>();
+	// set when the delivery thread is stopping, so that it no longer waits
+	// for new events but only takes the ones already queued
+	private static boolean					stopping	= false;
 
-	private static void postLocalEvent(DmtEventCore event) {
-		synchronized (localEventQueue) {
-			localEventQueue.addLast(event);
-			localEventQueue.notifyAll();
+	private static void postEvents(List<PendingEvent> pending) {
+		synchronized (eventQueue) {
+			eventQueue.addAll(pending);
+			eventQueue.notifyAll();
 		}
 	}
 
-	// Retrieve the next event from the queue. If there are no events, block
-	// until one is added, or until the given timeout time (in milliseconds) has
-	// elapsed. A timeout of zero blocks indefinitely. In case of timeout, or
-	// if the wait has been interrupted, the method returns "null".
+	static void startLocalEvents() {
+		synchronized (eventQueue) {
+			stopping = false;
+		}
+	}
+
+	// Wakes up the delivery thread. From now on getNextLocalEvent returns the
+	// events still in the queue without waiting, and then "null".
+	static void stopLocalEvents() {
+		synchronized (eventQueue) {
+			stopping = true;
+			eventQueue.notifyAll();
+		}
+	}
+
+	// Retrieve the next event from the queue, and post it to Event Admin. If
+	// there are no events, block until one is added, or until the given
+	// timeout time (in milliseconds) has elapsed. A timeout of zero blocks
+	// indefinitely. In case of timeout, if the wait has been interrupted, or
+	// if the queue is empty after stopLocalEvents, the method returns "null".
 	static DmtEventCore getNextLocalEvent(int timeout) {
-		synchronized (localEventQueue) {
-			if (localEventQueue.size() == 0) {
+		PendingEvent pending;
+		synchronized (eventQueue) {
+			if (eventQueue.size() == 0) {
+				if (stopping)
+					return null;
 				try {
-					localEventQueue.wait(timeout);
+					eventQueue.wait(timeout);
 				} catch (InterruptedException e) {
 					// do nothing
 				}
 
-				if (localEventQueue.size() == 0)
+				if (eventQueue.size() == 0)
 					return null;
 			}
 
-			return localEventQueue.removeFirst();
+			pending = eventQueue.removeFirst();
+		}
+
+		try {
+			pending.dispatcher.completeEvent(pending.event);
+			// send event to listeners registered through EventAdmin
+			pending.dispatcher.postOSGiEvent(pending.event);
+		} catch (RuntimeException e) {
+			pending.dispatcher.context.log(LogService.LOG_ERROR,
+					"Error posting event " + pending.event + ".", e);
 		}
+		return pending.event;
 	}
 	
 	private final int sessionId;
@@ -80,6 +116,8 @@ public class EventDispatcher {
 	private Collection<String> signers;
 	
 	private LinkedList<DmtEventCore>	events;
+	// the nodes of the last event in 'events', to drop repeated changes
+	private Set<Node>					lastEventNodes;
 
 	public EventDispatcher(Context context, int sessionId, Bundle initiatingBundle) {
 		this.sessionId = sessionId;
@@ -93,16 +131,21 @@ public class EventDispatcher {
 			signers.add(cert.getSubjectDN().getName());
 
 		events = new LinkedList<>();
+		lastEventNodes = new HashSet<>();
 	}
 
 	synchronized void clear() {
 		events.clear();
+		lastEventNodes.clear();
 	}
 
 	synchronized void excludeRoot(Node root) {
 		Iterator<DmtEventCore> iterator = events.iterator();
 		while (iterator.hasNext())
 			iterator.next().excludeRoot(root);
+		lastEventNodes.clear();
+		if (events.size() > 0 && events.getLast().getNodes() != null)
+			lastEventNodes.addAll(events.getLast().getNodes());
 	}
 
 	synchronized void add(int type, Node node, Node newNode, Acl acl,
@@ -116,13 +159,21 @@ public class EventDispatcher {
 			if (event == null || event.getType() != type) {
 				event = new DmtEventCore(typeInteger.intValue(), sessionId);
 				events.add(event);
+				lastEventNodes.clear();
+			}
+			if (newNode == null) {
+				// only add this node, if it is not yet in this event
+				if (lastEventNodes.add(node))
+					event.addNode(node, newNode, acl);
+			} else {
+				// only add this node, if it differs from last node in this
+				// event
+				List<Node> eventNodes = event.getNodes();
+				boolean sameNode = eventNodes.size() > 0
+						&& node.equals(eventNodes.get(eventNodes.size() - 1));
+				if (!sameNode)
+					event.addNode(node, newNode, acl);
 			}
-			// only add this node, if it differs from last node in this event
-			List<Node> eventNodes = event.getNodes();
-			boolean sameNode = eventNodes != null && eventNodes.size() > 0
-					&& node.equals(eventNodes.get(eventNodes.size() - 1));
-			if (!sameNode)
-				event.addNode(node, newNode, acl);
 		} else
 			// dispatch to local and OSGi event listeners immediately
 			dispatchEvent(new DmtEventCore(type, sessionId, node, newNode, acl));
@@ -130,9 +181,11 @@ public class EventDispatcher {
 
 	synchronized void dispatchEvents() {
 		// send all events in the list in chronological order
+		List<PendingEvent> pending = new ArrayList<>(events.size());
 		Iterator<DmtEventCore> iterator = events.iterator();
 		while (iterator.hasNext())
-			dispatchEvent(iterator.next());
+			pending.add(prepareEvent(iterator.next()));
+		postEvents(pending);
 		clear();
 	}
 
@@ -161,11 +214,21 @@ public class EventDispatcher {
 	}
 
 	private void dispatchEvent(DmtEventCore dmtEvent) {
+		postEvents(Collections.singletonList(prepareEvent(dmtEvent)));
+	}
+
+	// stamps the event with the time of the change, the remaining properties
+	// are added by completeEvent() on the event delivery thread
+	private PendingEvent prepareEvent(DmtEventCore dmtEvent) {
+		dmtEvent.addProperty("timestamp", Long.valueOf(System.currentTimeMillis()));
+		return new PendingEvent(this, dmtEvent);
+	}
+
+	void completeEvent(DmtEventCore dmtEvent) {
 		// ensure that mandatory properties are there see spec v2.0 117.11
 		// mandatory life-cycle events are assumed already present in the event
 		dmtEvent.addProperty("session.id", Integer.valueOf(dmtEvent.getSessionId()));
 		dmtEvent.addProperty(EventConstants.EVENT_TOPIC, dmtEvent.getTopic());
-		dmtEvent.addProperty("timestamp", Long.valueOf(System.currentTimeMillis()));
 		
 		// add bundle properties (see also Bug 2106)
 		dmtEvent.addProperty(EventConstants.BUNDLE, initiatingBundle );
@@ -188,16 +251,9 @@ public class EventDispatcher {
 		if (newNodes != null)
 			dmtEvent.addProperty("newnodes",
 					Node.getUriArray(newNodes.toArray(new Node[nodes.size()])));
-
-		// send event to listeners directly registered with DmtAdmin
-		postLocalEvent(dmtEvent);
-
-		// send event to listeners registered through EventAdmin
-		postOSGiEvent(dmtEvent);
-
 	}
 
-	private void postOSGiEvent(DmtEventCore dmtEvent) {
+	void postOSGiEvent(DmtEventCore dmtEvent) {
 		final EventAdmin eventChannel = context.getTracker(
 				EventAdmin.class).getService();
 
@@ -242,4 +298,13 @@ public class EventDispatcher {
 		dispatchEvent(dmtEventCore);		
 	}
 
+	private static final class PendingEvent {
+		final EventDispatcher	dispatcher;
+		final DmtEventCore		event;
+
+		PendingEvent(EventDispatcher dispatcher, DmtEventCore event) {
+			this.dispatcher = dispatcher;
+			this.event = event;
+		}
+	}
 }
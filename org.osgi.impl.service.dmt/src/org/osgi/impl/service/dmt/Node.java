@@ -19,11 +19,15 @@
 package org.osgi.impl.service.dmt;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.osgi.service.dmt.DmtException;
 
-// OPTIMIZE implement operations to work on either path or URI, depending on which is available.
+// A node is kept as its parsed segments, the URI string is only built when it
+// is needed. Comparisons work on the segments, and nodes created from a URI
+// are shared through a small intern table, so each URI is parsed once.
 public class Node {
     /* 
      * Permitted characters in a segment of a relative URI (RFC 2396):
@@ -39,6 +43,11 @@ public class Node {
     
     static final Node ROOT_NODE = new Node(".");
     
+    // nodes of recently validated URIs, cleared when it gets too large
+    private static final int                          MAX_INTERNED = 1024;
+    private static final ConcurrentHashMap<String,Node> interned    =
+            new ConcurrentHashMap<>();
+    
     /**
      * Checks the node name and returns the canonical form.
      * <p>
@@ -113,14 +122,23 @@ public class Node {
             throw new DmtException(uri, DmtException.INVALID_URI,
                     "The URI parameter is null.");
         
+        Node node = interned.get(uri);
+        if (node == null) {
+            node = parseUri(uri);
+            if (interned.size() >= MAX_INTERNED)
+                interned.clear();
+            interned.put(uri, node);
+        }
+        return node;
+    }
+    
+    private static Node parseUri(String uri) throws DmtException {
         if (uri.length() == 0) // empty relative URI
-            return new Node(uri);
+            return new Node(new String[0], uri);
 
-        StringBuffer sb = new StringBuffer();
+        List<String> segments = new ArrayList<>();
         int len = uri.length();
         int start = 0;
-		@SuppressWarnings("unused")
-		int numSegments = 0;
         for(int i = 0; i < len; i++) {
             if(uri.charAt(i) == '/' && (i == 0 || uri.charAt(i-1) != '\\')) {
                 if(i == len-1) // last character cannot be an unescaped '/'
@@ -130,31 +148,28 @@ public class Node {
                 if ( i - start == 0 )
                     throw new DmtException(uri, DmtException.INVALID_URI,
                     "The URI has empty segments: " + uri);
-                appendName(sb, uri, start, i);
-                numSegments++;
+                addName(segments, uri, start, i);
                 start = i+1;
             }
         }
         
-        appendName(sb, uri, start, len);
-        numSegments++;
+        addName(segments, uri, start, len);
         
-        return new Node(sb.toString());
+        return new Node(segments.toArray(new String[segments.size()]), null);
     }
 
     
     
-    private static void appendName(StringBuffer sb, String uri, 
+    private static void addName(List<String> segments, String uri, 
             int start, int end) throws DmtException {
         String segment = uri.substring(start, end);
-        if(sb.length() != 0) { // this is not the first segment
+        if(!segments.isEmpty()) { // this is not the first segment
             if(segment.equals("."))
                 throw new DmtException(uri, DmtException.INVALID_URI,
                         "The URI contains the \".\" node name at a position " +
                         "other than the beginning of the URI.");
-            sb.append('/');
         }
-        sb.append(validateAndNormalizeNodeName(segment));
+        segments.add(validateAndNormalizeNodeName(segment));
     }
     
     static String[] getUriArray(Node[] nodes) {
@@ -188,24 +203,35 @@ public class Node {
     }
 
     
+    private final String[] path;
+    // built on demand
     private String uri;
-    private String[] path;
+    private int hash;
+    private Node parent;
     
     // precondition: URI is validated and normalized
     private Node(String uri) {
-        this.uri = uri;
-        path = null;
+        this(convertUriToPath(uri), uri);
     }
     
     // precondition: path is valid (originates from a previous Node object)
     Node(String[] path) {
+        this(path, null);
+    }
+    
+    private Node(String[] path, String uri) {
         this.path = path;
-        uri = null;
+        this.uri = uri;
+    }
+    
+    // precondition: segment is validated and normalized
+    private Node(Node parent, String segment) {
+        path = Arrays.copyOf(parent.path, parent.path.length + 1);
+        path[parent.path.length] = segment;
+        this.parent = parent;
     }
     
     String[] getPath() {
-        if(path == null)
-            path = convertUriToPath(uri);
         return path;
     }
     
@@ -250,9 +276,10 @@ public class Node {
     
     // precondition: both nodes are absolute
     boolean isAncestorOf(Node other, boolean strict) {
-        String[] otherPath = other.getPath();
-		@SuppressWarnings("hiding")
-		String[] path = getPath();
+        if(other == this)
+            return !strict;
+        
+        String[] otherPath = other.path;
         
         if(otherPath.length < path.length)
             return false;
@@ -260,7 +287,8 @@ public class Node {
         if(strict && otherPath.length == path.length)
             return false;
         
-        for(int i = 0; i < path.length; i++)
+        // the last segments are the most likely to differ
+        for(int i = path.length - 1; i >= 0; i--)
             if(!path[i].equals(otherPath[i]))
                 return false;
         
@@ -276,11 +304,9 @@ public class Node {
         if(isEmpty() || isRoot())
             return null;
 
-		@SuppressWarnings("hiding")
-		String[] path = getPath();
-        String[] parent = new String[path.length-1];
-        System.arraycopy(path, 0, parent, 0, path.length-1);
-        return new Node(parent);
+        if(parent == null)
+            parent = new Node(Arrays.copyOf(path, path.length - 1));
+        return parent;
     }
     
     // precondition: parameter node is not absolute
@@ -292,38 +318,47 @@ public class Node {
         if(relativeNode.isEmpty())
             return this;
         
-        return new Node(getUri() + '/' + relativeNode.getUri());
+        String[] relativePath = relativeNode.path;
+        String[] newPath = Arrays.copyOf(path, path.length + relativePath.length);
+        System.arraycopy(relativePath, 0, newPath, path.length, relativePath.length);
+        return new Node(newPath);
     }
 
     // precondition: segment parameter is validated and normalized
     Node appendSegment(String segment) {
-        return new Node(getUri() + '/' + segment);
+        return new Node(this, segment);
     }
     
     // precondition: both nodes are absolute
     Node getRelativeNode(Node descendentNode) {
         if (!isAncestorOf(descendentNode))
             return null;
-		@SuppressWarnings("hiding")
-		String uri = getUri();
-        String descendentUri = descendentNode.getUri();
         
-        if (uri.length() == descendentUri.length())
-            return new Node("");
-        return new Node(descendentUri.substring(uri.length() + 1));
+        String[] descendentPath = descendentNode.path;
+        return new Node(Arrays.copyOfRange(descendentPath, path.length,
+                descendentPath.length));
     }
     
     @Override
 	public boolean equals(Object other) {
+        if(other == this)
+            return true;
+        
         if(!(other instanceof Node))
             return false;
         
-        return getUri().equals(((Node) other).getUri());
+        Node node = (Node) other;
+        return hashCode() == node.hashCode() && Arrays.equals(path, node.path);
     }
     
     @Override
 	public int hashCode() {
-        return getUri().hashCode();
+        int h = hash;
+        if(h == 0) {
+            h = Arrays.hashCode(path);
+            hash = h;
+        }
+        return h;
     }
     
     @Override
@@ -42,6 +42,11 @@ import org.osgi.service.dmt.spi.TransactionalDataSession;
  * <p>
  * Two instances of this class are equal if the wrapped plugin sessions are
  * equal and the roots of the sessions are the same.   
+ * <p>
+ * The calls to the plugin session are serialized on this wrapper. Plugin
+ * sessions do not have to be thread safe, but a shared DmtSession can be
+ * read by several threads at once, so without this they could be called
+ * concurrently. Reads of different plugin sessions still run in parallel.
  */
 
 public class PluginSessionWrapper implements TransactionalDataSession {
@@ -51,9 +56,15 @@ public class PluginSessionWrapper implements TransactionalDataSession {
     
     private final AccessControlContext securityContext;
     
+    private final DmtMetrics metrics;
+    
     // the root node of the session, either one of the plugin roots or a subnode
     private final Node sessionRoot;
     
+    // the plugin root that contains the session root, the metrics of the
+    // plugin calls are kept per plugin root
+    private final Node pluginRoot;
+    
     // the registration object for the plugin providing the session, used for
     // checking that the plugin has not been unregistered
     
@@ -72,7 +83,8 @@ private final ServiceReference<DataPlugin>		pluginReference;
     // Note, that the session type reflects the kind of 
 	public PluginSessionWrapper(ServiceReference<DataPlugin> pluginReference,
             ReadableDataSession session, int sessionType, Node sessionRoot, 
-            AccessControlContext securityContext) {
+            Node pluginRoot, AccessControlContext securityContext,
+            DmtMetrics metrics) {
         readableDataSession = session;
         if(sessionType != DmtSession.LOCK_TYPE_SHARED) {
             readWriteDataSession = (ReadWriteDataSession) session;
@@ -82,8 +94,10 @@ private final ServiceReference<DataPlugin>		pluginReference;
         
         this.sessionType = sessionType;
         this.sessionRoot = sessionRoot;
+        this.pluginRoot = pluginRoot;
         this.pluginReference = pluginReference;
         this.securityContext = securityContext;
+        this.metrics = metrics;
         
         infoString = null;
     }
@@ -97,12 +111,17 @@ private final ServiceReference<DataPlugin>		pluginReference;
     } 
     
     @Override
-	public void nodeChanged(String[] nodePath) throws DmtException {
-        // no need to override the permissions of the plugin here,
-        // only internal data structures have to be modified
+	public synchronized void nodeChanged(String[] nodePath) throws DmtException {
+        long start = metrics.start();
+        try {
+            // no need to override the permissions of the plugin here,
+            // only internal data structures have to be modified
         
-        checkRegistration(nodePath);
-        readableDataSession.nodeChanged(nodePath);
+            checkRegistration(nodePath);
+            readableDataSession.nodeChanged(nodePath.clone());
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "nodeChanged");
+        }
     }
     
     /*
@@ -110,29 +129,34 @@ private final ServiceReference<DataPlugin>		pluginReference;
      * this call is ignored
      */
     @Override
-	public void commit() throws DmtException {
-        checkRegistration(sessionRoot.getPath());
-        
-        // ignore commit for non-transactional plugins
-        if(transactionalDataSession == null)
-            return;
-        
-        if (securityContext == null) {                      // local caller
-            transactionalDataSession.commit();
-            return;
-        }
-        
-        try {                                               // remote caller
-			AccessController
-					.doPrivileged(new PrivilegedExceptionAction<Void>() {
-                @Override
-						public Void run() throws DmtException {
-                    transactionalDataSession.commit();
-                    return null;
-                }
-            }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+	public synchronized void commit() throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(sessionRoot.getPath());
+        
+            // ignore commit for non-transactional plugins
+            if(transactionalDataSession == null)
+                return;
+        
+            if (securityContext == null) {                      // local caller
+                transactionalDataSession.commit();
+                return;
+            }
+        
+            try {                                               // remote caller
+				AccessController
+						.doPrivileged(new PrivilegedExceptionAction<Void>() {
+                    @Override
+							public Void run() throws DmtException {
+                        transactionalDataSession.commit();
+                        return null;
+                    }
+                }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "commit");
         }
     }
 
@@ -141,464 +165,596 @@ private final ServiceReference<DataPlugin>		pluginReference;
      * this call is ignored
      */
     @Override
-	public void rollback() throws DmtException {
-        checkRegistration(sessionRoot.getPath());
+	public synchronized void rollback() throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(sessionRoot.getPath());
         
-        // ignore rollback for non-transactional plugins
-        if(transactionalDataSession == null)
-            return;
+            // ignore rollback for non-transactional plugins
+            if(transactionalDataSession == null)
+                return;
         
-        if (securityContext == null) {                      // local caller
-            transactionalDataSession.rollback();
-            return;
-        }
+            if (securityContext == null) {                      // local caller
+                transactionalDataSession.rollback();
+                return;
+            }
         
 
-        try {                                               // remote caller
-			AccessController
-					.doPrivileged(new PrivilegedExceptionAction<Void>() {
-                @Override
-						public Void run() throws DmtException {
-                    transactionalDataSession.rollback();
-                    return null;
-                }
-            }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+            try {                                               // remote caller
+				AccessController
+						.doPrivileged(new PrivilegedExceptionAction<Void>() {
+                    @Override
+							public Void run() throws DmtException {
+                        transactionalDataSession.rollback();
+                        return null;
+                    }
+                }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "rollback");
         }
     }
     
     @Override
-	public void setNodeTitle(final String[] path, final String title)
+	public synchronized void setNodeTitle(final String[] path, final String title)
             throws DmtException {
-        checkRegistration(path);
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
         
-        if (securityContext == null) {                      // local caller
-            readWriteDataSession.setNodeTitle(path, title);
-            return;
-        }
+            if (securityContext == null) {                      // local caller
+                readWriteDataSession.setNodeTitle(path.clone(), title);
+                return;
+            }
         
 
-        try {                                               // remote caller
-			AccessController
-					.doPrivileged(new PrivilegedExceptionAction<Void>() {
-                @Override
-						public Void run() throws DmtException {
-                    readWriteDataSession.setNodeTitle(path, title);
-                    return null;
-                }
-            }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+            try {                                               // remote caller
+				AccessController
+						.doPrivileged(new PrivilegedExceptionAction<Void>() {
+                    @Override
+							public Void run() throws DmtException {
+                        readWriteDataSession.setNodeTitle(path.clone(), title);
+                        return null;
+                    }
+                }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "setNodeTitle");
         }
     }
     
     @Override
-	public void setNodeValue(final String[] path, final DmtData data)
+	public synchronized void setNodeValue(final String[] path, final DmtData data)
             throws DmtException {
-        checkRegistration(path);
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
         
-        if (securityContext == null) {                      // local caller
-            readWriteDataSession.setNodeValue(path, data);
-            return;
-        }
+            if (securityContext == null) {                      // local caller
+                readWriteDataSession.setNodeValue(path.clone(), data);
+                return;
+            }
         
 
-        try {                                               // remote caller
-			AccessController
-					.doPrivileged(new PrivilegedExceptionAction<Void>() {
-                @Override
-						public Void run() throws DmtException {
-                    readWriteDataSession.setNodeValue(path, data);
-                    return null;
-                }
-            }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+            try {                                               // remote caller
+				AccessController
+						.doPrivileged(new PrivilegedExceptionAction<Void>() {
+                    @Override
+							public Void run() throws DmtException {
+                        readWriteDataSession.setNodeValue(path.clone(), data);
+                        return null;
+                    }
+                }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "setNodeValue");
         }
     }
 
     @Override
-	public void setNodeType(final String[] path, final String type)
+	public synchronized void setNodeType(final String[] path, final String type)
             throws DmtException {
-        checkRegistration(path);
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
         
-        if (securityContext == null) {                      // local caller
-            readWriteDataSession.setNodeType(path, type);
-            return;
-        }
+            if (securityContext == null) {                      // local caller
+                readWriteDataSession.setNodeType(path.clone(), type);
+                return;
+            }
         
 
-        try {                                               // remote caller
-			AccessController
-					.doPrivileged(new PrivilegedExceptionAction<Void>() {
-                @Override
-						public Void run() throws DmtException {
-                    readWriteDataSession.setNodeType(path, type);
-                    return null;
-                }
-            }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+            try {                                               // remote caller
+				AccessController
+						.doPrivileged(new PrivilegedExceptionAction<Void>() {
+                    @Override
+							public Void run() throws DmtException {
+                        readWriteDataSession.setNodeType(path.clone(), type);
+                        return null;
+                    }
+                }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "setNodeType");
         }
     }
 
     @Override
-	public void deleteNode(final String[] path) throws DmtException {
-        checkRegistration(path);
+	public synchronized void deleteNode(final String[] path) throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
         
-        if (securityContext == null) {                      // local caller
-            readWriteDataSession.deleteNode(path);
-            return;
-        }
+            if (securityContext == null) {                      // local caller
+                readWriteDataSession.deleteNode(path.clone());
+                return;
+            }
         
 
-        try {                                               // remote caller
-			AccessController
-					.doPrivileged(new PrivilegedExceptionAction<Void>() {
-                @Override
-						public Void run() throws DmtException {
-                    readWriteDataSession.deleteNode(path);
-                    return null;
-                }
-            }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+            try {                                               // remote caller
+				AccessController
+						.doPrivileged(new PrivilegedExceptionAction<Void>() {
+                    @Override
+							public Void run() throws DmtException {
+                        readWriteDataSession.deleteNode(path.clone());
+                        return null;
+                    }
+                }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "deleteNode");
         }
     }
 
     @Override
-	public void createInteriorNode(final String[] path, final String type)
+	public synchronized void createInteriorNode(final String[] path, final String type)
             throws DmtException {
-        checkRegistration(path);
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
         
-        if (securityContext == null) {                      // local caller
-            readWriteDataSession.createInteriorNode(path, type);
-            return;
-        }
+            if (securityContext == null) {                      // local caller
+                readWriteDataSession.createInteriorNode(path.clone(), type);
+                return;
+            }
         
 
-        try {                                               // remote caller
-			AccessController
-					.doPrivileged(new PrivilegedExceptionAction<Void>() {
-                @Override
-						public Void run() throws DmtException {
-                    readWriteDataSession.createInteriorNode(path, type);
-                    return null;
-                }
-            }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+            try {                                               // remote caller
+				AccessController
+						.doPrivileged(new PrivilegedExceptionAction<Void>() {
+                    @Override
+							public Void run() throws DmtException {
+                        readWriteDataSession.createInteriorNode(path.clone(), type);
+                        return null;
+                    }
+                }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "createInteriorNode");
         }
     }
 
     @Override
-	public void createLeafNode(final String[] path, final DmtData value, 
+	public synchronized void createLeafNode(final String[] path, final DmtData value, 
             final String mimeType) throws DmtException {
-        checkRegistration(path);
-        
-        if (securityContext == null) {                      // local caller
-            readWriteDataSession.createLeafNode(path, value, mimeType);
-            return;
-        }
-        
-        try {                                               // remote caller
-			AccessController
-					.doPrivileged(new PrivilegedExceptionAction<Void>() {
-                @Override
-						public Void run() throws DmtException {
-                    readWriteDataSession.createLeafNode(path, value, mimeType);
-                    return null;
-                }
-            }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
+        
+            if (securityContext == null) {                      // local caller
+                readWriteDataSession.createLeafNode(path.clone(), value, mimeType);
+                return;
+            }
+        
+            try {                                               // remote caller
+				AccessController
+						.doPrivileged(new PrivilegedExceptionAction<Void>() {
+                    @Override
+							public Void run() throws DmtException {
+                        readWriteDataSession.createLeafNode(path.clone(),
+                                value, mimeType);
+                        return null;
+                    }
+                }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "createLeafNode");
         }
     }
     
     @Override
-	public void copy(final String[] path, final String[] newPath,
+	public synchronized void copy(final String[] path, final String[] newPath,
             final boolean recursive) throws DmtException {
-        checkRegistration(path);
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
         
-        if (securityContext == null) {                      // local caller
-            readWriteDataSession.copy(path, newPath, recursive);
-            return;
-        }
+            if (securityContext == null) {                      // local caller
+                readWriteDataSession.copy(path.clone(), newPath.clone(), recursive);
+                return;
+            }
         
 
-        try {                                               // remote caller
-			AccessController
-					.doPrivileged(new PrivilegedExceptionAction<Void>() {
-                @Override
-						public Void run() throws DmtException {
-                    readWriteDataSession.copy(path, newPath, recursive);
-                    return null;
-                }
-            }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+            try {                                               // remote caller
+				AccessController
+						.doPrivileged(new PrivilegedExceptionAction<Void>() {
+                    @Override
+							public Void run() throws DmtException {
+                        readWriteDataSession.copy(path.clone(),
+                                newPath.clone(), recursive);
+                        return null;
+                    }
+                }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "copy");
         }
     }
 
     @Override
-	public void renameNode(final String[] path, final String newName)
+	public synchronized void renameNode(final String[] path, final String newName)
             throws DmtException {
-        checkRegistration(path);
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
         
-        if (securityContext == null) {                      // local caller
-            readWriteDataSession.renameNode(path, newName);
-            return;
-        }
+            if (securityContext == null) {                      // local caller
+                readWriteDataSession.renameNode(path.clone(), newName);
+                return;
+            }
         
 
-        try {                                               // remote caller
-			AccessController
-					.doPrivileged(new PrivilegedExceptionAction<Void>() {
-                @Override
-						public Void run() throws DmtException {
-                    readWriteDataSession.renameNode(path, newName);
-                    return null;
-                }
-            }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+            try {                                               // remote caller
+				AccessController
+						.doPrivileged(new PrivilegedExceptionAction<Void>() {
+                    @Override
+							public Void run() throws DmtException {
+                        readWriteDataSession.renameNode(path.clone(), newName);
+                        return null;
+                    }
+                }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "renameNode");
         }
     }
 
     @Override
-	public void close() throws DmtException {
-        checkRegistration(sessionRoot.getPath());
+	public synchronized void close() throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(sessionRoot.getPath());
         
-        if (securityContext == null) {                      // local caller
-            readableDataSession.close();
-            return;
-        }
+            if (securityContext == null) {                      // local caller
+                readableDataSession.close();
+                return;
+            }
         
 
-        try {                                               // remote caller
-			AccessController
-					.doPrivileged(new PrivilegedExceptionAction<Void>() {
-                @Override
-						public Void run() throws DmtException {
-                    readableDataSession.close();
-                    return null;
-                }
-            }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
-        }
-    }
-
-    @Override
-	public boolean isNodeUri(final String[] path) {
-        checkRegistration(path);
-        
-        if (securityContext == null)                        // local caller
-            return readableDataSession.isNodeUri(path);
-        
-                                                            // remote caller
-															Boolean ret = AccessController
-																	.doPrivileged(
-																			new PrivilegedAction<Boolean>() {
+            try {                                               // remote caller
+				AccessController
+						.doPrivileged(new PrivilegedExceptionAction<Void>() {
                     @Override
-																				public Boolean run() {
-                        return Boolean.valueOf(readableDataSession.isNodeUri(path));
+							public Void run() throws DmtException {
+                        readableDataSession.close();
+                        return null;
                     }
                 }, securityContext);
-        return ret.booleanValue();
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "close");
+        }
     }
 
     @Override
-	public boolean isLeafNode(final String[] path) throws DmtException {
-        checkRegistration(path);
-
-        if (securityContext == null)                        // local caller
-            return readableDataSession.isLeafNode(path);
-        
-        try {                                               // remote caller
-            Boolean isLeaf = AccessController.doPrivileged(
-                    new PrivilegedExceptionAction<Boolean>() {
+	public synchronized boolean isNodeUri(final String[] path) {
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
+        
+            if (securityContext == null)                        // local caller
+                return readableDataSession.isNodeUri(path.clone());
+        
+                                                                // remote caller
+																Boolean ret = AccessController
+																		.doPrivileged(
+																				new PrivilegedAction<Boolean>() {
                         @Override
-						public Boolean run() throws DmtException {
+																					public Boolean run() {
                             return Boolean.valueOf(
-                                    readableDataSession.isLeafNode(path));
+                                    readableDataSession.isNodeUri(path.clone()));
                         }
                     }, securityContext);
-            return isLeaf.booleanValue();
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+            return ret.booleanValue();
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "isNodeUri");
+        }
+    }
+
+    @Override
+	public synchronized boolean isLeafNode(final String[] path) throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
+
+            if (securityContext == null)                        // local caller
+                return readableDataSession.isLeafNode(path.clone());
+        
+            try {                                               // remote caller
+                Boolean isLeaf = AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<Boolean>() {
+                            @Override
+							public Boolean run() throws DmtException {
+                                return Boolean.valueOf(
+                                        readableDataSession.isLeafNode(path.clone()));
+                            }
+                        }, securityContext);
+                return isLeaf.booleanValue();
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "isLeafNode");
         }
     }
     
     @Override
-	public DmtData getNodeValue(final String[] path) throws DmtException {
-        checkRegistration(path);
-
-        if (securityContext == null)                        // local caller
-            return readableDataSession.getNodeValue(path);
-        
-
-        try {                                               // remote caller
-            return AccessController.doPrivileged(
-                    new PrivilegedExceptionAction<DmtData>() {
-                        @Override
-						public DmtData run() throws DmtException {
-                            return readableDataSession.getNodeValue(path);
-                        }
-                    }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+	public synchronized DmtData getNodeValue(final String[] path) throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
+
+            if (securityContext == null)                        // local caller
+                return readableDataSession.getNodeValue(path.clone());
+        
+
+            try {                                               // remote caller
+                return AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<DmtData>() {
+                            @Override
+							public DmtData run() throws DmtException {
+                                return readableDataSession.getNodeValue(path.clone());
+                            }
+                        }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "getNodeValue");
         }
     }
 
     @Override
-	public String getNodeTitle(final String[] path) throws DmtException {
-        checkRegistration(path);
-
-        if (securityContext == null)                        // local caller
-            return readableDataSession.getNodeTitle(path);
-        
-
-        try {                                               // remote caller
-            return AccessController.doPrivileged(
-                    new PrivilegedExceptionAction<String>() {
-                        @Override
-						public String run() throws DmtException {
-                            return readableDataSession.getNodeTitle(path);
-                        }
-                    }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+	public synchronized DmtData[] getNodeValues(final String[][] paths)
+			throws DmtException {
+        long start = metrics.start();
+        try {
+            if (paths.length == 0)
+                return new DmtData[0];
+            checkRegistration(paths[0]);
+
+            if (securityContext == null)                        // local caller
+                return readableDataSession.getNodeValues(copy(paths));
+
+            try {                                               // remote caller
+                return AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<DmtData[]>() {
+                            @Override
+							public DmtData[] run() throws DmtException {
+                                return readableDataSession.getNodeValues(copy(paths));
+                            }
+                        }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "getNodeValues");
         }
     }
 
     @Override
-	public String getNodeType(final String[] path) throws DmtException {
-        checkRegistration(path);
-
-        if (securityContext == null)                        // local caller
-            return readableDataSession.getNodeType(path);
-        
-
-        try {                                               // remote caller
-            return AccessController.doPrivileged(
-                    new PrivilegedExceptionAction<String>() {
-                        @Override
-						public String run() throws DmtException {
-                            return readableDataSession.getNodeType(path);
-                        }
-                    }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+	public synchronized String getNodeTitle(final String[] path) throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
+
+            if (securityContext == null)                        // local caller
+                return readableDataSession.getNodeTitle(path.clone());
+        
+
+            try {                                               // remote caller
+                return AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<String>() {
+                            @Override
+							public String run() throws DmtException {
+                                return readableDataSession.getNodeTitle(path.clone());
+                            }
+                        }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "getNodeTitle");
         }
     }
 
     @Override
-	public int getNodeVersion(final String[] path) throws DmtException {
-        checkRegistration(path);
-
-        if (securityContext == null)                        // local caller
-            return readableDataSession.getNodeVersion(path);
-        
-
-        try {                                               // remote caller
-            Integer ret = AccessController.doPrivileged(
-                    new PrivilegedExceptionAction<Integer>() {
-                        @Override
-						public Integer run() throws DmtException {
-                            return Integer.valueOf(readableDataSession.getNodeVersion(path));
-                        }
-                    }, securityContext);
-            return ret.intValue();
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+	public synchronized String getNodeType(final String[] path) throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
+
+            if (securityContext == null)                        // local caller
+                return readableDataSession.getNodeType(path.clone());
+        
+
+            try {                                               // remote caller
+                return AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<String>() {
+                            @Override
+							public String run() throws DmtException {
+                                return readableDataSession.getNodeType(path.clone());
+                            }
+                        }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "getNodeType");
         }
     }
 
     @Override
-	public Date getNodeTimestamp(final String[] path) throws DmtException {
-        checkRegistration(path);
-
-        if (securityContext == null)                        // local caller
-            return readableDataSession.getNodeTimestamp(path);
-        
-
-        try {                                               // remote caller
-            return AccessController.doPrivileged(
-                    new PrivilegedExceptionAction<Date>() {
-                        @Override
-						public Date run() throws DmtException {
-                            return readableDataSession.getNodeTimestamp(path);
-                        }
-                    }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+	public synchronized int getNodeVersion(final String[] path) throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
+
+            if (securityContext == null)                        // local caller
+                return readableDataSession.getNodeVersion(path.clone());
+        
+
+            try {                                               // remote caller
+                Integer ret = AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<Integer>() {
+                            @Override
+							public Integer run() throws DmtException {
+                                return Integer.valueOf(readableDataSession
+                                        .getNodeVersion(path.clone()));
+                            }
+                        }, securityContext);
+                return ret.intValue();
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "getNodeVersion");
         }
     }
 
     @Override
-	public int getNodeSize(final String[] path) throws DmtException {
-        checkRegistration(path);
-
-        if (securityContext == null)                        // local caller
-            return readableDataSession.getNodeSize(path);
-        
-
-        try {                                               // remote caller
-            Integer ret = AccessController.doPrivileged(
-                    new PrivilegedExceptionAction<Integer>() {
-                        @Override
-						public Integer run() throws DmtException {
-                            return Integer.valueOf(
-                                    readableDataSession.getNodeSize(path));
-                        }
-                    }, securityContext);
-            return ret.intValue();
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+	public synchronized Date getNodeTimestamp(final String[] path) throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
+
+            if (securityContext == null)                        // local caller
+                return readableDataSession.getNodeTimestamp(path.clone());
+        
+
+            try {                                               // remote caller
+                return AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<Date>() {
+                            @Override
+							public Date run() throws DmtException {
+                                return readableDataSession.getNodeTimestamp(path.clone());
+                            }
+                        }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "getNodeTimestamp");
         }
     }
 
     @Override
-	public String[] getChildNodeNames(final String[] path) throws DmtException {
-        checkRegistration(path);
-
-        if (securityContext == null)                        // local caller
-            return readableDataSession.getChildNodeNames(path);
-        
-
-        try {                                               // remote caller
-            return AccessController.doPrivileged(
-                    new PrivilegedExceptionAction<String[]>() {
-                        @Override
-						public String[] run() throws DmtException {
-                            return readableDataSession.getChildNodeNames(path);
-                        }
-                    }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+	public synchronized int getNodeSize(final String[] path) throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
+
+            if (securityContext == null)                        // local caller
+                return readableDataSession.getNodeSize(path.clone());
+        
+
+            try {                                               // remote caller
+                Integer ret = AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<Integer>() {
+                            @Override
+							public Integer run() throws DmtException {
+                                return Integer.valueOf(
+                                        readableDataSession.getNodeSize(path.clone()));
+                            }
+                        }, securityContext);
+                return ret.intValue();
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "getNodeSize");
         }
     }
 
     @Override
-	public MetaNode getMetaNode(final String[] path) throws DmtException {
-        checkRegistration(path);
-
-        if (securityContext == null)                        // local caller
-            return readableDataSession.getMetaNode(path);
-        
+	public synchronized String[] getChildNodeNames(final String[] path) throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
+
+            if (securityContext == null)                        // local caller
+                return readableDataSession.getChildNodeNames(path.clone());
+        
+
+            try {                                               // remote caller
+                return AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<String[]>() {
+                            @Override
+							public String[] run() throws DmtException {
+                                return readableDataSession.getChildNodeNames(path.clone());
+                            }
+                        }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "getChildNodeNames");
+        }
+    }
 
-        try {                                               // remote caller
-            return AccessController.doPrivileged(
-                    new PrivilegedExceptionAction<MetaNode>() {
-                        @Override
-						public MetaNode run() throws DmtException {
-                            return readableDataSession.getMetaNode(path);
-                        }
-                    }, securityContext);
-        } catch (PrivilegedActionException e) {
-            throw (DmtException) e.getException();
+    @Override
+	public synchronized MetaNode getMetaNode(final String[] path) throws DmtException {
+        long start = metrics.start();
+        try {
+            checkRegistration(path);
+
+            if (securityContext == null)                        // local caller
+                return readableDataSession.getMetaNode(path.clone());
+        
+
+            try {                                               // remote caller
+                return AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<MetaNode>() {
+                            @Override
+							public MetaNode run() throws DmtException {
+                                return readableDataSession.getMetaNode(path.clone());
+                            }
+                        }, securityContext);
+            } catch (PrivilegedActionException e) {
+                throw (DmtException) e.getException();
+            }
+        } finally {
+            metrics.stopPluginCall(start, pluginRoot, "getMetaNode");
         }
     }
     
@@ -634,6 +790,15 @@ private final ServiceReference<DataPlugin>		pluginReference;
         return infoString;
     }
     
+    // The paths are the segments of Node objects, which are shared by all
+    // sessions, so the plugins get copies they cannot change them through.
+    private static String[][] copy(String[][] paths) {
+        String[][] copies = new String[paths.length][];
+        for (int i = 0; i < paths.length; i++)
+            copies[i] = paths[i].clone();
+        return copies;
+    }
+    
     private void checkRegistration(String[] path) {
     	// SD: got rid of PluginRegistration class
     	if ( pluginReference == null || pluginReference.getBundle() == null )
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0 
+ *******************************************************************************/
+package org.osgi.impl.service.dmt;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Grants the subtree locks of DMT sessions.
+ * <p>
+ * Two sessions conflict if the root of one is on the same branch as the root
+ * of the other, unless both are shared sessions. Granted locks and waiting
+ * requests are counted in a trie of the URI segments, where each branch also
+ * keeps the totals of its subtree, so that a conflict is found by walking the
+ * path of the requested root only.
+ * <p>
+ * Waiting requests are granted in the order in which they arrived. A request
+ * is not granted while it conflicts with an earlier waiting request, so that
+ * a stream of new sessions cannot starve a session that waits for a larger
+ * subtree. Requests that do not conflict with anything are granted at once.
+ * 
+ * @author $Id$
+ */
+class SessionLockManager {
+
+	private final ReentrantLock			lock	= new ReentrantLock();
+	private final Branch				root	= new Branch(null, null);
+	// waiting requests, in the order in which they arrived
+	private final LinkedList<Request>	waiting	= new LinkedList<>();
+	private final Map<Object,Request>	granted	= new IdentityHashMap<>();
+
+	/**
+	 * Waits until the owner can lock the given subtree, and locks it.
+	 * 
+	 * @param owner the owner of the lock, usually the session
+	 * @param subtreeNode the absolute root node of the subtree to lock
+	 * @param lockMode the lock mode of the session
+	 * @param timeout the maximum time to wait, in milliseconds
+	 * @return {@code true} if the lock was granted, {@code false} if the
+	 *         timeout elapsed first
+	 * @throws InterruptedException if the thread was interrupted while
+	 *             waiting, the request is withdrawn in that case
+	 */
+	boolean acquire(Object owner, Node subtreeNode, int lockMode,
+			long timeout) throws InterruptedException {
+		Request request = new Request(owner, subtreeNode.getPath(),
+				lockMode != DmtSessionImpl.LOCK_TYPE_SHARED);
+
+		lock.lock();
+		try {
+			if (!conflicts(request, false) && !conflicts(request, true)) {
+				grant(request);
+				return true;
+			}
+
+			request.condition = lock.newCondition();
+			waiting.add(request);
+			count(request, true, 1);
+
+			long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+			while (!request.granted) {
+				if (nanos <= 0) {
+					withdraw(request);
+					return false;
+				}
+
+				try {
+					nanos = request.condition.awaitNanos(nanos);
+				} catch (InterruptedException e) {
+					if (request.granted) {
+						// granted just before the interrupt, keep the lock
+						// but let the caller see the interrupt
+						Thread.currentThread().interrupt();
+						return true;
+					}
+					withdraw(request);
+					throw e;
+				}
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Releases the lock of the given owner, and grants the waiting requests
+	 * that no longer conflict.
+	 * 
+	 * @param owner the owner of the lock
+	 * @return {@code false} if the owner does not hold a lock
+	 */
+	boolean release(Object owner) {
+		lock.lock();
+		try {
+			Request request = granted.remove(owner);
+			if (request == null)
+				return false;
+
+			count(request, false, -1);
+			grantWaiting();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Removes a request that gave up waiting.
+	// precondition: lock is held
+	private void withdraw(Request request) {
+		waiting.remove(request);
+		count(request, true, -1);
+		// requests behind this one may be able to run now
+		grantWaiting();
+	}
+
+	// precondition: lock is held
+	private void grant(Request request) {
+		request.granted = true;
+		granted.put(request.owner, request);
+		count(request, false, 1);
+	}
+
+	// Goes through the waiting requests in order. Each one is granted unless
+	// it conflicts with a granted lock or with an earlier request that is
+	// still waiting.
+	// precondition: lock is held
+	private void grantWaiting() {
+		for (Request request : waiting)
+			count(request, true, -1);
+
+		for (Iterator<Request> i = waiting.iterator(); i.hasNext();) {
+			Request request = i.next();
+			if (conflicts(request, false) || conflicts(request, true))
+				count(request, true, 1);
+			else {
+				i.remove();
+				grant(request);
+				request.condition.signal();
+			}
+		}
+	}
+
+	// Checks the request against the locks on its ancestors and on its
+	// subtree, either granted or waiting.
+	// precondition: lock is held
+	private boolean conflicts(Request request, boolean queued) {
+		String[] path = request.path;
+		Branch branch = root;
+		for (int i = 0; i < path.length; i++) {
+			branch = branch.children.get(path[i]);
+			if (branch == null)
+				return false; // nothing locked on or below this branch
+
+			Counts counts = queued ? branch.queued : branch.held;
+			if (i < path.length - 1) {
+				if (counts.exclusive > 0
+						|| (request.exclusive && counts.shared > 0))
+					return true;
+			} else if (counts.exclusiveInSubtree > 0
+					|| (request.exclusive && counts.sharedInSubtree > 0))
+				return true;
+		}
+		return false;
+	}
+
+	// Adds delta to the lock counts along the path of the request, and
+	// removes branches that no longer hold or wait for any lock.
+	// precondition: lock is held
+	private void count(Request request, boolean queued, int delta) {
+		String[] path = request.path;
+		Branch branch = root;
+		for (int i = 0; i < path.length; i++) {
+			Branch child = branch.children.get(path[i]);
+			if (child == null) {
+				child = new Branch(branch, path[i]);
+				branch.children.put(path[i], child);
+			}
+			branch = child;
+
+			Counts counts = queued ? branch.queued : branch.held;
+			if (request.exclusive)
+				counts.exclusiveInSubtree += delta;
+			else
+				counts.sharedInSubtree += delta;
+			if (i == path.length - 1) {
+				if (request.exclusive)
+					counts.exclusive += delta;
+				else
+					counts.shared += delta;
+			}
+		}
+
+		while (branch.parent != null && branch.isUnused()) {
+			branch.parent.children.remove(branch.name);
+			branch = branch.parent;
+		}
+	}
+
+	private static final class Request {
+		final Object	owner;
+		final String[]	path;
+		final boolean	exclusive;
+		Condition		condition;
+		boolean			granted;
+
+		Request(Object owner, String[] path, boolean exclusive) {
+			this.owner = owner;
+			this.path = path;
+			this.exclusive = exclusive;
+		}
+	}
+
+	private static final class Counts {
+		int	shared;
+		int	exclusive;
+		int	sharedInSubtree;
+		int	exclusiveInSubtree;
+
+		boolean isZero() {
+			return sharedInSubtree == 0 && exclusiveInSubtree == 0;
+		}
+	}
+
+	private static final class Branch {
+		final Branch				parent;
+		final String				name;
+		final Map<String,Branch>	children	= new HashMap<>();
+		final Counts				held		= new Counts();
+		final Counts				queued		= new Counts();
+
+		Branch(Branch parent, String name) {
+			this.parent = parent;
+			this.name = name;
+		}
+
+		boolean isUnused() {
+			return held.isZero() && queued.isZero() && children.isEmpty();
+		}
+	}
+}
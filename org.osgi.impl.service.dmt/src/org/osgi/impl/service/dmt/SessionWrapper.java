@@ -21,6 +21,7 @@ package org.osgi.impl.service.dmt;
 
 
 import java.util.Date;
+import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -35,6 +36,9 @@ import org.osgi.service.permissionadmin.PermissionInfo;
 class SessionWrapper extends DmtSessionImpl {
     Timer timer;
     TimerTask invalidateTask;
+    // number of DMT operations in progress, reads of shared sessions can
+    // overlap, and the session is only idle when none of them is running
+    int activeCalls;
 
     SessionWrapper(String principal, String subtreeUri, int lockMode,
             PermissionInfo[] permissions, Context context,
@@ -245,6 +249,24 @@ class SessionWrapper extends DmtSessionImpl {
         }
     }
 
+    @Override
+	public void setNodeValues(String[] nodeUris, DmtData[] data)
+            throws DmtException {
+        stopTimer();
+        try {
+            super.setNodeValues(nodeUris, data);
+        } catch(DmtException e) {
+            if(e.isFatal())
+                invalidateSession(e);
+            throw e;
+        } catch(PluginUnregisteredException e) {
+            invalidateSession();
+            throw new DmtIllegalStateException(e.getMessage());
+        } finally {
+            startTimer();
+        }
+    }
+
     @Override
 	public void setDefaultNodeValue(String nodeUri) throws DmtException {
         stopTimer();
@@ -466,6 +488,42 @@ class SessionWrapper extends DmtSessionImpl {
         }
     }
 
+    @Override
+	public DmtData[] getNodeValues(String[] nodeUris)
+            throws DmtException {
+        stopTimer();
+        try {
+            return super.getNodeValues(nodeUris);
+        } catch(DmtException e) {
+            if(e.isFatal())
+                invalidateSession(e);
+            throw e;
+        } catch(PluginUnregisteredException e) {
+            invalidateSession();
+            throw new DmtIllegalStateException(e.getMessage());
+        } finally {
+            startTimer();
+        }
+    }
+
+    @Override
+	public Map<String,DmtData> getSubtreeValues(String nodeUri, int depth)
+            throws DmtException {
+        stopTimer();
+        try {
+            return super.getSubtreeValues(nodeUri, depth);
+        } catch(DmtException e) {
+            if(e.isFatal())
+                invalidateSession(e);
+            throw e;
+        } catch(PluginUnregisteredException e) {
+            invalidateSession();
+            throw new DmtIllegalStateException(e.getMessage());
+        } finally {
+            startTimer();
+        }
+    }
+
     @Override
 	public String getNodeTitle(String nodeUri) throws DmtException {
         stopTimer();
@@ -586,21 +644,21 @@ class SessionWrapper extends DmtSessionImpl {
     }
     
     private synchronized void stopTimer() {
-        if(invalidateTask == null)
-            return;
-        
-        invalidateTask.cancel();
-        invalidateTask = null;
+        activeCalls++;
+        cancelTask();
     }
     
     // (re)starts the inactivity timer, but only if the session is still valid:
-    // it is not closed or invalidated (i.e. removeTimer was not called) 
+    // it is not closed or invalidated (i.e. removeTimer was not called), and
+    // no other operation is still in progress
     private synchronized void startTimer() {
-        if(timer == null)
+        if(activeCalls > 0)
+            activeCalls--;
+        if(timer == null || activeCalls > 0)
             return;
         
         // stops previous timer, if any (there shouldn't be one)
-        stopTimer(); 
+        cancelTask(); 
         invalidateTask = new InvalidateTask();
 //        timer.schedule(invalidateTask, DmtAdminCore.IDLE_TIMEOUT);
         timer.schedule(invalidateTask, dmtAdmin.getSessionInactivityTimeout() );
@@ -610,11 +668,19 @@ class SessionWrapper extends DmtSessionImpl {
         if(timer == null)
             return;
         
-        stopTimer(); // this might not be needed, but it does not cause any harm
+        cancelTask(); // this might not be needed, but it does not cause any harm
         timer.cancel();
         timer = null; // to make sure the timer is not reset again
     }
     
+    private synchronized void cancelTask() {
+        if(invalidateTask == null)
+            return;
+        
+        invalidateTask.cancel();
+        invalidateTask = null;
+    }
+    
     private class InvalidateTask extends TimerTask {
 		InvalidateTask() {
 			super();
@@ -109,7 +109,7 @@ public class Plugin<P> {
 			if ( s == null )
 				return null;
 			
-			s.plugin = this;
+			s.setPlugin(this);
 			getOwns().add( s );
 			invokeMountPointsCallback(Arrays.asList(s), ADDED);
 			
@@ -150,7 +150,7 @@ public class Plugin<P> {
 		// siblings with and without trailing "#" at the same time are incompatible
 		if ( s.parent != null ) {
 			HashSet<String> siblingUris = new HashSet<String>();
-			for (Segment<P> sibling : s.parent.children) {
+			for (Segment<P> sibling : s.parent.children.values()) {
 				String mountedOn = sibling.mountedOn != null ? sibling.mountedOn : sibling.name;
 				siblingUris.add(mountedOn.substring(mountedOn.length()-1));
 			}
@@ -19,7 +19,9 @@ package org.osgi.impl.service.dmt.dispatcher;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.osgi.service.dmt.DmtException;
 
@@ -30,16 +32,22 @@ import org.osgi.service.dmt.DmtException;
  * is responsible for. Segments without an assigned plugin just ensure that the 
  * whole tree is browsable and are created/removed as needed when plugins are 
  * mapped/unmapped.
- * Each Segment knows its parent and children.
+ * Each Segment knows its parent and children. Children are indexed by name,
+ * and each Segment remembers the plugin it resolved to until a plugin is 
+ * mapped or released anywhere in the tree.
  * @author steffen
  *
  */
 public class Segment<P> {
 
 	final Segment<P>		parent;
+	final Segment<P>		root;
 	final String name;
-	final List<Segment<P>>	children	= new ArrayList<>();
+	final Map<String,Segment<P>>	children	= new LinkedHashMap<>();
 	Plugin<P>				plugin;
+	// bumped on the root segment whenever a plugin is mapped or released
+	volatile int			version;
+	volatile Resolved<P>	resolved;
 	boolean locked;
 	Thread lockedThread;
 	String mountedOn;
@@ -49,12 +57,14 @@ public class Segment<P> {
 	Segment() {
 		name = ".";
 		parent = null;
+		root = this;
 		creationTime = null;
 	}
 
 	Segment(Segment<P> parent, String name) {
 		this.name = name;
 		this.parent = parent;
+		this.root = parent.root;
 		this.creationTime = new Date();
 	}
 
@@ -67,9 +77,9 @@ public class Segment<P> {
 	 */
 	synchronized void release(Segment<P> child) throws DmtException {
 		if (child != null)
-			getChildren().remove(child);
+			children.remove(child.name, child);
 		else
-			plugin = null;
+			setPlugin(null);
 		// remove current node only from parent, if:
 		// - not top-level
 		// - there is no plugin mapped directly to this segment
@@ -101,16 +111,15 @@ public class Segment<P> {
 
 		@SuppressWarnings("hiding")
 		String name = path[i];
-		for (Segment<P> child : children) {
-			if (child.name.equals(name))
-				return child.getSegmentFor(path, i + 1, add);
-		}
+		Segment<P> child = children.get(name);
+		if (child != null)
+			return child.getSegmentFor(path, i + 1, add);
 		if (!add)
 			return null;
-		Segment<P> child = new Segment<>(this, name);
+		child = new Segment<>(this, name);
 		// SD: don't add mount points "#"
 		if (!"#".equals(name))
-			children.add(child);
+			children.put(name, child);
 		return child.getSegmentFor(path, i + 1, add);
 	}
 
@@ -118,10 +127,9 @@ public class Segment<P> {
 		if (i < path.length) {
 			@SuppressWarnings("hiding")
 			String name = path[i];
-			for (Segment<P> child : children) {
-				if (child.name.equals(name))
-					return child.getPluginFor(path, i + 1);
-			}
+			Segment<P> child = children.get(name);
+			if (child != null)
+				return child.getPluginFor(path, i + 1);
 		}
 		return this.getPlugin();
 	}
@@ -131,10 +139,19 @@ public class Segment<P> {
 		if (plugin != null)
 			return plugin;
 
-		if (parent != null)
-			return parent.getPlugin();
+		int v = root.version;
+		Resolved<P> r = resolved;
+		if (r != null && r.version == v)
+			return r.plugin;
+
+		Plugin<P> p = parent == null ? null : parent.getPlugin();
+		resolved = new Resolved<>(p, v);
+		return p;
+	}
 
-		return null;
+	void setPlugin(Plugin<P> plugin) {
+		this.plugin = plugin;
+		root.version++;
 	}
 
 	synchronized void lock() throws InterruptedException {
@@ -163,7 +180,7 @@ public class Segment<P> {
 	 * @param result
 	 */
 	public void getFirstDescendantPlugins(List<Segment<P>> result) {
-		for (Segment<P> s : children) {
+		for (Segment<P> s : children.values()) {
 			// stop at first descendant segment with attached plugin 
 			if ( s.plugin != null )
 				result.add(s);
@@ -189,7 +206,7 @@ public class Segment<P> {
 	}
 
 	public List<Segment<P>> getChildren() {
-		return children;
+		return new ArrayList<>(children.values());
 	}
 
 	public String getName() {
@@ -204,4 +221,14 @@ public class Segment<P> {
 	public Date getCreationTime() {
 		return creationTime;
 	}
+
+	private static final class Resolved<P> {
+		final Plugin<P>	plugin;
+		final int		version;
+
+		Resolved(Plugin<P> plugin, int version) {
+			this.plugin = plugin;
+			this.version = version;
+		}
+	}
 }
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0 
+ *******************************************************************************/
+package org.osgi.impl.service.dmt.export;
+
+import java.util.Map;
+
+/**
+ * Metrics of the Dmt Admin implementation, for exporters that scrape them
+ * periodically. While the metrics are disabled nothing is measured, and the
+ * returned values do not change.
+ * <p>
+ * The following metrics are recorded, for each lock mode (
+ * <code>shared</code>, <code>exclusive</code> or <code>atomic</code>):
+ * <ul>
+ * <li>the histogram <code>session.wait.&lt;lock mode&gt;</code> of the time
+ * new sessions waited for conflicting sessions to be closed</li>
+ * <li>the counter <code>session.creation.timeout.&lt;lock mode&gt;</code> of
+ * sessions that could not be created in time</li>
+ * </ul>
+ * and the histogram <code>plugin.&lt;operation&gt; &lt;root URI&gt;</code> of
+ * the latency of each operation called on the data plugin sessions of the
+ * plugin registered on the given root. The operation is the name of the
+ * plugin session method, and is separated from the root URI by a single
+ * space. The histograms of at most 256 plugin roots are kept, the calls on
+ * further roots are recorded with the root URI <code>*</code>.
+ * <p>
+ * Reading the metrics requires no permission. Enabling, disabling and
+ * resetting them changes what all other readers see, so it requires
+ * <code>AdminPermission</code>.
+ */
+public interface DmtAdminMetrics {
+    /**
+     * Returns whether metrics are currently being recorded. The initial value
+     * is taken from the <code>org.osgi.impl.service.dmt.metrics</code> system
+     * property.
+     * 
+     * @return <code>true</code> if metrics are recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Starts or stops recording metrics. The values recorded so far are kept.
+     * 
+     * @param enabled <code>true</code> to start recording metrics
+     * @throws SecurityException if the caller does not have
+     *         <code>AdminPermission</code>
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Returns the upper bounds of the histogram buckets, in microseconds and
+     * in ascending order.
+     * 
+     * @return the bucket bounds, the returned array may be modified
+     */
+    long[] getBucketBounds();
+
+    /**
+     * Returns the recorded histograms. Each value holds the number of
+     * measurements in each bucket, followed by the number of measurements
+     * above the highest bucket bound.
+     * 
+     * @return a <code>Map</code> of histogram names to bucket counts, which
+     *         is not updated by later measurements
+     */
+    Map<String,long[]> getHistograms();
+
+    /**
+     * Returns the sum of the measurements of each histogram, in microseconds.
+     * 
+     * @return a <code>Map</code> of histogram names to total times, which is
+     *         not updated by later measurements
+     */
+    Map<String,Long> getTotalTimes();
+
+    /**
+     * Returns the recorded counters.
+     * 
+     * @return a <code>Map</code> of counter names to values, which is not
+     *         updated by later measurements
+     */
+    Map<String,Long> getCounters();
+
+    /**
+     * Discards all recorded values.
+     * 
+     * @throws SecurityException if the caller does not have
+     *         <code>AdminPermission</code>
+     */
+    void reset();
+}
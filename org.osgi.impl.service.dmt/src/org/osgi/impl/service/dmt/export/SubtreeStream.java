@@ -0,0 +1,368 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0 
+ *******************************************************************************/
+package org.osgi.impl.service.dmt.export;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.osgi.service.dmt.Acl;
+import org.osgi.service.dmt.DmtData;
+import org.osgi.service.dmt.DmtException;
+import org.osgi.service.dmt.DmtIllegalStateException;
+import org.osgi.service.dmt.DmtSession;
+
+/**
+ * Writes a DMT subtree to a binary stream and reads it back into a tree.
+ * <p>
+ * The export traverses the subtree once in depth first order, with node names
+ * sorted, and writes one record per node with its URI relative to the
+ * exported node, its type, title and ACL, and for leaf nodes its value. The
+ * values of the leaf children of each interior node are read with a single
+ * {@link DmtSession#getNodeValues(String[])} call. The meta-data of the nodes
+ * is defined by the plugins and is not written. Interior node values are not
+ * written either, as most plugins do not support them.
+ * <p>
+ * The import creates the nodes that do not exist yet and sets the values of
+ * the leaf nodes that do, within an atomic session, so either the whole
+ * stream is applied or nothing is. A node can only be created if the stream
+ * holds its type. Strings and byte arrays longer than
+ * {@link #MAX_LENGTH} bytes are rejected, so that a corrupt stream cannot
+ * make the import allocate arbitrary amounts of memory.
+ * 
+ * @author $Id$
+ */
+public final class SubtreeStream {
+	/**
+	 * The maximum length in bytes of a string or byte array in a stream.
+	 */
+	public static final int		MAX_LENGTH	= 16 * 1024 * 1024;
+
+	private static final int	MAGIC		= 0x444D5431;	// "DMT1"
+
+	private static final byte	END			= 0;
+	private static final byte	INTERIOR	= 1;
+	private static final byte	LEAF		= 2;
+
+	private SubtreeStream() {
+		// static utility class
+	}
+
+	/**
+	 * Writes the subtree of a node to a stream. The stream is not closed.
+	 * 
+	 * @param session the session to read the subtree with
+	 * @param nodeUri the URI of the root of the subtree
+	 * @param out the stream to write to
+	 * @throws DmtException if reading the subtree fails
+	 * @throws IOException if writing to the stream fails
+	 */
+	public static void exportSubtree(DmtSession session, String nodeUri,
+			OutputStream out) throws DmtException, IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		if (session.isLeafNode(nodeUri))
+			writeNode(data, session, nodeUri, "",
+					session.getNodeValue(nodeUri));
+		else
+			exportInteriorNode(data, session, nodeUri, "");
+		data.writeByte(END);
+		data.flush();
+	}
+
+	private static void exportInteriorNode(DataOutputStream data,
+			DmtSession session, String uri, String relativeUri)
+			throws DmtException, IOException {
+		writeNode(data, session, uri, relativeUri, null);
+
+		String[] children = session.getChildNodeNames(uri);
+		Arrays.sort(children);
+		String prefix = uri.length() == 0 ? "" : uri + "/";
+		String relativePrefix = relativeUri.length() == 0 ? ""
+				: relativeUri + "/";
+
+		List<String> leafUris = new ArrayList<>();
+		boolean[] isLeaf = new boolean[children.length];
+		for (int i = 0; i < children.length; i++) {
+			isLeaf[i] = session.isLeafNode(prefix + children[i]);
+			if (isLeaf[i])
+				leafUris.add(prefix + children[i]);
+		}
+		DmtData[] values = session
+				.getNodeValues(leafUris.toArray(new String[leafUris.size()]));
+
+		int leaf = 0;
+		for (int i = 0; i < children.length; i++) {
+			if (isLeaf[i])
+				writeNode(data, session, prefix + children[i],
+						relativePrefix + children[i], values[leaf++]);
+			else
+				exportInteriorNode(data, session, prefix + children[i],
+						relativePrefix + children[i]);
+		}
+	}
+
+	// value is null for interior nodes
+	private static void writeNode(DataOutputStream data, DmtSession session,
+			String uri, String relativeUri, DmtData value)
+			throws DmtException, IOException {
+		data.writeByte(value == null ? INTERIOR : LEAF);
+		writeString(data, relativeUri);
+		writeString(data, session.getNodeType(uri));
+		writeString(data, getNodeTitle(session, uri));
+		Acl acl = session.getNodeAcl(uri);
+		writeString(data, acl == null ? null : acl.toString());
+		if (value != null)
+			writeValue(data, value);
+	}
+
+	/**
+	 * Reads a subtree written by
+	 * {@link #exportSubtree(DmtSession, String, OutputStream)} into the tree
+	 * below a node, and commits the session. The root of the stream is
+	 * imported as the given node. If the import fails, the session is rolled
+	 * back. The stream is not closed.
+	 * 
+	 * @param session an atomic session to write the subtree with
+	 * @param nodeUri the URI of the node to import the root of the stream as
+	 * @param in the stream to read from
+	 * @throws DmtException if writing the subtree fails
+	 * @throws IOException if reading from the stream fails, or if the stream
+	 *         was not written by this class, holds a string or byte array
+	 *         longer than {@link #MAX_LENGTH}, or holds a node without a URI
+	 *         or a node to create without a type
+	 * @throws DmtIllegalStateException if the session is not atomic
+	 */
+	public static void importSubtree(DmtSession session, String nodeUri,
+			InputStream in) throws DmtException, IOException {
+		if (session.getLockType() != DmtSession.LOCK_TYPE_ATOMIC)
+			throw new DmtIllegalStateException(
+					"Subtrees can only be imported in atomic sessions.");
+
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC)
+			throw new IOException("Not a DMT subtree stream.");
+
+		String prefix = nodeUri.length() == 0 ? "" : nodeUri + "/";
+		boolean imported = false;
+		try {
+			for (byte kind = data.readByte(); kind != END; kind = data
+					.readByte()) {
+				if (kind != INTERIOR && kind != LEAF)
+					throw new IOException(
+							"Invalid record in DMT subtree stream: " + kind);
+
+				String relativeUri = readString(data);
+				if (relativeUri == null)
+					throw new IOException(
+							"Missing node URI in DMT subtree stream.");
+				String uri = relativeUri.length() == 0 ? nodeUri
+						: prefix + relativeUri;
+				String type = readString(data);
+				String title = readString(data);
+				String acl = readString(data);
+				DmtData value = kind == LEAF ? readValue(data) : null;
+
+				if (!session.isNodeUri(uri)) {
+					if (type == null)
+						throw new IOException(
+								"Missing node type in DMT subtree stream for new node: "
+										+ uri);
+					if (value == null)
+						session.createInteriorNode(uri, type);
+					else
+						session.createLeafNode(uri, value, type);
+				} else if (value != null)
+					session.setNodeValue(uri, value);
+
+				if (title != null)
+					setNodeTitle(session, uri, title);
+				if (acl != null)
+					session.setNodeAcl(uri, new Acl(acl));
+			}
+			imported = true;
+		} finally {
+			if (!imported)
+				rollback(session);
+		}
+		session.commit();
+	}
+
+	// called while another exception is thrown, which is the one to report
+	private static void rollback(DmtSession session) {
+		try {
+			session.rollback();
+		} catch (DmtException | RuntimeException e) {
+			// the failure of the import is reported instead
+		}
+	}
+
+	private static String getNodeTitle(DmtSession session, String uri)
+			throws DmtException {
+		try {
+			return session.getNodeTitle(uri);
+		} catch (DmtException e) {
+			if (e.getCode() == DmtException.FEATURE_NOT_SUPPORTED)
+				return null;
+			throw e;
+		}
+	}
+
+	private static void setNodeTitle(DmtSession session, String uri,
+			String title) throws DmtException {
+		try {
+			session.setNodeTitle(uri, title);
+		} catch (DmtException e) {
+			if (e.getCode() != DmtException.FEATURE_NOT_SUPPORTED)
+				throw e;
+		}
+	}
+
+	private static void writeValue(DataOutputStream data, DmtData value)
+			throws IOException {
+		int format = value.getFormat();
+		data.writeInt(format);
+		switch (format) {
+			case DmtData.FORMAT_INTEGER :
+				data.writeInt(value.getInt());
+				break;
+			case DmtData.FORMAT_LONG :
+				data.writeLong(value.getLong());
+				break;
+			case DmtData.FORMAT_FLOAT :
+				data.writeFloat(value.getFloat());
+				break;
+			case DmtData.FORMAT_BOOLEAN :
+				data.writeBoolean(value.getBoolean());
+				break;
+			case DmtData.FORMAT_STRING :
+				writeString(data, value.getString());
+				break;
+			case DmtData.FORMAT_XML :
+				writeString(data, value.getXml());
+				break;
+			case DmtData.FORMAT_DATE :
+				writeString(data, value.getDate());
+				break;
+			case DmtData.FORMAT_TIME :
+				writeString(data, value.getTime());
+				break;
+			case DmtData.FORMAT_DATE_TIME :
+				data.writeLong(value.getDateTime().getTime());
+				break;
+			case DmtData.FORMAT_BINARY :
+				writeBytes(data, value.getBinary());
+				break;
+			case DmtData.FORMAT_BASE64 :
+				writeBytes(data, value.getBase64());
+				break;
+			case DmtData.FORMAT_RAW_STRING :
+				writeString(data, value.getFormatName());
+				writeString(data, value.getRawString());
+				break;
+			case DmtData.FORMAT_RAW_BINARY :
+				writeString(data, value.getFormatName());
+				writeBytes(data, value.getRawBinary());
+				break;
+			case DmtData.FORMAT_NULL :
+				break;
+			default :
+				throw new IOException(
+						"Node values of format " + value.getFormatName()
+								+ " cannot be exported.");
+		}
+	}
+
+	private static DmtData readValue(DataInputStream data)
+			throws IOException {
+		int format = data.readInt();
+		switch (format) {
+			case DmtData.FORMAT_INTEGER :
+				return new DmtData(data.readInt());
+			case DmtData.FORMAT_LONG :
+				return new DmtData(data.readLong());
+			case DmtData.FORMAT_FLOAT :
+				return new DmtData(data.readFloat());
+			case DmtData.FORMAT_BOOLEAN :
+				return data.readBoolean() ? DmtData.TRUE_VALUE
+						: DmtData.FALSE_VALUE;
+			case DmtData.FORMAT_STRING :
+			case DmtData.FORMAT_XML :
+			case DmtData.FORMAT_DATE :
+			case DmtData.FORMAT_TIME :
+				return new DmtData(readString(data), format);
+			case DmtData.FORMAT_DATE_TIME :
+				return new DmtData(new Date(data.readLong()));
+			case DmtData.FORMAT_BINARY :
+			case DmtData.FORMAT_BASE64 :
+				return new DmtData(readBytes(data), format);
+			case DmtData.FORMAT_RAW_STRING :
+				return new DmtData(readString(data), readString(data));
+			case DmtData.FORMAT_RAW_BINARY :
+				return new DmtData(readString(data), readBytes(data));
+			case DmtData.FORMAT_NULL :
+				return DmtData.NULL_VALUE;
+			default :
+				throw new IOException(
+						"Invalid node value format in DMT subtree stream: "
+								+ format);
+		}
+	}
+
+	// strings are written as UTF-8 bytes, as writeUTF() is limited to 64k
+	private static void writeString(DataOutputStream data, String s)
+			throws IOException {
+		writeBytes(data, s == null ? null : s.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String readString(DataInputStream data) throws IOException {
+		byte[] bytes = readBytes(data);
+		return bytes == null ? null
+				: new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeBytes(DataOutputStream data, byte[] bytes)
+			throws IOException {
+		if (bytes == null) {
+			data.writeInt(-1);
+			return;
+		}
+		data.writeInt(bytes.length);
+		data.write(bytes);
+	}
+
+	private static byte[] readBytes(DataInputStream data) throws IOException {
+		int length = data.readInt();
+		if (length < 0)
+			return null;
+		if (length > MAX_LENGTH)
+			throw new IOException("Invalid length in DMT subtree stream: "
+					+ length + " bytes, at most " + MAX_LENGTH
+					+ " are allowed.");
+		byte[] bytes = new byte[length];
+		data.readFully(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.impl.service.dmt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.service.dmt.Acl;
+import org.osgi.service.dmt.DmtException;
+
+@SuppressWarnings("javadoc")
+public class AclStoreTest {
+	private static final Acl ROOT_ACL = new Acl("Add=*&Get=*&Replace=*");
+
+	private static Node node(String uri) throws DmtException {
+		return Node.validateAndNormalizeUri(uri);
+	}
+
+	@Test
+	public void testEffectiveAcl() throws Exception {
+		AclStore store = new AclStore(ROOT_ACL);
+		Acl a = new Acl("Get=a");
+		Acl c = new Acl("Get=c");
+		store.put(node("./a"), a);
+		store.put(node("./a/b/c"), c);
+
+		assertThat(store.get(node("./a"))).isEqualTo(a);
+		assertThat(store.get(node("./a/b"))).isNull();
+		assertThat(store.getEffective(node("."))).isEqualTo(ROOT_ACL);
+		assertThat(store.getEffective(node("./x/y"))).isEqualTo(ROOT_ACL);
+		assertThat(store.getEffective(node("./a/b"))).isEqualTo(a);
+		assertThat(store.getEffective(node("./a/b/c/d/e"))).isEqualTo(c);
+
+		store.remove(node("./a"));
+		assertThat(store.getEffective(node("./a/b"))).isEqualTo(ROOT_ACL);
+		assertThat(store.getEffective(node("./a/b/c"))).isEqualTo(c);
+
+		// the ACL of the root cannot be removed, only replaced
+		store.remove(node("."));
+		assertThat(store.get(node("."))).isEqualTo(ROOT_ACL);
+		Acl root = new Acl("Get=r");
+		store.put(node("."), root);
+		assertThat(store.getEffective(node("./a/b"))).isEqualTo(root);
+	}
+
+	@Test
+	public void testMove() throws Exception {
+		AclStore store = new AclStore(ROOT_ACL);
+		Acl a = new Acl("Get=a");
+		Acl b = new Acl("Get=b");
+		Acl x = new Acl("Get=x");
+		store.put(node("./a"), a);
+		store.put(node("./a/b"), b);
+		store.put(node("./x"), x);
+
+		store.move(node("./a"), node("./x/a"));
+		assertThat(store.get(node("./a"))).isNull();
+		assertThat(store.getEffective(node("./a/b"))).isEqualTo(ROOT_ACL);
+		assertThat(store.get(node("./x/a"))).isEqualTo(a);
+		assertThat(store.get(node("./x/a/b"))).isEqualTo(b);
+
+		store.move(node("./x"), null);
+		assertThat(store.get(node("./x/a"))).isNull();
+		assertThat(store.getEffective(node("./x/a/b"))).isEqualTo(ROOT_ACL);
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+		AclStore store = new AclStore(ROOT_ACL);
+		Acl a = new Acl("Get=a");
+		store.put(node("./a"), a);
+		store.put(node("./b"), a);
+		AclStore snapshot = store.copy();
+
+		Acl changed = new Acl("Get=changed");
+		store.put(node("./a"), changed);
+		store.put(node("./a/b"), changed);
+		store.remove(node("./b"));
+		assertThat(snapshot.get(node("./a"))).isEqualTo(a);
+		assertThat(snapshot.get(node("./a/b"))).isNull();
+		assertThat(snapshot.get(node("./b"))).isEqualTo(a);
+
+		// only the given subtree is restored
+		store.restore(node("./a"), snapshot);
+		assertThat(store.get(node("./a"))).isEqualTo(a);
+		assertThat(store.get(node("./a/b"))).isNull();
+		assertThat(store.get(node("./b"))).isNull();
+
+		store.restore(node("."), snapshot);
+		assertThat(store.get(node("./b"))).isEqualTo(a);
+	}
+
+	@Test
+	public void testMatchesReference() throws Exception {
+		Random random = new Random(42);
+		String[] names = {
+				"a", "b", "c"
+		};
+		List<Node> nodes = new ArrayList<>();
+		nodes.add(node("."));
+		for (String x : names) {
+			nodes.add(node("./" + x));
+			for (String y : names) {
+				nodes.add(node("./" + x + "/" + y));
+				for (String z : names)
+					nodes.add(node("./" + x + "/" + y + "/" + z));
+			}
+		}
+
+		AclStore store = new AclStore(ROOT_ACL);
+		Map<Node,Acl> reference = new HashMap<>();
+		reference.put(node("."), ROOT_ACL);
+		AclStore snapshot = null;
+		Map<Node,Acl> referenceSnapshot = null;
+
+		for (int i = 0; i < 20000; i++) {
+			Node n = nodes.get(random.nextInt(nodes.size()));
+			int op = random.nextInt(10);
+			if (op == 9 || (n.isRoot() && op < 7))
+				continue;
+			if (op < 4) {
+				Acl acl = new Acl("Get=p" + random.nextInt(5));
+				reference.put(n, acl);
+				store.put(n, acl);
+			} else if (op < 6) {
+				reference.remove(n);
+				store.remove(n);
+			} else if (op == 6) {
+				Node target = random.nextBoolean() ? null
+						: n.getParent()
+								.appendSegment(names[random.nextInt(3)]);
+				if (n.equals(target))
+					continue;
+				move(reference, n, target);
+				store.move(n, target);
+			} else if (op == 7) {
+				snapshot = store.copy();
+				referenceSnapshot = new HashMap<>(reference);
+			} else if (snapshot != null) {
+				store.restore(n, snapshot);
+				for (Iterator<Node> j = reference.keySet().iterator(); j
+						.hasNext();)
+					if (n.isAncestorOf(j.next()))
+						j.remove();
+				for (Map.Entry<Node,Acl> e : referenceSnapshot.entrySet())
+					if (n.isAncestorOf(e.getKey()))
+						reference.put(e.getKey(), e.getValue());
+			}
+
+			for (Node m : nodes) {
+				assertThat(store.get(m)).isEqualTo(reference.get(m));
+				assertThat(store.getEffective(m))
+						.isEqualTo(effective(reference, m));
+			}
+			if (snapshot != null)
+				for (Node m : nodes)
+					assertThat(Objects.equals(snapshot.get(m),
+							referenceSnapshot.get(m))).isTrue();
+		}
+	}
+
+	private static Acl effective(Map<Node,Acl> reference, Node node) {
+		Acl acl = reference.get(node);
+		while (acl == null) {
+			node = node.getParent();
+			acl = reference.get(node);
+		}
+		return acl;
+	}
+
+	private static void move(Map<Node,Acl> reference, Node node,
+			Node newNode) {
+		Map<Node,Acl> moved = new HashMap<>();
+		for (Iterator<Map.Entry<Node,Acl>> i = reference.entrySet()
+				.iterator(); i.hasNext();) {
+			Map.Entry<Node,Acl> e = i.next();
+			Node relative = node.getRelativeNode(e.getKey());
+			if (relative != null) {
+				if (newNode != null)
+					moved.put(newNode.appendRelativeNode(relative),
+							e.getValue());
+				i.remove();
+			}
+		}
+		reference.putAll(moved);
+	}
+}
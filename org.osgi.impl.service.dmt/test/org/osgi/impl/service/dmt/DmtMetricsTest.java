@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.impl.service.dmt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.dmt.DmtData;
+import org.osgi.service.dmt.DmtException;
+import org.osgi.service.dmt.DmtSession;
+import org.osgi.service.dmt.spi.DataPlugin;
+
+@SuppressWarnings("javadoc")
+public class DmtMetricsTest {
+
+	private static Node node(String uri) throws DmtException {
+		return Node.validateAndNormalizeUri(uri);
+	}
+
+	@Test
+	public void testRecording() throws Exception {
+		DmtMetrics metrics = new DmtMetrics();
+		assertThat(metrics.isEnabled()).isFalse();
+		assertThat(metrics.start()).isEqualTo(0L);
+		metrics.stopSessionWait(metrics.start(), DmtSession.LOCK_TYPE_SHARED);
+		metrics.sessionCreationTimeout(DmtSession.LOCK_TYPE_SHARED);
+		metrics.stopPluginCall(metrics.start(), node("./a"), "getNodeValue");
+		assertThat(metrics.getHistograms().isEmpty()).isTrue();
+		assertThat(metrics.getCounters().isEmpty()).isTrue();
+
+		metrics.setEnabled(true);
+		metrics.stopSessionWait(metrics.start(),
+				DmtSession.LOCK_TYPE_EXCLUSIVE);
+		metrics.sessionCreationTimeout(DmtSession.LOCK_TYPE_ATOMIC);
+		metrics.sessionCreationTimeout(DmtSession.LOCK_TYPE_ATOMIC);
+		for (int i = 0; i < 3; i++)
+			metrics.stopPluginCall(metrics.start(), node("./a"),
+					"getNodeValue");
+
+		Map<String,long[]> histograms = metrics.getHistograms();
+		assertThat(new TreeSet<>(histograms.keySet())).isEqualTo(
+				new TreeSet<>(Arrays.asList("session.wait.exclusive",
+						"plugin.getNodeValue ./a")));
+		assertThat(histograms.get("plugin.getNodeValue ./a").length)
+				.isEqualTo(metrics.getBucketBounds().length + 1);
+		assertThat(Arrays.stream(histograms.get("plugin.getNodeValue ./a"))
+				.sum()).isEqualTo(3L);
+		assertThat(metrics.getTotalTimes().keySet())
+				.isEqualTo(histograms.keySet());
+		assertThat(metrics.getCounters().get("session.creation.timeout.atomic"))
+				.isEqualTo(Long.valueOf(2));
+
+		metrics.reset();
+		assertThat(metrics.getHistograms().isEmpty()).isTrue();
+		assertThat(metrics.getCounters().isEmpty()).isTrue();
+		assertThat(metrics.isEnabled()).isTrue();
+	}
+
+	@Test
+	public void testPluginRootsBounded() throws Exception {
+		DmtMetrics metrics = new DmtMetrics();
+		metrics.setEnabled(true);
+		int roots = DmtMetrics.MAX_PLUGIN_ROOTS + 50;
+		for (int i = 0; i < roots; i++)
+			metrics.stopPluginCall(metrics.start(), node("./r" + i),
+					"getNodeValue");
+
+		Map<String,long[]> histograms = metrics.getHistograms();
+		assertThat(histograms.size())
+				.isEqualTo(DmtMetrics.MAX_PLUGIN_ROOTS + 1);
+		assertThat(Arrays.stream(histograms.get("plugin.getNodeValue "
+				+ DmtMetrics.OTHER_PLUGIN_ROOTS)).sum()).isEqualTo(50L);
+		// roots seen before the limit was reached are still recorded
+		metrics.stopPluginCall(metrics.start(), node("./r0"), "getNodeValue");
+		assertThat(Arrays.stream(histograms.get("plugin.getNodeValue ./r0"))
+				.sum()).isEqualTo(1L);
+		assertThat(Arrays.stream(
+				metrics.getHistograms().get("plugin.getNodeValue ./r0"))
+				.sum()).isEqualTo(2L);
+	}
+
+	@SuppressWarnings({
+			"rawtypes", "unchecked"
+	})
+	@Test
+	public void testPluginCallsKeyedByPluginRoot() throws Exception {
+		FakeFramework framework = new FakeFramework();
+		Context context = framework.createContext();
+		DmtSessionImpl.init_acls();
+		DmtAdminCore dmtAdmin = new DmtAdminCore(null, context);
+		try {
+			Hashtable<String,Object> props = new Hashtable<>();
+			props.put(DataPlugin.DATA_ROOT_URIS, new String[] {
+					"./slow"
+			});
+			ServiceReference<Object> reference = (ServiceReference) framework.bundleContext
+					.registerService(DataPlugin.class,
+							new SharedSessionTest.SlowPlugin(), props)
+					.getReference();
+			context.getPluginDispatcher().addingService(reference);
+			dmtAdmin.getMetrics().setEnabled(true);
+
+			// each session opens a plugin session on its own root
+			for (int i = 0; i < 5; i++) {
+				DmtSession session = dmtAdmin.getSession(null,
+						"./slow/leaf" + i, DmtSession.LOCK_TYPE_SHARED,
+						framework.bundle);
+				assertThat(session.getNodeValue("./slow/leaf" + i))
+						.isEqualTo(new DmtData("./slow/leaf" + i));
+				session.close();
+			}
+
+			Map<String,long[]> histograms = dmtAdmin.getMetrics()
+					.getHistograms();
+			for (String name : histograms.keySet())
+				if (name.startsWith("plugin."))
+					assertThat(name.endsWith(" ./slow")).isTrue();
+			assertThat(Arrays.stream(
+					histograms.get("plugin.getNodeValue ./slow")).sum())
+					.isEqualTo(5L);
+		} finally {
+			dmtAdmin.close();
+			context.close();
+		}
+	}
+}
@@ -0,0 +1,425 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.impl.service.dmt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.service.dmt.Acl;
+import org.osgi.service.dmt.DmtData;
+import org.osgi.service.dmt.DmtException;
+import org.osgi.service.dmt.DmtSession;
+import org.osgi.service.dmt.MetaNode;
+import org.osgi.service.dmt.spi.ReadableDataSession;
+
+/**
+ * Tests the default methods added to {@link DmtSession} and
+ * {@link ReadableDataSession} in version 2.1, against sessions that only
+ * implement the single node methods.
+ */
+@SuppressWarnings("javadoc")
+public class DmtSessionDefaultsTest {
+
+	@Test
+	public void testGetNodeValues() throws Exception {
+		TreeSession session = new TreeSession("a/x", "a/y", "b");
+		DmtData[] values = session.getNodeValues(new String[] {
+				"b", "a/x"
+		});
+		assertThat(Arrays.asList(values)).isEqualTo(
+				Arrays.asList(new DmtData("b"), new DmtData("a/x")));
+		assertThat(session.getNodeValues(new String[0]).length).isEqualTo(0);
+
+		assertThat(code(() -> session.getNodeValues(null)))
+				.isEqualTo(DmtException.INVALID_URI);
+		assertThat(code(() -> session.getNodeValues(new String[] {
+				"b", "missing"
+		}))).isEqualTo(DmtException.NODE_NOT_FOUND);
+	}
+
+	@Test
+	public void testGetSubtreeValues() throws Exception {
+		TreeSession session = new TreeSession("r/c", "r/a/z", "r/a/y/deep",
+				"r/b", "other");
+
+		Map<String,DmtData> values = session.getSubtreeValues("r", -1);
+		assertThat(new ArrayList<>(values.keySet())).isEqualTo(Arrays
+				.asList("r/a/y/deep", "r/a/z", "r/b", "r/c"));
+		assertThat(values.get("r/a/z")).isEqualTo(new DmtData("r/a/z"));
+
+		assertThat(new ArrayList<>(session.getSubtreeValues("r", 1).keySet()))
+				.isEqualTo(Arrays.asList("r/b", "r/c"));
+		assertThat(session.getSubtreeValues("r", 0).isEmpty()).isTrue();
+		assertThat(new ArrayList<>(session.getSubtreeValues("r/b", 0).keySet()))
+				.isEqualTo(Arrays.asList("r/b"));
+		assertThat(new ArrayList<>(session.getSubtreeValues("", 1).keySet()))
+				.isEqualTo(Arrays.asList("other"));
+
+		assertThat(code(() -> session.getSubtreeValues("missing", -1)))
+				.isEqualTo(DmtException.NODE_NOT_FOUND);
+	}
+
+	@Test
+	public void testSetNodeValues() throws Exception {
+		TreeSession session = new TreeSession("a", "b", "c");
+		session.setNodeValues(new String[] {
+				"a", "c"
+		}, new DmtData[] {
+				new DmtData(1), new DmtData(3)
+		});
+		assertThat(session.getNodeValue("a")).isEqualTo(new DmtData(1));
+		assertThat(session.getNodeValue("b")).isEqualTo(new DmtData("b"));
+		assertThat(session.getNodeValue("c")).isEqualTo(new DmtData(3));
+
+		assertThat(code(() -> session.setNodeValues(null, new DmtData[0])))
+				.isEqualTo(DmtException.INVALID_URI);
+		assertThat(code(() -> session.setNodeValues(new String[] {
+				"a"
+		}, null))).isEqualTo(DmtException.COMMAND_FAILED);
+		assertThat(code(() -> session.setNodeValues(new String[] {
+				"a"
+		}, new DmtData[2]))).isEqualTo(DmtException.COMMAND_FAILED);
+
+		// values before the failing node are kept
+		assertThat(code(() -> session.setNodeValues(new String[] {
+				"a", "missing", "c"
+		}, new DmtData[] {
+				new DmtData(10), new DmtData(20), new DmtData(30)
+		}))).isEqualTo(DmtException.NODE_NOT_FOUND);
+		assertThat(session.getNodeValue("a")).isEqualTo(new DmtData(10));
+		assertThat(session.getNodeValue("c")).isEqualTo(new DmtData(3));
+	}
+
+	@Test
+	public void testPluginGetNodeValues() throws Exception {
+		TreeDataSession session = new TreeDataSession();
+		DmtData[] values = session.getNodeValues(new String[][] {
+				{
+						".", "p", "b"
+				}, {
+						".", "p", "a"
+				}
+		});
+		assertThat(Arrays.asList(values)).isEqualTo(Arrays
+				.asList(new DmtData("./p/b"), new DmtData("./p/a")));
+		assertThat(session.calls).isEqualTo(2);
+		assertThat(session.getNodeValues(new String[0][]).length)
+				.isEqualTo(0);
+	}
+
+	private interface Call {
+		void call() throws DmtException;
+	}
+
+	private static int code(Call call) {
+		try {
+			call.call();
+		} catch (DmtException e) {
+			return e.getCode();
+		}
+		throw new AssertionError("no DmtException");
+	}
+
+	// A session on a tree of leaf nodes whose values are their URIs. Only the
+	// methods used by the default methods are implemented.
+	private static class TreeSession implements DmtSession {
+		private final Map<String,DmtData> leaves = new TreeMap<>();
+
+		TreeSession(String... uris) {
+			for (String uri : uris)
+				leaves.put(uri, new DmtData(uri));
+		}
+
+		@Override
+		public DmtData getNodeValue(String nodeUri) throws DmtException {
+			DmtData value = leaves.get(nodeUri);
+			if (value == null)
+				throw new DmtException(nodeUri, DmtException.NODE_NOT_FOUND,
+						"no leaf");
+			return value;
+		}
+
+		@Override
+		public void setNodeValue(String nodeUri, DmtData data)
+				throws DmtException {
+			getNodeValue(nodeUri);
+			leaves.put(nodeUri, data);
+		}
+
+		@Override
+		public boolean isLeafNode(String nodeUri) throws DmtException {
+			if (leaves.containsKey(nodeUri))
+				return true;
+			getChildNodeNames(nodeUri);
+			return false;
+		}
+
+		@Override
+		public String[] getChildNodeNames(String nodeUri)
+				throws DmtException {
+			String prefix = nodeUri.length() == 0 ? "" : nodeUri + "/";
+			Set<String> names = new LinkedHashSet<>();
+			for (String uri : leaves.keySet())
+				if (uri.startsWith(prefix)) {
+					String rest = uri.substring(prefix.length());
+					int slash = rest.indexOf('/');
+					names.add(slash < 0 ? rest : rest.substring(0, slash));
+				}
+			if (names.isEmpty())
+				throw new DmtException(nodeUri, DmtException.NODE_NOT_FOUND,
+						"no interior node");
+			// reversed, the default method must sort the names
+			List<String> reversed = new ArrayList<>(names);
+			Collections.reverse(reversed);
+			return reversed.toArray(new String[reversed.size()]);
+		}
+
+		@Override
+		public boolean isNodeUri(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getState() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getLockType() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String getPrincipal() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getSessionId() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String getRootUri() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void commit() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void rollback() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void execute(String nodeUri, String data) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void execute(String nodeUri, String correlator, String data) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Acl getNodeAcl(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Acl getEffectiveNodeAcl(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setNodeAcl(String nodeUri, Acl acl) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void copy(String nodeUri, String newNodeUri,
+				boolean recursive) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void createInteriorNode(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void createInteriorNode(String nodeUri, String type) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void createLeafNode(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void createLeafNode(String nodeUri, DmtData value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void createLeafNode(String nodeUri, DmtData value,
+				String mimeType) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void deleteNode(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void renameNode(String nodeUri, String newName) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setDefaultNodeValue(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setNodeTitle(String nodeUri, String title) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setNodeType(String nodeUri, String type) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public MetaNode getMetaNode(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getNodeSize(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Date getNodeTimestamp(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String getNodeTitle(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String getNodeType(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getNodeVersion(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	// A plugin session whose nodes have their URI as value.
+	private static class TreeDataSession implements ReadableDataSession {
+		int calls;
+
+		@Override
+		public DmtData getNodeValue(String[] nodePath) {
+			calls++;
+			return new DmtData(String.join("/", nodePath));
+		}
+
+		@Override
+		public void nodeChanged(String[] nodePath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String[] getChildNodeNames(String[] nodePath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public MetaNode getMetaNode(String[] nodePath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getNodeSize(String[] nodePath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getNodeVersion(String[] nodePath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Date getNodeTimestamp(String[] nodePath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String getNodeTitle(String[] nodePath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String getNodeType(String[] nodePath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean isNodeUri(String[] nodePath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean isLeafNode(String[] nodePath) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
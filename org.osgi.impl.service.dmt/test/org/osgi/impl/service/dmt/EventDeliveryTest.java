@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.impl.service.dmt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.service.dmt.DmtEvent;
+import org.osgi.service.dmt.DmtException;
+import org.osgi.service.dmt.DmtSession;
+
+@SuppressWarnings("javadoc")
+public class EventDeliveryTest {
+	private FakeFramework	framework;
+	private Context			context;
+
+	@BeforeEach
+	public void setUp() {
+		framework = new FakeFramework();
+		context = framework.createContext();
+		EventDispatcher.startLocalEvents();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		// leave the static queue empty for the next test
+		EventDispatcher.stopLocalEvents();
+		while (EventDispatcher.getNextLocalEvent(0) != null) {
+			// drop
+		}
+		context.close();
+	}
+
+	private static Node node(String uri) throws DmtException {
+		return Node.validateAndNormalizeUri(uri);
+	}
+
+	@Test
+	public void testOrder() throws Exception {
+		EventDispatcher atomic = new EventDispatcher(context, 1,
+				framework.bundle);
+		EventDispatcher plain = new EventDispatcher(context, 2,
+				framework.bundle);
+
+		atomic.add(DmtEvent.ADDED, node("./a"), null, null, true);
+		atomic.add(DmtEvent.ADDED, node("./b"), null, null, true);
+		atomic.add(DmtEvent.ADDED, node("./a"), null, null, true);
+		plain.add(DmtEvent.REPLACED, node("./x"), null, null, false);
+		atomic.add(DmtEvent.DELETED, node("./c"), null, null, true);
+		atomic.add(DmtEvent.ADDED, node("./d"), null, null, true);
+		atomic.dispatchEvents();
+		plain.dispatchSessionLifecycleEvent(DmtEvent.SESSION_CLOSED, ".",
+				null, DmtSession.LOCK_TYPE_SHARED, false, null);
+
+		assertEvent(EventDispatcher.getNextLocalEvent(1000), 2,
+				DmtEvent.REPLACED, "./x");
+		assertEvent(EventDispatcher.getNextLocalEvent(1000), 1,
+				DmtEvent.ADDED, "./a", "./b");
+		assertEvent(EventDispatcher.getNextLocalEvent(1000), 1,
+				DmtEvent.DELETED, "./c");
+		assertEvent(EventDispatcher.getNextLocalEvent(1000), 1,
+				DmtEvent.ADDED, "./d");
+		assertEvent(EventDispatcher.getNextLocalEvent(1000), 2,
+				DmtEvent.SESSION_CLOSED);
+		assertThat(EventDispatcher.getNextLocalEvent(10)).isNull();
+	}
+
+	@Test
+	public void testDeliveryOnShutdown() throws Exception {
+		CountDownLatch delivering = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		List<DmtEventCore> delivered = Collections
+				.synchronizedList(new ArrayList<>());
+		DmtAdminCore dmtAdmin = new DmtAdminCore(null, context) {
+			@Override
+			void dispatchEvent(DmtEventCore event) {
+				delivering.countDown();
+				try {
+					proceed.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				delivered.add(event);
+			}
+		};
+		DmtAdminFactory factory = new DmtAdminFactory(context, dmtAdmin,
+				null);
+
+		EventDispatcher events = new EventDispatcher(context, 1,
+				framework.bundle);
+		events.add(DmtEvent.ADDED, node("./a"), null, null, false);
+		assertThat(delivering.await(5, TimeUnit.SECONDS)).isTrue();
+		// queued while the first event is being delivered
+		for (int i = 0; i < 10; i++)
+			events.add(DmtEvent.REPLACED, node("./a/" + i), null, null,
+					false);
+		events.dispatchSessionLifecycleEvent(DmtEvent.SESSION_CLOSED, ".",
+				null, DmtSession.LOCK_TYPE_EXCLUSIVE, false, null);
+
+		Thread stopping = new Thread(factory::stop);
+		stopping.start();
+		Thread.sleep(50);
+		proceed.countDown();
+		stopping.join(10000);
+		assertThat(stopping.isAlive()).isFalse();
+
+		assertThat(delivered.size()).isEqualTo(12);
+		assertEvent(delivered.get(0), 1, DmtEvent.ADDED, "./a");
+		for (int i = 0; i < 10; i++)
+			assertEvent(delivered.get(i + 1), 1, DmtEvent.REPLACED,
+					"./a/" + i);
+		assertEvent(delivered.get(11), 1, DmtEvent.SESSION_CLOSED);
+	}
+
+	private static void assertEvent(DmtEventCore event, int sessionId,
+			int type, String... nodes) {
+		assertThat(event.getSessionId()).isEqualTo(sessionId);
+		assertThat(event.getType()).isEqualTo(type);
+		assertThat(event.getProperty("session.id"))
+				.isEqualTo(Integer.valueOf(sessionId));
+		assertThat(Arrays.asList((String[]) event.getProperty("nodes")))
+				.isEqualTo(Arrays.asList(nodes));
+	}
+}
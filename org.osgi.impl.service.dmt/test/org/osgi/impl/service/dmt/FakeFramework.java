@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.impl.service.dmt;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.framework.Version;
+
+/**
+ * A minimal bundle context for the tests, just enough to create a
+ * {@link Context} and a {@link DmtAdminCore}. Registered services are kept,
+ * but no service events are sent, so trackers never see them.
+ */
+@SuppressWarnings("javadoc")
+final class FakeFramework {
+	private final Map<ServiceReference< ? >,Object>	services	= new ConcurrentHashMap<>();
+	final Bundle									bundle;
+	final BundleContext								bundleContext;
+
+	FakeFramework() {
+		bundle = proxy(Bundle.class, (p, method, args) -> {
+			switch (method.getName()) {
+				case "getSignerCertificates" :
+					return Collections.emptyMap();
+				case "getSymbolicName" :
+					return "test.bundle";
+				case "getVersion" :
+					return Version.emptyVersion;
+				case "getBundleId" :
+					return Long.valueOf(1);
+				case "getBundleContext" :
+					return FakeFramework.this.bundleContext;
+				default :
+					return defaultValue(method.getReturnType());
+			}
+		});
+		bundleContext = proxy(BundleContext.class, (p, method, args) -> {
+			switch (method.getName()) {
+				case "registerService" :
+					return register(args[0], args[1],
+							(Dictionary< ? , ? >) args[2]);
+				case "getService" :
+					return services.get(args[0]);
+				case "createFilter" :
+					return FrameworkUtil.createFilter((String) args[0]);
+				case "getBundle" :
+					return bundle;
+				default :
+					return defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	Context createContext() {
+		return new Context(bundleContext);
+	}
+
+	private ServiceRegistration< ? > register(Object clazz, Object service,
+			Dictionary< ? , ? > properties) {
+		Hashtable<String,Object> props = new Hashtable<>();
+		if (properties != null)
+			for (Object key : Collections.list(properties.keys()))
+				props.put((String) key, properties.get(key));
+		props.put(Constants.OBJECTCLASS, new String[] {
+				clazz instanceof Class ? ((Class< ? >) clazz).getName()
+						: String.valueOf(clazz)
+		});
+		ServiceReference< ? > reference = proxy(ServiceReference.class,
+				(p, method, args) -> {
+					switch (method.getName()) {
+						case "getProperty" :
+							return props.get(args[0]);
+						case "getPropertyKeys" :
+							return props.keySet().toArray(new String[0]);
+						case "getBundle" :
+							return bundle;
+						case "compareTo" :
+							return Integer.valueOf(0);
+						case "hashCode" :
+							return Integer.valueOf(
+									System.identityHashCode(p));
+						case "equals" :
+							return Boolean.valueOf(p == args[0]);
+						default :
+							return defaultValue(method.getReturnType());
+					}
+				});
+		services.put(reference, service);
+		return proxy(ServiceRegistration.class, (p, method, args) -> {
+			switch (method.getName()) {
+				case "getReference" :
+					return reference;
+				case "unregister" :
+					services.remove(reference);
+					return null;
+				default :
+					return defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(
+				FakeFramework.class.getClassLoader(), new Class< ? >[] {
+						type
+				}, (p, method, args) -> {
+					if (method.getDeclaringClass() == Object.class) {
+						switch (method.getName()) {
+							case "hashCode" :
+								return Integer
+										.valueOf(System.identityHashCode(p));
+							case "equals" :
+								return Boolean.valueOf(p == args[0]);
+							default :
+								return type.getSimpleName();
+						}
+					}
+					return handler.invoke(p, method, args);
+				}));
+	}
+
+	private static Object defaultValue(Class< ? > type) {
+		if (type == boolean.class)
+			return Boolean.FALSE;
+		if (type == int.class)
+			return Integer.valueOf(0);
+		if (type == long.class)
+			return Long.valueOf(0);
+		if (type == Collection.class)
+			return Collections.emptyList();
+		return null;
+	}
+}
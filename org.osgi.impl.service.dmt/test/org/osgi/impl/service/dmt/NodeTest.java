@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.impl.service.dmt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.dmt.DmtData;
+import org.osgi.service.dmt.DmtException;
+import org.osgi.service.dmt.DmtSession;
+import org.osgi.service.dmt.spi.DataPlugin;
+import org.osgi.service.dmt.spi.ReadableDataSession;
+
+@SuppressWarnings("javadoc")
+public class NodeTest {
+	private static Node node(String uri) throws DmtException {
+		return Node.validateAndNormalizeUri(uri);
+	}
+
+	@Test
+	public void testValidateAndNormalize() throws Exception {
+		Node node = node("./a/b");
+		assertThat(node.getUri()).isEqualTo("./a/b");
+		assertThat(node.getPath()).containsExactly(".", "a", "b");
+		assertThat(node.getLastSegment()).isEqualTo("b");
+		assertThat(node.isAbsolute()).isTrue();
+		assertThat(node).isSameAs(node("./a/b"));
+
+		// escapes are only kept before '/' and '\'
+		assertThat(node("./a\\b").getUri()).isEqualTo("./ab");
+		assertThat(node("./a\\/b/c").getPath()).containsExactly(".", "a\\/b",
+				"c");
+
+		assertThat(node("a/b").isAbsolute()).isFalse();
+		assertThat(node("").isEmpty()).isTrue();
+		assertThat(node("").getLastSegment()).isNull();
+		assertThat(node(".").isRoot()).isTrue();
+		assertThat(node("./a").isRoot()).isFalse();
+
+		for (String uri : new String[] {
+				null, "./a/", "./a//b", "/a", "./a/./b", "./a/..", "./a\\"
+		}) {
+			// invalid URIs are rejected every time, not remembered
+			for (int i = 0; i < 2; i++)
+				assertThatExceptionOfType(DmtException.class)
+						.isThrownBy(() -> node(uri));
+		}
+
+		assertThat(Node.validateAndNormalizeNodeName("a\\b")).isEqualTo("ab");
+		assertThat(Node.validateAndNormalizeNodeName("a\\/b"))
+				.isEqualTo("a\\/b");
+		for (String name : new String[] {
+				null, "", "a/b", "..", "a\\"
+		})
+			assertThatExceptionOfType(DmtException.class)
+					.isThrownBy(() -> Node.validateAndNormalizeNodeName(name));
+	}
+
+	@Test
+	public void testGetParent() throws Exception {
+		Node node = node("./a/b/c");
+		Node parent = node.getParent();
+		assertThat(parent).isEqualTo(node("./a/b"));
+		assertThat(parent.getUri()).isEqualTo("./a/b");
+		assertThat(node.getParent()).isSameAs(parent);
+		assertThat(parent.getParent().getParent()).isEqualTo(node("."));
+		assertThat(node(".").getParent()).isNull();
+		assertThat(node("").getParent()).isNull();
+
+		assertThat(node("a/b").getParent()).isEqualTo(node("a"));
+		assertThat(node("a").getParent().isEmpty()).isTrue();
+
+		// a node made from its parent knows that parent
+		assertThat(parent.appendSegment("d").getParent()).isSameAs(parent);
+	}
+
+	@Test
+	public void testAncestors() throws Exception {
+		Node root = node(".");
+		Node a = node("./a");
+		Node ab = node("./a/b");
+		Node abc = node("./a/b/c");
+		Node ax = node("./ax");
+
+		assertThat(a.isAncestorOf(a)).isTrue();
+		assertThat(a.isAncestorOf(a, true)).isFalse();
+		assertThat(a.isAncestorOf(node("./a"), true)).isFalse();
+		assertThat(a.isAncestorOf(abc)).isTrue();
+		assertThat(a.isAncestorOf(abc, true)).isTrue();
+		assertThat(root.isAncestorOf(abc)).isTrue();
+		assertThat(abc.isAncestorOf(a)).isFalse();
+		// not a prefix of the URI string, and not only the last segments
+		assertThat(a.isAncestorOf(ax)).isFalse();
+		assertThat(ab.isAncestorOf(node("./x/b/c"))).isFalse();
+		assertThat(node("./a\\/b").isAncestorOf(abc)).isFalse();
+
+		assertThat(a.isParentOf(ab)).isTrue();
+		assertThat(a.isParentOf(abc)).isFalse();
+		assertThat(a.isParentOf(a)).isFalse();
+
+		assertThat(a.isOnSameBranch(abc)).isTrue();
+		assertThat(abc.isOnSameBranch(a)).isTrue();
+		assertThat(abc.isOnSameBranch(abc)).isTrue();
+		assertThat(ab.isOnSameBranch(ax)).isFalse();
+	}
+
+	@Test
+	public void testRelativeNodes() throws Exception {
+		Node ab = node("./a/b");
+		Node abcd = node("./a/b/c/d");
+
+		Node relative = ab.getRelativeNode(abcd);
+		assertThat(relative.getUri()).isEqualTo("c/d");
+		assertThat(relative.isAbsolute()).isFalse();
+		assertThat(relative).isEqualTo(node("c/d"));
+		assertThat(ab.appendRelativeNode(relative)).isEqualTo(abcd);
+
+		Node empty = ab.getRelativeNode(ab);
+		assertThat(empty.isEmpty()).isTrue();
+		assertThat(empty.getUri()).isEqualTo("");
+		assertThat(ab.appendRelativeNode(empty)).isSameAs(ab);
+
+		assertThat(ab.getRelativeNode(node("./a/x"))).isNull();
+		assertThat(ab.getRelativeNode(node("./a"))).isNull();
+		assertThatExceptionOfType(IllegalStateException.class)
+				.isThrownBy(() -> ab.appendRelativeNode(node("./c")));
+
+		assertThat(ab.appendSegment("c")).isEqualTo(node("./a/b/c"));
+
+		Node escaped = node("./a\\/b").appendRelativeNode(node("c\\/d/e"));
+		assertThat(escaped.getUri()).isEqualTo("./a\\/b/c\\/d/e");
+		assertThat(escaped).isEqualTo(node("./a\\/b/c\\/d/e"));
+		assertThat(escaped.getPath()).containsExactly(".", "a\\/b", "c\\/d",
+				"e");
+	}
+
+	@Test
+	public void testEqualsMatchesUris() throws Exception {
+		// the same and different URIs, each reached in several ways
+		List<Node> nodes = new ArrayList<>();
+		for (String uri : new String[] {
+				".", "./a", "./a/b", "./a\\/b", "./a\\b", "./ab", "./a/b/c",
+				"a/b", "a", "", "./b/a"
+		}) {
+			Node node = node(uri);
+			nodes.add(node);
+			nodes.add(new Node(node.getPath().clone()));
+			if (node.getParent() != null) {
+				nodes.add(node.getParent());
+				nodes.add(node.getParent().appendSegment(node.getLastSegment()));
+			}
+			if (node.isAbsolute())
+				nodes.add(node(".").appendRelativeNode(
+						node(".").getRelativeNode(node)));
+		}
+
+		Set<String> uris = new HashSet<>();
+		for (Node x : nodes) {
+			uris.add(x.getUri());
+			assertThat(x.toString()).isEqualTo(x.getUri());
+			for (Node y : nodes) {
+				boolean sameUri = x.getUri().equals(y.getUri());
+				assertThat(Boolean.valueOf(x.equals(y)))
+						.isEqualTo(Boolean.valueOf(sameUri));
+				if (sameUri)
+					assertThat(Integer.valueOf(x.hashCode()))
+							.isEqualTo(Integer.valueOf(y.hashCode()));
+			}
+		}
+		assertThat(Integer.valueOf(new HashSet<>(nodes).size()))
+				.isEqualTo(Integer.valueOf(uris.size()));
+		assertThat(node("./a")).isNotEqualTo("./a");
+	}
+
+	@Test
+	public void testPluginsGetCopiesOfThePath() throws Exception {
+		FakeFramework framework = new FakeFramework();
+		Context context = framework.createContext();
+		DmtSessionImpl.init_acls();
+		DmtAdminCore dmtAdmin = new DmtAdminCore(null, context);
+		try {
+			Hashtable<String,Object> props = new Hashtable<>();
+			props.put(DataPlugin.DATA_ROOT_URIS, new String[] {
+					"./scribble"
+			});
+			@SuppressWarnings({
+					"rawtypes", "unchecked"
+			})
+			ServiceReference<Object> reference = (ServiceReference) framework.bundleContext
+					.registerService(DataPlugin.class, new ScribblingPlugin(),
+							props)
+					.getReference();
+			context.getPluginDispatcher().addingService(reference);
+
+			DmtSession session = dmtAdmin.getSession(null, "./scribble",
+					DmtSession.LOCK_TYPE_SHARED, framework.bundle);
+			try {
+				for (int i = 0; i < 2; i++) {
+					assertThat(session.getNodeValue("./scribble/a/leaf"))
+							.isEqualTo(new DmtData("./scribble/a/leaf"));
+					assertThat(session.getNodeValues(new String[] {
+							"./scribble/a/leaf"
+					})[0]).isEqualTo(new DmtData("./scribble/a/leaf"));
+				}
+			} finally {
+				session.close();
+			}
+			assertThat(node("./scribble/a/leaf").getPath())
+					.containsExactly(".", "scribble", "a", "leaf");
+			assertThat(node("./scribble").getPath()).containsExactly(".",
+					"scribble");
+		} finally {
+			dmtAdmin.close();
+			context.close();
+		}
+	}
+
+	// A plugin that overwrites every path it is given once it has used it.
+	static class ScribblingPlugin extends SharedSessionTest.SlowPlugin {
+		@Override
+		public ReadableDataSession openReadOnlySession(String[] sessionRoot,
+				DmtSession session) {
+			ReadableDataSession delegate = super.openReadOnlySession(
+					sessionRoot.clone(), session);
+			Arrays.fill(sessionRoot, "x");
+			return (ReadableDataSession) Proxy.newProxyInstance(
+					getClass().getClassLoader(), new Class< ? >[] {
+							ReadableDataSession.class
+					}, (proxy, method, args) -> {
+						Object result;
+						try {
+							result = method.invoke(delegate, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+						for (Object arg : args == null ? new Object[0] : args)
+							scribble(arg);
+						return result;
+					});
+		}
+
+		private static void scribble(Object arg) {
+			if (arg instanceof String[])
+				Arrays.fill((String[]) arg, "x");
+			else if (arg instanceof String[][])
+				for (String[] path : (String[][]) arg)
+					scribble(path);
+		}
+	}
+}
@@ -0,0 +1,381 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.impl.service.dmt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.dmt.DmtData;
+import org.osgi.service.dmt.DmtException;
+import org.osgi.service.dmt.DmtSession;
+import org.osgi.service.dmt.MetaNode;
+import org.osgi.service.dmt.security.DmtPermission;
+import org.osgi.service.dmt.spi.DataPlugin;
+import org.osgi.service.dmt.spi.ReadWriteDataSession;
+import org.osgi.service.dmt.spi.ReadableDataSession;
+import org.osgi.service.dmt.spi.TransactionalDataSession;
+
+@SuppressWarnings("javadoc")
+public class NodeValuesTest {
+	private FakeFramework	framework;
+	private Context			context;
+	private DmtAdminCore	dmtAdmin;
+	private DmtSession		openSession;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		framework = new FakeFramework();
+		context = framework.createContext();
+		DmtSessionImpl.init_acls();
+		dmtAdmin = new DmtAdminCore(null, context);
+	}
+
+	@AfterEach
+	public void tearDown() throws Exception {
+		if (openSession != null)
+			openSession.close();
+		dmtAdmin.close();
+		context.close();
+	}
+
+	@SuppressWarnings({
+			"rawtypes", "unchecked"
+	})
+	private TreePlugin registerPlugin(String root, String... leaves) {
+		TreePlugin plugin = new TreePlugin(root, leaves);
+		Hashtable<String,Object> props = new Hashtable<>();
+		props.put(DataPlugin.DATA_ROOT_URIS, new String[] {
+				root
+		});
+		ServiceReference<Object> reference = (ServiceReference) framework.bundleContext
+				.registerService(DataPlugin.class, plugin, props)
+				.getReference();
+		context.getPluginDispatcher().addingService(reference);
+		return plugin;
+	}
+
+	private DmtSession openSession(String root) throws DmtException {
+		openSession = dmtAdmin.getSession(null, root,
+				DmtSession.LOCK_TYPE_SHARED, framework.bundle);
+		return openSession;
+	}
+
+	private static Map<String,DmtData> values(String... uris) {
+		Map<String,DmtData> values = new LinkedHashMap<>();
+		for (String uri : uris)
+			values.put(uri, new DmtData(uri.substring(uri.lastIndexOf('/') + 1)));
+		return values;
+	}
+
+	@Test
+	public void testNodeValuesAreReadPerPlugin() throws Exception {
+		TreePlugin one = registerPlugin("./one", "a", "b/x");
+		TreePlugin two = registerPlugin("./two", "c");
+		DmtSession session = openSession(".");
+
+		DmtData[] data = session.getNodeValues(new String[] {
+				"./one/a", "./two/c", "./one/b/x"
+		});
+		assertThat(data).containsExactly(new DmtData("a"), new DmtData("c"),
+				new DmtData("x"));
+		assertThat(one.bulkReads).containsExactly(Integer.valueOf(2));
+		assertThat(two.bulkReads).containsExactly(Integer.valueOf(1));
+		assertThat(Integer.valueOf(one.singleReads + two.singleReads))
+				.isEqualTo(Integer.valueOf(0));
+
+		assertThat(session.getNodeValues(new String[0]).length == 0).isTrue();
+		assertThatExceptionOfType(DmtException.class)
+				.isThrownBy(() -> session.getNodeValues(null));
+		assertThatExceptionOfType(DmtException.class)
+				.isThrownBy(() -> session.getNodeValues(new String[] {
+						"./one/a", "./one/missing"
+				}));
+	}
+
+	@Test
+	public void testRelativeUris() throws Exception {
+		TreePlugin one = registerPlugin("./one", "a", "b/x", "b/y");
+		DmtSession session = openSession("./one");
+
+		assertThat(session.getNodeValues(new String[] {
+				"b/y", "a"
+		})).containsExactly(new DmtData("y"), new DmtData("a"));
+		assertThat(session.getSubtreeValues("b", -1))
+				.isEqualTo(values("b/x", "b/y"));
+		assertThat(session.getSubtreeValues("", -1))
+				.isEqualTo(values("a", "b/x", "b/y"));
+		assertThat(one.bulkReads).containsExactly(Integer.valueOf(2),
+				Integer.valueOf(2), Integer.valueOf(3));
+	}
+
+	@Test
+	public void testScaffoldNodes() throws Exception {
+		TreePlugin one = registerPlugin("./s/one", "a", "b/x");
+		TreePlugin two = registerPlugin("./s/two", "c");
+		DmtSession session = openSession(".");
+
+		// ./s is only there because the plugins are mounted below it
+		assertThatExceptionOfType(DmtException.class)
+				.isThrownBy(() -> session.getNodeValues(new String[] {
+						"./s"
+				}));
+		assertThat(session.getSubtreeValues("./s", -1))
+				.isEqualTo(values("./s/one/a", "./s/one/b/x", "./s/two/c"));
+		assertThat(one.bulkReads).containsExactly(Integer.valueOf(2));
+		assertThat(two.bulkReads).containsExactly(Integer.valueOf(1));
+
+		// the leaf nodes are only checked while traversing the subtree, not
+		// again for their values
+		for (String uri : one.leaves.keySet())
+			assertThat(Integer.valueOf(Collections.frequency(one.leafChecks,
+					uri))).isEqualTo(Integer.valueOf(1));
+		assertThat(Integer.valueOf(Collections.frequency(two.leafChecks,
+				"./s/two/c"))).isEqualTo(Integer.valueOf(1));
+	}
+
+	@Test
+	public void testSubtreeDepth() throws Exception {
+		registerPlugin("./one", "a", "b/x", "b/y/z");
+		DmtSession session = openSession(".");
+
+		assertThat(session.getSubtreeValues("./one", 0).isEmpty()).isTrue();
+		assertThat(session.getSubtreeValues("./one/a", 0))
+				.isEqualTo(values("./one/a"));
+		assertThat(session.getSubtreeValues("./one", 1))
+				.isEqualTo(values("./one/a"));
+		assertThat(session.getSubtreeValues("./one", 2))
+				.isEqualTo(values("./one/a", "./one/b/x"));
+		assertThat(session.getSubtreeValues("./one", 3))
+				.isEqualTo(values("./one/a", "./one/b/x", "./one/b/y/z"));
+		assertThat(session.getSubtreeValues("./one", -1))
+				.isEqualTo(values("./one/a", "./one/b/x", "./one/b/y/z"));
+		assertThatExceptionOfType(DmtException.class)
+				.isThrownBy(() -> session.getSubtreeValues("./one/c", -1));
+	}
+
+	@Test
+	public void testLocalPermissions() throws Exception {
+		registerPlugin("./one", "a", "b/x");
+		DmtSession session = openSession(".");
+
+		CheckingSecurityManager sm = new CheckingSecurityManager();
+		try {
+			System.setSecurityManager(sm);
+		} catch (UnsupportedOperationException e) {
+			Assumptions.assumeTrue(false,
+					"A security manager cannot be installed");
+		}
+		try {
+			// the whole subtree may be read, so the nodes are not checked
+			assertThat(session.getSubtreeValues("./one", -1))
+					.isEqualTo(values("./one/a", "./one/b/x"));
+			assertThat(sm.checked).containsExactly("./one*");
+
+			// without the wildcard permission every node is checked
+			sm.checked.clear();
+			sm.denied.add("./one*");
+			assertThat(session.getSubtreeValues("./one", -1))
+					.isEqualTo(values("./one/a", "./one/b/x"));
+			assertThat(new HashSet<>(sm.checked)).isEqualTo(new HashSet<>(
+					Arrays.asList("./one*", "./one", "./one/a",
+							"./one/b", "./one/b/x")));
+
+			sm.denied.add("./one/b/x");
+			assertThatExceptionOfType(SecurityException.class)
+					.isThrownBy(() -> session.getSubtreeValues("./one", -1));
+			assertThatExceptionOfType(SecurityException.class)
+					.isThrownBy(() -> session.getNodeValues(new String[] {
+							"./one/a", "./one/b/x"
+					}));
+
+			// the wildcard permission only covers the call it was checked for
+			sm.denied.remove("./one*");
+			assertThat(session.getSubtreeValues("./one", -1))
+					.isEqualTo(values("./one/a", "./one/b/x"));
+			assertThatExceptionOfType(SecurityException.class)
+					.isThrownBy(() -> session.getNodeValue("./one/b/x"));
+		} finally {
+			System.setSecurityManager(null);
+		}
+	}
+
+	// Grants everything but the denied DmtPermissions, and records the names
+	// of the DmtPermissions checked.
+	static class CheckingSecurityManager extends SecurityManager {
+		final Set<String>	denied	= Collections
+				.synchronizedSet(new HashSet<>());
+		final List<String>	checked	= Collections
+				.synchronizedList(new ArrayList<>());
+
+		@Override
+		public void checkPermission(Permission perm) {
+			if (perm instanceof DmtPermission) {
+				checked.add(perm.getName());
+				if (denied.contains(perm.getName()))
+					throw new SecurityException("Denied: " + perm);
+			}
+		}
+
+		@Override
+		public void checkPermission(Permission perm, Object context) {
+			checkPermission(perm);
+		}
+	}
+
+	// A read-only plugin with a fixed tree, where the value of each leaf is
+	// its name. It records the bulk reads and the leaf checks.
+	static class TreePlugin implements DataPlugin {
+		final TreeMap<String,DmtData>	leaves		= new TreeMap<>();
+		final List<Integer>				bulkReads	= Collections
+				.synchronizedList(new ArrayList<>());
+		final List<String>				leafChecks	= Collections
+				.synchronizedList(new ArrayList<>());
+		volatile int					singleReads;
+
+		TreePlugin(String root, String... relativeUris) {
+			for (String relativeUri : relativeUris)
+				leaves.put(root + "/" + relativeUri, new DmtData(relativeUri
+						.substring(relativeUri.lastIndexOf('/') + 1)));
+		}
+
+		boolean exists(String uri) {
+			return leaves.containsKey(uri)
+					|| leaves.ceilingKey(uri + "/") != null
+							&& leaves.ceilingKey(uri + "/").startsWith(uri + "/");
+		}
+
+		@Override
+		public ReadableDataSession openReadOnlySession(String[] sessionRoot,
+				DmtSession session) {
+			return new ReadableDataSession() {
+				@Override
+				public boolean isNodeUri(String[] nodePath) {
+					return exists(Node.convertPathToUri(nodePath));
+				}
+
+				@Override
+				public boolean isLeafNode(String[] nodePath) {
+					String uri = Node.convertPathToUri(nodePath);
+					leafChecks.add(uri);
+					return leaves.containsKey(uri);
+				}
+
+				@Override
+				public DmtData getNodeValue(String[] nodePath) {
+					singleReads++;
+					return leaves.get(Node.convertPathToUri(nodePath));
+				}
+
+				@Override
+				public DmtData[] getNodeValues(String[][] nodePaths) {
+					bulkReads.add(Integer.valueOf(nodePaths.length));
+					DmtData[] values = new DmtData[nodePaths.length];
+					for (int i = 0; i < nodePaths.length; i++)
+						values[i] = leaves
+								.get(Node.convertPathToUri(nodePaths[i]));
+					return values;
+				}
+
+				@Override
+				public String[] getChildNodeNames(String[] nodePath) {
+					String prefix = Node.convertPathToUri(nodePath) + "/";
+					Set<String> names = new TreeSet<>();
+					for (String uri : leaves.tailMap(prefix).keySet()) {
+						if (!uri.startsWith(prefix))
+							break;
+						String name = uri.substring(prefix.length());
+						int slash = name.indexOf('/');
+						names.add(slash < 0 ? name : name.substring(0, slash));
+					}
+					return names.toArray(new String[names.size()]);
+				}
+
+				@Override
+				public MetaNode getMetaNode(String[] nodePath) {
+					return null;
+				}
+
+				@Override
+				public int getNodeSize(String[] nodePath) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public int getNodeVersion(String[] nodePath) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public Date getNodeTimestamp(String[] nodePath) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public String getNodeTitle(String[] nodePath) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public String getNodeType(String[] nodePath) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void nodeChanged(String[] nodePath) {
+					// nothing cached
+				}
+
+				@Override
+				public void close() {
+					// nothing to release
+				}
+			};
+		}
+
+		@Override
+		public ReadWriteDataSession openReadWriteSession(String[] sessionRoot,
+				DmtSession session) {
+			return null;
+		}
+
+		@Override
+		public TransactionalDataSession openAtomicSession(
+				String[] sessionRoot, DmtSession session) {
+			return null;
+		}
+	}
+}
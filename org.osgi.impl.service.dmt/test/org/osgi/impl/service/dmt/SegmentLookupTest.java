@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.impl.service.dmt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.util.Hashtable;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.ServiceReference;
+import org.osgi.impl.service.dmt.dispatcher.Dispatcher;
+import org.osgi.impl.service.dmt.dispatcher.Plugin;
+import org.osgi.impl.service.dmt.dispatcher.Segment;
+import org.osgi.service.dmt.Uri;
+import org.osgi.service.dmt.spi.DataPlugin;
+
+@SuppressWarnings("javadoc")
+public class SegmentLookupTest {
+	private FakeFramework	framework;
+	private Context			context;
+	private Dispatcher		dispatcher;
+	private ServiceReference<DataPlugin>	root;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		framework = new FakeFramework();
+		context = framework.createContext();
+		dispatcher = context.getPluginDispatcher();
+		root = owner(".");
+	}
+
+	@AfterEach
+	public void tearDown() throws Exception {
+		context.close();
+	}
+
+	private ServiceReference<Object> register(String uri,
+			String... mountPoints) {
+		Hashtable<String,Object> props = new Hashtable<>();
+		props.put(DataPlugin.DATA_ROOT_URIS, new String[] {
+				uri
+		});
+		if (mountPoints.length > 0)
+			props.put(DataPlugin.MOUNT_POINTS, mountPoints);
+		DataPlugin plugin = (DataPlugin) Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class< ? >[] {
+						DataPlugin.class
+				}, (p, method, args) -> null);
+		@SuppressWarnings({
+				"rawtypes", "unchecked"
+		})
+		ServiceReference<Object> reference = (ServiceReference) framework.bundleContext
+				.registerService(DataPlugin.class, plugin, props)
+				.getReference();
+		dispatcher.addingService(reference);
+		return reference;
+	}
+
+	private ServiceReference<DataPlugin> owner(String uri) {
+		Plugin<DataPlugin> plugin = dispatcher.getDataPluginFor(Uri.toPath(uri));
+		return plugin == null ? null : plugin.getReference();
+	}
+
+	@Test
+	public void testLookupAtVariousDepths() {
+		ServiceReference<Object> a = register("./a", "b/c");
+		ServiceReference<Object> abc = register("./a/b/c");
+		ServiceReference<Object> xy = register("./x/y");
+
+		assertThat(owner("./a")).isSameAs(a);
+		assertThat(owner("./a/b")).isSameAs(a);
+		assertThat(owner("./a/b/other/deep")).isSameAs(a);
+		assertThat(owner("./a/b/c")).isSameAs(abc);
+		assertThat(owner("./a/b/c/d/e/f")).isSameAs(abc);
+		assertThat(owner("./x/y/z")).isSameAs(xy);
+		assertThat(owner("./x")).isSameAs(root);
+		assertThat(owner("./unknown/node")).isSameAs(root);
+
+		// the same lookups once more come from the resolved segments
+		assertThat(owner("./a/b/other/deep")).isSameAs(a);
+		assertThat(owner("./a/b/c/d/e/f")).isSameAs(abc);
+		assertThat(owner("./x")).isSameAs(root);
+	}
+
+	@Test
+	public void testLookupAfterUnmapAndRemap() {
+		ServiceReference<Object> a = register("./a", "b/c");
+		ServiceReference<Object> abc = register("./a/b/c");
+
+		// resolve the segments below both plugins before changing the mapping
+		assertThat(owner("./a/b/c/d")).isSameAs(abc);
+		assertThat(owner("./a/b")).isSameAs(a);
+
+		dispatcher.removedService(abc, null);
+		assertThat(owner("./a/b/c/d")).isSameAs(a);
+		assertThat(owner("./a/b/c")).isSameAs(a);
+		assertThat(dispatcher.findSegment(Uri.toPath("./a/b/c"))).isNull();
+		assertThat(dispatcher.findSegment(Uri.toPath("./a/b"))).isNull();
+
+		ServiceReference<Object> remapped = register("./a/b/c");
+		assertThat(owner("./a/b/c/d")).isSameAs(remapped);
+		assertThat(owner("./a/b")).isSameAs(a);
+
+		dispatcher.removedService(a, null);
+		assertThat(owner("./a")).isSameAs(root);
+		assertThat(owner("./a/b")).isSameAs(root);
+		assertThat(owner("./a/b/c/d")).isSameAs(remapped);
+
+		ServiceReference<Object> top = register("./a", "b/c");
+		assertThat(owner("./a/b")).isSameAs(top);
+		assertThat(owner("./a/b/c/d")).isSameAs(remapped);
+	}
+
+	@Test
+	public void testLookupAfterRootUnmap() {
+		ServiceReference<Object> xy = register("./x/y");
+		assertThat(owner("./x/y/z")).isSameAs(xy);
+		assertThat(owner("./x")).isSameAs(root);
+
+		dispatcher.removedService(xy, null);
+		assertThat(owner("./x/y/z")).isSameAs(root);
+		assertThat(dispatcher.findSegment(Uri.toPath("./x"))).isNull();
+
+		ServiceReference<Object> x = register("./x");
+		assertThat(owner("./x/y/z")).isSameAs(x);
+		assertThat(owner("./x")).isSameAs(x);
+	}
+
+	@Test
+	public void testMountPointSiblings() {
+		ServiceReference<Object> parent = register("./p", "m/#");
+		ServiceReference<Object> one = register("./p/m/#");
+		ServiceReference<Object> two = register("./p/m/#");
+		ServiceReference<Object> three = register("./p/m/#");
+
+		Segment<DataPlugin> mount = dispatcher
+				.findSegment(Uri.toPath("./p/m"));
+		assertThat(mount).isNotNull();
+		assertThat(mount.getChildren()).hasSize(3);
+		assertThat(owner("./p/m/1/leaf")).isSameAs(one);
+		assertThat(owner("./p/m/2/leaf")).isSameAs(two);
+		assertThat(owner("./p/m/3/leaf")).isSameAs(three);
+		assertThat(owner("./p/m")).isSameAs(parent);
+		assertThat(owner("./p/m/4")).isSameAs(parent);
+		assertThat(owner("./p/other")).isSameAs(parent);
+
+		// unmapping one sibling leaves the others where they were
+		dispatcher.removedService(two, null);
+		assertThat(mount.getChildren()).hasSize(2);
+		assertThat(dispatcher.findSegment(Uri.toPath("./p/m/2"))).isNull();
+		assertThat(owner("./p/m/2/leaf")).isSameAs(parent);
+		assertThat(owner("./p/m/1/leaf")).isSameAs(one);
+		assertThat(owner("./p/m/3/leaf")).isSameAs(three);
+
+		// a new sibling gets a new id rather than the released one
+		ServiceReference<Object> four = register("./p/m/#");
+		assertThat(owner("./p/m/4/leaf")).isSameAs(four);
+		assertThat(owner("./p/m/2/leaf")).isSameAs(parent);
+		assertThat(mount.getChildren()).hasSize(3);
+	}
+}
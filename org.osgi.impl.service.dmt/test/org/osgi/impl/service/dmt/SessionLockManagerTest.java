@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.impl.service.dmt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.service.dmt.DmtException;
+import org.osgi.service.dmt.DmtSession;
+
+@SuppressWarnings("javadoc")
+public class SessionLockManagerTest {
+	private static final int	SHARED		= DmtSession.LOCK_TYPE_SHARED;
+	private static final int	EXCLUSIVE	= DmtSession.LOCK_TYPE_EXCLUSIVE;
+	private static final int	ATOMIC		= DmtSession.LOCK_TYPE_ATOMIC;
+
+	private final SessionLockManager locks = new SessionLockManager();
+
+	private static Node node(String uri) throws DmtException {
+		return Node.validateAndNormalizeUri(uri);
+	}
+
+	@Test
+	public void testConflicts() throws Exception {
+		assertThat(locks.acquire("s1", node("./a/b"), SHARED, 0)).isTrue();
+		assertThat(locks.acquire("s2", node("./a"), SHARED, 0)).isTrue();
+		assertThat(locks.acquire("s3", node("./a/b/c"), EXCLUSIVE, 20))
+				.isFalse();
+		assertThat(locks.acquire("s3", node("./x"), EXCLUSIVE, 0)).isTrue();
+		assertThat(locks.acquire("s4", node("."), SHARED, 20)).isFalse();
+
+		assertThat(locks.release("s3")).isTrue();
+		assertThat(locks.release("s3")).isFalse();
+		assertThat(locks.acquire("s4", node("."), SHARED, 0)).isTrue();
+
+		locks.release("s1");
+		locks.release("s2");
+		locks.release("s4");
+		assertThat(locks.acquire("s1", node("."), ATOMIC, 0)).isTrue();
+		assertThat(locks.acquire("s2", node("./q"), SHARED, 20)).isFalse();
+		locks.release("s1");
+		assertThat(locks.acquire("s2", node("./q"), SHARED, 0)).isTrue();
+	}
+
+	@Test
+	public void testFirstComeFirstServed() throws Exception {
+		locks.acquire("holder", node("./a"), SHARED, 0);
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+		Thread exclusive = waiter("exclusive", node("./a"), EXCLUSIVE, order);
+		awaitQueued(node("./a/c"));
+		// compatible with the holder, but must wait behind the exclusive
+		// request that came first
+		Thread shared = waiter("shared", node("./a/b"), SHARED, order);
+		Thread.sleep(50);
+
+		assertThat(locks.acquire("other", node("./z"), EXCLUSIVE, 0))
+				.isTrue();
+		assertThat(order.isEmpty()).isTrue();
+
+		locks.release("holder");
+		exclusive.join(5000);
+		shared.join(5000);
+		assertThat(order).isEqualTo(Arrays.asList("exclusive",
+				"exclusive released", "shared", "shared released"));
+	}
+
+	@Test
+	public void testTimeoutGrantsWaitingRequests() throws Exception {
+		locks.acquire("holder", node("./a"), SHARED, 0);
+		Thread exclusive = new Thread(() -> {
+			try {
+				locks.acquire("exclusive", node("./a"), EXCLUSIVE, 100);
+			} catch (Exception e) {
+				// fails the test below
+			}
+		});
+		exclusive.start();
+		awaitQueued(node("./a/c"));
+
+		assertThat(locks.acquire("shared", node("./a/c"), SHARED, 5000))
+				.isTrue();
+		exclusive.join(5000);
+		assertThat(locks.release("exclusive")).isFalse();
+	}
+
+	@Test
+	public void testInterruptWithdrawsRequest() throws Exception {
+		locks.acquire("holder", node("./a"), SHARED, 0);
+		AtomicReference<Throwable> result = new AtomicReference<>();
+		Thread exclusive = new Thread(() -> {
+			try {
+				locks.acquire("exclusive", node("./a"), EXCLUSIVE, 60000);
+			} catch (Throwable t) {
+				result.set(t);
+			}
+		});
+		exclusive.start();
+		awaitQueued(node("./a/c"));
+
+		AtomicBoolean granted = new AtomicBoolean();
+		CountDownLatch done = new CountDownLatch(1);
+		Thread shared = new Thread(() -> {
+			try {
+				granted.set(
+						locks.acquire("shared", node("./a/b"), SHARED, 60000));
+			} catch (Exception e) {
+				// fails the test below
+			}
+			done.countDown();
+		});
+		shared.start();
+		Thread.sleep(50);
+		assertThat(done.getCount()).isEqualTo(1L);
+
+		exclusive.interrupt();
+		exclusive.join(5000);
+		assertThat(result.get()).isInstanceOf(InterruptedException.class);
+		assertThat(locks.release("exclusive")).isFalse();
+
+		// the shared request no longer waits behind the withdrawn one
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(granted.get()).isTrue();
+	}
+
+	@Test
+	public void testInterruptedBeforeWaiting() throws Exception {
+		locks.acquire("holder", node("./a"), EXCLUSIVE, 0);
+		Thread.currentThread().interrupt();
+		assertThatExceptionOfType(InterruptedException.class)
+				.isThrownBy(() -> locks.acquire("waiter", node("./a/b"),
+						SHARED, 60000));
+		locks.release("holder");
+		assertThat(locks.acquire("next", node("./a"), EXCLUSIVE, 0)).isTrue();
+	}
+
+	@Test
+	public void testConcurrentSessions() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		AtomicInteger[] branches = new AtomicInteger[4];
+		for (int i = 0; i < branches.length; i++)
+			branches[i] = new AtomicInteger();
+		AtomicInteger root = new AtomicInteger();
+		AtomicInteger errors = new AtomicInteger();
+		try {
+			List<Future< ? >> futures = new ArrayList<>();
+			for (int i = 0; i < 5000; i++) {
+				int k = i;
+				futures.add(executor.submit(() -> {
+					Object owner = new Object();
+					boolean onRoot = k % 97 == 0;
+					int branch = k % branches.length;
+					try {
+						Node node = onRoot ? node(".")
+								: node("./d/" + branch + "/x" + (k % 5));
+						if (!locks.acquire(owner, node, EXCLUSIVE, 10000)) {
+							errors.incrementAndGet();
+							return;
+						}
+					} catch (Exception e) {
+						errors.incrementAndGet();
+						return;
+					}
+					if (onRoot) {
+						if (root.incrementAndGet() != 1)
+							errors.incrementAndGet();
+						for (AtomicInteger b : branches)
+							if (b.get() != 0)
+								errors.incrementAndGet();
+						root.decrementAndGet();
+					} else {
+						if (root.get() != 0)
+							errors.incrementAndGet();
+						branches[branch].incrementAndGet();
+						branches[branch].decrementAndGet();
+					}
+					locks.release(owner);
+				}));
+			}
+			for (Future< ? > future : futures)
+				future.get();
+		} finally {
+			executor.shutdown();
+		}
+		assertThat(errors.get()).isEqualTo(0);
+	}
+
+	private Thread waiter(String owner, Node node, int lockMode,
+			List<String> order) {
+		Thread thread = new Thread(() -> {
+			try {
+				if (locks.acquire(owner, node, lockMode, 5000)) {
+					order.add(owner);
+					Thread.sleep(20);
+					order.add(owner + " released");
+					locks.release(owner);
+				}
+			} catch (InterruptedException e) {
+				// fails the test
+			}
+		});
+		thread.start();
+		return thread;
+	}
+
+	// Waits until a request is queued on a subtree, by probing a node in it
+	// that conflicts only with the queued request.
+	private void awaitQueued(Node probe) throws Exception {
+		for (int i = 0; i < 500; i++) {
+			Object owner = new Object();
+			if (!locks.acquire(owner, probe, SHARED, 0))
+				return;
+			locks.release(owner);
+			Thread.sleep(10);
+		}
+		throw new AssertionError("request not queued");
+	}
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.impl.service.dmt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.dmt.DmtData;
+import org.osgi.service.dmt.DmtSession;
+import org.osgi.service.dmt.MetaNode;
+import org.osgi.service.dmt.spi.DataPlugin;
+import org.osgi.service.dmt.spi.ReadWriteDataSession;
+import org.osgi.service.dmt.spi.ReadableDataSession;
+import org.osgi.service.dmt.spi.TransactionalDataSession;
+
+@SuppressWarnings("javadoc")
+public class SharedSessionTest {
+	private FakeFramework	framework;
+	private Context			context;
+	private DmtAdminCore	dmtAdmin;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		framework = new FakeFramework();
+		context = framework.createContext();
+		DmtSessionImpl.init_acls();
+		dmtAdmin = new DmtAdminCore(null, context);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		dmtAdmin.close();
+		context.close();
+	}
+
+	@SuppressWarnings({
+			"rawtypes", "unchecked"
+	})
+	private void registerPlugin(String root, DataPlugin plugin) {
+		Hashtable<String,Object> props = new Hashtable<>();
+		props.put(DataPlugin.DATA_ROOT_URIS, new String[] {
+				root
+		});
+		ServiceReference<Object> reference = (ServiceReference) framework.bundleContext
+				.registerService(DataPlugin.class, plugin, props)
+				.getReference();
+		context.getPluginDispatcher().addingService(reference);
+	}
+
+	@Test
+	public void testPluginSessionCalledByOneThreadAtATime() throws Exception {
+		SlowPlugin plugin = new SlowPlugin();
+		registerPlugin("./slow", plugin);
+
+		int threads = 8;
+		DmtSession session = dmtAdmin.getSession(null, "./slow",
+				DmtSession.LOCK_TYPE_SHARED, framework.bundle);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<DmtData>> results = new ArrayList<>();
+			for (int i = 0; i < threads * 10; i++) {
+				String uri = "./slow/leaf" + (i % 4);
+				results.add(executor.submit(() -> {
+					start.await(5, TimeUnit.SECONDS);
+					return session.getNodeValue(uri);
+				}));
+			}
+			start.countDown();
+			for (int i = 0; i < results.size(); i++)
+				assertThat(results.get(i).get(10, TimeUnit.SECONDS))
+						.isEqualTo(new DmtData("./slow/leaf" + (i % 4)));
+		} finally {
+			executor.shutdown();
+			session.close();
+		}
+
+		assertThat(plugin.sessions.get()).isEqualTo(1);
+		assertThat(plugin.calls.get()).isEqualTo(threads * 10 * 2);
+		assertThat(plugin.maxActive.get()).isEqualTo(1);
+	}
+
+	// A read-only plugin with a flat tree of leaf nodes, which records how
+	// many threads are in its session at once.
+	static class SlowPlugin implements DataPlugin {
+		final AtomicInteger	sessions	= new AtomicInteger();
+		final AtomicInteger	active		= new AtomicInteger();
+		final AtomicInteger	maxActive	= new AtomicInteger();
+		final AtomicInteger	calls		= new AtomicInteger();
+
+		@Override
+		public ReadableDataSession openReadOnlySession(String[] sessionRoot,
+				DmtSession session) {
+			sessions.incrementAndGet();
+			return new ReadableDataSession() {
+				private <T> T call(T result) {
+					calls.incrementAndGet();
+					int now = active.incrementAndGet();
+					maxActive.accumulateAndGet(now, Math::max);
+					try {
+						Thread.sleep(1);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					active.decrementAndGet();
+					return result;
+				}
+
+				@Override
+				public boolean isNodeUri(String[] nodePath) {
+					return true;
+				}
+
+				@Override
+				public boolean isLeafNode(String[] nodePath) {
+					return call(Boolean.valueOf(nodePath.length > 2))
+							.booleanValue();
+				}
+
+				@Override
+				public DmtData getNodeValue(String[] nodePath) {
+					return call(new DmtData(String.join("/", nodePath)));
+				}
+
+				@Override
+				public MetaNode getMetaNode(String[] nodePath) {
+					return null;
+				}
+
+				@Override
+				public String[] getChildNodeNames(String[] nodePath) {
+					return new String[0];
+				}
+
+				@Override
+				public int getNodeSize(String[] nodePath) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public int getNodeVersion(String[] nodePath) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public Date getNodeTimestamp(String[] nodePath) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public String getNodeTitle(String[] nodePath) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public String getNodeType(String[] nodePath) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void nodeChanged(String[] nodePath) {
+					// nothing cached
+				}
+
+				@Override
+				public void close() {
+					// nothing to release
+				}
+			};
+		}
+
+		@Override
+		public ReadWriteDataSession openReadWriteSession(String[] sessionRoot,
+				DmtSession session) {
+			return null;
+		}
+
+		@Override
+		public TransactionalDataSession openAtomicSession(
+				String[] sessionRoot, DmtSession session) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,484 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.impl.service.dmt.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.service.dmt.Acl;
+import org.osgi.service.dmt.DmtData;
+import org.osgi.service.dmt.DmtException;
+import org.osgi.service.dmt.DmtIllegalStateException;
+import org.osgi.service.dmt.DmtSession;
+import org.osgi.service.dmt.MetaNode;
+
+@SuppressWarnings("javadoc")
+public class SubtreeStreamTest {
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		MemorySession source = new MemorySession(DmtSession.LOCK_TYPE_SHARED);
+		source.createInteriorNode("./src", "text/dir");
+		source.node("./src").title = "root title";
+		source.node("./src").acl = new Acl("Get=*");
+		source.createInteriorNode("./src/empty", "text/dir");
+		source.createInteriorNode("./src/values", "text/dir");
+		Object[] values = {
+				new DmtData(42), new DmtData(-7L), new DmtData(1.5f),
+				DmtData.TRUE_VALUE, new DmtData("text \u00e9\u4e2d"),
+				new DmtData("<a/>", DmtData.FORMAT_XML),
+				new DmtData("20241231", DmtData.FORMAT_DATE),
+				new DmtData("235959", DmtData.FORMAT_TIME),
+				new DmtData(new Date(1234567890000L)), new DmtData(new byte[] {
+						1, 2, 3
+				}), new DmtData(new byte[] {
+						4
+				}, true), new DmtData("custom", "raw"),
+				new DmtData("custom", new byte[] {
+						5, 6
+				}), DmtData.NULL_VALUE
+		};
+		for (int i = 0; i < values.length; i++)
+			source.createLeafNode("./src/values/v" + i, (DmtData) values[i],
+					"text/plain");
+		source.node("./src/values/v3").title = "leaf title";
+		source.node("./src/values/v3").acl = new Acl("Replace=a&Get=b");
+		source.createLeafNode("./src/leaf", new DmtData("x"), null);
+
+		byte[] bytes = export(source, "./src");
+
+		MemorySession target = new MemorySession(DmtSession.LOCK_TYPE_ATOMIC);
+		target.createInteriorNode("./dst", null);
+		target.createLeafNode("./dst/leaf", new DmtData("old"), null);
+		SubtreeStream.importSubtree(target, "./dst",
+				new ByteArrayInputStream(bytes));
+
+		assertThat(target.commits).isEqualTo(1);
+		assertThat(target.rollbacks).isEqualTo(0);
+		List<String> copied = new ArrayList<>();
+		for (Map.Entry<String,MemoryNode> e : source.nodes.entrySet()) {
+			String uri = e.getKey();
+			if (!uri.startsWith("./src"))
+				continue;
+			String copy = "./dst" + uri.substring("./src".length());
+			MemoryNode expected = e.getValue();
+			MemoryNode actual = target.node(copy);
+			assertThat(actual.leaf).isEqualTo(expected.leaf);
+			assertThat(actual.value).isEqualTo(expected.value);
+			assertThat(actual.title).isEqualTo(expected.title);
+			assertThat(actual.acl).isEqualTo(expected.acl);
+			if (!copy.equals("./dst/leaf") && !copy.equals("./dst"))
+				assertThat(actual.type).isEqualTo(expected.type);
+			copied.add(copy);
+		}
+		assertThat(new ArrayList<>(target.nodes.keySet())).isEqualTo(copied);
+
+		// a leaf node is also a subtree
+		MemorySession leafTarget = new MemorySession(
+				DmtSession.LOCK_TYPE_ATOMIC);
+		SubtreeStream.importSubtree(leafTarget, "./copy",
+				new ByteArrayInputStream(export(source, "./src/values/v3")));
+		assertThat(leafTarget.node("./copy").value)
+				.isEqualTo(DmtData.TRUE_VALUE);
+		assertThat(leafTarget.node("./copy").acl)
+				.isEqualTo(new Acl("Replace=a&Get=b"));
+	}
+
+	@Test
+	public void testTruncatedStreamRollsBack() throws Exception {
+		MemorySession source = new MemorySession(DmtSession.LOCK_TYPE_SHARED);
+		source.createInteriorNode("./src", "text/dir");
+		for (int i = 0; i < 10; i++)
+			source.createLeafNode("./src/n" + i, new DmtData(i),
+					"text/plain");
+		byte[] bytes = export(source, "./src");
+		byte[] truncated = new byte[bytes.length - 8];
+		System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+		MemorySession target = new MemorySession(DmtSession.LOCK_TYPE_ATOMIC);
+		assertThatExceptionOfType(IOException.class)
+				.isThrownBy(() -> SubtreeStream.importSubtree(target, "./dst",
+						new ByteArrayInputStream(truncated)));
+		assertThat(target.rollbacks).isEqualTo(1);
+		assertThat(target.commits).isEqualTo(0);
+		assertThat(target.nodes.isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testLengthLimit() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(bytes);
+		data.writeInt(0x444D5431);
+		data.writeByte(2);
+		data.writeInt(SubtreeStream.MAX_LENGTH + 1);
+		data.flush();
+
+		MemorySession target = new MemorySession(DmtSession.LOCK_TYPE_ATOMIC);
+		assertThatExceptionOfType(IOException.class)
+				.isThrownBy(() -> SubtreeStream.importSubtree(target, "./dst",
+						new ByteArrayInputStream(bytes.toByteArray())));
+		assertThat(target.rollbacks).isEqualTo(1);
+	}
+
+	@Test
+	public void testMissingUriOrType() throws Exception {
+		// an interior node record without a relative URI
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(bytes);
+		data.writeInt(0x444D5431);
+		data.writeByte(1);
+		data.writeInt(-1);
+		data.flush();
+
+		MemorySession target = new MemorySession(DmtSession.LOCK_TYPE_ATOMIC);
+		assertThatExceptionOfType(IOException.class)
+				.isThrownBy(() -> SubtreeStream.importSubtree(target, "./dst",
+						new ByteArrayInputStream(bytes.toByteArray())));
+		assertThat(target.rollbacks).isEqualTo(1);
+
+		// a node without a type can update an existing node, but not create
+		// a new one
+		MemorySession source = new MemorySession(DmtSession.LOCK_TYPE_SHARED);
+		source.createInteriorNode("./src", "text/dir");
+		source.createLeafNode("./src/leaf", new DmtData("new"), null);
+		byte[] stream = export(source, "./src");
+
+		MemorySession existing = new MemorySession(
+				DmtSession.LOCK_TYPE_ATOMIC);
+		existing.createInteriorNode("./dst", null);
+		existing.createLeafNode("./dst/leaf", new DmtData("old"), null);
+		SubtreeStream.importSubtree(existing, "./dst",
+				new ByteArrayInputStream(stream));
+		assertThat(existing.node("./dst/leaf").value)
+				.isEqualTo(new DmtData("new"));
+
+		MemorySession empty = new MemorySession(DmtSession.LOCK_TYPE_ATOMIC);
+		assertThatExceptionOfType(IOException.class)
+				.isThrownBy(() -> SubtreeStream.importSubtree(empty, "./dst",
+						new ByteArrayInputStream(stream)));
+		assertThat(empty.rollbacks).isEqualTo(1);
+		assertThat(empty.nodes.isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testErrorRollsBack() throws Exception {
+		MemorySession source = new MemorySession(DmtSession.LOCK_TYPE_SHARED);
+		source.createInteriorNode("./src", "text/dir");
+		source.node("./src").acl = new Acl("Get=*");
+		byte[] bytes = export(source, "./src");
+
+		MemorySession target = new MemorySession(
+				DmtSession.LOCK_TYPE_ATOMIC) {
+			@Override
+			public void setNodeAcl(String nodeUri, Acl acl) {
+				throw new AssertionError("not a DmtException");
+			}
+		};
+		assertThatExceptionOfType(AssertionError.class)
+				.isThrownBy(() -> SubtreeStream.importSubtree(target, "./dst",
+						new ByteArrayInputStream(bytes)));
+		assertThat(target.rollbacks).isEqualTo(1);
+		assertThat(target.nodes.isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testInvalidStreams() throws Exception {
+		MemorySession shared = new MemorySession(DmtSession.LOCK_TYPE_SHARED);
+		assertThatExceptionOfType(DmtIllegalStateException.class)
+				.isThrownBy(() -> SubtreeStream.importSubtree(shared, "./dst",
+						new ByteArrayInputStream(new byte[0])));
+
+		MemorySession target = new MemorySession(DmtSession.LOCK_TYPE_ATOMIC);
+		assertThatExceptionOfType(IOException.class)
+				.isThrownBy(() -> SubtreeStream.importSubtree(target, "./dst",
+						new ByteArrayInputStream(new byte[] {
+								1, 2, 3, 4
+						})));
+	}
+
+	private static byte[] export(DmtSession session, String uri)
+			throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SubtreeStream.exportSubtree(session, uri, out);
+		return out.toByteArray();
+	}
+
+	static final class MemoryNode {
+		boolean	leaf;
+		DmtData	value;
+		String	type;
+		String	title;
+		Acl		acl;
+
+		MemoryNode copy() {
+			MemoryNode copy = new MemoryNode();
+			copy.leaf = leaf;
+			copy.value = value;
+			copy.type = type;
+			copy.title = title;
+			copy.acl = acl;
+			return copy;
+		}
+	}
+
+	// A session on an in-memory tree, rollback restores the tree of the last
+	// commit. Only the methods used by SubtreeStream are implemented.
+	static class MemorySession implements DmtSession {
+		final int						lockType;
+		TreeMap<String,MemoryNode>		nodes		= new TreeMap<>();
+		private TreeMap<String,MemoryNode>	committed	= new TreeMap<>();
+		int								commits;
+		int								rollbacks;
+
+		MemorySession(int lockType) {
+			this.lockType = lockType;
+		}
+
+		MemoryNode node(String uri) throws DmtException {
+			MemoryNode node = nodes.get(uri);
+			if (node == null)
+				throw new DmtException(uri, DmtException.NODE_NOT_FOUND,
+						"no such node");
+			return node;
+		}
+
+		private void create(String uri, MemoryNode node) throws DmtException {
+			if (nodes.containsKey(uri))
+				throw new DmtException(uri, DmtException.NODE_ALREADY_EXISTS,
+						"exists");
+			nodes.put(uri, node);
+		}
+
+		@Override
+		public int getLockType() {
+			return lockType;
+		}
+
+		@Override
+		public boolean isNodeUri(String nodeUri) {
+			return nodes.containsKey(nodeUri);
+		}
+
+		@Override
+		public boolean isLeafNode(String nodeUri) throws DmtException {
+			return node(nodeUri).leaf;
+		}
+
+		@Override
+		public String[] getChildNodeNames(String nodeUri)
+				throws DmtException {
+			node(nodeUri);
+			String prefix = nodeUri + "/";
+			List<String> names = new ArrayList<>();
+			for (String uri : nodes.tailMap(prefix).keySet()) {
+				if (!uri.startsWith(prefix))
+					break;
+				if (uri.indexOf('/', prefix.length()) < 0)
+					names.add(uri.substring(prefix.length()));
+			}
+			return names.toArray(new String[names.size()]);
+		}
+
+		@Override
+		public DmtData getNodeValue(String nodeUri) throws DmtException {
+			return node(nodeUri).value;
+		}
+
+		@Override
+		public String getNodeType(String nodeUri) throws DmtException {
+			return node(nodeUri).type;
+		}
+
+		@Override
+		public String getNodeTitle(String nodeUri) throws DmtException {
+			return node(nodeUri).title;
+		}
+
+		@Override
+		public Acl getNodeAcl(String nodeUri) throws DmtException {
+			return node(nodeUri).acl;
+		}
+
+		@Override
+		public void createInteriorNode(String nodeUri, String type)
+				throws DmtException {
+			MemoryNode node = new MemoryNode();
+			node.type = type;
+			create(nodeUri, node);
+		}
+
+		@Override
+		public void createLeafNode(String nodeUri, DmtData value,
+				String mimeType) throws DmtException {
+			MemoryNode node = new MemoryNode();
+			node.leaf = true;
+			node.value = value;
+			node.type = mimeType;
+			create(nodeUri, node);
+		}
+
+		@Override
+		public void setNodeValue(String nodeUri, DmtData data)
+				throws DmtException {
+			node(nodeUri).value = data;
+		}
+
+		@Override
+		public void setNodeTitle(String nodeUri, String title)
+				throws DmtException {
+			node(nodeUri).title = title;
+		}
+
+		@Override
+		public void setNodeAcl(String nodeUri, Acl acl) throws DmtException {
+			node(nodeUri).acl = acl;
+		}
+
+		@Override
+		public void commit() {
+			commits++;
+			committed = copy(nodes);
+		}
+
+		@Override
+		public void rollback() {
+			rollbacks++;
+			nodes = copy(committed);
+		}
+
+		private static TreeMap<String,MemoryNode> copy(
+				TreeMap<String,MemoryNode> tree) {
+			TreeMap<String,MemoryNode> copy = new TreeMap<>();
+			for (Map.Entry<String,MemoryNode> e : tree.entrySet())
+				copy.put(e.getKey(), e.getValue().copy());
+			return copy;
+		}
+
+		@Override
+		public int getState() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String getPrincipal() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getSessionId() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String getRootUri() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void execute(String nodeUri, String data) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void execute(String nodeUri, String correlator, String data) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Acl getEffectiveNodeAcl(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void copy(String nodeUri, String newNodeUri,
+				boolean recursive) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void createInteriorNode(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void createLeafNode(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void createLeafNode(String nodeUri, DmtData value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void deleteNode(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void renameNode(String nodeUri, String newName) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setDefaultNodeValue(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setNodeType(String nodeUri, String type) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public MetaNode getMetaNode(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getNodeSize(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Date getNodeTimestamp(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getNodeVersion(String nodeUri) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
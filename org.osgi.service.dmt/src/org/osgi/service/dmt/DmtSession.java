@@ -18,7 +18,12 @@
 
 package org.osgi.service.dmt;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * DmtSession provides concurrent access to the DMT. All DMT manipulation
@@ -1051,6 +1056,43 @@ public interface DmtSession {
 	 */
 	void setNodeValue(String nodeUri, DmtData data) throws DmtException;
 
+	/**
+	 * Set the values of a number of nodes. The effect is the same as calling
+	 * {@link #setNodeValue(String, DmtData)} for each node in the given order,
+	 * but the implementation can process the nodes together. If setting a
+	 * value fails, the values set before are kept, unless the session is
+	 * atomic and it is rolled back.
+	 * 
+	 * @param nodeUris the URIs of the nodes
+	 * @param data the data to be set for each node, must have the same length
+	 *        as {@code nodeUris}, its elements can be {@code null}
+	 * @throws DmtException with the error codes of
+	 *         {@link #setNodeValue(String, DmtData)}, or with
+	 *         {@code INVALID_URI} if {@code nodeUris} is {@code null}, or with
+	 *         {@code COMMAND_FAILED} if {@code data} is {@code null} or its
+	 *         length differs from the length of {@code nodeUris}
+	 * @throws DmtIllegalStateException if the session was opened using the
+	 *         {@code LOCK_TYPE_SHARED} lock type, or if the session is already
+	 *         closed or invalidated
+	 * @throws SecurityException if the caller does not have the necessary
+	 *         permissions to execute the underlying management operation, or,
+	 *         in case of local sessions, if the caller does not have
+	 *         {@code DmtPermission} for the nodes with the Replace action
+	 *         present
+	 * @since 2.1
+	 */
+	default void setNodeValues(String[] nodeUris, DmtData[] data)
+			throws DmtException {
+		if (nodeUris == null)
+			throw new DmtException((String) null, DmtException.INVALID_URI,
+					"The node URI array is null.");
+		if (data == null || data.length != nodeUris.length)
+			throw new DmtException((String) null, DmtException.COMMAND_FAILED,
+					"The number of values does not match the number of URIs.");
+		for (int i = 0; i < nodeUris.length; i++)
+			setNodeValue(nodeUris[i], data[i]);
+	}
+
 	/**
 	 * Set the title property of a node. The length of the title string in UTF-8
 	 * encoding must not exceed 255 bytes.
@@ -1449,6 +1491,88 @@ public interface DmtSession {
 	 */
 	DmtData getNodeValue(String nodeUri) throws DmtException;
 
+	/**
+	 * Get the data contained in a number of nodes. The result is the same as
+	 * calling {@link #getNodeValue(String)} for each node, but the
+	 * implementation can process the nodes together, for example by asking
+	 * each plugin for the values of all its nodes at once.
+	 * 
+	 * @param nodeUris the URIs of the nodes to retrieve
+	 * @return the data of the nodes, in the order of {@code nodeUris}, can not
+	 *         contain {@code null}
+	 * @throws DmtException with the error codes of
+	 *         {@link #getNodeValue(String)}, or with {@code INVALID_URI} if
+	 *         {@code nodeUris} is {@code null}
+	 * @throws DmtIllegalStateException if the session is already closed or
+	 *         invalidated
+	 * @throws SecurityException if the caller does not have the necessary
+	 *         permissions to execute the underlying management operation, or,
+	 *         in case of local sessions, if the caller does not have
+	 *         {@code DmtPermission} for the nodes with the Get action present
+	 * @since 2.1
+	 */
+	default DmtData[] getNodeValues(String[] nodeUris) throws DmtException {
+		if (nodeUris == null)
+			throw new DmtException((String) null, DmtException.INVALID_URI,
+					"The node URI array is null.");
+		DmtData[] values = new DmtData[nodeUris.length];
+		for (int i = 0; i < nodeUris.length; i++)
+			values[i] = getNodeValue(nodeUris[i]);
+		return values;
+	}
+
+	/**
+	 * Get the data contained in the leaf nodes of a subtree. The subtree is
+	 * traversed in depth first order with node names sorted with
+	 * Arrays.sort(String[]), and the returned map iterates over the leaf nodes
+	 * in this order. Each key is formed by appending the names of the nodes
+	 * on the path below the given node to {@code nodeUri}. If the given node
+	 * is a leaf node, the map only contains its value.
+	 * <p>
+	 * The caller must have rights to read all nodes in the traversed part of
+	 * the subtree, the interior nodes included.
+	 * 
+	 * @param nodeUri the URI of the root of the subtree
+	 * @param depth the number of levels below the given node to traverse, or
+	 *        a negative number to traverse the whole subtree
+	 * @return the data of the leaf nodes, keyed by their URIs
+	 * @throws DmtException with the error codes of
+	 *         {@link #getNodeValue(String)} and
+	 *         {@link #getChildNodeNames(String)}
+	 * @throws DmtIllegalStateException if the session is already closed or
+	 *         invalidated
+	 * @throws SecurityException if the caller does not have the necessary
+	 *         permissions to execute the underlying management operation, or,
+	 *         in case of local sessions, if the caller does not have
+	 *         {@code DmtPermission} for the nodes of the subtree with the Get
+	 *         action present
+	 * @since 2.1
+	 */
+	default Map<String,DmtData> getSubtreeValues(String nodeUri, int depth)
+			throws DmtException {
+		Map<String,DmtData> values = new LinkedHashMap<>();
+		Deque<String> uris = new ArrayDeque<>();
+		Deque<Integer> depths = new ArrayDeque<>();
+		uris.push(nodeUri);
+		depths.push(Integer.valueOf(depth));
+		while (!uris.isEmpty()) {
+			String uri = uris.pop();
+			int levels = depths.pop().intValue();
+			if (isLeafNode(uri))
+				values.put(uri, getNodeValue(uri));
+			else if (levels != 0) {
+				String[] children = getChildNodeNames(uri);
+				Arrays.sort(children);
+				String prefix = uri.length() == 0 ? "" : uri + "/";
+				for (int i = children.length - 1; i >= 0; i--) {
+					uris.push(prefix + children[i]);
+					depths.push(Integer.valueOf(levels - 1));
+				}
+			}
+		}
+		return values;
+	}
+
 	/**
 	 * Get the version of a node. The version can not be set, it is calculated
 	 * automatically by the device. It is incremented modulo 0x10000 at every
@@ -35,16 +35,16 @@
  * <p>
  * Example import for consumers using the API in this package:
  * <p>
- * {@code  Import-Package: org.osgi.service.dmt; version="[2.0,3.0)"}
+ * {@code  Import-Package: org.osgi.service.dmt; version="[2.1,3.0)"}
  * <p>
  * Example import for providers implementing the API in this package:
  * <p>
- * {@code  Import-Package: org.osgi.service.dmt; version="[2.0,2.1)"}
+ * {@code  Import-Package: org.osgi.service.dmt; version="[2.1,2.2)"}
  * 
  * @author $Id$
  */
 
-@Version("2.0.2")
+@Version("2.1.0")
 package org.osgi.service.dmt;
 
 import org.osgi.annotation.versioning.Version;
@@ -328,6 +328,30 @@ public interface ReadableDataSession {
 	 */
 	DmtData getNodeValue(String[] nodePath) throws DmtException;
 
+	/**
+	 * Get the data contained in a number of leaf or interior nodes. The
+	 * {@code DmtAdmin} calls this method when it reads the values of several
+	 * nodes of this plugin together, so plugins that can fetch several values
+	 * from their data store at once should override it. The default
+	 * implementation calls {@link #getNodeValue(String[])} for each node.
+	 * 
+	 * @param nodePaths the absolute paths of the nodes to retrieve
+	 * @return the data of the nodes, in the order of {@code nodePaths}, must
+	 *         not contain {@code null}
+	 * @throws DmtException with the error codes of
+	 *         {@link #getNodeValue(String[])}
+	 * @throws SecurityException if the caller does not have the necessary
+	 *         permissions to execute the underlying management operation
+	 * @since 2.1
+	 */
+	default DmtData[] getNodeValues(String[][] nodePaths)
+			throws DmtException {
+		DmtData[] values = new DmtData[nodePaths.length];
+		for (int i = 0; i < nodePaths.length; i++)
+			values[i] = getNodeValue(nodePaths[i]);
+		return values;
+	}
+
 	/**
 	 * Get the version of a node. The version can not be set, it is calculated
 	 * automatically by the device. It is incremented modulo 0x10000 at every
@@ -33,16 +33,16 @@
  * <p>
  * Example import for consumers using the API in this package:
  * <p>
- * {@code  Import-Package: org.osgi.service.dmt.spi; version="[2.0,3.0)"}
+ * {@code  Import-Package: org.osgi.service.dmt.spi; version="[2.1,3.0)"}
  * <p>
  * Example import for providers implementing the API in this package:
  * <p>
- * {@code  Import-Package: org.osgi.service.dmt.spi; version="[2.0,2.1)"}
+ * {@code  Import-Package: org.osgi.service.dmt.spi; version="[2.1,2.2)"}
  * 
  * @author $Id$
  */
 
-@Version("2.0")
+@Version("2.1")
 package org.osgi.service.dmt.spi;
 
 import org.osgi.annotation.versioning.Version;
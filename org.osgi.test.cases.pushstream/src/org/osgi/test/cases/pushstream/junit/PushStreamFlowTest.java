@@ -0,0 +1,455 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.test.cases.pushstream.junit;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.pushstream.PushEventSource;
+import org.osgi.util.pushstream.PushStream;
+import org.osgi.util.pushstream.PushStreamProvider;
+
+/**
+ * Checks the {@code org.osgi.util.pushstream.flow} adapters against the rules
+ * of the Reactive Streams specification. The tests are written reflectively
+ * so that they compile on Java 8, and are skipped when Flow or the adapters
+ * are not available.
+ */
+public class PushStreamFlowTest {
+
+	private Class< ? >	publisherType;
+	private Class< ? >	subscriberType;
+	private Class< ? >	subscriptionType;
+	private Class< ? >	adapters;
+
+	@BeforeEach
+	public void checkFlow() {
+		try {
+			publisherType = Class.forName("java.util.concurrent.Flow$Publisher");
+			subscriberType = Class
+					.forName("java.util.concurrent.Flow$Subscriber");
+			subscriptionType = Class
+					.forName("java.util.concurrent.Flow$Subscription");
+		} catch (ClassNotFoundException cnfe) {
+			assumeTrue(false, "java.util.concurrent.Flow is not available");
+		}
+		try {
+			adapters = Class
+					.forName("org.osgi.util.pushstream.flow.FlowAdapters");
+		} catch (ClassNotFoundException cnfe) {
+			assumeTrue(false, "The Flow adapters are not available");
+		}
+	}
+
+	/**
+	 * A Flow Subscriber which records the signals it receives
+	 */
+	class TestSubscriber {
+		final List<Object>				items		= Collections
+				.synchronizedList(new ArrayList<>());
+		final AtomicReference<Object>	subscription	= new AtomicReference<>();
+		final AtomicReference<Throwable>	error		= new AtomicReference<>();
+		final CountDownLatch			subscribed	= new CountDownLatch(1);
+		final CountDownLatch			terminated	= new CountDownLatch(1);
+		final AtomicInteger				completions	= new AtomicInteger();
+		final Object					proxy;
+
+		TestSubscriber() {
+			proxy = Proxy.newProxyInstance(subscriberType.getClassLoader(),
+					new Class< ? >[] {
+							subscriberType
+					}, (p, m, args) -> {
+						switch (m.getName()) {
+							case "onSubscribe" :
+								subscription.set(args[0]);
+								subscribed.countDown();
+								onSubscribe();
+								break;
+							case "onNext" :
+								items.add(args[0]);
+								onNext(args[0]);
+								break;
+							case "onError" :
+								error.set((Throwable) args[0]);
+								terminated.countDown();
+								break;
+							case "onComplete" :
+								completions.incrementAndGet();
+								terminated.countDown();
+								break;
+							case "hashCode" :
+								return System.identityHashCode(p);
+							case "equals" :
+								return p == args[0];
+							default :
+								return "TestSubscriber";
+						}
+						return null;
+					});
+		}
+
+		void onSubscribe() throws Exception {}
+
+		void onNext(Object item) throws Exception {}
+
+		void request(long n) throws Exception {
+			invoke(subscription.get(), subscriptionType, "request", n);
+		}
+
+		void cancel() throws Exception {
+			invoke(subscription.get(), subscriptionType, "cancel");
+		}
+	}
+
+	private Object invoke(Object target, Class< ? > type, String name,
+			Object... args) throws Exception {
+		for (Method m : type.getMethods()) {
+			if (m.getName().equals(name)
+					&& m.getParameterCount() == args.length) {
+				try {
+					return m.invoke(target, args);
+				} catch (InvocationTargetException ite) {
+					Throwable t = ite.getCause();
+					if (t instanceof Exception) {
+						throw (Exception) t;
+					}
+					throw (Error) t;
+				}
+			}
+		}
+		throw new NoSuchMethodException(name);
+	}
+
+	private void subscribe(Object publisher, TestSubscriber subscriber)
+			throws Exception {
+		invoke(publisher, publisherType, "subscribe", subscriber.proxy);
+	}
+
+	private Object toPublisher(PushStream< ? > stream) throws Exception {
+		return invoke(null, adapters, "toPublisher", stream);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> PushEventSource<T> toEventSource(Object publisher,
+			int prefetch) throws Exception {
+		return (PushEventSource<T>) invoke(null, adapters, "toEventSource",
+				publisher, Integer.valueOf(prefetch));
+	}
+
+	/**
+	 * A stream of integers which respects back pressure
+	 */
+	private PushStream<Integer> range(PushStreamProvider psp, int count) {
+		return psp.streamOf(null, null, IntStream.range(0, count).boxed());
+	}
+
+	/**
+	 * Rule 1.1 - never signal more onNext than requested
+	 */
+	@Test
+	public void testPublisherRespectsDemand() throws Exception {
+		PushStreamProvider psp = new PushStreamProvider();
+		Object publisher = toPublisher(range(psp, 100));
+
+		TestSubscriber subscriber = new TestSubscriber() {
+			@Override
+			void onSubscribe() throws Exception {
+				request(5);
+			}
+		};
+		subscribe(publisher, subscriber);
+
+		assertTrue(subscriber.subscribed.await(1, TimeUnit.SECONDS));
+		Thread.sleep(200);
+		assertEquals(5, subscriber.items.size());
+		assertEquals(1, subscriber.terminated.getCount());
+
+		subscriber.request(10);
+		Thread.sleep(200);
+		assertEquals(15, subscriber.items.size());
+
+		subscriber.request(Long.MAX_VALUE);
+		assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+		assertEquals(100, subscriber.items.size());
+		assertEquals(1, subscriber.completions.get());
+		assertEquals(IntStream.range(0, 100).boxed().collect(toList()),
+				subscriber.items);
+	}
+
+	/**
+	 * Rule 1.9 - a null Subscriber must be rejected with a
+	 * NullPointerException, and rule 2.12 - only one subscription is
+	 * supported
+	 */
+	@Test
+	public void testPublisherSubscribers() throws Exception {
+		PushStreamProvider psp = new PushStreamProvider();
+		Object publisher = toPublisher(range(psp, 10));
+
+		assertThrows(NullPointerException.class,
+				() -> invoke(publisher, publisherType, "subscribe",
+						new Object[] {
+								null
+						}));
+
+		TestSubscriber first = new TestSubscriber();
+		subscribe(publisher, first);
+		assertTrue(first.subscribed.await(1, TimeUnit.SECONDS));
+
+		TestSubscriber second = new TestSubscriber();
+		subscribe(publisher, second);
+		assertTrue(second.terminated.await(1, TimeUnit.SECONDS));
+		assertNotNull(second.subscription.get());
+		assertTrue(second.error.get() instanceof IllegalStateException);
+	}
+
+	/**
+	 * Rule 3.9 - a non-positive request must signal an
+	 * IllegalArgumentException
+	 */
+	@Test
+	public void testPublisherRejectsNonPositiveRequest() throws Exception {
+		PushStreamProvider psp = new PushStreamProvider();
+		CountDownLatch closed = new CountDownLatch(1);
+		Object publisher = toPublisher(
+				range(psp, 10).onClose(closed::countDown));
+
+		TestSubscriber subscriber = new TestSubscriber() {
+			@Override
+			void onSubscribe() throws Exception {
+				request(0);
+			}
+		};
+		subscribe(publisher, subscriber);
+
+		assertTrue(subscriber.terminated.await(1, TimeUnit.SECONDS));
+		assertTrue(subscriber.error.get() instanceof IllegalArgumentException);
+		assertTrue(subscriber.items.isEmpty());
+		assertTrue(closed.await(1, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Rule 3.12 - cancel eventually stops the signals, and closes the stream
+	 */
+	@Test
+	public void testPublisherCancel() throws Exception {
+		PushStreamProvider psp = new PushStreamProvider();
+		CountDownLatch closed = new CountDownLatch(1);
+		PushStream<Integer> stream = range(psp, 1000)
+				.onClose(closed::countDown);
+		Object publisher = toPublisher(stream);
+
+		TestSubscriber subscriber = new TestSubscriber() {
+			@Override
+			void onSubscribe() throws Exception {
+				request(Long.MAX_VALUE);
+			}
+
+			@Override
+			void onNext(Object item) throws Exception {
+				if (((Integer) item).intValue() == 9) {
+					cancel();
+				}
+			}
+		};
+		subscribe(publisher, subscriber);
+
+		assertTrue(closed.await(1, TimeUnit.SECONDS));
+		assertEquals(10, subscriber.items.size());
+		assertEquals(0, subscriber.completions.get());
+	}
+
+	/**
+	 * Rule 1.2 - onComplete may be signalled without demand
+	 */
+	@Test
+	public void testPublisherCompletesWithoutDemand() throws Exception {
+		PushStreamProvider psp = new PushStreamProvider();
+		Object publisher = toPublisher(range(psp, 0));
+
+		TestSubscriber subscriber = new TestSubscriber();
+		subscribe(publisher, subscriber);
+
+		assertTrue(subscriber.terminated.await(1, TimeUnit.SECONDS));
+		assertEquals(1, subscriber.completions.get());
+	}
+
+	/**
+	 * Events which arrive without demand are buffered and back pressure is
+	 * returned, rather than blocking the delivering thread. A stream which
+	 * ignores the back pressure overflows the buffer and fails the
+	 * Subscriber.
+	 */
+	@Test
+	public void testPublisherBuffersWithoutDemand() throws Exception {
+		PushStreamProvider psp = new PushStreamProvider();
+		CountDownLatch closed = new CountDownLatch(1);
+		List<Long> backPressure = Collections
+				.synchronizedList(new ArrayList<>());
+		PushStream<Integer> stream = psp
+				.streamOf(IntStream.range(0, 100).boxed())
+				.onClose(closed::countDown);
+		Object publisher = toPublisher(stream.adjustBackPressure(bp -> {
+			backPressure.add(Long.valueOf(bp));
+			return bp;
+		}));
+
+		TestSubscriber subscriber = new TestSubscriber();
+		subscribe(publisher, subscriber);
+
+		assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+		assertTrue(subscriber.error.get() instanceof IllegalStateException);
+		assertTrue(subscriber.items.isEmpty());
+		assertTrue(closed.await(1, TimeUnit.SECONDS));
+		assertTrue(backPressure.size() > 1);
+		assertTrue(backPressure.stream().limit(10).allMatch(bp -> bp > 0),
+				"Back pressure was not returned " + backPressure);
+	}
+
+	/**
+	 * Create a Flow Publisher which records the demand it receives and
+	 * publishes an item for each requested one
+	 */
+	private Object countingPublisher(int total, AtomicInteger maxOutstanding,
+			List<Long> requestTimes) {
+		return Proxy.newProxyInstance(publisherType.getClassLoader(),
+				new Class< ? >[] {
+						publisherType
+				}, (p, m, args) -> {
+					if (!"subscribe".equals(m.getName())) {
+						return "CountingPublisher";
+					}
+					Object subscriber = args[0];
+					AtomicInteger outstanding = new AtomicInteger();
+					AtomicInteger sent = new AtomicInteger();
+					Object subscription = Proxy.newProxyInstance(
+							subscriptionType.getClassLoader(),
+							new Class< ? >[] {
+									subscriptionType
+							}, (sp, sm, sargs) -> {
+								if ("request".equals(sm.getName())) {
+									requestTimes.add(System.nanoTime());
+									int now = outstanding.addAndGet(
+											((Long) sargs[0]).intValue());
+									maxOutstanding.accumulateAndGet(now,
+											Math::max);
+									new Thread(() -> {
+										try {
+											while (outstanding.get() > 0
+													&& sent.get() < total) {
+												outstanding.decrementAndGet();
+												invoke(subscriber,
+														subscriberType,
+														"onNext",
+														sent.getAndIncrement());
+											}
+											if (sent.get() == total) {
+												sent.incrementAndGet();
+												invoke(subscriber,
+														subscriberType,
+														"onComplete");
+											}
+										} catch (Exception e) {
+											e.printStackTrace();
+										}
+									}).start();
+								}
+								return null;
+							});
+					invoke(subscriber, subscriberType, "onSubscribe",
+							subscription);
+					return null;
+				});
+	}
+
+	/**
+	 * The event source never has more than the prefetch requested
+	 */
+	@Test
+	public void testEventSourceBoundsDemand() throws Exception {
+		PushStreamProvider psp = new PushStreamProvider();
+		AtomicInteger maxOutstanding = new AtomicInteger();
+		Object publisher = countingPublisher(100, maxOutstanding,
+				Collections.synchronizedList(new ArrayList<>()));
+
+		PushEventSource<Integer> source = toEventSource(publisher, 8);
+
+		Promise<Long> count = psp.createStream(source).count();
+
+		assertEquals(Long.valueOf(100), count.timeout(5000).getValue());
+		assertTrue(maxOutstanding.get() <= 8,
+				"Too much demand " + maxOutstanding.get());
+	}
+
+	/**
+	 * Back pressure from the consumer delays the next request
+	 */
+	@Test
+	public void testEventSourceBackPressure() throws Exception {
+		PushStreamProvider psp = new PushStreamProvider();
+		List<Long> requestTimes = Collections
+				.synchronizedList(new ArrayList<>());
+		Object publisher = countingPublisher(8, new AtomicInteger(),
+				requestTimes);
+
+		PushEventSource<Integer> source = toEventSource(publisher, 2);
+
+		CountDownLatch done = new CountDownLatch(1);
+		source.open(e -> {
+			if (e.isTerminal()) {
+				done.countDown();
+				return -1;
+			}
+			return 50;
+		});
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertFalse(requestTimes.isEmpty());
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(requestTimes
+				.get(requestTimes.size() - 1) - requestTimes.get(0));
+		assertTrue(elapsed >= 150, "Requests were not delayed " + elapsed);
+	}
+
+	@Test
+	public void testEventSourceRejectsInvalidPrefetch() throws Exception {
+		Object publisher = countingPublisher(1, new AtomicInteger(),
+				Collections.synchronizedList(new ArrayList<>()));
+		assertThrows(IllegalArgumentException.class,
+				() -> toEventSource(publisher, 0));
+	}
+}
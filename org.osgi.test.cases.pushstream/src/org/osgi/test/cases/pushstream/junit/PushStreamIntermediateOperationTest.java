@@ -18,6 +18,7 @@
 package org.osgi.test.cases.pushstream.junit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -32,8 +33,12 @@ import java.time.Duration;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -50,8 +55,12 @@ import org.osgi.util.promise.Promises;
 import org.osgi.util.promise.TimeoutException;
 import org.osgi.util.pushstream.PushEvent;
 import org.osgi.util.pushstream.PushEvent.EventType;
+import org.osgi.util.pushstream.PushEventConsumer;
+import org.osgi.util.pushstream.PushEventSource;
 import org.osgi.util.pushstream.PushStream;
+import org.osgi.util.pushstream.PushStreamBuilder;
 import org.osgi.util.pushstream.PushStreamProvider;
+import org.osgi.util.pushstream.PushbackPolicy;
 import org.osgi.util.pushstream.PushbackPolicyOption;
 import org.osgi.util.pushstream.QueuePolicyOption;
 
@@ -737,6 +746,111 @@ public class PushStreamIntermediateOperationTest {
 		;
 	}
 
+	/**
+	 * partition sends every event with the same key to the same stream, in
+	 * order
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testIntermediateOperationPartition() throws Exception {
+
+		PushStream<Integer> ps = new PushStreamProvider()
+				.createStream(new ExtGenerator(5));
+
+		PushStream<Integer>[] p = ps.partition(e -> e % 2, 2);
+
+		assertThat(p).hasSize(2);
+
+		Promise<Integer[]> even = p[0].toArray(Integer[]::new);
+		Promise<Integer[]> odd = p[1].toArray(Integer[]::new);
+
+		assertThat(even).resolvesWithin(PROMISE_RESOLVE_DURATION)
+				.hasValueThat(InstanceOfAssertFactories.array(Integer[].class))
+				.containsExactly(0, 2, 4);
+
+		assertThat(odd).resolvesWithin(PROMISE_RESOLVE_DURATION)
+				.hasValueThat(InstanceOfAssertFactories.array(Integer[].class))
+				.containsExactly(1, 3);
+	}
+
+	/**
+	 * partition holds a bounded number of events for a slow stream, blocking
+	 * the producer until there is room
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testIntermediateOperationPartitionBounded() throws Exception {
+
+		AtomicInteger pushed = new AtomicInteger();
+		CountDownLatch connected = new CountDownLatch(1);
+		PushEventSource<Integer> source = pec -> {
+			Thread t = new Thread(() -> {
+				try {
+					// Wait for both partitions to have a consumer
+					connected.await();
+					for (int i = 0; i < 1000; i++) {
+						if (pec.accept(PushEvent.data(i)) < 0) {
+							return;
+						}
+						pushed.incrementAndGet();
+					}
+					pec.accept(PushEvent.close());
+				} catch (Exception e) {
+					// The test fails on the count
+				}
+			});
+			t.start();
+			return () -> {};
+		};
+
+		PushStream<Integer> ps = new PushStreamProvider().buildStream(source)
+				.unbuffered()
+				.build();
+
+		CountDownLatch latch = new CountDownLatch(1);
+		PushStream<Integer>[] p = ps.partition(e -> e % 2, 2);
+
+		Promise<Long> even = p[0].filter(i -> {
+			latch.await();
+			return true;
+		}).count();
+		Promise<Long> odd = p[1].count();
+		connected.countDown();
+
+		Thread.sleep(500);
+
+		// The slow partition holds at most 32 events, plus the one being
+		// delivered, so the producer must be held back
+		assertTrue(pushed.get() < 100, "Pushed " + pushed.get());
+
+		latch.countDown();
+
+		assertThat(even).resolvesWithin(PROMISE_RESOLVE_DURATION)
+				.hasValueThat(InstanceOfAssertFactories.LONG)
+				.isEqualTo(500L);
+		assertThat(odd).resolvesWithin(PROMISE_RESOLVE_DURATION)
+				.hasValueThat(InstanceOfAssertFactories.LONG)
+				.isEqualTo(500L);
+	}
+
+	/**
+	 * partition requires at least one stream
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testIntermediateOperationPartitionNoStreams()
+			throws Exception {
+
+		PushStream<Integer> ps = new PushStreamProvider()
+				.createStream(new ExtGenerator(5));
+
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> ps.partition(e -> e, 0));
+	}
+
 	/**
 	 * 706.3.1.2 : Stateless and Stateful Intermediate Operations
 	 * <p/>
@@ -1409,6 +1523,157 @@ public class PushStreamIntermediateOperationTest {
 		assertThat(gen.maxBackPressure()).isEqualTo(250L);
 	}
 
+	/**
+	 * PushBackPolicyOption - ADAPTIVE
+	 * <p/>
+	 * Measures how quickly events leave the buffer and returns back pressure
+	 * which keeps the time spent in the buffer near the supplied value. The
+	 * back pressure varies smoothly and never exceeds four times that value.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testIntermediateOperationBufferAdaptiveBackPressure()
+			throws Exception {
+
+		ExtGenerator gen = new ExtGenerator(10);
+		PushStreamProvider psp = new PushStreamProvider();
+		PushStream<Integer> ps = psp.buildStream(gen).unbuffered().build();
+
+		Promise<Optional<Integer>> p = ps.buildBuffer()
+				.withBuffer(new ArrayBlockingQueue<>(3))
+				.withPushbackPolicy(PushbackPolicyOption.ADAPTIVE, 100)
+				.withQueuePolicy(QueuePolicyOption.BLOCK)
+				.build()
+				.reduce((t, u) -> {
+					try {
+						Thread.sleep(100);
+					} catch (InterruptedException e) {
+						Thread.interrupted();
+					}
+					return Integer.valueOf(t.intValue() + u.intValue());
+				});
+
+		gen.getExecutionThread().join();
+
+		assertThat(p).resolvesWithin(PROMISE_RESOLVE_DURATION)
+				.hasValueThat(InstanceOfAssertFactories.optional(Integer.class))
+				.contains(45);
+
+		assertThat(gen.maxBackPressure()).isBetween(0L, 400L);
+	}
+
+	/**
+	 * PushBackPolicyOption - ADAPTIVE
+	 * <p/>
+	 * The back pressure increases while events build up in a buffer whose
+	 * consumer is slower than the producer, and decays back to zero once the
+	 * buffer has emptied.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testIntermediateOperationBufferAdaptiveBackPressureFollowsLoad()
+			throws Exception {
+
+		PushbackPolicy<Integer,BlockingQueue<PushEvent< ? extends Integer>>> policy = PushbackPolicyOption.ADAPTIVE
+				.getPolicy(100);
+		BlockingQueue<PushEvent< ? extends Integer>> queue = new ArrayBlockingQueue<>(
+				32);
+
+		// The consumer takes one event for every two that arrive
+		long[] underLoad = new long[40];
+		for (int i = 0; i < underLoad.length; i++) {
+			queue.add(PushEvent.data(i));
+			if (i % 2 == 1) {
+				queue.poll();
+			}
+			Thread.sleep(5);
+			underLoad[i] = policy.pushback(queue);
+		}
+
+		long early = Arrays.stream(underLoad, 0, 10).max().getAsLong();
+		long late = Arrays.stream(underLoad, 30, 40).max().getAsLong();
+		assertTrue(late > early,
+				"The back pressure did not increase: " + early + " " + late);
+		assertTrue(late <= 400, "The back pressure exceeded the cap: " + late);
+
+		// The consumer catches up and the buffer stays empty
+		queue.clear();
+		long[] afterLoad = new long[60];
+		for (int i = 0; i < afterLoad.length; i++) {
+			Thread.sleep(1);
+			afterLoad[i] = policy.pushback(queue);
+		}
+
+		assertTrue(afterLoad[0] < late,
+				"The back pressure did not decay: " + late + " " + afterLoad[0]);
+		assertEquals(0L, afterLoad[afterLoad.length - 1]);
+	}
+
+	/**
+	 * PushBackPolicyOption - ADAPTIVE
+	 * <p/>
+	 * The target time must be greater than zero
+	 */
+	@Test
+	public void testIntermediateOperationBufferAdaptiveBackPressureNoTarget() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> PushbackPolicyOption.ADAPTIVE.getPolicy(0));
+	}
+
+	/**
+	 * PushBackPolicyOption - ADAPTIVE
+	 * <p/>
+	 * Each buffer built from a builder gets its own adaptive policy, so the
+	 * measurements of one buffer do not push back on another.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testIntermediateOperationBufferAdaptiveBackPressurePerBuffer()
+			throws Exception {
+
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch received = new CountDownLatch(1);
+		List<PushEventConsumer< ? super Integer>> sources = new CopyOnWriteArrayList<>();
+		PushEventSource<Integer> source = c -> {
+			sources.add(c);
+			return () -> {};
+		};
+
+		PushStreamProvider psp = new PushStreamProvider();
+		PushStreamBuilder<Integer,BlockingQueue<PushEvent< ? extends Integer>>> builder = psp
+				.buildStream(source);
+		builder.withPushbackPolicy(PushbackPolicyOption.ADAPTIVE, 100);
+
+		try {
+			// The first buffer fills up behind a consumer that takes 20ms
+			builder.build().forEachEvent(e -> {
+				received.countDown();
+				release.await();
+				return 0;
+			});
+			PushEventConsumer< ? super Integer> first = sources.get(0);
+			assertEquals(0L, first.accept(PushEvent.data(0)));
+			assertTrue(received.await(1, TimeUnit.SECONDS));
+			Thread.sleep(20);
+			long backPressure = 0;
+			for (int i = 1; i < 30; i++) {
+				backPressure = first.accept(PushEvent.data(i));
+			}
+			assertTrue(backPressure > 0,
+					"The first buffer was not pushed back");
+
+			// The second buffer is empty, so has no back pressure
+			builder.build().forEachEvent(e -> 0);
+			PushEventConsumer< ? super Integer> second = sources.get(1);
+			assertEquals(0L, second.accept(PushEvent.data(0)));
+		} finally {
+			release.countDown();
+		}
+	}
+
 	/**
 	 * 706.3.1.2 : Stateless and Stateful Intermediate Operations
 	 * <p/>
@@ -21,23 +21,34 @@ import static java.time.Duration.ofSeconds;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.osgi.test.assertj.promise.PromiseAssert.assertThat;
 import static org.osgi.test.cases.pushstream.junit.PushStreamComplianceTest.PROMISE_RESOLVE_DURATION;
+import static org.osgi.util.pushstream.PushbackPolicyOption.FIXED;
 import static org.osgi.util.pushstream.PushbackPolicyOption.LINEAR;
+import static org.osgi.util.pushstream.QueuePolicyOption.BLOCK;
 import static org.osgi.util.pushstream.QueuePolicyOption.FAIL;
 
 import java.io.Closeable;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import org.assertj.core.api.InstanceOfAssertFactories;
 import org.junit.jupiter.api.BeforeEach;
@@ -47,6 +58,8 @@ import org.osgi.util.pushstream.PushEvent;
 import org.osgi.util.pushstream.PushEventConsumer;
 import org.osgi.util.pushstream.PushEventSource;
 import org.osgi.util.pushstream.PushStream;
+import org.osgi.util.pushstream.PushStreamMetrics;
+import org.osgi.util.pushstream.PushStreamMetrics.StageSnapshot;
 import org.osgi.util.pushstream.PushStreamProvider;
 
 public class PushStreamTest {
@@ -634,4 +647,161 @@ public class PushStreamTest {
 		assertTrue(s.tryAcquire(2, 500, MILLISECONDS));
 
 	}
+
+	@Test
+	public void testStreamsShareBoundedWorkerPool() throws Exception {
+		PushStreamProvider shared = new PushStreamProvider(2, false);
+
+		List<Promise<Integer>> sums = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			sums.add(shared.createStream(new Generator())
+					.reduce(0, (a, b) -> a + b));
+		}
+
+		for (Promise<Integer> sum : sums) {
+			assertThat(sum).resolvesWithin(PROMISE_RESOLVE_DURATION)
+					.hasValueThat(InstanceOfAssertFactories.INTEGER)
+					.isEqualTo(45);
+		}
+	}
+
+	@Test
+	public void testSingleThreadWorkerPoolDoesNotDeadlock() throws Exception {
+		PushStreamProvider shared = new PushStreamProvider(1, false);
+
+		// Several workers for each buffer, and full buffers which block the
+		// upstream worker, all running on a single shared thread
+		Promise<Integer> sum = shared.buildStream(new Generator(100))
+				.withParallelism(4)
+				.withBuffer(new ArrayBlockingQueue<>(1))
+				.withQueuePolicy(BLOCK)
+				.withPushbackPolicy(FIXED, 0)
+				.build()
+				.buildBuffer()
+				.withParallelism(4)
+				.withBuffer(new ArrayBlockingQueue<>(1))
+				.withQueuePolicy(BLOCK)
+				.withPushbackPolicy(FIXED, 0)
+				.build()
+				.reduce(0, (a, b) -> a + b);
+
+		assertThat(sum).resolvesWithin(PROMISE_RESOLVE_DURATION)
+				.hasValueThat(InstanceOfAssertFactories.INTEGER)
+				.isEqualTo(4950);
+	}
+
+	@Test
+	public void testNegativeSharedWorkerPoolSize() throws Exception {
+		assertThrows(IllegalArgumentException.class,
+				() -> new PushStreamProvider(-1, false));
+	}
+
+	@Test
+	public void testMetrics() throws Exception {
+		PushStreamMetrics metrics = new PushStreamMetrics();
+
+		Promise<Long> count = impl.buildStream(new Generator())
+				.withMetrics(metrics, "generator")
+				.build()
+				.filter(x -> (x & 1) == 0)
+				.count();
+
+		assertThat(count).resolvesWithin(PROMISE_RESOLVE_DURATION)
+				.hasValueThat(InstanceOfAssertFactories.LONG)
+				.isEqualTo(5L);
+
+		List<StageSnapshot> stages = metrics.snapshot();
+		StageSnapshot first = stages.get(0);
+		assertEquals("generator", first.getName());
+		assertTrue(first.isBuffered());
+		assertEquals(10L, first.getOffers());
+		assertEquals(10L, first.getEvents());
+		assertTrue(stages.stream()
+				.anyMatch(stage -> stage.getEvents() == 5L));
+
+		metrics.removeTerminated();
+		assertTrue(metrics.snapshot().isEmpty());
+	}
+
+	@Test
+	public void testSpillBuffer() throws Exception {
+		Path directory = Files.createTempDirectory("pushstream");
+		try {
+			Promise<List<Integer>> result = impl
+					.buildStream(new Generator(1000))
+					.withBuffer(impl.createSpillBuffer(4, directory, 1 << 20,
+							i -> ByteBuffer.allocate(4).putInt(i).array(),
+							b -> ByteBuffer.wrap(b).getInt()))
+					.withQueuePolicy(FAIL)
+					.withPushbackPolicy(FIXED, 0)
+					.build()
+					.collect(toList());
+
+			assertThat(result).resolvesWithin(PROMISE_RESOLVE_DURATION)
+					.hasValueThat(InstanceOfAssertFactories.LIST)
+					.containsExactlyElementsOf(IntStream.range(0, 1000)
+							.boxed()
+							.collect(toList()));
+		} finally {
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	public void testSpillBufferReusesSegments() throws Exception {
+		Path directory = Files.createTempDirectory("pushstream");
+		try {
+			// Each segment holds eight events, so many segments are read and
+			// then either reused or released
+			Promise<List<Integer>> result = impl
+					.buildStream(new Generator(1000))
+					.withBuffer(impl.createSpillBuffer(4, directory, 64,
+							i -> ByteBuffer.allocate(4).putInt(i).array(),
+							b -> ByteBuffer.wrap(b).getInt()))
+					.withQueuePolicy(BLOCK)
+					.withPushbackPolicy(FIXED, 0)
+					.build()
+					.collect(toList());
+
+			assertThat(result).resolvesWithin(PROMISE_RESOLVE_DURATION)
+					.hasValueThat(InstanceOfAssertFactories.LIST)
+					.containsExactlyElementsOf(IntStream.range(0, 1000)
+							.boxed()
+							.collect(toList()));
+		} finally {
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	public void testSpillBufferClosedEarly() throws Exception {
+		Path directory = Files.createTempDirectory("pushstream");
+		try {
+			Promise<List<Integer>> result = impl
+					.buildStream(new Generator(1000))
+					.withBuffer(impl.createSpillBuffer(4, directory, 1 << 20,
+							i -> ByteBuffer.allocate(4).putInt(i).array(),
+							b -> ByteBuffer.wrap(b).getInt()))
+					.withQueuePolicy(FAIL)
+					.withPushbackPolicy(FIXED, 0)
+					.build()
+					.limit(10)
+					.collect(toList());
+
+			assertThat(result).resolvesWithin(PROMISE_RESOLVE_DURATION)
+					.hasValueThat(InstanceOfAssertFactories.LIST)
+					.containsExactlyElementsOf(IntStream.range(0, 10)
+							.boxed()
+							.collect(toList()));
+		} finally {
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	public void testSpillBufferNeedsMemoryCapacity() throws Exception {
+		assertThrows(IllegalArgumentException.class,
+				() -> impl.createSpillBuffer(0, Paths.get("."), 1024,
+						i -> new byte[0], b -> 0));
+	}
 }
@@ -25,12 +25,19 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
+import org.osgi.util.pushstream.PushEvent;
+import org.osgi.util.pushstream.PushEventConsumer;
 import org.osgi.util.pushstream.PushStreamProvider;
+import org.osgi.util.pushstream.QueuePolicyOption;
 import org.osgi.util.pushstream.SimplePushEventSource;
 
 public class SimplePushEventSourceTest {
@@ -118,4 +125,230 @@ public class SimplePushEventSourceTest {
 		assertTrue(latch.tryAcquire(100, MILLISECONDS));
 	}
 
+	@Test
+	public void testConnectAndDisconnectDuringPublish() throws Exception {
+
+		PushStreamProvider psp = new PushStreamProvider();
+
+		// Block the publisher rather than fail when the queue is full
+		SimplePushEventSource<Integer> spes = psp
+				.buildSimpleEventSource(Integer.class)
+				.withQueuePolicy(QueuePolicyOption.BLOCK)
+				.build();
+
+		List<Integer> received = new CopyOnWriteArrayList<>();
+		Semaphore latch = new Semaphore(0);
+
+		spes.open(pe -> {
+			if (pe.isTerminal()) {
+				latch.release();
+			} else {
+				received.add(pe.getData());
+			}
+			return 0;
+		});
+
+		AtomicBoolean publishing = new AtomicBoolean(true);
+		Thread publisher = new Thread(() -> {
+			try {
+				for (int i = 1; i <= 2000; i++) {
+					spes.publish(Integer.valueOf(i));
+					if (i % 100 == 0) {
+						Thread.sleep(5);
+					}
+				}
+			} catch (Exception e) {
+				spes.error(e);
+			} finally {
+				publishing.set(false);
+				spes.endOfStream();
+			}
+		});
+
+		publisher.start();
+
+		// Consumers come and go while the events are published, with two
+		// of them overlapping so that they are removed from either end
+		List<Recorder> recorders = new ArrayList<>();
+		AutoCloseable previous = null;
+		while (publishing.get()) {
+			Recorder recorder = new Recorder();
+			recorders.add(recorder);
+			AutoCloseable ac = spes.open(recorder);
+			Thread.sleep(1);
+			if (previous != null) {
+				previous.close();
+			}
+			previous = ac;
+			if (recorders.size() % 2 == 0) {
+				Thread.sleep(1);
+				ac.close();
+				previous = null;
+			}
+		}
+		if (previous != null) {
+			previous.close();
+		}
+
+		publisher.join();
+
+		assertTrue(latch.tryAcquire(5, SECONDS));
+
+		// The consumer that stayed connected saw every event in order
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 1; i <= 2000; i++) {
+			expected.add(Integer.valueOf(i));
+		}
+		assertThat(received).containsExactlyElementsOf(expected);
+
+		// Each of the others saw an ordered run of events, then one close
+		for (Recorder recorder : recorders) {
+			assertTrue(recorder.closed.await(5, SECONDS));
+			assertEquals(1, recorder.terminals.get());
+			assertFalse(recorder.dataAfterClose.get());
+			int last = 0;
+			for (Integer i : recorder.received) {
+				assertThat(i.intValue()).isGreaterThan(last);
+				last = i.intValue();
+			}
+		}
+
+		assertFalse(spes.isConnected());
+	}
+
+	@Test
+	public void testCloseWithEventInFlight() throws Exception {
+
+		PushStreamProvider psp = new PushStreamProvider();
+
+		SimplePushEventSource<Integer> spes = psp
+				.createSimpleEventSource(Integer.class);
+
+		CountDownLatch inFlight = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Integer> received = new CopyOnWriteArrayList<>();
+		AtomicInteger terminals = new AtomicInteger();
+		CountDownLatch closed = new CountDownLatch(1);
+
+		spes.open(pe -> {
+			if (pe.isTerminal()) {
+				terminals.incrementAndGet();
+				closed.countDown();
+				return 0;
+			}
+			received.add(pe.getData());
+			inFlight.countDown();
+			release.await();
+			return 0;
+		});
+
+		spes.publish(Integer.valueOf(1));
+		spes.publish(Integer.valueOf(2));
+		spes.publish(Integer.valueOf(3));
+
+		assertTrue(inFlight.await(5, SECONDS));
+
+		// Closing must not wait for the event that is being delivered
+		Thread closer = new Thread(spes::close);
+		closer.start();
+		closer.join(SECONDS.toMillis(5));
+		assertFalse(closer.isAlive());
+
+		assertFalse(spes.isConnected());
+		assertThat(spes.connectPromise()).hasFailed();
+
+		spes.publish(Integer.valueOf(4));
+		release.countDown();
+
+		assertTrue(closed.await(5, SECONDS));
+		Thread.sleep(200);
+
+		// The queued events were discarded when the source closed
+		assertThat(received).containsExactly(1);
+		assertEquals(1, terminals.get());
+	}
+
+	@Test
+	public void testSingleConsumerBackPressure() throws Exception {
+
+		PushStreamProvider psp = new PushStreamProvider();
+
+		SimplePushEventSource<Integer> spes = psp
+				.createSimpleEventSource(Integer.class);
+
+		List<Long> arrivals = new CopyOnWriteArrayList<>();
+		List<Integer> received = new CopyOnWriteArrayList<>();
+		Semaphore latch = new Semaphore(0);
+
+		spes.open(pe -> {
+			if (pe.isTerminal()) {
+				latch.release();
+				return 0;
+			}
+			arrivals.add(Long.valueOf(System.nanoTime()));
+			received.add(pe.getData());
+			// Ask to be closed after the fourth event
+			return pe.getData().intValue() == 4 ? -1 : 100;
+		});
+
+		for (int i = 1; i <= 6; i++) {
+			spes.publish(Integer.valueOf(i));
+		}
+
+		// The lone consumer closes itself with negative back pressure
+		assertTrue(latch.tryAcquire(5, SECONDS));
+		assertThat(received).containsExactly(1, 2, 3, 4);
+		assertFalse(spes.isConnected());
+
+		// Each event waited for the back pressure of the one before it
+		for (int i = 1; i < arrivals.size(); i++) {
+			long gap = arrivals.get(i).longValue()
+					- arrivals.get(i - 1).longValue();
+			assertThat(NANOSECONDS.toMillis(gap)).isGreaterThanOrEqualTo(90L);
+		}
+
+		// The source still delivers to the next consumer, without waiting
+		List<Integer> next = new CopyOnWriteArrayList<>();
+		long start = System.nanoTime();
+		spes.open(pe -> {
+			if (pe.isTerminal()) {
+				latch.release();
+			} else {
+				next.add(pe.getData());
+			}
+			return 0;
+		});
+		for (int i = 7; i <= 9; i++) {
+			spes.publish(Integer.valueOf(i));
+		}
+		spes.endOfStream();
+
+		assertTrue(latch.tryAcquire(5, SECONDS));
+		assertThat(next).containsExactly(7, 8, 9);
+		assertThat(NANOSECONDS.toMillis(System.nanoTime() - start))
+				.isLessThan(1000L);
+	}
+
+	static class Recorder implements PushEventConsumer<Integer> {
+		final List<Integer>		received		= new CopyOnWriteArrayList<>();
+		final AtomicInteger		terminals		= new AtomicInteger();
+		final AtomicBoolean		dataAfterClose	= new AtomicBoolean();
+		final CountDownLatch	closed			= new CountDownLatch(1);
+
+		@Override
+		public long accept(PushEvent< ? extends Integer> event)
+				throws Exception {
+			if (event.isTerminal()) {
+				terminals.incrementAndGet();
+				closed.countDown();
+			} else {
+				if (closed.getCount() == 0) {
+					dataAfterClose.set(true);
+				}
+				received.add(event.getData());
+			}
+			return 0;
+		}
+	}
+
 }
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.util.converter.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.dto.DTO;
+import org.osgi.util.converter.Converter;
+import org.osgi.util.converter.Converters;
+import org.osgi.util.converter.TypeReference;
+
+/**
+ * Conversions of collections, arrays and nested generic types with the
+ * standard converter.
+ *
+ * @author $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CollectionConversionBenchmark {
+	public static class ItemDTO extends DTO {
+		public String	name;
+		public int		quantity;
+	}
+
+	private static final TypeReference<Map<String,List<Integer>>>	MAP_OF_LISTS	= new TypeReference<Map<String,List<Integer>>>() {};
+	private static final TypeReference<List<ItemDTO>>				LIST_OF_DTOS	= new TypeReference<List<ItemDTO>>() {};
+	private static final TypeReference<List<Long>>					LIST_OF_LONGS	= new TypeReference<List<Long>>() {};
+
+	@Param({
+			"10", "1000"
+	})
+	public int											size;
+
+	private Converter									converter;
+	private Map<String,List<String>>					stringLists;
+	private List<Map<String,Object>>					itemMaps;
+	private int[]										ints;
+	private List<String>								strings;
+
+	@Setup
+	public void setup() {
+		converter = Converters.standardConverter();
+
+		stringLists = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			stringLists.put("key" + i, Arrays.asList("1", "2", "3"));
+		}
+
+		itemMaps = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			Map<String,Object> m = new HashMap<>();
+			m.put("name", "item" + i);
+			m.put("quantity", String.valueOf(i));
+			itemMaps.add(m);
+		}
+
+		ints = new int[size];
+		strings = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			ints[i] = i;
+			strings.add(String.valueOf(i));
+		}
+	}
+
+	@Benchmark
+	public Map<String,List<Integer>> nestedGenericMap() {
+		return converter.convert(stringLists).to(MAP_OF_LISTS);
+	}
+
+	@Benchmark
+	public List<ItemDTO> mapsToDTOs() {
+		return converter.convert(itemMaps).to(LIST_OF_DTOS);
+	}
+
+	@Benchmark
+	public int[] stringsToIntArray() {
+		return converter.convert(strings).to(int[].class);
+	}
+
+	@Benchmark
+	public long[] intArrayToLongArray() {
+		return converter.convert(ints).to(long[].class);
+	}
+
+	@Benchmark
+	public List<Long> intArrayToList() {
+		return converter.convert(ints).to(LIST_OF_LONGS);
+	}
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.util.converter.benchmark;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.util.converter.Converter;
+import org.osgi.util.converter.ConverterFunction;
+import org.osgi.util.converter.Converters;
+import org.osgi.util.converter.Rule;
+import org.osgi.util.converter.TypeRule;
+
+/**
+ * Conversions with a custom converter. The converter has rules for a target
+ * type, a catch-all rule and an error handler, so that both conversions
+ * handled by a rule and conversions that fall through to the standard
+ * converter are measured.
+ *
+ * @author $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomRulesBenchmark {
+	public static class Temperature {
+		final double celsius;
+
+		public Temperature(double celsius) {
+			this.celsius = celsius;
+		}
+	}
+
+	private Converter	standard;
+	private Converter	custom;
+	private Temperature	temperature;
+
+	@Setup
+	public void setup() {
+		standard = Converters.standardConverter();
+		custom = standard.newConverterBuilder()
+				.rule(new Rule<Temperature,String>(t -> t.celsius + "C") {})
+				.rule(new TypeRule<String,Temperature>(String.class,
+						Temperature.class, s -> new Temperature(
+								Double.parseDouble(s.substring(0,
+										s.length() - 1)))))
+				.rule(new ConverterFunction() {
+					@Override
+					public Object apply(Object obj, Type targetType) {
+						return ConverterFunction.CANNOT_HANDLE;
+					}
+				})
+				.errorHandler((obj, targetType) -> null)
+				.build();
+		temperature = new Temperature(21.5);
+	}
+
+	@Benchmark
+	public String ruleToString() {
+		return custom.convert(temperature).to(String.class);
+	}
+
+	@Benchmark
+	public Temperature ruleFromString() {
+		return custom.convert("21.5C").to(Temperature.class);
+	}
+
+	@Benchmark
+	public int fallThroughCustom() {
+		return custom.convert("4711").to(int.class);
+	}
+
+	@Benchmark
+	public int fallThroughStandard() {
+		return standard.convert("4711").to(int.class);
+	}
+
+	@Benchmark
+	public Object errorHandler() {
+		return custom.convert("not a number").to(Integer.class);
+	}
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+
+package org.osgi.util.converter.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.dto.DTO;
+import org.osgi.util.converter.Converter;
+import org.osgi.util.converter.Converters;
+
+/**
+ * Map to DTO and Map to JavaBean conversions with the standard converter.
+ * <p>
+ * The converter reads and writes DTO fields and bean properties through
+ * method handles. The {@code field*} benchmarks only time a single field read
+ * through reflection and through a method handle, outside of the converter.
+ *
+ * @author $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DTOConversionBenchmark {
+	public static class MyDTO extends DTO {
+		public String		name;
+		public int			count;
+		public long			id;
+		public boolean		enabled;
+		public List<String>	tags;
+	}
+
+	public static class MyBean {
+		private String	name;
+		private int		count;
+		private long	id;
+		private boolean	enabled;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public void setCount(int count) {
+			this.count = count;
+		}
+
+		public long getId() {
+			return id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+	}
+
+	private Converter			converter;
+	private MyDTO				dto;
+	private MyBean				bean;
+	private Map<String,Object>	dtoMap;
+	private Map<String,Object>	beanMap;
+	private Field				nameField;
+	private MethodHandle		nameGetter;
+
+	@Setup
+	public void setup() throws Exception {
+		converter = Converters.standardConverter();
+
+		dto = new MyDTO();
+		dto.name = "benchmark";
+		dto.count = 42;
+		dto.id = 4711L;
+		dto.enabled = true;
+		dto.tags = Arrays.asList("a", "b", "c");
+
+		bean = new MyBean();
+		bean.setName("benchmark");
+		bean.setCount(42);
+		bean.setId(4711L);
+		bean.setEnabled(true);
+
+		dtoMap = new HashMap<>();
+		dtoMap.put("name", "benchmark");
+		dtoMap.put("count", 42);
+		dtoMap.put("id", 4711L);
+		dtoMap.put("enabled", Boolean.TRUE);
+		dtoMap.put("tags", Arrays.asList("a", "b", "c"));
+
+		beanMap = new HashMap<>(dtoMap);
+		beanMap.remove("tags");
+
+		nameField = MyDTO.class.getField("name");
+		nameGetter = MethodHandles.publicLookup()
+				.unreflectGetter(nameField)
+				.asType(MethodType.methodType(Object.class, Object.class));
+	}
+
+	@Benchmark
+	public Map< ? , ? > dtoToMap() {
+		return converter.convert(dto).to(Map.class);
+	}
+
+	@Benchmark
+	public MyDTO mapToDTO() {
+		return converter.convert(dtoMap).to(MyDTO.class);
+	}
+
+	@Benchmark
+	public Map< ? , ? > beanToMap() {
+		return converter.convert(bean).sourceAsBean().to(Map.class);
+	}
+
+	@Benchmark
+	public MyBean mapToBean() {
+		return converter.convert(beanMap).targetAsBean().to(MyBean.class);
+	}
+
+	@Benchmark
+	public Object fieldReadReflection() throws Exception {
+		return nameField.get(dto);
+	}
+
+	@Benchmark
+	public Object fieldReadMethodHandle() throws Throwable {
+		return (Object) nameGetter.invokeExact((Object) dto);
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.util.converter.benchmark;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.util.converter.Converter;
+import org.osgi.util.converter.Converters;
+
+/**
+ * Map to interface and Map to annotation conversions with the standard
+ * converter, and back.
+ * <p>
+ * The {@code *Call} benchmarks create the proxy and call each of its methods
+ * once, as configuration code typically does. The {@code proxyCall}
+ * benchmark only measures the method calls on an existing proxy.
+ *
+ * @author $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyConversionBenchmark {
+	public interface MyConfig {
+		String name();
+
+		int port();
+
+		long timeout();
+
+		boolean enabled();
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface MyAnnotation {
+		String name() default "default";
+
+		int port() default 8080;
+
+		long timeout() default 1000L;
+
+		boolean enabled() default false;
+	}
+
+	private Converter			converter;
+	private Map<String,Object>	map;
+	private MyConfig			config;
+	private MyAnnotation		annotation;
+
+	@Setup
+	public void setup() {
+		converter = Converters.standardConverter();
+
+		map = new HashMap<>();
+		map.put("name", "benchmark");
+		map.put("port", "8181");
+		map.put("timeout", 30000L);
+		map.put("enabled", Boolean.TRUE);
+
+		config = converter.convert(map).to(MyConfig.class);
+		annotation = converter.convert(map).to(MyAnnotation.class);
+	}
+
+	@Benchmark
+	public MyConfig mapToInterface() {
+		return converter.convert(map).to(MyConfig.class);
+	}
+
+	@Benchmark
+	public long mapToInterfaceCall() {
+		MyConfig c = converter.convert(map).to(MyConfig.class);
+		return c.name().length() + c.port() + c.timeout()
+				+ (c.enabled() ? 1 : 0);
+	}
+
+	@Benchmark
+	public long mapToAnnotationCall() {
+		MyAnnotation a = converter.convert(map).to(MyAnnotation.class);
+		return a.name().length() + a.port() + a.timeout()
+				+ (a.enabled() ? 1 : 0);
+	}
+
+	@Benchmark
+	public long proxyCall() {
+		return config.name().length() + config.port() + config.timeout()
+				+ (config.enabled() ? 1 : 0);
+	}
+
+	@Benchmark
+	public Map< ? , ? > interfaceToMap() {
+		return converter.convert(config)
+				.sourceAs(MyConfig.class)
+				.to(Map.class);
+	}
+
+	@Benchmark
+	public Map< ? , ? > annotationToMap() {
+		return converter.convert(annotation)
+				.sourceAs(MyAnnotation.class)
+				.to(Map.class);
+	}
+}
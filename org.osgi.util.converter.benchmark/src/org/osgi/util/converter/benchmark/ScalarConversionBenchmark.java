@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.util.converter.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.util.converter.Converter;
+import org.osgi.util.converter.Converters;
+import org.osgi.util.function.Function;
+
+/**
+ * Scalar conversions with the standard converter, both through
+ * {@link Converter#convert(Object)} and through a reusable
+ * {@link Converter#function()}.
+ *
+ * @author $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScalarConversionBenchmark {
+	public enum Level {
+		LOW, MEDIUM, HIGH
+	}
+
+	private Converter					converter;
+	private Function<Object,Integer>	toInt;
+	private String						intString;
+	private String						longString;
+	private String						booleanString;
+	private String						enumString;
+	private Integer						intValue;
+	private Long						longValue;
+
+	@Setup
+	public void setup() {
+		converter = Converters.standardConverter();
+		toInt = converter.function().to(Integer.class);
+
+		intString = "4711";
+		longString = "9876543210";
+		booleanString = "true";
+		enumString = "MEDIUM";
+		intValue = Integer.valueOf(4711);
+		longValue = Long.valueOf(9876543210L);
+	}
+
+	@Benchmark
+	public int stringToInt() {
+		return converter.convert(intString).to(int.class);
+	}
+
+	@Benchmark
+	public Integer stringToIntFunction() throws Exception {
+		return toInt.apply(intString);
+	}
+
+	@Benchmark
+	public long stringToLong() {
+		return converter.convert(longString).to(long.class);
+	}
+
+	@Benchmark
+	public boolean stringToBoolean() {
+		return converter.convert(booleanString).to(boolean.class);
+	}
+
+	@Benchmark
+	public Level stringToEnum() {
+		return converter.convert(enumString).to(Level.class);
+	}
+
+	@Benchmark
+	public String intToString() {
+		return converter.convert(intValue).to(String.class);
+	}
+
+	@Benchmark
+	public double longToDouble() {
+		return converter.convert(longValue).to(double.class);
+	}
+}
@@ -0,0 +1,551 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+
+package org.osgi.util.converter;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * The reflection metadata for a class, computed once and then shared by every
+ * conversion involving the class.
+ * <p>
+ * Each value is computed lazily the first time that it is needed. Values are
+ * immutable, so if two threads race to compute a value then it does not
+ * matter which result is kept. The metadata is held in a {@link ClassValue}
+ * and so does not prevent the class from being unloaded.
+ * <p>
+ * Fields and Java Bean methods are accessed through {@link MethodHandle}s
+ * rather than reflection so that the JIT can inline them. Reflection is still
+ * used for members which the public lookup cannot access.
+ *
+ * @author $Id$
+ */
+final class ClassMetadata {
+	private static final ClassValue<ClassMetadata> METADATA = new ClassValue<ClassMetadata>() {
+		@Override
+		protected ClassMetadata computeValue(Class< ? > type) {
+			return new ClassMetadata(type);
+		}
+	};
+
+	static ClassMetadata forClass(Class< ? > cls) {
+		return METADATA.get(cls);
+	}
+
+	private final Class< ? >						cls;
+
+	private volatile String							prefix;
+	private volatile Boolean						dtoType;
+	private volatile Boolean						lenientDTOType;
+	private volatile Map<String,Field>				dtoKeys;
+	private volatile List<FieldAccessor>			dtoFields;
+	private volatile Map<String,FieldAccessor>		dtoAccessors;
+	private volatile List<String>					fieldNames;
+	private volatile Field[]						fields;
+	private volatile Map<String,FieldAccessor>		publicFields;
+	private volatile Map<String,Method>				beanKeys;
+	private volatile List<MethodAccessor>			beanAccessors;
+	private volatile Map<String,MethodAccessor>		beanKeyAccessors;
+	private volatile List<MethodAccessor>			setters;
+	private volatile Method[]						methods;
+	private volatile Set<Class< ? >>				interfaces;
+	private volatile Boolean						markerAnnotation;
+	private volatile Object							annotationTypeMethod;
+	private volatile String							singleElementAnnotationKey;
+	private volatile Map<String,Set<Method>>		interfaceKeys;
+	private volatile Object							proxyProperties;
+
+	private static final Object						NONE	= new Object();
+
+	private static final MethodHandles.Lookup		LOOKUP	= MethodHandles
+			.publicLookup();
+	private static final MethodType					GETTER	= MethodType
+			.methodType(Object.class, Object.class);
+	private static final MethodType					SETTER	= MethodType
+			.methodType(void.class, Object.class, Object.class);
+
+	private ClassMetadata(Class< ? > cls) {
+		this.cls = cls;
+	}
+
+	/**
+	 * @see Util#getPrefix(Class)
+	 */
+	String prefix() {
+		String p = prefix;
+		if (p == null) {
+			prefix = p = Util.computePrefix(cls);
+		}
+		return p;
+	}
+
+	/**
+	 * @see DTOUtil#isDTOType(Class, boolean)
+	 */
+	boolean isDTOType(boolean ignorePublicNoArgsCtor) {
+		Boolean b = ignorePublicNoArgsCtor ? lenientDTOType : dtoType;
+		if (b == null) {
+			b = Boolean.valueOf(
+					DTOUtil.computeDTOType(cls, ignorePublicNoArgsCtor));
+			if (ignorePublicNoArgsCtor) {
+				lenientDTOType = b;
+			} else {
+				dtoType = b;
+			}
+		}
+		return b.booleanValue();
+	}
+
+	/**
+	 * @see Util#getDTOKeys(Class)
+	 */
+	Map<String,Field> dtoKeys() {
+		Map<String,Field> m = dtoKeys;
+		if (m == null) {
+			m = new LinkedHashMap<>();
+			for (FieldAccessor accessor : dtoFields()) {
+				if (!m.containsKey(accessor.key))
+					m.put(accessor.key, accessor.field);
+			}
+			dtoKeys = m = Collections.unmodifiableMap(m);
+		}
+		return m;
+	}
+
+	/**
+	 * @return the accessor of the field for each key of {@link #dtoKeys()}, in
+	 *         the same order
+	 */
+	Map<String,FieldAccessor> dtoAccessors() {
+		Map<String,FieldAccessor> m = dtoAccessors;
+		if (m == null) {
+			m = new LinkedHashMap<>();
+			for (FieldAccessor accessor : dtoFields()) {
+				if (!m.containsKey(accessor.key))
+					m.put(accessor.key, accessor);
+			}
+			dtoAccessors = m = Collections.unmodifiableMap(m);
+		}
+		return m;
+	}
+
+	/**
+	 * @return every public instance field with its key, in the order returned
+	 *         by {@link Class#getFields()}, including fields which are hidden
+	 *         by a field with the same key
+	 */
+	List<FieldAccessor> dtoFields() {
+		List<FieldAccessor> l = dtoFields;
+		if (l == null) {
+			l = new ArrayList<>();
+			for (Field f : fields()) {
+				String key = Util.getDTOKey(f);
+				if (key != null)
+					l.add(new FieldAccessor(key, f));
+			}
+			dtoFields = l = Collections.unmodifiableList(l);
+		}
+		return l;
+	}
+
+	/**
+	 * @return the distinct names of the public instance fields
+	 */
+	List<String> fieldNames() {
+		List<String> l = fieldNames;
+		if (l == null) {
+			l = new ArrayList<>();
+			for (FieldAccessor accessor : dtoFields()) {
+				String name = accessor.field.getName();
+				if (!l.contains(name))
+					l.add(name);
+			}
+			fieldNames = l = Collections.unmodifiableList(l);
+		}
+		return l;
+	}
+
+	/**
+	 * @return the result of {@link Class#getFields()}, which must not be
+	 *         modified
+	 */
+	Field[] fields() {
+		Field[] f = fields;
+		if (f == null) {
+			fields = f = cls.getFields();
+		}
+		return f;
+	}
+
+	/**
+	 * @return the public field with the given name, as found by
+	 *         {@link Class#getField(String)}, or {@code null}
+	 */
+	FieldAccessor publicField(String name) {
+		Map<String,FieldAccessor> m = publicFields;
+		if (m == null) {
+			m = new HashMap<>();
+			for (Field f : fields()) {
+				if (!m.containsKey(f.getName())) {
+					try {
+						m.put(f.getName(), new FieldAccessor(f.getName(),
+								cls.getField(f.getName())));
+					} catch (NoSuchFieldException e) {
+						// Cannot happen, the field is public
+					}
+				}
+			}
+			publicFields = m;
+		}
+		return m.get(name);
+	}
+
+	/**
+	 * @see Util#getBeanKeys(Class)
+	 */
+	Map<String,Method> beanKeys() {
+		Map<String,Method> m = beanKeys;
+		if (m == null) {
+			m = new LinkedHashMap<>();
+			for (MethodAccessor accessor : beanAccessors()) {
+				if (!m.containsKey(accessor.key))
+					m.put(accessor.key, accessor.method);
+			}
+			beanKeys = m = Collections.unmodifiableMap(m);
+		}
+		return m;
+	}
+
+	/**
+	 * @return the accessor for each key of {@link #beanKeys()}, in the same
+	 *         order
+	 */
+	Map<String,MethodAccessor> beanKeyAccessors() {
+		Map<String,MethodAccessor> m = beanKeyAccessors;
+		if (m == null) {
+			m = new LinkedHashMap<>();
+			for (MethodAccessor accessor : beanAccessors()) {
+				if (!m.containsKey(accessor.key))
+					m.put(accessor.key, accessor);
+			}
+			beanKeyAccessors = m = Collections.unmodifiableMap(m);
+		}
+		return m;
+	}
+
+	/**
+	 * @return every public bean accessor with its key, in the order returned
+	 *         by {@link Class#getMethods()}
+	 */
+	List<MethodAccessor> beanAccessors() {
+		List<MethodAccessor> l = beanAccessors;
+		if (l == null) {
+			l = new ArrayList<>();
+			for (Method md : methods()) {
+				String key = Util.getBeanKey(md);
+				if (key != null)
+					l.add(new MethodAccessor(key, md, GETTER));
+			}
+			beanAccessors = l = Collections.unmodifiableList(l);
+		}
+		return l;
+	}
+
+	/**
+	 * @return the public Java Bean setters of this class and its super classes,
+	 *         each with the map key of its property
+	 */
+	List<MethodAccessor> setters() {
+		List<MethodAccessor> l = setters;
+		if (l == null) {
+			l = new ArrayList<>();
+			for (Method setter : ConvertingImpl.computeSetters(cls)) {
+				String setterName = setter.getName();
+				String propName = Character.toLowerCase(setterName.charAt(3))
+						+ setterName.substring(4);
+				l.add(new MethodAccessor(Util.unMangleName(prefix(), propName),
+						setter, SETTER));
+			}
+			setters = l = Collections.unmodifiableList(l);
+		}
+		return l;
+	}
+
+	/**
+	 * @return the result of {@link Class#getMethods()}, which must not be
+	 *         modified
+	 */
+	Method[] methods() {
+		Method[] m = methods;
+		if (m == null) {
+			methods = m = cls.getMethods();
+		}
+		return m;
+	}
+
+	/**
+	 * @return the interfaces which can be used as a map view of this class
+	 */
+	Set<Class< ? >> interfaces() {
+		Set<Class< ? >> s = interfaces;
+		if (s == null) {
+			interfaces = s = Collections.unmodifiableSet(
+					ConvertingImpl.computeInterfaces(cls));
+		}
+		return s;
+	}
+
+	/**
+	 * @return {@code true} if this annotation type has no elements
+	 */
+	boolean isMarkerAnnotation() {
+		Boolean b = markerAnnotation;
+		if (b == null) {
+			boolean marker = true;
+			for (Method m : methods()) {
+				if (m.getDeclaringClass() == cls) {
+					marker = false;
+					break;
+				}
+			}
+			markerAnnotation = b = Boolean.valueOf(marker);
+		}
+		return b.booleanValue();
+	}
+
+	/**
+	 * @return the public {@code annotationType()} method of this class, or
+	 *         {@code null}
+	 */
+	Method annotationTypeMethod() {
+		Object m = annotationTypeMethod;
+		if (m == null) {
+			try {
+				m = cls.getMethod("annotationType");
+			} catch (NoSuchMethodException e) {
+				m = NONE;
+			}
+			annotationTypeMethod = m;
+		}
+		return m == NONE ? null : (Method) m;
+	}
+
+	/**
+	 * @return the single element annotation key of this annotation type, or
+	 *         an empty string if it is not a single element annotation
+	 */
+	String singleElementAnnotationKey() {
+		String k = singleElementAnnotationKey;
+		if (k == null) {
+			k = Util.computeSingleElementAnnotationKey(cls);
+			singleElementAnnotationKey = k = k == null ? "" : k;
+		}
+		return k;
+	}
+
+	/**
+	 * @return the interface keys of this interface when implemented by an
+	 *         object of the expected annotation type, or {@code null} if the
+	 *         keys depend on the object
+	 */
+	Map<String,Set<Method>> interfaceKeys(Object object) {
+		Map<String,Set<Method>> m = interfaceKeys;
+		if (m == null) {
+			if (!isObjectIndependent(object)) {
+				return null;
+			}
+			m = Util.computeInterfaceKeys(cls, object);
+			for (Entry<String,Set<Method>> entry : m.entrySet()) {
+				entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+			}
+			interfaceKeys = m = Collections.unmodifiableMap(m);
+		} else if (!isObjectIndependent(object)) {
+			return null;
+		}
+		return m;
+	}
+
+	/**
+	 * @return the property name read by each method of this interface when it
+	 *         is implemented by a proxy created by the converter, or
+	 *         {@code null} if the names have to be computed for each call. The
+	 *         name is {@code null} for methods which are not accessors.
+	 */
+	Map<Method,String> proxyProperties() {
+		Object p = proxyProperties;
+		if (p == null) {
+			if (annotationTypeMethod() != null && !cls.isAnnotation()) {
+				// The property names depend on the annotationType() method
+				p = NONE;
+			} else {
+				String seak = cls.isAnnotation() ? singleElementAnnotationKey()
+						: "";
+				Map<Method,String> m = new HashMap<>();
+				for (Method md : methods()) {
+					m.put(md, Util.getInterfacePropertyName(md,
+							seak.isEmpty() ? null : seak, null));
+				}
+				p = Collections.unmodifiableMap(m);
+			}
+			proxyProperties = p;
+		}
+		@SuppressWarnings("unchecked")
+		Map<Method,String> result = p == NONE ? null : (Map<Method,String>) p;
+		return result;
+	}
+
+	/**
+	 * The interface keys only depend on the object through the
+	 * {@code annotationType()} method. Annotations return their own type, and
+	 * other interfaces normally don't have the method at all.
+	 */
+	private boolean isObjectIndependent(Object object) {
+		Method md = annotationTypeMethod();
+		if (md == null) {
+			return true;
+		}
+		if (!cls.isAnnotation()) {
+			return false;
+		}
+		return object instanceof Annotation
+				&& ((Annotation) object).annotationType() == cls;
+	}
+
+	/**
+	 * A public field and its map key. The field is read and written through
+	 * method handles when they are available.
+	 */
+	static final class FieldAccessor {
+		final String				key;
+		final Field					field;
+		private final MethodHandle	getter;
+		private final MethodHandle	setter;
+
+		FieldAccessor(String key, Field field) {
+			this.key = key;
+			this.field = field;
+			MethodHandle g = null;
+			MethodHandle s = null;
+			int modifiers = field.getModifiers();
+			if (!Modifier.isStatic(modifiers)) {
+				try {
+					g = LOOKUP.unreflectGetter(field).asType(GETTER);
+					if (!Modifier.isFinal(modifiers))
+						s = LOOKUP.unreflectSetter(field).asType(SETTER);
+				} catch (IllegalAccessException e) {
+					// Fall back to reflection
+				}
+			}
+			this.getter = g;
+			this.setter = s;
+		}
+
+		Object get(Object obj) throws Exception {
+			if (getter == null)
+				return field.get(obj);
+			try {
+				return (Object) getter.invokeExact(obj);
+			} catch (Exception | Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new InvocationTargetException(t);
+			}
+		}
+
+		void set(Object obj, Object value) throws Exception {
+			if (setter == null) {
+				field.set(obj, value);
+				return;
+			}
+			try {
+				setter.invokeExact(obj, value);
+			} catch (ClassCastException e) {
+				// Reflection also applies widening primitive conversions
+				field.set(obj, value);
+			} catch (Exception | Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new InvocationTargetException(t);
+			}
+		}
+	}
+
+	/**
+	 * A public Java Bean accessor or setter and its map key. The method is
+	 * invoked through a method handle when one is available. As with
+	 * reflection, anything thrown by the method is wrapped in an
+	 * {@link InvocationTargetException}.
+	 */
+	static final class MethodAccessor {
+		final String				key;
+		final Method				method;
+		private final MethodHandle	handle;
+
+		MethodAccessor(String key, Method method, MethodType type) {
+			this.key = key;
+			this.method = method;
+			MethodHandle h = null;
+			if (!Modifier.isStatic(method.getModifiers())) {
+				try {
+					h = LOOKUP.unreflect(method).asType(type);
+				} catch (IllegalAccessException | WrongMethodTypeException e) {
+					// Fall back to reflection
+				}
+			}
+			this.handle = h;
+		}
+
+		Object invoke(Object obj) throws Exception {
+			if (handle == null)
+				return method.invoke(obj);
+			try {
+				return (Object) handle.invokeExact(obj);
+			} catch (Throwable t) {
+				throw new InvocationTargetException(t);
+			}
+		}
+
+		void invoke(Object obj, Object arg) throws Exception {
+			if (handle == null) {
+				method.invoke(obj, arg);
+				return;
+			}
+			try {
+				handle.invokeExact(obj, arg);
+			} catch (Throwable t) {
+				throw new InvocationTargetException(t);
+			}
+		}
+	}
+}
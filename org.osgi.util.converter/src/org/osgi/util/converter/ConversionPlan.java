@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0 
+ *******************************************************************************/
+
+package org.osgi.util.converter;
+
+/**
+ * A conversion of objects of one class to one target type, with the
+ * conversion strategy resolved in advance. Plans are created by
+ * {@link InternalConverter#compile(Class, java.lang.reflect.Type, FunctioningImpl)}
+ * and are used by the functions returned from {@link Functioning}.
+ *
+ * @author $Id$
+ */
+abstract class ConversionPlan {
+	/**
+	 * The exact class of the objects that this plan can convert.
+	 */
+	final Class< ? > sourceClass;
+
+	ConversionPlan(Class< ? > sourceClass) {
+		this.sourceClass = sourceClass;
+	}
+
+	/**
+	 * Convert an object using this plan.
+	 *
+	 * @param obj The object to convert, which must be an instance of exactly
+	 *            {@link #sourceClass}.
+	 * @param converter The top-level converter, to be used for embedded
+	 *            conversions.
+	 * @return The converted object.
+	 */
+	abstract Object convert(Object obj, InternalConverter converter);
+}
@@ -19,6 +19,7 @@
 package org.osgi.util.converter;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -50,6 +51,17 @@ class ConverterImpl implements InternalConverter {
 		return new ConvertingImpl(this, obj);
 	}
 
+	@Override
+	public ConversionPlan compile(Class< ? > sourceCls, Type type,
+			FunctioningImpl modifiers) {
+		return ConvertingImpl.compile(this, sourceCls, type, modifiers);
+	}
+
+	@Override
+	public boolean hasRules(Class< ? > sourceCls, Type type) {
+		return false;
+	}
+
 	@Override
 	public Functioning function() {
 		return new FunctioningImpl(this);
@@ -63,6 +63,9 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 
+import org.osgi.util.converter.ClassMetadata.FieldAccessor;
+import org.osgi.util.converter.ClassMetadata.MethodAccessor;
+
 /**
  * @author $Id$
  */
@@ -146,8 +149,29 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T> T to(Type type, InternalConverter converter) {
-		// Wildcard types are strange - we immediately resolve them to something
-		// that we can actually use.
+		type = resolveWildcard(type);
+		Class< ? > cls = rawClass(type);
+		targetType = type;
+		if (cls == null)
+			return null;
+
+		if (object == null)
+			return (T) handleNull(cls, converter);
+
+		targetClass = Util.primitiveToBoxed(cls);
+		if (targetAsClass == null)
+			targetAsClass = targetClass;
+
+		sourceClass = sourceAsClass != null ? sourceAsClass : object.getClass();
+
+		return convert(route(type, object.getClass()), true, converter);
+	}
+
+	/**
+	 * Wildcard types are strange - we immediately resolve them to something
+	 * that we can actually use.
+	 */
+	private static Type resolveWildcard(Type type) {
 		if (type instanceof WildcardType) {
 			WildcardType wt = (WildcardType) type;
 			Type[] lowerBounds = wt.getLowerBounds();
@@ -160,7 +184,16 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 				type = wt.getUpperBounds()[0];
 			}
 		}
+		return type;
+	}
 
+	/**
+	 * Find the class to convert to, and record the type arguments of a
+	 * parameterized type.
+	 *
+	 * @return the raw class of the type, or {@code null}
+	 */
+	private Class< ? > rawClass(Type type) {
 		Class< ? > cls = null;
 		if (type instanceof Class) {
 			cls = (Class< ? >) type;
@@ -183,51 +216,108 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 			}
 
 		}
-		targetType = type;
-		if (cls == null)
-			return null;
-
-		if (object == null)
-			return (T) handleNull(cls, converter);
-
-		targetClass = Util.primitiveToBoxed(cls);
-		if (targetAsClass == null)
-			targetAsClass = targetClass;
+		return cls;
+	}
 
-		sourceClass = sourceAsClass != null ? sourceAsClass : object.getClass();
+	/**
+	 * The ways in which an object can be converted. The route only depends on
+	 * the classes involved, not on the object itself.
+	 */
+	private enum Route {
+		IDENTITY,
+		ARRAY,
+		GENERIC_ARRAY,
+		COLLECTION,
+		MAP_TYPE,
+		FROM_COLLECTION,
+		FROM_MAP,
+		FROM_MAP_ENTRY,
+		FROM_ARRAY,
+		STANDARD_METHODS
+	}
 
+	private Route route(Type type, Class< ? > objectClass) {
 		if (!isCopyRequiredType(targetAsClass)
 				&& targetAsClass.isAssignableFrom(sourceClass)) {
-			return (T) object;
+			return Route.IDENTITY;
 		}
 
-		Object res = trySpecialCases(converter);
-		if (res != null)
-			return (T) res;
-
 		if (targetAsClass.isArray()) {
-			return convertToArray(targetAsClass.getComponentType(),
-					targetAsClass.getComponentType(), converter);
+			return Route.ARRAY;
 		} else if (type instanceof GenericArrayType) {
-			return convertToArray(targetAsClass,
-					((GenericArrayType) type).getGenericComponentType(),
-					converter);
+			return Route.GENERIC_ARRAY;
 		} else if (Collection.class.isAssignableFrom(targetAsClass)) {
-			return convertToCollectionType(converter);
+			return Route.COLLECTION;
 		} else if (isMapType(targetAsClass, targetAsJavaBean, targetAsDTO)) {
-			return (T) convertToMapType(converter);
+			return Route.MAP_TYPE;
 		}
 
 		// At this point we know that the target is a 'singular' type: not a
 		// map, collection or array
 		if (Collection.class.isAssignableFrom(sourceClass)) {
-			return (T) convertCollectionToSingleValue(targetAsClass, converter);
+			return Route.FROM_COLLECTION;
 		} else if (isMapType(sourceClass, sourceAsJavaBean, sourceAsDTO)) {
-			return (T) convertMapToSingleValue(targetAsClass, converter);
-		} else if (object instanceof Map.Entry) {
-			return (T) convertMapEntryToSingleValue(targetAsClass, converter);
-		} else if ((object = asBoxedArray(object)) instanceof Object[]) {
-			return (T) convertArrayToSingleValue(targetAsClass, converter);
+			return Route.FROM_MAP;
+		} else if (Map.Entry.class.isAssignableFrom(objectClass)) {
+			return Route.FROM_MAP_ENTRY;
+		} else if (objectClass.isArray()) {
+			return Route.FROM_ARRAY;
+		}
+		return Route.STANDARD_METHODS;
+	}
+
+	/**
+	 * @return whether {@link #trySpecialCases(InternalConverter)} may handle
+	 *         the conversion
+	 */
+	private boolean hasSpecialCases() {
+		return Boolean.class.equals(targetAsClass)
+				|| Number.class.isAssignableFrom(targetAsClass)
+				|| targetAsClass.isEnum()
+				|| (Annotation.class.isAssignableFrom(sourceClass)
+						&& isMarkerAnnotation(sourceClass))
+				|| (Annotation.class.isAssignableFrom(targetAsClass)
+						&& isMarkerAnnotation(targetAsClass));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T convert(Route route, boolean specialCases,
+			InternalConverter converter) {
+		if (route == Route.IDENTITY)
+			return (T) object;
+
+		if (specialCases) {
+			Object res = trySpecialCases(converter);
+			if (res != null)
+				return (T) res;
+		}
+
+		switch (route) {
+			case ARRAY :
+				return convertToArray(targetAsClass.getComponentType(),
+						targetAsClass.getComponentType(), converter);
+			case GENERIC_ARRAY :
+				return convertToArray(targetAsClass,
+						((GenericArrayType) targetType)
+								.getGenericComponentType(),
+						converter);
+			case COLLECTION :
+				return convertToCollectionType(converter);
+			case MAP_TYPE :
+				return (T) convertToMapType(converter);
+			case FROM_COLLECTION :
+				return (T) convertCollectionToSingleValue(targetAsClass,
+						converter);
+			case FROM_MAP :
+				return (T) convertMapToSingleValue(targetAsClass, converter);
+			case FROM_MAP_ENTRY :
+				return (T) convertMapEntryToSingleValue(targetAsClass,
+						converter);
+			case FROM_ARRAY :
+				object = asBoxedArray(object);
+				return (T) convertArrayToSingleValue(targetAsClass, converter);
+			default :
+				break;
 		}
 
 		Object res2 = tryStandardMethods();
@@ -245,6 +335,83 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 		}
 	}
 
+	/**
+	 * Compile the conversion of objects of exactly the given class to the
+	 * given type, with the modifiers of a {@link Functioning}.
+	 *
+	 * @return the plan, or {@code null} if the conversion cannot be planned
+	 */
+	static ConversionPlan compile(InternalConverter converter,
+			Class< ? > objectClass, Type type, FunctioningImpl modifiers) {
+		ConvertingImpl c = new ConvertingImpl(converter, null);
+		modifiers.applyModifiers(c);
+
+		Type resolved;
+		try {
+			resolved = resolveWildcard(type);
+		} catch (ConversionException e) {
+			return null;
+		}
+		Class< ? > cls = c.rawClass(resolved);
+		if (cls == null)
+			return null;
+
+		c.targetType = resolved;
+		c.targetClass = Util.primitiveToBoxed(cls);
+		if (c.targetAsClass == null)
+			c.targetAsClass = c.targetClass;
+		c.sourceClass = c.sourceAsClass != null ? c.sourceAsClass
+				: objectClass;
+
+		Route route = c.route(resolved, objectClass);
+		return new Plan(objectClass, converter, modifiers, c, route,
+				route != Route.IDENTITY && c.hasSpecialCases());
+	}
+
+	/**
+	 * A conversion with the target type resolved and the route chosen. Each
+	 * conversion still uses its own {@link ConvertingImpl}, because the
+	 * conversion state is shared with any views that it creates.
+	 */
+	private static final class Plan extends ConversionPlan {
+		private final InternalConverter	initialConverter;
+		private final FunctioningImpl	modifiers;
+		private final Type				targetType;
+		private final Type[]			typeArguments;
+		private final Class< ? >		targetClass;
+		private final Class< ? >		targetAsClass;
+		private final Class< ? >		sourceAs;
+		private final Route				route;
+		private final boolean			specialCases;
+
+		Plan(Class< ? > objectClass, InternalConverter converter,
+				FunctioningImpl modifiers, ConvertingImpl planned, Route route,
+				boolean specialCases) {
+			super(objectClass);
+			this.initialConverter = converter;
+			this.modifiers = modifiers;
+			this.targetType = planned.targetType;
+			this.typeArguments = planned.typeArguments;
+			this.targetClass = planned.targetClass;
+			this.targetAsClass = planned.targetAsClass;
+			this.sourceAs = planned.sourceClass;
+			this.route = route;
+			this.specialCases = specialCases;
+		}
+
+		@Override
+		Object convert(Object obj, InternalConverter converter) {
+			ConvertingImpl c = new ConvertingImpl(initialConverter, obj);
+			modifiers.applyModifiers(c);
+			c.targetType = targetType;
+			c.typeArguments = typeArguments;
+			c.targetClass = targetClass;
+			c.targetAsClass = targetAsClass;
+			c.sourceClass = sourceAs;
+			return c.convert(route, specialCases, converter);
+		}
+	}
+
 	private Object convertArrayToSingleValue(Class< ? > cls,
 			InternalConverter converter) {
 		Object[] arr = (Object[]) object;
@@ -305,6 +472,14 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 	@SuppressWarnings("unchecked")
 	private <T> T convertToArray(Class< ? > componentClz, Type componentType,
 			InternalConverter converter) {
+		Class< ? > primitive = PrimitiveArrays.componentType(object);
+		if (primitive != null && componentType instanceof Class
+				&& PrimitiveArrays.canConvert(primitive, componentClz)
+				&& !converter.hasRules(Util.primitiveToBoxed(primitive),
+						componentType)) {
+			return (T) PrimitiveArrays.toArray(object, componentClz);
+		}
+
 		Collection< ? > collectionView = collectionView(converter);
 		Iterator< ? > iterator = collectionView.iterator();
 		try {
@@ -362,7 +537,6 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 			"rawtypes", "unchecked"
 	})
 	private <T> T convertToCollection(InternalConverter converter) {
-		Collection< ? > cv = collectionView(converter);
 		Class< ? > targetElementType = null;
 		if (typeArguments != null && typeArguments.length > 0
 				&& typeArguments[0] instanceof Class) {
@@ -376,6 +550,24 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 		else
 			targetCls = targetAsClass;
 
+		Class< ? > primitive = PrimitiveArrays.componentType(object);
+		if (primitive != null && (targetElementType == null
+				|| (!targetElementType.isPrimitive()
+						&& PrimitiveArrays.canConvert(primitive,
+								targetElementType)
+						&& !converter.hasRules(
+								Util.primitiveToBoxed(primitive),
+								targetElementType)))) {
+			Collection instance = (Collection) createMapOrCollection(
+					targetCls, Array.getLength(object));
+			if (instance == null)
+				return null;
+
+			PrimitiveArrays.addAll(object, targetElementType, instance);
+			return (T) instance;
+		}
+
+		Collection< ? > cv = collectionView(converter);
 		Collection instance = (Collection) createMapOrCollection(targetCls,
 				cv.size());
 		if (instance == null)
@@ -410,7 +602,9 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 
 			T dto = (T) targetClass.newInstance();
 
-			List<String> names = getNames(targetAsClass);
+			ClassMetadata metadata = ClassMetadata.forClass(targetAsCls);
+			List<String> names = ClassMetadata.forClass(targetAsClass)
+					.fieldNames();
 			for (Map.Entry entry : (Set<Map.Entry>) m.entrySet()) {
 				Object key = entry.getKey();
 				if (key == null)
@@ -421,32 +615,22 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 				if (fieldName == null)
 					continue;
 
-				Field f = null;
-				try {
-					f = targetAsCls.getField(fieldName);
-				} catch (NoSuchFieldException e) {
+				FieldAccessor accessor = metadata.publicField(fieldName);
+				if (accessor == null) {
 					// There is no field with this name
 					if (keysIgnoreCase) {
 						// If enabled, try again but now ignore case
-						for (Field fs : targetAsCls.getFields()) {
+						for (Field fs : metadata.fields()) {
 							if (fs.getName().equalsIgnoreCase(fieldName)) {
-								f = fs;
+								accessor = new FieldAccessor(fs.getName(), fs);
 								break;
 							}
 						}
-
-						if (f == null) {
-							for (Field fs : targetAsCls.getFields()) {
-								if (fs.getName().equalsIgnoreCase(fieldName)) {
-									f = fs;
-									break;
-								}
-							}
-						}
 					}
 				}
 
-				if (f != null) {
+				if (accessor != null) {
+					Field f = accessor.field;
 					Object val = entry.getValue();
 					// Force strict DTO type (constructible)
 					if (sourceAsDTO && DTOUtil.isDTOType(f.getType(), false))
@@ -458,7 +642,7 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 								targetAsClass, typeArguments);
 						val = converter.convert(val).to(genericType);
 					}
-					f.set(dto, val);
+					accessor.set(dto, val);
 				}
 			}
 
@@ -556,21 +740,6 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 		return typeToReify;
 	}
 
-	private List<String> getNames(Class< ? > cls) {
-		List<String> names = new ArrayList<>();
-		for (Field field : cls.getFields()) {
-			int modifiers = field.getModifiers();
-			if (Modifier.isStatic(modifiers))
-				continue;
-
-			String name = field.getName();
-			if (!names.contains(name))
-				names.add(name);
-
-		}
-		return names;
-	}
-
 	@SuppressWarnings({
 			"rawtypes", "unchecked"
 	})
@@ -630,6 +799,21 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 		return convertMapElement(value, 1, converter);
 	}
 
+	/**
+	 * @return whether {@link #convertMapKey(Object, InternalConverter)}
+	 *         returns String keys unchanged, so that map views can look them
+	 *         up without converting every key
+	 */
+	boolean keepsStringKeys(InternalConverter converter) {
+		Type type = null;
+		if (typeArguments != null && typeArguments.length > 0) {
+			type = typeArguments[0];
+		}
+
+		return (type == null || String.class.equals(type)) && !sourceAsDTO
+				&& !converter.hasRules(String.class, String.class);
+	}
+
 	private Object convertMapElement(Object element, int typeIdx,
 			InternalConverter converter) {
 		Type type = null;
@@ -734,22 +918,14 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 
 	private Object convertToJavaBean(Class< ? > sourceCls, Class< ? > targetCls,
 			InternalConverter converter) {
-		String prefix = Util.getPrefix(targetCls);
-
 		@SuppressWarnings("rawtypes")
 		Map m = mapView(object, sourceCls, converter);
 		try {
 			Object res = targetClass.newInstance();
-			for (Method setter : getSetters(targetCls)) {
-				String setterName = setter.getName();
-				StringBuilder propName = new StringBuilder(
-						setterName.length() - 3).append(
-								Character.toLowerCase(setterName.charAt(3)))
-								.append(setterName.substring(4));
-
-				Class< ? > setterType = setter.getParameterTypes()[0];
-				String key = propName.toString();
-				Object val = m.get(Util.unMangleName(prefix, key));
+			for (MethodAccessor setter : ClassMetadata.forClass(targetCls)
+					.setters()) {
+				Class< ? > setterType = setter.method.getParameterTypes()[0];
+				Object val = m.get(setter.key);
 				setter.invoke(res, converter.convert(val).to(setterType));
 			}
 			return res;
@@ -775,8 +951,15 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 		return createProxy(targetCls, m, converter);
 	}
 
+	/**
+	 * Create a proxy that reads its values from the given map. The map is a
+	 * view, so the values are converted on every call. The property read by
+	 * each method is looked up once per interface where possible.
+	 */
 	private Object createProxy(final Class< ? > cls, final Map< ? , ? > data,
 			final InternalConverter converter) {
+		final Map<Method,String> properties = ClassMetadata.forClass(cls)
+				.proxyProperties();
 		return Proxy.newProxyInstance(cls.getClassLoader(), new Class[] {
 				cls
 		}, new InvocationHandler() {
@@ -805,19 +988,24 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 					}
 				}
 
-				String propName = Util.getInterfacePropertyName(method,
-						Util.getSingleElementAnnotationKey(cls, proxy), proxy);
+				String propName;
+				if (properties != null && properties.containsKey(method)) {
+					propName = properties.get(method);
+				} else {
+					propName = Util.getInterfacePropertyName(method,
+							Util.getSingleElementAnnotationKey(cls, proxy),
+							proxy);
+				}
 				if (propName == null) {
 					throw new ConversionException(
 							"Can not convert. Calculated propertyName is `null` method: "
 									+ method);
 				}
-				Object val = null;
-				boolean handled = false;
-				if (data.containsKey(propName)) {
-					val = data.get(propName);
-					handled = true;
-				} else if (val == null && keysIgnoreCase) {
+				// The map is a view, so look the value up before checking for
+				// the key, which is only needed for null values
+				Object val = data.get(propName);
+				boolean handled = val != null || data.containsKey(propName);
+				if (!handled && keysIgnoreCase) {
 					// try in a case-insensitive way
 					for (Iterator< ? > it = data.keySet().iterator(); it
 							.hasNext() && val == null;) {
@@ -1029,14 +1217,7 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 	}
 
 	private static boolean isMarkerAnnotation(Class< ? > annClass) {
-		for (Method m : annClass.getMethods()) {
-			if (m.getDeclaringClass() != annClass) {
-				// this is a base annotation or object method
-				continue;
-			}
-			return false;
-		}
-		return true;
+		return ClassMetadata.forClass(annClass).isMarkerAnnotation();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -1104,25 +1285,14 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 
 		Map result = new HashMap();
 		// Bean accessors must be public
-		for (Method md : sourceCls.getMethods()) {
-			handleBeanMethod(obj, md, invokedMethods, result);
+		for (MethodAccessor accessor : ClassMetadata.forClass(sourceCls)
+				.beanAccessors()) {
+			handleBeanMethod(obj, accessor, invokedMethods, result);
 		}
 
 		return result;
 	}
 
-	@SuppressWarnings("rawtypes")
-	private Map createMapFromDTO(Object obj, InternalConverter converter) {
-		Set<String> handledFields = new HashSet<>();
-
-		Map result = new HashMap();
-		// We only use public fields for mapping a DTO
-		for (Field f : obj.getClass().getFields()) {
-			handleDTOField(obj, f, handledFields, result, converter);
-		}
-		return result;
-	}
-
 	@SuppressWarnings({
 			"unchecked", "rawtypes"
 	})
@@ -1141,9 +1311,10 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 			return result;
 		} else {
 			for (Class i : getInterfaces(srcCls)) {
-				for (Method md : i.getMethods()) {
-					handleInterfaceMethod(obj, i, md, new HashSet<String>(),
-							result);
+				String seank = Util.getSingleElementAnnotationKey(i, obj);
+				for (Method md : ClassMetadata.forClass(i).methods()) {
+					handleInterfaceMethod(obj, seank, md,
+							new HashSet<String>(), result);
 				}
 				if (result.size() > 0)
 					return result;
@@ -1199,6 +1370,13 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 
 	// Returns an ordered set
 	private static Set<Class< ? >> getInterfaces(Class< ? > cls) {
+		if (cls == null)
+			return Collections.emptySet();
+
+		return ClassMetadata.forClass(cls).interfaces();
+	}
+
+	static Set<Class< ? >> computeInterfaces(Class< ? > cls) {
 		if (NO_MAP_VIEW_TYPES.contains(cls))
 			return Collections.emptySet();
 
@@ -1206,7 +1384,7 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 		outer: for (Iterator<Class< ? >> it = interfaces.iterator(); it
 				.hasNext();) {
 			Class< ? > intf = it.next();
-			Method[] methods = intf.getMethods();
+			Method[] methods = ClassMetadata.forClass(intf).methods();
 			for (Method method : methods) {
 				if (method.getDeclaringClass() == intf) {
 					continue outer;
@@ -1244,39 +1422,14 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 	@SuppressWarnings({
 			"rawtypes", "unchecked"
 	})
-	private void handleDTOField(Object obj, Field field,
-			Set<String> handledFields, Map result,
-			InternalConverter converter) {
-		String fn = Util.getDTOKey(field);
-		if (fn == null)
-			return;
-
-		if (handledFields.contains(fn))
-			return; // Field with this name was already handled
-
-		try {
-			Object fVal = field.get(obj);
-			result.put(fn, fVal);
-			handledFields.add(fn);
-		} catch (Exception e) {
-			// Ignore
-		}
-	}
-
-	@SuppressWarnings({
-			"rawtypes", "unchecked"
-	})
-	private static void handleBeanMethod(Object obj, Method md,
+	private static void handleBeanMethod(Object obj, MethodAccessor accessor,
 			Set<String> invokedMethods, Map res) {
-		String bp = Util.getBeanKey(md);
-		if (bp == null)
-			return;
-
+		String bp = accessor.key;
 		if (invokedMethods.contains(bp))
 			return; // method with this name already invoked
 
 		try {
-			res.put(bp, md.invoke(obj));
+			res.put(bp, accessor.invoke(obj));
 			invokedMethods.add(bp);
 		} catch (Exception e) {
 			// Ignore
@@ -1286,14 +1439,13 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 	@SuppressWarnings({
 			"rawtypes", "unchecked"
 	})
-	private static void handleInterfaceMethod(Object obj, Class< ? > intf,
+	private static void handleInterfaceMethod(Object obj, String seank,
 			Method md, Set<String> invokedMethods, Map res) {
 		String mn = md.getName();
 		if (invokedMethods.contains(mn))
 			return; // method with this name already invoked
 
-		String propName = Util.getInterfacePropertyName(md,
-				Util.getSingleElementAnnotationKey(intf, obj), obj);
+		String propName = Util.getInterfacePropertyName(md, seank, obj);
 		if (propName == null)
 			return;
 
@@ -1318,7 +1470,8 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 			return MapDelegate.forDictionary((Dictionary< ? , ? >) object, this,
 					converter);
 		else if (DTOUtil.isDTOType(sourceCls, true) || sourceAsDTO)
-			return createMapFromDTO(obj, converter);
+			// Read the fields of the DTO only when they are used
+			return new DynamicDTOFacade(obj, obj.getClass(), this);
 		else if (sourceAsJavaBean) {
 			Map< ? , ? > m = createMapFromBeanAccessors(obj, sourceCls);
 			if (m.size() > 0)
@@ -1368,10 +1521,10 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 		if (!hasNoArgCtor)
 			return false; // A JavaBean must have a public no-arg constructor
 
-		return getSetters(cls).size() > 0;
+		return ClassMetadata.forClass(cls).setters().size() > 0;
 	}
 
-	private static Set<Method> getSetters(Class< ? > cls) {
+	static Set<Method> computeSetters(Class< ? > cls) {
 		Set<Method> setters = new HashSet<>();
 		while (!Object.class.equals(cls)) {
 			Set<Method> methods = new HashSet<>();
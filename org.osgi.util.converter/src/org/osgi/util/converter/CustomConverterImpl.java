@@ -24,6 +24,7 @@ import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -39,14 +40,41 @@ class CustomConverterImpl implements InternalConverter {
 	final List<ConverterFunction>			allRules;
 	final List<ConverterFunction>			errorHandlers;
 
+	/**
+	 * The rules to try for each target type that has type rules, in order.
+	 * Target types without type rules only use {@link #allRules}.
+	 */
+	private final Map<Type,List<ConverterFunction>>	dispatch;
+	private volatile List<ConverterFunction>		ownErrorHandlers;
+
 	CustomConverterImpl(InternalConverter converter,
 			Map<Type,List<ConverterFunction>> rules,
 			List<ConverterFunction> catchAllRules,
 			List<ConverterFunction> errHandlers) {
 		delegate = converter;
-		typeRules = rules;
-		allRules = catchAllRules;
-		errorHandlers = errHandlers;
+		// Copy the rules so that later changes to the builder have no effect
+		Map<Type,List<ConverterFunction>> tr = new HashMap<>();
+		for (Map.Entry<Type,List<ConverterFunction>> entry : rules
+				.entrySet()) {
+			tr.put(entry.getKey(), Collections.unmodifiableList(
+					new ArrayList<>(entry.getValue())));
+		}
+		typeRules = Collections.unmodifiableMap(tr);
+		allRules = Collections
+				.unmodifiableList(new ArrayList<>(catchAllRules));
+		errorHandlers = Collections
+				.unmodifiableList(new ArrayList<>(errHandlers));
+
+		Map<Type,List<ConverterFunction>> d = new HashMap<>();
+		for (Map.Entry<Type,List<ConverterFunction>> entry : typeRules
+				.entrySet()) {
+			List<ConverterFunction> converters = new ArrayList<>(
+					entry.getValue().size() + allRules.size());
+			converters.addAll(entry.getValue());
+			converters.addAll(allRules);
+			d.put(entry.getKey(), Collections.unmodifiableList(converters));
+		}
+		dispatch = d;
 	}
 
 	@Override
@@ -55,6 +83,101 @@ class CustomConverterImpl implements InternalConverter {
 		return new ConvertingWrapper(obj, converting, this);
 	}
 
+	@Override
+	public ConversionPlan compile(Class< ? > sourceCls, Type type,
+			FunctioningImpl modifiers) {
+		ConversionPlan delegatePlan = delegate.compile(sourceCls, type,
+				modifiers);
+		if (delegatePlan == null)
+			return null;
+		return new Plan(sourceCls, type, modifiers, delegatePlan);
+	}
+
+	@Override
+	public boolean hasRules(Class< ? > sourceCls, Type type) {
+		for (ConverterFunction rule : rules(type)) {
+			if (!(rule instanceof SourceTypedConverterFunction)
+					|| ((SourceTypedConverterFunction) rule)
+							.accepts(sourceCls))
+				return true;
+		}
+		return delegate.hasRules(sourceCls, type);
+	}
+
+	/**
+	 * @return the rules to try, in order, when converting to the given type
+	 */
+	List<ConverterFunction> rules(Type type) {
+		List<ConverterFunction> converters = dispatch
+				.get(Util.baseType(type));
+		return converters != null ? converters : allRules;
+	}
+
+	/**
+	 * @return the error handlers to try, in order, when a conversion started
+	 *         by the given top-level converter fails
+	 */
+	List<ConverterFunction> getErrorHandlers(Converter converter) {
+		if (converter == this) {
+			List<ConverterFunction> handlers = ownErrorHandlers;
+			if (handlers == null) {
+				ownErrorHandlers = handlers = Collections
+						.unmodifiableList(computeErrorHandlers(converter));
+			}
+			return handlers;
+		}
+		return computeErrorHandlers(converter);
+	}
+
+	private List<ConverterFunction> computeErrorHandlers(
+			Converter converter) {
+		List<ConverterFunction> handlers = new ArrayList<>();
+
+		if (converter instanceof CustomConverterImpl) {
+			CustomConverterImpl cconverter = (CustomConverterImpl) converter;
+			handlers.addAll(cconverter.errorHandlers);
+
+			Converter nextDel = cconverter.delegate;
+			handlers.addAll(computeErrorHandlers(nextDel));
+		}
+
+		handlers.addAll(errorHandlers);
+
+		return handlers;
+	}
+
+	/**
+	 * A conversion with the rules for the target type looked up in advance,
+	 * which uses the plan of the delegate converter when no rule handles the
+	 * object.
+	 */
+	private final class Plan extends ConversionPlan {
+		private final Type						type;
+		private final FunctioningImpl			modifiers;
+		private final ConversionPlan			delegatePlan;
+		private final List<ConverterFunction>	rules;
+
+		Plan(Class< ? > sourceCls, Type type, FunctioningImpl modifiers,
+				ConversionPlan delegatePlan) {
+			super(sourceCls);
+			this.type = type;
+			this.modifiers = modifiers;
+			this.delegatePlan = delegatePlan;
+			this.rules = rules(type);
+		}
+
+		@Override
+		Object convert(Object obj, InternalConverter converter) {
+			ConvertingWrapper wrapper = new ConvertingWrapper(obj, null,
+					CustomConverterImpl.this);
+			if (modifiers.hasDefault) {
+				wrapper.defaultValue = modifiers.defaultValue;
+				wrapper.hasDefault = true;
+			}
+			return wrapper.to(type, rules, delegatePlan, converter);
+		}
+	}
+
 	@Override
 	public Functioning function() {
 		return new FunctioningImpl(this);
@@ -154,25 +277,28 @@ class CustomConverterImpl implements InternalConverter {
 		@SuppressWarnings("unchecked")
 		@Override
 		public <T> T to(Type type, InternalConverter converter) {
-			List<ConverterFunction> tr = typeRules.get(Util.baseType(type));
-			if (tr == null)
-				tr = Collections.emptyList();
-			List<ConverterFunction> converters = new ArrayList<>(
-					tr.size() + allRules.size());
-			converters.addAll(tr);
-			converters.addAll(allRules);
+			return (T) to(type, rules(type), null, converter);
+		}
 
+		/**
+		 * Convert the object, trying the given rules first. If none of them
+		 * handles the object, the conversion is done by the given plan of the
+		 * delegate converter, or by the delegate converting if there is no
+		 * plan.
+		 */
+		Object to(Type type, List<ConverterFunction> converters,
+				ConversionPlan plan, InternalConverter converter) {
 			try {
 				if (object != null) {
 					for (ConverterFunction cf : converters) {
 						try {
 							Object res = cf.apply(object, type);
 							if (res != ConverterFunction.CANNOT_HANDLE) {
-								return (T) res;
+								return res;
 							}
 						} catch (Exception ex) {
 							if (hasDefault)
-								return (T) defaultValue;
+								return defaultValue;
 							else
 								throw new ConversionException("Cannot convert "
 										+ object + " to " + type, ex);
@@ -180,19 +306,20 @@ class CustomConverterImpl implements InternalConverter {
 					}
 				}
 
-				Object result = del.to(type, converter);
+				Object result = plan != null ? plan.convert(object, converter)
+						: del.to(type, converter);
 				if (result != null && Proxy.isProxyClass(result.getClass())
 						&& getErrorHandlers(converter).size() > 0) {
-					return (T) wrapErrorHandling(result, converter);
+					return wrapErrorHandling(result, converter);
 				} else {
-					return (T) result;
+					return result;
 				}
 			} catch (Exception ex) {
 				for (ConverterFunction eh : getErrorHandlers(converter)) {
 					try {
 						Object handled = eh.apply(object, type);
 						if (handled != ConverterFunction.CANNOT_HANDLE)
-							return (T) handled;
+							return handled;
 					} catch (RuntimeException re) {
 						throw re;
 					} catch (Exception e) {
@@ -205,22 +332,6 @@ class CustomConverterImpl implements InternalConverter {
 			}
 		}
 
-		List<ConverterFunction> getErrorHandlers(Converter converter) {
-			List<ConverterFunction> handlers = new ArrayList<>();
-
-			if (converter instanceof CustomConverterImpl) {
-				CustomConverterImpl cconverter = (CustomConverterImpl) converter;
-				handlers.addAll(cconverter.errorHandlers);
-
-				Converter nextDel = cconverter.delegate;
-				handlers.addAll(getErrorHandlers(nextDel));
-			}
-
-			handlers.addAll(errorHandlers);
-
-			return handlers;
-		}
-
 		private Object wrapErrorHandling(final Object wrapped,
 				final InternalConverter converter) {
 			final Class< ? > cls = wrapped.getClass();
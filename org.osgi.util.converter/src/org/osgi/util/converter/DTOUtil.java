@@ -35,6 +35,11 @@ class DTOUtil {
 	}
 
 	static boolean isDTOType(Class< ? > cls, boolean ignorePublicNoArgsCtor) {
+		return ClassMetadata.forClass(cls).isDTOType(ignorePublicNoArgsCtor);
+	}
+
+	static boolean computeDTOType(Class< ? > cls,
+			boolean ignorePublicNoArgsCtor) {
 		if (!ignorePublicNoArgsCtor) {
 			if (Arrays.stream(cls.getConstructors())
 					.noneMatch(ctor -> ctor.getParameterCount() == 0)) {
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0 
+ *******************************************************************************/
+
+package org.osgi.util.converter;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.osgi.util.converter.ClassMetadata.FieldAccessor;
+
+/**
+ * A map view of the public fields of a DTO, which are read when accessed.
+ * 
+ * @author $Id$
+ */
+class DynamicDTOFacade extends DynamicMapLikeFacade<String,Object> {
+	private Map<String,FieldAccessor>	keys	= null;
+	private final Object				backingObject;
+	private final Class< ? >			dtoClass;
+
+	DynamicDTOFacade(Object backingObject, Class< ? > dtoClass,
+			ConvertingImpl converting) {
+		super(converting);
+		this.backingObject = backingObject;
+		this.dtoClass = dtoClass;
+	}
+
+	@Override
+	public Object get(Object key) {
+		FieldAccessor accessor = getKeys().get(key);
+		if (accessor == null)
+			return null;
+
+		try {
+			return accessor.get(backingObject);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return getKeys().containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return getKeys().size();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return getKeys().keySet();
+	}
+
+	private Map<String,FieldAccessor> getKeys() {
+		if (keys == null)
+			keys = ClassMetadata.forClass(dtoClass).dtoAccessors();
+
+		return keys;
+	}
+}
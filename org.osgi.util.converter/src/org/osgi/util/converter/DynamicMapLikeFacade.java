@@ -18,19 +18,19 @@
 
 package org.osgi.util.converter;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.osgi.util.converter.ClassMetadata.MethodAccessor;
+
 /**
  * @author $Id$
  */
@@ -100,25 +100,59 @@ abstract class DynamicMapLikeFacade<K, V> implements Map<K,V> {
 
 	@Override
 	public Collection<V> values() {
-		List<V> res = new ArrayList<>();
+		return new AbstractCollection<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				final Iterator<K> keys = keySet().iterator();
+				return new Iterator<V>() {
+					@Override
+					public boolean hasNext() {
+						return keys.hasNext();
+					}
+
+					@Override
+					public V next() {
+						return get(keys.next());
+					}
+				};
+			}
 
-		for (Map.Entry<K,V> entry : entrySet()) {
-			res.add(entry.getValue());
-		}
-		return res;
+			@Override
+			public int size() {
+				return DynamicMapLikeFacade.this.size();
+			}
+		};
 	}
 
+	/**
+	 * The entries are read from the backing object when they are iterated
+	 * over, so that no copy of the backing object is made.
+	 */
 	@Override
 	public Set<Entry<K,V>> entrySet() {
-		Set<K> ks = keySet();
-
-		Set<Entry<K,V>> res = new LinkedHashSet<>(ks.size());
+		return new AbstractSet<Entry<K,V>>() {
+			@Override
+			public Iterator<Entry<K,V>> iterator() {
+				final Iterator<K> keys = keySet().iterator();
+				return new Iterator<Entry<K,V>>() {
+					@Override
+					public boolean hasNext() {
+						return keys.hasNext();
+					}
+
+					@Override
+					public Entry<K,V> next() {
+						K k = keys.next();
+						return new MapDelegate.MapEntry<K,V>(k, get(k));
+					}
+				};
+			}
 
-		for (K k : ks) {
-			V v = get(k);
-			res.add(new MapDelegate.MapEntry<K,V>(k, v));
-		}
-		return res;
+			@Override
+			public int size() {
+				return DynamicMapLikeFacade.this.size();
+			}
+		};
 	}
 
 	@Override
@@ -144,9 +178,9 @@ abstract class DynamicMapLikeFacade<K, V> implements Map<K,V> {
 }
 
 class DynamicBeanFacade extends DynamicMapLikeFacade<String,Object> {
-	private Map<String,Method>	keys	= null;
-	private final Object		backingObject;
-	private final Class< ? >	beanClass;
+	private Map<String,MethodAccessor>	keys	= null;
+	private final Object				backingObject;
+	private final Class< ? >			beanClass;
 
 	DynamicBeanFacade(Object backingObject, Class< ? > beanClass,
 			ConvertingImpl convertingImpl) {
@@ -157,22 +191,35 @@ class DynamicBeanFacade extends DynamicMapLikeFacade<String,Object> {
 
 	@Override
 	public Object get(Object key) {
-		Method m = getKeys().get(key);
+		MethodAccessor accessor = getKeys().get(key);
+		if (accessor == null)
+			return null;
+
 		try {
-			return m.invoke(backingObject);
+			return accessor.invoke(backingObject);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	@Override
+	public boolean containsKey(Object key) {
+		return getKeys().containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return getKeys().size();
+	}
+
 	@Override
 	public Set<String> keySet() {
 		return getKeys().keySet();
 	}
 
-	private Map<String,Method> getKeys() {
+	private Map<String,MethodAccessor> getKeys() {
 		if (keys == null)
-			keys = Util.getBeanKeys(beanClass);
+			keys = ClassMetadata.forClass(beanClass).beanKeyAccessors();
 
 		return keys;
 	}
@@ -218,44 +265,6 @@ class DynamicMapFacade<K, V> extends DynamicMapLikeFacade<K,V> {
 	}
 }
 
-class DynamicDTOFacade extends DynamicMapLikeFacade<String,Object> {
-	private Map<String,Field>	keys	= null;
-	private final Object		backingObject;
-	private final Class< ? >	dtoClass;
-
-	DynamicDTOFacade(Object backingObject, Class< ? > dtoClass,
-			ConvertingImpl converting) {
-		super(converting);
-		this.backingObject = backingObject;
-		this.dtoClass = dtoClass;
-	}
-
-	@Override
-	public Object get(Object key) {
-		Field f = getKeys().get(key);
-		if (f == null)
-			return null;
-
-		try {
-			return f.get(backingObject);
-		} catch (Exception e) {
-			throw new RuntimeException(e);
-		}
-	}
-
-	@Override
-	public Set<String> keySet() {
-		return getKeys().keySet();
-	}
-
-	private Map<String,Field> getKeys() {
-		if (keys == null)
-			keys = Util.getDTOKeys(dtoClass);
-
-		return keys;
-	}
-}
-
 class DynamicInterfaceFacade extends DynamicMapLikeFacade<String,Object> {
 	private Map<String,Set<Method>>	keys	= null;
 	private final Object			backingObject;
@@ -27,7 +27,9 @@ import org.osgi.util.function.Function;
  */
 class FunctioningImpl extends AbstractSpecifying<Functioning>
 		implements Functioning {
-	InternalConverter initialConverter;
+	private static final Object	NO_PLAN	= new Object();
+
+	InternalConverter			initialConverter;
 
 	FunctioningImpl(InternalConverter converter) {
 		initialConverter = converter;
@@ -44,17 +46,58 @@ class FunctioningImpl extends AbstractSpecifying<Functioning>
 		return to(ref.getType());
 	}
 
+	/**
+	 * The returned function compiles a plan for the class of the first
+	 * non-null object that it converts. Objects of exactly that class are
+	 * converted with the plan, all others take the general path.
+	 */
 	@Override
 	public <T> Function<Object,T> to(final Type type) {
+		final FunctioningImpl modifiers = copy();
 		return new Function<Object,T>() {
+			private volatile Object plan;
+
+			@SuppressWarnings("unchecked")
 			@Override
 			public T apply(Object t) {
+				if (t != null) {
+					Object p = plan;
+					if (p == null) {
+						p = initialConverter.compile(t.getClass(), type,
+								modifiers);
+						plan = p = (p == null ? NO_PLAN : p);
+					}
+					if (p != NO_PLAN) {
+						ConversionPlan cp = (ConversionPlan) p;
+						if (cp.sourceClass == t.getClass())
+							return (T) cp.convert(t, initialConverter);
+					}
+				}
 				InternalConverting converter = initialConverter.convert(t);
-				return applyModifiers(converter).to(type);
+				return modifiers.applyModifiers(converter).to(type);
 			}
 		};
 	}
 
+	/**
+	 * A copy of the modifiers specified so far, so that functions are not
+	 * affected by later changes.
+	 */
+	private FunctioningImpl copy() {
+		FunctioningImpl copy = new FunctioningImpl(initialConverter);
+		copy.defaultValue = defaultValue;
+		copy.hasDefault = hasDefault;
+		copy.liveView = liveView;
+		copy.keysIgnoreCase = keysIgnoreCase;
+		copy.sourceAsClass = sourceAsClass;
+		copy.sourceAsDTO = sourceAsDTO;
+		copy.sourceAsJavaBean = sourceAsJavaBean;
+		copy.targetAsClass = targetAsClass;
+		copy.targetAsDTO = targetAsDTO;
+		copy.targetAsJavaBean = targetAsJavaBean;
+		return copy;
+	}
+
 	InternalConverting applyModifiers(InternalConverting converter) {
 		if (hasDefault)
 			converter.defaultValue(defaultValue);
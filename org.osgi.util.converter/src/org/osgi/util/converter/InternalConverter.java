@@ -18,6 +18,8 @@
 
 package org.osgi.util.converter;
 
+import java.lang.reflect.Type;
+
 /**
  * @author $Id$
  */
@@ -26,4 +28,28 @@ interface InternalConverter extends Converter {
 	// InternalConverting rather than a normal Converting instance.
 	@Override
 	InternalConverting convert(Object obj);
+
+	/**
+	 * Compile the conversion of objects of exactly the given class to the
+	 * given type.
+	 *
+	 * @param sourceCls The class of the objects to convert.
+	 * @param type The type to convert to.
+	 * @param modifiers The modifiers to apply to each conversion.
+	 * @return The conversion plan, or {@code null} if the conversion cannot be
+	 *         planned in advance.
+	 */
+	ConversionPlan compile(Class< ? > sourceCls, Type type,
+			FunctioningImpl modifiers);
+
+	/**
+	 * Check whether converting objects of the given class to the given type
+	 * may involve rules of this converter.
+	 *
+	 * @param sourceCls The class of the objects to convert.
+	 * @param type The type to convert to.
+	 * @return {@code false} if the conversion is always done by the standard
+	 *         converter.
+	 */
+	boolean hasRules(Class< ? > sourceCls, Type type);
 }
@@ -18,11 +18,14 @@
 
 package org.osgi.util.converter;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,18 +40,30 @@ class MapDelegate<K, V> implements Map<K,V> {
 	private final ConvertingImpl	convertingImpl;
 	private final InternalConverter	converter;
 	Map<K,V>						delegate;
+	// Whether the keys of the delegate are the keys of this map. This is the
+	// case for the String keys of DTOs, beans and interfaces unless they are
+	// converted to some other type. Lookups then go straight to the delegate,
+	// which reads the backing object only for the keys that are accessed.
+	private volatile boolean		sameKeys;
 
 	private MapDelegate(ConvertingImpl converting, InternalConverter c,
 			Map<K,V> del) {
+		this(converting, c, del, false);
+	}
+
+	private MapDelegate(ConvertingImpl converting, InternalConverter c,
+			Map<K,V> del, boolean sameKeys) {
 		convertingImpl = converting;
 		converter = c;
 		delegate = del;
+		this.sameKeys = sameKeys;
 	}
 
 	static MapDelegate<String,Object> forBean(Object b, Class< ? > beanClass,
 			ConvertingImpl converting, InternalConverter c) {
 		return new MapDelegate<>(converting, c,
-				new DynamicBeanFacade(b, beanClass, converting));
+				new DynamicBeanFacade(b, beanClass, converting),
+				converting.keepsStringKeys(c));
 	}
 
 	static <K, V> Map<K,V> forMap(Map<K,V> m, ConvertingImpl converting,
@@ -66,17 +81,22 @@ class MapDelegate<K, V> implements Map<K,V> {
 	static MapDelegate<String,Object> forDTO(Object obj, Class< ? > dtoClass,
 			ConvertingImpl converting, InternalConverter c) {
 		return new MapDelegate<>(converting, c,
-				new DynamicDTOFacade(obj, dtoClass, converting));
+				new DynamicDTOFacade(obj, dtoClass, converting),
+				converting.keepsStringKeys(c));
 	}
 
 	static MapDelegate<String,Object> forInterface(Object obj, Class< ? > intf,
 			ConvertingImpl converting, InternalConverter c) {
 		return new MapDelegate<>(converting, c,
-				new DynamicInterfaceFacade(obj, intf, converting));
+				new DynamicInterfaceFacade(obj, intf, converting),
+				converting.keepsStringKeys(c));
 	}
 
 	@Override
 	public int size() {
+		if (sameKeys)
+			return delegate.size();
+
 		// Need to convert the entire map to get the size
 		Set<Object> keys = new HashSet<>();
 
@@ -95,6 +115,9 @@ class MapDelegate<K, V> implements Map<K,V> {
 
 	@Override
 	public boolean containsKey(Object key) {
+		if (sameKeys)
+			return delegate.containsKey(key);
+
 		return keySet().contains(key);
 	}
 
@@ -111,7 +134,7 @@ class MapDelegate<K, V> implements Map<K,V> {
 			val = delegate.get(key);
 		}
 
-		if (val == null) {
+		if (val == null && !(sameKeys && key instanceof String)) {
 			key = findConvertedKey(internalKeySet(), key);
 			val = delegate.get(key);
 		}
@@ -168,6 +191,7 @@ class MapDelegate<K, V> implements Map<K,V> {
 	@Override
 	public void clear() {
 		cloned = true;
+		sameKeys = false;
 		delegate = new HashMap<>();
 	}
 
@@ -187,6 +211,32 @@ class MapDelegate<K, V> implements Map<K,V> {
 
 	@Override
 	public Collection<V> values() {
+		if (sameKeys) {
+			return new AbstractCollection<V>() {
+				@Override
+				public Iterator<V> iterator() {
+					final Iterator<Map.Entry<K,V>> entries = entrySet()
+							.iterator();
+					return new Iterator<V>() {
+						@Override
+						public boolean hasNext() {
+							return entries.hasNext();
+						}
+
+						@Override
+						public V next() {
+							return entries.next().getValue();
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return MapDelegate.this.size();
+				}
+			};
+		}
+
 		List<V> values = new ArrayList<>();
 		for (Map.Entry<K,V> entry : entrySet()) {
 			values.add(entry.getValue());
@@ -197,6 +247,36 @@ class MapDelegate<K, V> implements Map<K,V> {
 	@Override
 	@SuppressWarnings("unchecked")
 	public Set<java.util.Map.Entry<K,V>> entrySet() {
+		if (sameKeys) {
+			// Convert the values as the entries are iterated over
+			final Map<K,V> del = delegate;
+			return new AbstractSet<Map.Entry<K,V>>() {
+				@Override
+				public Iterator<Map.Entry<K,V>> iterator() {
+					final Iterator<Map.Entry<K,V>> entries = del.entrySet()
+							.iterator();
+					return new Iterator<Map.Entry<K,V>>() {
+						@Override
+						public boolean hasNext() {
+							return entries.hasNext();
+						}
+
+						@Override
+						public Map.Entry<K,V> next() {
+							Map.Entry<K,V> entry = entries.next();
+							return new MapEntry<K,V>(entry.getKey(),
+									(V) getConvertedValue(entry.getValue()));
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return del.size();
+				}
+			};
+		}
+
 		Set<Map.Entry<K,V>> result = new HashSet<>();
 		for (Map.Entry< ? , ? > entry : delegate.entrySet()) {
 			K key = (K) findConvertedKey(internalKeySet(), entry.getKey());
@@ -221,6 +301,7 @@ class MapDelegate<K, V> implements Map<K,V> {
 			return;
 		} else {
 			cloned = true;
+			sameKeys = false;
 			delegate = new HashMap<>(delegate);
 		}
 	}
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0 
+ *******************************************************************************/
+
+package org.osgi.util.converter;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conversions of primitive arrays that do not need the converter for each
+ * element. The element values are converted as the converter would convert
+ * them, that is with the semantics of the {@link Number} value methods, and
+ * {@code true} and {@code false} as 1 and 0. No boxed copy of the source
+ * array is made.
+ *
+ * @author $Id$
+ */
+final class PrimitiveArrays {
+	private static final Map<Class< ? >,Class< ? >> UNBOXED;
+	static {
+		Map<Class< ? >,Class< ? >> m = new HashMap<>();
+		m.put(Boolean.class, boolean.class);
+		m.put(Byte.class, byte.class);
+		m.put(Character.class, char.class);
+		m.put(Short.class, short.class);
+		m.put(Integer.class, int.class);
+		m.put(Long.class, long.class);
+		m.put(Float.class, float.class);
+		m.put(Double.class, double.class);
+		UNBOXED = m;
+	}
+
+	private PrimitiveArrays() {
+		// Do not instantiate
+	}
+
+	/**
+	 * @return the primitive component type of the given object if it is a
+	 *         primitive array, or {@code null}
+	 */
+	static Class< ? > componentType(Object obj) {
+		if (obj == null)
+			return null;
+		Class< ? > cls = obj.getClass().getComponentType();
+		return cls != null && cls.isPrimitive() ? cls : null;
+	}
+
+	/**
+	 * @param from The primitive component type of the source array.
+	 * @param to The target element type, a primitive or a boxed type.
+	 * @return whether the elements can be converted by this class
+	 */
+	static boolean canConvert(Class< ? > from, Class< ? > to) {
+		Class< ? > target = to.isPrimitive() ? to : UNBOXED.get(to);
+		if (target == null)
+			return false;
+		if (target == boolean.class || target == char.class
+				|| from == char.class)
+			return from == target;
+		return true;
+	}
+
+	/**
+	 * Convert a primitive array to an array with the given component type.
+	 *
+	 * @param array The primitive array.
+	 * @param to The component type of the result, a primitive or a boxed
+	 *            type for which {@link #canConvert(Class, Class)} is
+	 *            {@code true}.
+	 * @return the new array
+	 */
+	static Object toArray(Object array, Class< ? > to) {
+		int length = Array.getLength(array);
+		Object result = Array.newInstance(to, length);
+		Class< ? > from = array.getClass().getComponentType();
+		if (from == to) {
+			System.arraycopy(array, 0, result, 0, length);
+		} else if (!to.isPrimitive()) {
+			Object[] boxed = (Object[]) result;
+			for (int i = 0; i < length; i++) {
+				boxed[i] = element(array, from, i, to);
+			}
+		} else if (from == float.class || from == double.class) {
+			for (int i = 0; i < length; i++) {
+				setDouble(result, to, i, getDouble(array, from, i));
+			}
+		} else {
+			for (int i = 0; i < length; i++) {
+				setLong(result, to, i, getLong(array, from, i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Add the elements of a primitive array to a collection.
+	 *
+	 * @param array The primitive array.
+	 * @param to The boxed type of the elements to add, for which
+	 *            {@link #canConvert(Class, Class)} is {@code true}, or
+	 *            {@code null} to add the elements without conversion.
+	 * @param collection The collection to add to.
+	 */
+	static void addAll(Object array, Class< ? > to,
+			Collection<Object> collection) {
+		Class< ? > from = array.getClass().getComponentType();
+		if (to == null)
+			to = Util.primitiveToBoxed(from);
+		int length = Array.getLength(array);
+		for (int i = 0; i < length; i++) {
+			collection.add(element(array, from, i, to));
+		}
+	}
+
+	private static Object element(Object array, Class< ? > from, int i,
+			Class< ? > to) {
+		if (from == boolean.class && to == Boolean.class)
+			return Boolean.valueOf(((boolean[]) array)[i]);
+		if (from == char.class)
+			return Character.valueOf(((char[]) array)[i]);
+		if (from == float.class || from == double.class) {
+			double d = getDouble(array, from, i);
+			if (to == Byte.class)
+				return Byte.valueOf((byte) d);
+			if (to == Short.class)
+				return Short.valueOf((short) d);
+			if (to == Integer.class)
+				return Integer.valueOf((int) d);
+			if (to == Long.class)
+				return Long.valueOf((long) d);
+			if (to == Float.class)
+				return Float.valueOf((float) d);
+			return Double.valueOf(d);
+		}
+		long l = getLong(array, from, i);
+		if (to == Byte.class)
+			return Byte.valueOf((byte) l);
+		if (to == Short.class)
+			return Short.valueOf((short) l);
+		if (to == Integer.class)
+			return Integer.valueOf((int) l);
+		if (to == Long.class)
+			return Long.valueOf(l);
+		if (to == Float.class)
+			return Float.valueOf(l);
+		return Double.valueOf(l);
+	}
+
+	private static long getLong(Object array, Class< ? > from, int i) {
+		if (from == int.class)
+			return ((int[]) array)[i];
+		if (from == long.class)
+			return ((long[]) array)[i];
+		if (from == byte.class)
+			return ((byte[]) array)[i];
+		if (from == short.class)
+			return ((short[]) array)[i];
+		return ((boolean[]) array)[i] ? 1 : 0;
+	}
+
+	private static double getDouble(Object array, Class< ? > from, int i) {
+		if (from == double.class)
+			return ((double[]) array)[i];
+		return ((float[]) array)[i];
+	}
+
+	private static void setLong(Object array, Class< ? > to, int i,
+			long l) {
+		if (to == int.class)
+			((int[]) array)[i] = (int) l;
+		else if (to == long.class)
+			((long[]) array)[i] = l;
+		else if (to == byte.class)
+			((byte[]) array)[i] = (byte) l;
+		else if (to == short.class)
+			((short[]) array)[i] = (short) l;
+		else if (to == float.class)
+			((float[]) array)[i] = l;
+		else
+			((double[]) array)[i] = l;
+	}
+
+	private static void setDouble(Object array, Class< ? > to, int i,
+			double d) {
+		if (to == int.class)
+			((int[]) array)[i] = (int) d;
+		else if (to == long.class)
+			((long[]) array)[i] = (long) d;
+		else if (to == byte.class)
+			((byte[]) array)[i] = (byte) d;
+		else if (to == short.class)
+			((short[]) array)[i] = (short) d;
+		else if (to == float.class)
+			((float[]) array)[i] = (float) d;
+		else
+			((double[]) array)[i] = d;
+	}
+}
@@ -46,22 +46,12 @@ public abstract class Rule<F, T> implements TargetRule {
 	}
 
 	private ConverterFunction getGenericFunction(final Function<F,T> func) {
-		return new ConverterFunction() {
+		return new SourceTypedConverterFunction() {
 			@Override
 			@SuppressWarnings("unchecked")
 			public Object apply(Object obj, Type targetType) throws Exception {
-				Rule< ? , ? > r = Rule.this;
-				Type type = ((ParameterizedType) r.getClass()
-						.getGenericSuperclass()).getActualTypeArguments()[0];
-
-				if (type instanceof ParameterizedType) {
-					type = ((ParameterizedType) type).getRawType();
-				}
-
-				Class< ? > cls = null;
-				if (type instanceof Class) {
-					cls = ((Class< ? >) type);
-				} else {
+				Class< ? > cls = getSourceClass();
+				if (cls == null) {
 					return ConverterFunction.CANNOT_HANDLE;
 				}
 
@@ -70,9 +60,29 @@ public abstract class Rule<F, T> implements TargetRule {
 				}
 				return ConverterFunction.CANNOT_HANDLE;
 			}
+
+			@Override
+			public boolean accepts(Class< ? > cls) {
+				Class< ? > sourceCls = getSourceClass();
+				return sourceCls != null && sourceCls.isAssignableFrom(cls);
+			}
 		};
 	}
 
+	private Class< ? > getSourceClass() {
+		Type type = ((ParameterizedType) getClass().getGenericSuperclass())
+				.getActualTypeArguments()[0];
+
+		if (type instanceof ParameterizedType) {
+			type = ((ParameterizedType) type).getRawType();
+		}
+
+		if (type instanceof Class) {
+			return (Class< ? >) type;
+		}
+		return null;
+	}
+
 	@Override
 	public ConverterFunction getFunction() {
 		return function;
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0 
+ *******************************************************************************/
+
+package org.osgi.util.converter;
+
+/**
+ * The converter function of a rule that only handles objects of a known
+ * source type. This allows the converter to skip rules that can never handle
+ * an object.
+ *
+ * @author $Id$
+ */
+interface SourceTypedConverterFunction extends ConverterFunction {
+	/**
+	 * @param cls The class of an object to convert.
+	 * @return {@code false} if the function never handles objects of the
+	 *         given class
+	 */
+	boolean accepts(Class< ? > cls);
+}
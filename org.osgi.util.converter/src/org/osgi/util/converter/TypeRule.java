@@ -51,7 +51,7 @@ public class TypeRule<F, T> implements TargetRule {
 
 	private static <F, T> ConverterFunction getFunction(final Type from,
 			final Function<F,T> func) {
-		return new ConverterFunction() {
+		return new SourceTypedConverterFunction() {
 			@Override
 			@SuppressWarnings("unchecked")
 			public Object apply(Object obj, Type targetType) throws Exception {
@@ -67,6 +67,12 @@ public class TypeRule<F, T> implements TargetRule {
 				}
 				return ConverterFunction.CANNOT_HANDLE;
 			}
+
+			@Override
+			public boolean accepts(Class< ? > cls) {
+				return from instanceof Class
+						&& ((Class< ? >) from).isAssignableFrom(cls);
+			}
 		};
 	}
 
@@ -83,15 +83,8 @@ class Util {
 	}
 
 	static Map<String,Method> getBeanKeys(Class< ? > beanClass) {
-		Map<String,Method> keys = new LinkedHashMap<>();
 		// Bean methods must be public and can be on parent classes
-		for (Method md : beanClass.getMethods()) {
-			String key = getBeanKey(md);
-			if (key != null && !keys.containsKey(key)) {
-				keys.put(key, md);
-			}
-		}
-		return keys;
+		return ClassMetadata.forClass(beanClass).beanKeys();
 	}
 
 	static String getBeanKey(Method md) {
@@ -140,14 +133,7 @@ class Util {
 	}
 
 	static Map<String,Field> getDTOKeys(Class< ? > dto) {
-		Map<String,Field> keys = new LinkedHashMap<>();
-
-		for (Field f : dto.getFields()) {
-			String key = getDTOKey(f);
-			if (key != null && !keys.containsKey(key))
-				keys.put(key, f);
-		}
-		return keys;
+		return ClassMetadata.forClass(dto).dtoKeys();
 	}
 
 	static String getDTOKey(Field f) {
@@ -162,6 +148,16 @@ class Util {
 
 	static Map<String,Set<Method>> getInterfaceKeys(Class< ? > intf,
 			Object object) {
+		Map<String,Set<Method>> keys = ClassMetadata.forClass(intf)
+				.interfaceKeys(object);
+		if (keys != null)
+			return keys;
+
+		return computeInterfaceKeys(intf, object);
+	}
+
+	static Map<String,Set<Method>> computeInterfaceKeys(Class< ? > intf,
+			Object object) {
 		Map<String,Set<Method>> keys = new LinkedHashMap<>();
 
 		String seank = getSingleElementAnnotationKey(intf, object);
@@ -206,6 +202,11 @@ class Util {
 		if (ann == null)
 			return null;
 
+		String key = ClassMetadata.forClass(ann).singleElementAnnotationKey();
+		return key.isEmpty() ? null : key;
+	}
+
+	static String computeSingleElementAnnotationKey(Class< ? > ann) {
 		boolean valueFound = false;
 		// All annotation methods must be public
 		for (Method md : ann.getMethods()) {
@@ -235,8 +236,11 @@ class Util {
 	}
 
 	static Class< ? > getAnnotationType(Class< ? > intf, Object obj) {
+		Method md = ClassMetadata.forClass(intf).annotationTypeMethod();
+		if (md == null)
+			return null;
+
 		try {
-			Method md = intf.getMethod("annotationType");
 			Object res = md.invoke(obj);
 			if (res instanceof Class)
 				return (Class< ? >) res;
@@ -306,7 +310,7 @@ class Util {
 	}
 
 	private static boolean isInheritedMethodInProxy(Method md, Class< ? > cls) {
-		for (Method om : cls.getMethods()) {
+		for (Method om : ClassMetadata.forClass(cls).methods()) {
 			if (om.getName().equals(md.getName()) && Arrays
 					.equals(om.getParameterTypes(), md.getParameterTypes())) {
 				return true;
@@ -328,6 +332,10 @@ class Util {
 	}
 
 	static String getPrefix(Class< ? > cls) {
+		return ClassMetadata.forClass(cls).prefix();
+	}
+
+	static String computePrefix(Class< ? > cls) {
 		try {
 			// We can use getField as the PREFIX must be public (see spec
 			// erratum)
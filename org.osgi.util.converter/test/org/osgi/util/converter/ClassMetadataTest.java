@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.util.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class ClassMetadataTest {
+	public static class CachedDTO {
+		public String	my_name;
+		public int		count;
+	}
+
+	public static class CachedBean {
+		public String getMyName() {
+			return null;
+		}
+
+		public boolean isActive() {
+			return false;
+		}
+	}
+
+	@Test
+	public void testReflectionMetadataIsCached() {
+		assertThat(Util.getDTOKeys(CachedDTO.class)).containsOnlyKeys("my.name",
+				"count");
+		assertThat(Util.getDTOKeys(CachedDTO.class))
+				.isSameAs(Util.getDTOKeys(CachedDTO.class));
+
+		assertThat(Util.getBeanKeys(CachedBean.class))
+				.containsOnlyKeys("myName", "active");
+		assertThat(Util.getBeanKeys(CachedBean.class))
+				.isSameAs(Util.getBeanKeys(CachedBean.class));
+
+		assertThat(DTOUtil.isDTOType(CachedDTO.class, false)).isTrue();
+		assertThat(DTOUtil.isDTOType(CachedBean.class, true)).isFalse();
+	}
+
+	static class HiddenDTO {
+		public String name;
+	}
+
+	@Test
+	public void testFieldAccessors() throws Exception {
+		// Not visible to the public lookup, so reflection is used
+		ClassMetadata.FieldAccessor hidden = ClassMetadata
+				.forClass(HiddenDTO.class)
+				.publicField("name");
+		HiddenDTO dto = new HiddenDTO();
+		hidden.set(dto, "hidden");
+		assertThat(hidden.get(dto)).isEqualTo("hidden");
+
+		// Widening conversions are applied as with reflection
+		ClassMetadata.FieldAccessor count = ClassMetadata
+				.forClass(CachedDTO.class)
+				.publicField("count");
+		CachedDTO cached = new CachedDTO();
+		count.set(cached, Character.valueOf('A'));
+		assertThat(count.get(cached)).isEqualTo(65);
+		assertThat(ClassMetadata.forClass(CachedDTO.class).dtoFields())
+				.extracting(a -> a.key)
+				.containsOnly("my.name", "count");
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface PidConfig {
+		String value();
+
+		int ranking() default 0;
+	}
+
+	public interface WithAnnotationType {
+		Class< ? > annotationType();
+	}
+
+	@Test
+	public void testProxyProperties() throws Exception {
+		Map<Method,String> properties = ClassMetadata
+				.forClass(PidConfig.class)
+				.proxyProperties();
+		assertThat(properties)
+				.containsEntry(PidConfig.class.getMethod("value"), "pid.config")
+				.containsEntry(PidConfig.class.getMethod("ranking"), "ranking");
+		assertThat(ClassMetadata.forClass(WithAnnotationType.class)
+				.proxyProperties()).isNull();
+
+		Map<String,Object> m = new HashMap<>();
+		m.put("pid.config", "my.pid");
+		PidConfig config = Converters.standardConverter()
+				.convert(m)
+				.to(PidConfig.class);
+		assertThat(config.value()).isEqualTo("my.pid");
+		assertThat(config.ranking()).isEqualTo(0);
+
+		// Proxies are backed by the map
+		m.put("ranking", "5");
+		assertThat(config.ranking()).isEqualTo(5);
+	}
+}
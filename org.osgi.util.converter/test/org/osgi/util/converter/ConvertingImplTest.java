@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.util.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class ConvertingImplTest {
+	public static class CountingBean {
+		int reads;
+
+		public String getFirst() {
+			reads++;
+			return "first";
+		}
+
+		public void setFirst(String first) {
+			// Not used
+		}
+
+		public String getSecond() {
+			reads++;
+			return "second";
+		}
+
+		public void setSecond(String second) {
+			// Not used
+		}
+	}
+
+	@Test
+	public void testMapViewReadsOnlyAccessedEntries() {
+		CountingBean bean = new CountingBean();
+		Map<String,Object> view = Converters.standardConverter()
+				.convert(bean)
+				.sourceAsBean()
+				.view()
+				.to(new TypeReference<Map<String,Object>>() {});
+		assertThat(view.size()).isEqualTo(2);
+		assertThat(view.containsKey("first")).isTrue();
+		assertThat(view.containsKey("third")).isFalse();
+		assertThat(bean.reads).isEqualTo(0);
+
+		assertThat(view.get("first")).isEqualTo("first");
+		assertThat(view.get("third")).isNull();
+		assertThat(bean.reads).isEqualTo(1);
+
+		assertThat(view).containsOnly(entry("first", "first"),
+				entry("second", "second"));
+	}
+}
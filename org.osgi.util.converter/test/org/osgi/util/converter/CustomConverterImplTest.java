@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.util.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Type;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class CustomConverterImplTest {
+	static class Length implements ConverterFunction {
+		@Override
+		public Object apply(Object obj, Type targetType) {
+			return Integer.valueOf(obj.toString().length());
+		}
+	}
+
+	@Test
+	public void testRuleDispatch() {
+		ConverterBuilder cb = Converters.newConverterBuilder();
+		cb.rule(Integer.class, new Length());
+		CustomConverterImpl converter = (CustomConverterImpl) cb.build();
+
+		assertThat(converter.rules(Integer.class))
+				.isSameAs(converter.rules(int.class));
+		assertThat(converter.rules(Integer.class)).hasSize(
+				converter.typeRules.get(Integer.class).size()
+						+ converter.allRules.size());
+		assertThat(converter.rules(Long.class)).isSameAs(converter.allRules);
+		assertThat(converter.convert("hello").to(int.class)).isEqualTo(5);
+		assertThat(converter.convert("12").to(Long.class)).isEqualTo(12L);
+	}
+
+	@Test
+	public void testBuilderChangesAfterBuild() {
+		ConverterBuilder cb = Converters.newConverterBuilder();
+		Converter converter = cb.build();
+		cb.rule(Integer.class, new Length());
+
+		assertThat(converter.convert("12").to(Integer.class)).isEqualTo(12);
+		assertThat(cb.build().convert("12").to(Integer.class)).isEqualTo(2);
+	}
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.util.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.util.function.Function;
+
+@SuppressWarnings("javadoc")
+public class FunctioningImplTest {
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Config {
+		String name() default "default";
+
+		int port() default 80;
+	}
+
+	@Test
+	public void testPlanForFirstSourceClass() throws Exception {
+		Converter converter = Converters.standardConverter();
+		Function<Object,Config> f = converter.function().to(Config.class);
+
+		Map<String,Object> m = new HashMap<>();
+		m.put("name", "server");
+		m.put("port", "8080");
+		for (int i = 0; i < 3; i++) {
+			Config config = f.apply(m);
+			assertThat(config.name()).isEqualTo("server");
+			assertThat(config.port()).isEqualTo(8080);
+		}
+
+		// Another source class takes the general path
+		Map<String,Object> t = new TreeMap<>(m);
+		t.put("port", Integer.valueOf(9));
+		assertThat(f.apply(t).port()).isEqualTo(9);
+		assertThat(f.apply(m).port()).isEqualTo(8080);
+		assertThat(f.apply(null)).isNull();
+	}
+
+	@Test
+	public void testPlanMatchesGeneralPath() throws Exception {
+		Converter converter = Converters.standardConverter();
+		Function<Object,Integer> f = converter.function().to(int.class);
+		assertThat(f.apply("12")).isEqualTo(12);
+		assertThat(f.apply("7")).isEqualTo(7);
+		assertThat(f.apply(Boolean.TRUE)).isEqualTo(1);
+		assertThat(f.apply(null)).isEqualTo(0);
+
+		Function<Object,List<Integer>> lf = converter.function()
+				.to(new TypeReference<List<Integer>>() {});
+		assertThat(lf.apply(new String[] {
+				"1", "2"
+		})).containsExactly(1, 2);
+		assertThat(lf.apply(new int[] {
+				3
+		})).containsExactly(3);
+		assertThat(lf.apply(Arrays.asList("4"))).containsExactly(4);
+
+		Function<Object,String> sf = converter.function().to(String.class);
+		assertThat(sf.apply(new int[] {
+				7, 8
+		})).isEqualTo("7");
+		assertThat(sf.apply(new int[] {
+				9
+		})).isEqualTo("9");
+	}
+
+	@Test
+	public void testPlanWithCustomRules() throws Exception {
+		ConverterBuilder cb = Converters.newConverterBuilder();
+		cb.rule(new TypeRule<String,Integer>(String.class, Integer.class,
+				new Function<String,Integer>() {
+					@Override
+					public Integer apply(String s) {
+						return Integer.valueOf(s.length());
+					}
+				}));
+		cb.errorHandler(new ConverterFunction() {
+			@Override
+			public Object apply(Object obj, java.lang.reflect.Type targetType) {
+				return Integer.valueOf(-1);
+			}
+		});
+		Converter converter = cb.build();
+
+		Function<Object,Integer> f = converter.function().to(Integer.class);
+		assertThat(f.apply("hello")).isEqualTo(5);
+		assertThat(f.apply("hi")).isEqualTo(2);
+		assertThat(f.apply(Long.valueOf(4))).isEqualTo(4);
+		assertThat(f.apply(new Object())).isEqualTo(-1);
+		assertThat(f.apply(new Object())).isEqualTo(-1);
+	}
+
+	@Test
+	public void testModifiersAreCopied() throws Exception {
+		Functioning functioning = Converters.standardConverter()
+				.function()
+				.defaultValue(Integer.valueOf(5));
+		Function<Object,Integer> f = functioning.to(Integer.class);
+		functioning.defaultValue(Integer.valueOf(6));
+
+		assertThat(f.apply("not a number")).isEqualTo(5);
+		assertThat(f.apply("not a number")).isEqualTo(5);
+		assertThat(f.apply(null)).isEqualTo(5);
+	}
+}
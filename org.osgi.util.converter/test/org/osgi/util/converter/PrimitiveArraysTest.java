@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+package org.osgi.util.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class PrimitiveArraysTest {
+	@Test
+	public void testPrimitiveArrays() {
+		assertThat(PrimitiveArrays.canConvert(int.class, long.class)).isTrue();
+		assertThat(PrimitiveArrays.canConvert(boolean.class, Integer.class))
+				.isTrue();
+		assertThat(PrimitiveArrays.canConvert(int.class, boolean.class))
+				.isFalse();
+		assertThat(PrimitiveArrays.canConvert(char.class, int.class))
+				.isFalse();
+		assertThat(PrimitiveArrays.canConvert(int.class, String.class))
+				.isFalse();
+
+		assertThat((long[]) PrimitiveArrays.toArray(new int[] {
+				1, -2
+		}, long.class)).containsExactly(1L, -2L);
+		assertThat((int[]) PrimitiveArrays.toArray(new double[] {
+				1.9, -2.7
+		}, int.class)).containsExactly(1, -2);
+		assertThat((Integer[]) PrimitiveArrays.toArray(new boolean[] {
+				true, false
+		}, Integer.class)).containsExactly(1, 0);
+
+		List<Object> l = new ArrayList<>();
+		PrimitiveArrays.addAll(new float[] {
+				3.5f
+		}, null, l);
+		PrimitiveArrays.addAll(new short[] {
+				7
+		}, Long.class, l);
+		assertThat(l).containsExactly(3.5f, 7L);
+	}
+
+	@Test
+	public void testPrimitiveArraysWithRules() {
+		Converter c = Converters.standardConverter()
+				.newConverterBuilder()
+				.rule(new Rule<Integer,Long>(i -> i * 10L) {})
+				.rule(new TypeRule<String,Long>(String.class, Long.class,
+						s -> 99L))
+				.build();
+
+		// The rule for Integer sources applies to each element
+		assertThat(c.convert(new int[] {
+				1, 2
+		}).to(long[].class)).containsExactly(10L, 20L);
+		assertThat(c.convert(new int[] {
+				1, 2
+		}).to(new TypeReference<List<Long>>() {})).containsExactly(10L, 20L);
+
+		// No rule applies to Short sources
+		assertThat(c.convert(new short[] {
+				1, 2
+		}).to(long[].class)).containsExactly(1L, 2L);
+		assertThat(Arrays.asList(c.convert(new short[] {
+				1, 2
+		}).to(Long[].class))).containsExactly(1L, 2L);
+	}
+}
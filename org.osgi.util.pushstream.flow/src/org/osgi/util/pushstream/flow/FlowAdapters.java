@@ -0,0 +1,540 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+
+package org.osgi.util.pushstream.flow;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.osgi.util.pushstream.PushEventConsumer.ABORT;
+import static org.osgi.util.pushstream.PushEventConsumer.CONTINUE;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.osgi.util.pushstream.PushEvent;
+import org.osgi.util.pushstream.PushEvent.EventType;
+import org.osgi.util.pushstream.PushEventConsumer;
+import org.osgi.util.pushstream.PushEventSource;
+import org.osgi.util.pushstream.PushStream;
+
+/**
+ * Adapters between Push Streams and {@link Flow}.
+ * <p>
+ * PushStreams express back pressure as a delay, whereas Flow uses demand.
+ * <ul>
+ * <li>A {@link PushStream} adapted to a {@link Flow.Publisher} delivers an
+ * event immediately when the Subscriber has outstanding demand. Otherwise the
+ * event is held in a small buffer, and back pressure is returned to the stream
+ * until the Subscriber requests more. The thread delivering events is never
+ * blocked waiting for demand.</li>
+ * <li>A {@link Flow.Publisher} adapted to a {@link PushEventSource} never has
+ * more than a fixed number of items requested. When the consumer returns back
+ * pressure no further items are requested until the delay has passed.</li>
+ * </ul>
+ *
+ * @ThreadSafe
+ * @author $Id$
+ */
+public final class FlowAdapters {
+
+	/**
+	 * The number of events which a Publisher created by
+	 * {@link #toPublisher(PushStream, Executor)} holds for a Subscriber which
+	 * has no outstanding demand.
+	 */
+	public static final int	BUFFER_SIZE	= 32;
+
+	/**
+	 * The number of items which an event source created by
+	 * {@link #toEventSource(Flow.Publisher)} requests at a time.
+	 */
+	public static final int	PREFETCH	= 32;
+
+	private FlowAdapters() {
+		// Static helpers only
+	}
+
+	/**
+	 * Convert a {@link PushStream} into a {@link Flow.Publisher}, connecting
+	 * the stream using the {@link ForkJoinPool#commonPool()}. This is
+	 * equivalent to:
+	 *
+	 * <pre>
+	 * toPublisher(stream, ForkJoinPool.commonPool());
+	 * </pre>
+	 *
+	 * @param <T> The type of the events in the stream
+	 * @param stream The stream to convert
+	 * @return A {@link Flow.Publisher} for the stream
+	 */
+	public static <T> Flow.Publisher<T> toPublisher(PushStream<T> stream) {
+		return toPublisher(stream, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Convert a {@link PushStream} into a {@link Flow.Publisher}.
+	 * <p>
+	 * The returned Publisher permits a single Subscriber, and connects the
+	 * stream using the supplied executor when that Subscriber subscribes. Any
+	 * further Subscribers are immediately failed with an
+	 * {@link IllegalStateException}. Cancelling the Subscription closes the
+	 * stream.
+	 * <p>
+	 * Events are passed to the Subscriber as soon as it has outstanding
+	 * demand. Up to {@link #BUFFER_SIZE} events which arrive without demand
+	 * are held, and back pressure is returned to the stream while any are
+	 * held. If the stream does not respect the back pressure and the buffer
+	 * overflows then the Subscriber is failed with an
+	 * {@link IllegalStateException} and the stream is closed. A buffer in the
+	 * stream before this adapter turns the back pressure into pushback for the
+	 * event producer.
+	 * <p>
+	 * The completion of the stream is signalled once all held events have
+	 * been delivered. An error is signalled immediately, discarding any held
+	 * events.
+	 *
+	 * @param <T> The type of the events in the stream
+	 * @param stream The stream to convert
+	 * @param executor The executor used to connect the stream
+	 * @return A {@link Flow.Publisher} for the stream
+	 */
+	public static <T> Flow.Publisher<T> toPublisher(PushStream<T> stream,
+			Executor executor) {
+		Objects.requireNonNull(stream);
+		Objects.requireNonNull(executor);
+		AtomicBoolean subscribed = new AtomicBoolean();
+		return subscriber -> {
+			Objects.requireNonNull(subscriber,
+					"The Subscriber must not be null");
+			if (subscribed.compareAndSet(false, true)) {
+				new StreamSubscription<>(stream, subscriber).start(executor);
+			} else {
+				subscriber.onSubscribe(new Flow.Subscription() {
+					@Override
+					public void request(long n) {
+						// Nothing to request
+					}
+
+					@Override
+					public void cancel() {
+						// Nothing to cancel
+					}
+				});
+				subscriber.onError(new IllegalStateException(
+						"This Publisher only supports a single Subscriber"));
+			}
+		};
+	}
+
+	/**
+	 * Convert a {@link Flow.Publisher} into a {@link PushEventSource}. This is
+	 * equivalent to:
+	 *
+	 * <pre>
+	 * toEventSource(publisher, PREFETCH);
+	 * </pre>
+	 *
+	 * @param <T> The type of the items published
+	 * @param publisher The {@link Flow.Publisher} to convert
+	 * @return A {@link PushEventSource} for the publisher
+	 */
+	public static <T> PushEventSource<T> toEventSource(
+			Flow.Publisher< ? extends T> publisher) {
+		return toEventSource(publisher, PREFETCH);
+	}
+
+	/**
+	 * Convert a {@link Flow.Publisher} into a {@link PushEventSource}.
+	 * <p>
+	 * Each call to {@link PushEventSource#open(PushEventConsumer)} subscribes
+	 * to the publisher. No more than {@code prefetch} items are ever
+	 * requested but not yet received, and further items are requested once
+	 * half of them have been received. When the consumer returns back
+	 * pressure no more items are requested until the back pressure time has
+	 * elapsed. If the consumer returns a negative value, or the
+	 * {@link AutoCloseable} returned by the event source is closed, then the
+	 * subscription is cancelled.
+	 *
+	 * @param <T> The type of the items published
+	 * @param publisher The {@link Flow.Publisher} to convert
+	 * @param prefetch The maximum number of outstanding requested items
+	 * @return A {@link PushEventSource} for the publisher
+	 * @throws IllegalArgumentException if prefetch is less than one
+	 */
+	public static <T> PushEventSource<T> toEventSource(
+			Flow.Publisher< ? extends T> publisher, int prefetch) {
+		Objects.requireNonNull(publisher);
+		if (prefetch < 1) {
+			throw new IllegalArgumentException(
+					"The prefetch must be at least one. It was " + prefetch);
+		}
+		return pec -> {
+			PublisherSubscriber<T> subscriber = new PublisherSubscriber<>(pec,
+					prefetch);
+			try {
+				publisher.subscribe(subscriber);
+			} catch (RuntimeException | Error e) {
+				subscriber.close();
+				throw e;
+			}
+			return subscriber::close;
+		};
+	}
+
+	/**
+	 * The Subscription given to a Flow Subscriber of a {@link PushStream}
+	 */
+	private static final class StreamSubscription<T>
+			implements Flow.Subscription, PushEventConsumer<T> {
+
+		private final PushStream<T>					stream;
+
+		private final Flow.Subscriber< ? super T>	subscriber;
+
+		/**
+		 * Held while signalling the subscriber, so that signals are serial
+		 */
+		private final ReentrantLock					lock	= new ReentrantLock();
+
+		private final Queue<T>						pending	= new ArrayDeque<>();
+
+		private PushEvent< ? extends T>				terminal;
+
+		private long								demand;
+
+		private boolean								draining;
+
+		private boolean								done;
+
+		StreamSubscription(PushStream<T> stream,
+				Flow.Subscriber< ? super T> subscriber) {
+			this.stream = stream;
+			this.subscriber = subscriber;
+		}
+
+		void start(Executor executor) {
+			lock.lock();
+			try {
+				subscriber.onSubscribe(this);
+				if (done) {
+					return;
+				}
+			} finally {
+				lock.unlock();
+			}
+			// Streams may deliver events on the connecting thread, but a
+			// Publisher must not do work for the subscriber in subscribe
+			try {
+				executor.execute(() -> stream.forEachEvent(this));
+			} catch (RejectedExecutionException ree) {
+				fail(ree);
+			}
+		}
+
+		@Override
+		public void request(long n) {
+			boolean ok;
+			lock.lock();
+			try {
+				if (done) {
+					return;
+				}
+				if (n <= 0) {
+					fail(new IllegalArgumentException(
+							"The requested demand must be positive. It was "
+									+ n));
+					return;
+				}
+				demand += n;
+				if (demand < 0) {
+					// Overflow, treat as unbounded
+					demand = Long.MAX_VALUE;
+				}
+				ok = drain();
+			} finally {
+				lock.unlock();
+			}
+			if (!ok) {
+				stream.close();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			lock.lock();
+			try {
+				if (done) {
+					return;
+				}
+				done = true;
+				pending.clear();
+			} finally {
+				lock.unlock();
+			}
+			stream.close();
+		}
+
+		@Override
+		public long accept(PushEvent< ? extends T> event) throws Exception {
+			lock.lock();
+			try {
+				if (done) {
+					return ABORT;
+				}
+				if (event.isTerminal()) {
+					if (event.getType() == EventType.ERROR) {
+						done = true;
+						pending.clear();
+						signalError(event.getFailure());
+					} else {
+						terminal = event;
+						drain();
+					}
+					return ABORT;
+				}
+				pending.add(event.getData());
+				if (!drain()) {
+					return ABORT;
+				}
+				int waiting = pending.size();
+				if (waiting > BUFFER_SIZE) {
+					done = true;
+					pending.clear();
+					signalError(new IllegalStateException(
+							"The Subscriber did not request enough events and more than "
+									+ BUFFER_SIZE + " were waiting"));
+					return ABORT;
+				}
+				// Ask for a millisecond of delay for each waiting event
+				return waiting == 0 ? CONTINUE : waiting;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * Deliver waiting events against the outstanding demand. Must be
+		 * called holding the lock.
+		 *
+		 * @return false if the subscriber failed and the stream must close
+		 */
+		private boolean drain() {
+			if (draining) {
+				// The subscriber requested more from onNext, the outer loop
+				// will deliver the events
+				return true;
+			}
+			draining = true;
+			try {
+				while (!done && demand > 0 && !pending.isEmpty()) {
+					if (demand != Long.MAX_VALUE) {
+						demand--;
+					}
+					try {
+						subscriber.onNext(pending.poll());
+					} catch (Throwable t) {
+						// The subscriber broke the Flow contract, treat it as
+						// a cancellation
+						done = true;
+						pending.clear();
+						return false;
+					}
+				}
+				if (!done && terminal != null && pending.isEmpty()) {
+					done = true;
+					try {
+						subscriber.onComplete();
+					} catch (Throwable t) {
+						// The subscriber broke the Flow contract
+					}
+				}
+				return true;
+			} finally {
+				draining = false;
+			}
+		}
+
+		private void fail(Exception e) {
+			lock.lock();
+			try {
+				if (done) {
+					return;
+				}
+				done = true;
+				pending.clear();
+				signalError(e);
+			} finally {
+				lock.unlock();
+			}
+			stream.close();
+		}
+
+		private void signalError(Throwable t) {
+			try {
+				subscriber.onError(t);
+			} catch (Throwable t2) {
+				// The subscriber broke the Flow contract
+			}
+		}
+	}
+
+	/**
+	 * The Flow Subscriber used to feed a {@link PushEventConsumer} from a Flow
+	 * Publisher
+	 */
+	private static final class PublisherSubscriber<T>
+			implements Flow.Subscriber<T> {
+
+		private final PushEventConsumer< ? super T>	pec;
+
+		private final int							prefetch;
+
+		private final AtomicBoolean					terminated	= new AtomicBoolean();
+
+		private Flow.Subscription					subscription;
+
+		private long								outstanding;
+
+		private boolean								paused;
+
+		PublisherSubscriber(PushEventConsumer< ? super T> pec, int prefetch) {
+			this.pec = pec;
+			this.prefetch = prefetch;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription s) {
+			Objects.requireNonNull(s);
+			synchronized (this) {
+				if (subscription == null && !terminated.get()) {
+					subscription = s;
+					outstanding = prefetch;
+					s = null;
+				}
+			}
+			if (s != null) {
+				// Either a second subscription or we are already closed
+				s.cancel();
+				return;
+			}
+			subscription.request(prefetch);
+		}
+
+		@Override
+		public void onNext(T item) {
+			Objects.requireNonNull(item);
+			if (terminated.get()) {
+				return;
+			}
+			long backPressure;
+			try {
+				backPressure = pec.accept(PushEvent.data(item));
+			} catch (Exception e) {
+				terminate(PushEvent.error(e), true);
+				return;
+			}
+			if (backPressure < 0) {
+				terminate(PushEvent.close(), true);
+				return;
+			}
+			synchronized (this) {
+				outstanding--;
+				if (backPressure > 0) {
+					if (paused) {
+						return;
+					}
+					paused = true;
+				}
+			}
+			if (backPressure > 0) {
+				CompletableFuture.delayedExecutor(backPressure, MILLISECONDS)
+						.execute(this::resume);
+			} else {
+				replenish();
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			terminate(PushEvent.error(Objects.requireNonNull(t)), false);
+		}
+
+		@Override
+		public void onComplete() {
+			terminate(PushEvent.close(), false);
+		}
+
+		private void resume() {
+			synchronized (this) {
+				paused = false;
+			}
+			replenish();
+		}
+
+		private void replenish() {
+			long toRequest;
+			synchronized (this) {
+				if (paused || outstanding > prefetch / 2) {
+					return;
+				}
+				toRequest = prefetch - outstanding;
+				outstanding = prefetch;
+			}
+			if (!terminated.get()) {
+				try {
+					subscription.request(toRequest);
+				} catch (Throwable t) {
+					terminate(PushEvent.error(t), true);
+				}
+			}
+		}
+
+		void close() {
+			terminate(PushEvent.close(), true);
+		}
+
+		private void terminate(PushEvent<T> event, boolean cancel) {
+			if (!terminated.compareAndSet(false, true)) {
+				return;
+			}
+			Flow.Subscription s;
+			synchronized (this) {
+				s = subscription;
+			}
+			if (cancel && s != null) {
+				try {
+					s.cancel();
+				} catch (Throwable t) {
+					// The publisher broke the Flow contract
+				}
+			}
+			try {
+				pec.accept(event);
+			} catch (Exception e) {
+				// Nothing more can be done with a terminal event
+			}
+		}
+	}
+}
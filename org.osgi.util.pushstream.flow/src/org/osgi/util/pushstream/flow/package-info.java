@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0 
+ *******************************************************************************/
+
+/**
+ * Push Stream Flow Adapters Package Version 1.0.
+ * <p>
+ * Adapters between Push Streams and the {@code java.util.concurrent.Flow}
+ * interfaces. This package requires Java 9 or later.
+ * <p>
+ * Bundles wishing to use this package must list the package in the
+ * Import-Package header of the bundle's manifest.
+ * <p>
+ * Example import for consumers using the API in this package:
+ * <p>
+ * {@code Import-Package: org.osgi.util.pushstream.flow; version="[1.0,2.0)"}
+ * 
+ * @author $Id$
+ */
+
+@Version("1.0.0")
+package org.osgi.util.pushstream.flow;
+
+import org.osgi.annotation.versioning.Version;
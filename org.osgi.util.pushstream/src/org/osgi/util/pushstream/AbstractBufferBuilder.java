@@ -29,6 +29,8 @@ abstract class AbstractBufferBuilder<R, T, U extends BlockingQueue<PushEvent< ?
 	protected ScheduledExecutorService	timer;
 	protected int						concurrency;
 	protected PushbackPolicy<T,U>		backPressure;
+	private PushbackPolicyOption		backPressureOption;
+	private long						backPressureTime;
 	protected QueuePolicy<T,U>			bufferingPolicy;
 	protected U							buffer;
 
@@ -56,16 +58,31 @@ abstract class AbstractBufferBuilder<R, T, U extends BlockingQueue<PushEvent< ?
 	public BufferBuilder<R,T,U> withPushbackPolicy(
 			PushbackPolicy<T,U> pushbackPolicy) {
 		this.backPressure = pushbackPolicy;
+		this.backPressureOption = null;
 		return this;
 	}
 
 	@Override
 	public BufferBuilder<R,T,U> withPushbackPolicy(
 			PushbackPolicyOption pushbackPolicyOption, long time) {
-		this.backPressure = pushbackPolicyOption.getPolicy(time);
+		this.backPressure = null;
+		this.backPressureOption = pushbackPolicyOption;
+		this.backPressureTime = time;
 		return this;
 	}
 
+	/**
+	 * Get the pushback policy for a stream that is being built. A policy
+	 * chosen by option is created for each stream, as the policy may keep
+	 * state about the buffer it is used with.
+	 * 
+	 * @return the pushback policy, or {@code null} if none was set
+	 */
+	protected PushbackPolicy<T,U> pushbackPolicy() {
+		return backPressureOption == null ? backPressure
+				: backPressureOption.getPolicy(backPressureTime);
+	}
+
 	@Override
 	public BufferBuilder<R,T,U> withParallelism(int parallelism) {
 		this.concurrency = parallelism;
@@ -95,6 +95,12 @@ abstract class AbstractPushStreamImpl<T> implements PushStream<T> {
 	protected final AtomicReference<Runnable> onCloseCallback = new AtomicReference<>();
 	protected final AtomicReference<Consumer<? super Throwable>> onErrorCallback = new AtomicReference<>();
 
+	/**
+	 * The metrics for this stage, or null if the stream is not instrumented.
+	 * This is only set while the stream is being built.
+	 */
+	StageMetrics													metrics;
+
 	protected abstract boolean begin();
 	
 	protected abstract void upstreamClose(PushEvent< ? > close);
@@ -117,8 +123,12 @@ abstract class AbstractPushStreamImpl<T> implements PushStream<T> {
 					if(consumer == null) {
 						//TODO log a warning
 						val = CONTINUE;
+					} else if (metrics == null) {
+						val = consumer.accept(event);
 					} else {
+						long start = System.nanoTime();
 						val = consumer.accept(event);
+						metrics.delivered(System.nanoTime() - start, val);
 					}
 					if(val < 0) {
 						close();
@@ -150,6 +160,9 @@ abstract class AbstractPushStreamImpl<T> implements PushStream<T> {
 			throw new IllegalArgumentException("The event " + event  + " is not a close event.");
 		}
 		if(closed.getAndSet(CLOSED) != CLOSED) {
+			if (metrics != null) {
+				metrics.terminated(event.getType());
+			}
 			PushEventConsumer<T> aec = next.getAndSet(null);
 			if (sendDownStreamEvent && aec != null) {
 				try {
@@ -275,12 +288,12 @@ abstract class AbstractPushStreamImpl<T> implements PushStream<T> {
 		updateNext(event -> {
 			try {
 				if (event.isTerminal()) {
-					s.acquire(n);
+					FairExecutor.managedBlock(() -> s.acquire(n));
 					eventStream.close(event.nodata());
 					return ABORT;
 				}
 
-				s.acquire(1);
+				FairExecutor.managedBlock(() -> s.acquire(1));
 
 				Promise< ? extends R> p = mapper.apply(event.getData());
 				p.thenAccept(d -> promiseFactory.executor().execute(() -> {
@@ -545,12 +558,12 @@ abstract class AbstractPushStreamImpl<T> implements PushStream<T> {
 		updateNext(event -> {
 			try {
 				if (event.isTerminal()) {
-					s.acquire(n);
+					FairExecutor.managedBlock(() -> s.acquire(n));
 					eventStream.close(event.nodata());
 					return ABORT;
 				}
 	
-				s.acquire(1);
+				FairExecutor.managedBlock(() -> s.acquire(1));
 	
 				ex.execute(() -> {
 					try {
@@ -584,18 +597,20 @@ abstract class AbstractPushStreamImpl<T> implements PushStream<T> {
 	
 	@Override
 	public PushStream<T> buffer() {
-		return psp.createStream(c -> {
-			forEachEvent(c);
-			return this;
-		});
+		return buildBuffer().build();
 	}
 
 	@Override
 	public <U extends BlockingQueue<PushEvent< ? extends T>>> PushStreamBuilder<T,U> buildBuffer() {
-		return psp.buildStream(c -> {
-			forEachEvent(c);
-			return this;
-		});
+		PushStreamBuilderImpl<T,U> builder = (PushStreamBuilderImpl<T,U>) psp
+				.<T, U> buildStream(c -> {
+					forEachEvent(c);
+					return this;
+				});
+		if (metrics != null) {
+			builder.withMetrics(metrics.child());
+		}
+		return builder;
 	}
 
 	@Override
@@ -700,6 +715,9 @@ abstract class AbstractPushStreamImpl<T> implements PushStream<T> {
 				source.close();
 			}
 		};
+		if (metrics != null) {
+			eventStream.metrics = metrics.child();
+		}
 		
 
 		return eventStream.onClose(() -> {
@@ -777,6 +795,75 @@ abstract class AbstractPushStreamImpl<T> implements PushStream<T> {
 		return Arrays.copyOf(rsult, tests.length);
 	}
 
+	@Override
+	public PushStream<T>[] partition(Function< ? super T, ? > keyFunction,
+			int n) {
+		if (n < 1) {
+			throw new IllegalArgumentException(
+					"The number of partitions must be at least one. It was "
+							+ n);
+		}
+		Objects.requireNonNull(keyFunction);
+		return partition(keyFunction, n, psp.acquireWorker(n),
+				psp::releaseWorker);
+	}
+
+	@Override
+	public PushStream<T>[] partition(Function< ? super T, ? > keyFunction,
+			int n, Executor ex) {
+		if (n < 1) {
+			throw new IllegalArgumentException(
+					"The number of partitions must be at least one. It was "
+							+ n);
+		}
+		Objects.requireNonNull(keyFunction);
+		return partition(keyFunction, n, Objects.requireNonNull(ex), () -> {
+			// Nothing to release
+		});
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private PushStream<T>[] partition(Function< ? super T, ? > keyFunction,
+			int n, Executor ex, Runnable onAllClosed) {
+		PromiseFactory pf = new PromiseFactory(ex,
+				promiseFactory.scheduledExecutor());
+		AtomicInteger open = new AtomicInteger(n);
+		AbstractPushStreamImpl<T>[] rsult = new AbstractPushStreamImpl[n];
+		Partition<T>[] partitions = new Partition[n];
+		for (int i = 0; i < n; i++) {
+			rsult[i] = new IntermediatePushStreamImpl<T>(psp, pf, this) {
+				@Override
+				protected boolean close(PushEvent<T> event,
+						boolean sendDownStreamEvent) {
+					if (super.close(event, sendDownStreamEvent)) {
+						if (open.decrementAndGet() == 0) {
+							onAllClosed.run();
+						}
+						return true;
+					}
+					return false;
+				}
+			};
+			partitions[i] = new Partition<>(rsult[i], pf);
+		}
+
+		updateNext(event -> {
+			if (event.isTerminal()) {
+				for (Partition<T> p : partitions) {
+					p.offer(event.nodata());
+				}
+				return ABORT;
+			}
+			int hash = Objects.hashCode(keyFunction.apply(event.getData()));
+			long delay = partitions[Math.floorMod(hash, n)].offer(event);
+			if (open.get() == 0) {
+				return ABORT;
+			}
+			return delay < 0 ? CONTINUE : delay;
+		});
+		return Arrays.copyOf(rsult, n);
+	}
+
 	@Override
 	public PushStream<T> sequential() {
 		AbstractPushStreamImpl<T> eventStream = new IntermediatePushStreamImpl<>(
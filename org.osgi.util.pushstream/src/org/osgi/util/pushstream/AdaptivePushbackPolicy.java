@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+
+package org.osgi.util.pushstream;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The {@link PushbackPolicyOption#ADAPTIVE} policy.
+ * <p>
+ * The policy is called once for each event added to the queue, so the change
+ * in queue size between calls tells us how many events the consumer removed,
+ * and so how long the consumer takes to process each one. The delay applied to
+ * the producer is then chosen to keep the expected time an event spends in the
+ * queue at the target latency:
+ * <ul>
+ * <li>At the target latency the producer is slowed to the consumer's
+ * rate.</li>
+ * <li>Below it the producer is slowed less, so the queue grows.</li>
+ * <li>Above it the producer is slowed more, so the queue shrinks.</li>
+ * </ul>
+ * Delays of less than a millisecond are accumulated and returned once they
+ * add up to a whole millisecond, so that fast consumers are still tracked
+ * smoothly.
+ */
+final class AdaptivePushbackPolicy<T, U extends BlockingQueue<PushEvent< ? extends T>>>
+		implements PushbackPolicy<T,U> {
+
+	/**
+	 * The weight given to each new sample is 1 / 2^SMOOTHING
+	 */
+	private static final int	SMOOTHING	= 3;
+
+	private final long			targetNanos;
+
+	private final long			maxDelayNanos;
+
+	private int					lastSize;
+
+	private long				lastTime	= System.nanoTime();
+
+	private long				serviceNanos;
+
+	private long				delayNanos;
+
+	private long				carryNanos;
+
+	AdaptivePushbackPolicy(long targetMillis) {
+		if (targetMillis <= 0) {
+			throw new IllegalArgumentException(
+					"The target latency must be greater than zero. It was "
+							+ targetMillis);
+		}
+		this.targetNanos = MILLISECONDS.toNanos(targetMillis);
+		this.maxDelayNanos = 4 * targetNanos;
+	}
+
+	@Override
+	public synchronized long pushback(U queue) throws Exception {
+		long now = System.nanoTime();
+		int size = queue.size();
+
+		// One event was added since the last call, so anything more than that
+		// which has left the queue was taken by the consumer
+		long drained = lastSize + 1L - size;
+		if (drained > 0 && size > 0) {
+			// The queue never emptied, so the consumer was busy throughout
+			long sample = (now - lastTime) / drained;
+			serviceNanos = serviceNanos == 0 ? sample
+					: serviceNanos + ((sample - serviceNanos) >> SMOOTHING);
+		}
+		lastSize = size;
+		lastTime = now;
+
+		long target;
+		if (serviceNanos == 0) {
+			// No measurements yet, only push back if we are full
+			target = queue.remainingCapacity() == 0 ? targetNanos : 0;
+		} else {
+			double waitRatio = (double) (size * serviceNanos) / targetNanos;
+			target = Math.min(maxDelayNanos,
+					(long) (serviceNanos * waitRatio));
+		}
+		delayNanos += (target - delayNanos) >> SMOOTHING;
+		if (target == 0 && delayNanos < serviceNanos) {
+			// Don't creep towards zero for ever once the queue is empty
+			delayNanos = 0;
+		}
+
+		carryNanos += delayNanos;
+		long millis = NANOSECONDS.toMillis(carryNanos);
+		carryNanos -= MILLISECONDS.toNanos(millis);
+		return millis;
+	}
+}
@@ -25,6 +25,7 @@ import static org.osgi.util.pushstream.PushEventConsumer.ABORT;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
 import org.osgi.util.promise.PromiseFactory;
@@ -49,6 +50,20 @@ class BufferedPushStreamImpl<T, U extends BlockingQueue<PushEvent< ? extends T>>
 
 	private final int					parallelism;
 
+	/**
+	 * A terminal event waiting for the other workers to finish. Workers do
+	 * not block waiting for each other, the last one to release its permit
+	 * delivers the event.
+	 */
+	private final AtomicReference<PushEvent< ? extends T>>	pendingTerminal	= new AtomicReference<>();
+
+	/**
+	 * The maximum number of events delivered by a worker before it gives its
+	 * thread back to the executor, allowing other work sharing the executor to
+	 * make progress
+	 */
+	private static final int			MAX_EVENTS_PER_WORKER	= 64;
+
 	BufferedPushStreamImpl(PushStreamProvider psp,
 			PromiseFactory promiseFactory, U eventQueue, int parallelism,
 			QueuePolicy<T,U> queuePolicy,
@@ -72,8 +87,11 @@ class BufferedPushStreamImpl<T, U extends BlockingQueue<PushEvent< ? extends T>>
 		}
 
 		try {
-			queuePolicy.doOffer(eventQueue, event);
-			long backPressure = pushbackPolicy.pushback(eventQueue);
+			// Terminal events are not counted as offers, matching the
+			// event count of the stage
+			long backPressure = metrics == null || event.isTerminal()
+					? offer(event)
+					: instrumentedOffer(event);
 			if(backPressure < 0) {
 				close();
 				return ABORT;
@@ -88,14 +106,51 @@ class BufferedPushStreamImpl<T, U extends BlockingQueue<PushEvent< ? extends T>>
 		}
 	}
 
+	@Override
+	protected boolean close(PushEvent<T> event, boolean sendDownStreamEvent) {
+		if (super.close(event, sendDownStreamEvent)) {
+			if (eventQueue instanceof SpillingBlockingQueue) {
+				// Release the spill files now rather than when collected
+				((SpillingBlockingQueue< ? >) eventQueue).close();
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private long offer(PushEvent< ? extends T> event) throws Exception {
+		queuePolicy.doOffer(eventQueue, event);
+		return pushbackPolicy.pushback(eventQueue);
+	}
+
+	private long instrumentedOffer(PushEvent< ? extends T> event)
+			throws Exception {
+		long start = System.nanoTime();
+		try {
+			queuePolicy.doOffer(eventQueue, event);
+		} catch (Exception e) {
+			metrics.offerFailed();
+			throw e;
+		}
+		metrics.offered(System.nanoTime() - start, eventQueue.size());
+		long backPressure = pushbackPolicy.pushback(eventQueue);
+		metrics.pushback(backPressure);
+		return backPressure;
+	}
+
 	private void startWorker() {
 		promiseFactory.executor().execute(() -> {
 			try {
 				PushEvent< ? extends T> event;
+				int delivered = 0;
 				while ((event = eventQueue.poll()) != null) {
-					if (event.isTerminal()) {
-						// Wait for the other threads to finish
-						semaphore.acquire(parallelism - 1);
+					if (event.isTerminal()
+							&& !semaphore.tryAcquire(parallelism - 1)) {
+						// Other threads are still delivering events
+						pendingTerminal.set(event);
+						semaphore.release();
+						deliverPendingTerminal();
+						return;
 					}
 
 					long backpressure = super.handleEvent(event);
@@ -107,10 +162,16 @@ class BufferedPushStreamImpl<T, U extends BlockingQueue<PushEvent< ? extends T>>
 								this::startWorker, backpressure,
 								MILLISECONDS);
 						return;
+					} else if (++delivered == MAX_EVENTS_PER_WORKER
+							&& eventQueue.peek() != null) {
+						// Keep our permit, but let other work run first
+						startWorker();
+						return;
 					}
 				}
 				// Only release this now the queue is empty
 				semaphore.release();
+				deliverPendingTerminal();
 			} catch (Exception e) {
 				close(PushEvent.error(e));
 			}
@@ -124,4 +185,17 @@ class BufferedPushStreamImpl<T, U extends BlockingQueue<PushEvent< ? extends T>>
 		});
 		
 	}
+
+	private void deliverPendingTerminal() {
+		if (pendingTerminal.get() == null
+				|| !semaphore.tryAcquire(parallelism)) {
+			return;
+		}
+		PushEvent< ? extends T> event = pendingTerminal.getAndSet(null);
+		if (event == null) {
+			semaphore.release(parallelism);
+		} else if (super.handleEvent(event) < 0) {
+			close();
+		}
+	}
 }
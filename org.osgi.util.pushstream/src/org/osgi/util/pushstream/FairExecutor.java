@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+
+package org.osgi.util.pushstream;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A per-stream view of the {@link PushStreamProvider} shared worker pool.
+ * <p>
+ * At most {@code maxInFlight} tasks from this executor run on the shared pool
+ * at any one time, the remainder wait in a local queue. This gives each stream
+ * the same concurrency that it would have had with a dedicated fixed size
+ * thread pool, without each stream owning threads.
+ * <p>
+ * A worker keeps running tasks from the local queue while the shared pool has
+ * nothing else waiting, and yields its thread back to the shared pool as soon
+ * as another stream's work is queued.
+ * <p>
+ * Tasks must not block the shared pool. Code that has to wait, for example
+ * to offer an event to a full buffer, does so through
+ * {@link #managedBlock(Blocker)}, which lets the shared pool start another
+ * thread while the current one is blocked.
+ */
+final class FairExecutor implements Executor {
+
+	/**
+	 * An action which may block the calling thread
+	 */
+	interface Blocker {
+		void block() throws InterruptedException;
+	}
+
+	/**
+	 * The shared pool running the current thread, if any
+	 */
+	private static final ThreadLocal<ThreadPoolExecutor>	currentPool	= new ThreadLocal<>();
+
+	private final ThreadPoolExecutor	shared;
+
+	private final int					maxInFlight;
+
+	private final Queue<Runnable>		pending		= new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger			inFlight	= new AtomicInteger();
+
+	FairExecutor(ThreadPoolExecutor shared, int maxInFlight) {
+		this.shared = shared;
+		this.maxInFlight = maxInFlight;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		pending.offer(Objects.requireNonNull(task));
+		try {
+			schedule();
+		} catch (RejectedExecutionException ree) {
+			pending.remove(task);
+			throw ree;
+		}
+	}
+
+	private void schedule() {
+		for (;;) {
+			int current = inFlight.get();
+			if (current >= maxInFlight || pending.isEmpty()) {
+				return;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				try {
+					shared.execute(this::runPending);
+				} catch (RejectedExecutionException ree) {
+					inFlight.decrementAndGet();
+					throw ree;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Run a blocking action. If the current thread belongs to a shared pool
+	 * then the pool may start an extra thread until the action completes, so
+	 * that blocked threads cannot starve the pool of the work that would
+	 * unblock them.
+	 * 
+	 * @param blocker the blocking action
+	 * @throws InterruptedException if the action was interrupted
+	 */
+	static void managedBlock(Blocker blocker) throws InterruptedException {
+		ThreadPoolExecutor pool = currentPool.get();
+		if (pool == null) {
+			blocker.block();
+			return;
+		}
+		resize(pool, 1);
+		try {
+			blocker.block();
+		} finally {
+			resize(pool, -1);
+		}
+	}
+
+	private static void resize(ThreadPoolExecutor pool, int delta) {
+		// The core size may never exceed the maximum size
+		synchronized (pool) {
+			if (delta > 0) {
+				pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+				pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+			} else {
+				pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+				pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+			}
+		}
+	}
+
+	private void runPending() {
+		currentPool.set(shared);
+		try {
+			Runnable task;
+			while ((task = pending.poll()) != null) {
+				task.run();
+				if (!shared.getQueue().isEmpty()) {
+					// Another stream is waiting for a thread
+					break;
+				}
+			}
+		} finally {
+			currentPool.remove();
+			inFlight.decrementAndGet();
+			try {
+				schedule();
+			} catch (RejectedExecutionException ree) {
+				// The shared pool has been shut down because every stream
+				// using it has been closed, so there is nobody left to run
+				// the remaining tasks for
+			}
+		}
+	}
+}
@@ -34,6 +34,9 @@ class IntermediatePushStreamImpl<T> extends AbstractPushStreamImpl<T>
 			AbstractPushStreamImpl< ? > previous) {
 		super(psp, promiseFactory);
 		this.previous = previous;
+		if (previous.metrics != null) {
+			this.metrics = previous.metrics.child();
+		}
 	}
 
 	@Override
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+
+package org.osgi.util.pushstream;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.osgi.util.pushstream.AbstractPushStreamImpl.State.CLOSED;
+import static org.osgi.util.pushstream.PushEventConsumer.ABORT;
+import static org.osgi.util.pushstream.PushEventConsumer.CONTINUE;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.osgi.util.promise.PromiseFactory;
+
+/**
+ * One of the ordered streams created by
+ * {@link PushStream#partition(org.osgi.util.function.Function, int, java.util.concurrent.Executor)}.
+ * <p>
+ * Events are queued and delivered to the stream by at most one task at a
+ * time, which keeps them in order, while separate partitions run in parallel.
+ * The queue is bounded, and a thread adding an event to a full partition
+ * blocks until the partition has made room or has closed.
+ */
+final class Partition<T> {
+
+	/**
+	 * The number of events that may be waiting in a partition
+	 */
+	static final int								CAPACITY	= 32;
+
+	private final AbstractPushStreamImpl<T>			stream;
+
+	private final PromiseFactory					promiseFactory;
+
+	private final BlockingQueue<PushEvent< ? extends T>>	queue		= new ArrayBlockingQueue<>(
+			CAPACITY);
+
+	private final AtomicBoolean						scheduled	= new AtomicBoolean();
+
+	private volatile long							pausedUntil	= System
+			.nanoTime();
+
+	Partition(AbstractPushStreamImpl<T> stream, PromiseFactory promiseFactory) {
+		this.stream = stream;
+		this.promiseFactory = promiseFactory;
+	}
+
+	boolean isOpen() {
+		return stream.closed.get() != CLOSED;
+	}
+
+	/**
+	 * Add an event to this partition
+	 *
+	 * @return the back pressure to apply upstream
+	 */
+	long offer(PushEvent< ? extends T> event) {
+		if (!isOpen()) {
+			return ABORT;
+		}
+		if (!queue.offer(event)) {
+			try {
+				FairExecutor.managedBlock(() -> {
+					// Check periodically so that a partition which closes
+					// while we wait does not leave us blocked
+					while (!queue.offer(event, 10, MILLISECONDS)) {
+						if (!isOpen()) {
+							return;
+						}
+					}
+				});
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				stream.close(PushEvent.error(e));
+				return ABORT;
+			}
+			if (!isOpen()) {
+				return ABORT;
+			}
+		}
+		schedule();
+
+		long toWait = pausedUntil - System.nanoTime();
+		return toWait > 0 ? NANOSECONDS.toMillis(toWait) : CONTINUE;
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) {
+			try {
+				promiseFactory.executor().execute(this::deliver);
+			} catch (Exception e) {
+				queue.clear();
+				stream.close(PushEvent.error(e));
+			}
+		}
+	}
+
+	private void deliver() {
+		PushEvent< ? extends T> event;
+		while ((event = queue.poll()) != null) {
+			long backPressure = stream.handleEvent(event);
+			if (backPressure < 0 || event.isTerminal()) {
+				// This partition is finished, leave it scheduled so that
+				// no further deliveries are attempted
+				queue.clear();
+				return;
+			} else if (backPressure > 0) {
+				pausedUntil = System.nanoTime()
+						+ MILLISECONDS.toNanos(backPressure);
+				promiseFactory.scheduledExecutor()
+						.schedule(() -> promiseFactory.executor()
+								.execute(this::deliver), backPressure,
+								MILLISECONDS);
+				return;
+			}
+		}
+		scheduled.set(false);
+		if (queue.peek() != null) {
+			schedule();
+		}
+	}
+}
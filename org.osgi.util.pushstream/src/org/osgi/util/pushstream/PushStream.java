@@ -302,6 +302,60 @@ public interface PushStream<T> extends AutoCloseable {
 	@SuppressWarnings("unchecked")
 	PushStream<T>[] split(Predicate< ? super T>... predicates);
 
+	/**
+	 * Partition the events into n ordered streams based on a key. Every event
+	 * with the same key, as determined by the key's {@code hashCode} and
+	 * {@code equals}, is delivered to the same stream, and events for that
+	 * stream are delivered in the order that they were received. The streams
+	 * are processed in parallel with one another, using the worker pool of the
+	 * {@link PushStreamProvider} that created this stream.
+	 * <p>
+	 * This is equivalent to calling
+	 * {@link #partition(Function, int, Executor)} with an executor which runs
+	 * up to n tasks at once on the worker pool of the
+	 * {@link PushStreamProvider}.
+	 * 
+	 * @param keyFunction the function used to compute the key for an event
+	 * @param n the number of streams to partition the events into
+	 * @return n streams which together receive all of the events
+	 * @throws IllegalArgumentException if n is &lt; 1
+	 * @throws NullPointerException if the key function is null
+	 * @since 1.1
+	 */
+	PushStream<T>[] partition(Function< ? super T, ? > keyFunction, int n);
+
+	/**
+	 * Partition the events into n ordered streams based on a key. Every event
+	 * with the same key, as determined by the key's {@code hashCode} and
+	 * {@code equals}, is delivered to the same stream, and events for that
+	 * stream are delivered in the order that they were received. The streams
+	 * are processed in parallel with one another using the supplied executor.
+	 * <p>
+	 * This method differs from other methods of PushStream in the same ways as
+	 * {@link #split(Predicate...)}:
+	 * <ul>
+	 * <li>The return value contains multiple streams.</li>
+	 * <li>This stream will only close when all of these child streams have
+	 * closed.</li>
+	 * <li>Events for a key whose stream has closed are discarded.</li>
+	 * </ul>
+	 * Back pressure returned by a child stream delays further delivery to that
+	 * stream, and is passed upstream each time another event is added to it.
+	 * Each child stream holds a limited number of waiting events. When that
+	 * limit is reached, the thread delivering events to this stream blocks
+	 * until the child stream has room or has closed.
+	 * 
+	 * @param keyFunction the function used to compute the key for an event
+	 * @param n the number of streams to partition the events into
+	 * @param e an executor to use for the background threads.
+	 * @return n streams which together receive all of the events
+	 * @throws IllegalArgumentException if n is &lt; 1
+	 * @throws NullPointerException if the key function or Executor is null
+	 * @since 1.1
+	 */
+	PushStream<T>[] partition(Function< ? super T, ? > keyFunction, int n,
+			Executor e);
+
 	/**
 	 * Ensure that any events are delivered sequentially. That is, no
 	 * overlapping calls downstream. This can be used to turn a forked stream
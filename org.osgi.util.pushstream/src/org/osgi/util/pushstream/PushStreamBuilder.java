@@ -56,6 +56,21 @@ public interface PushStreamBuilder<T, U extends BlockingQueue<PushEvent< ? exten
 	 */
 	PushStreamBuilder<T,U> unbuffered();
 
+	/**
+	 * Instrument the stream created by this builder, and all of the streams
+	 * derived from it, recording their activity in the supplied
+	 * {@link PushStreamMetrics}.
+	 * <p>
+	 * Streams are not instrumented unless this method is called.
+	 * 
+	 * @param metrics The metrics in which to record the stream activity
+	 * @param name The name used to report the first stage of the stream
+	 * @return the builder
+	 * @since 1.1
+	 */
+	PushStreamBuilder<T,U> withMetrics(PushStreamMetrics metrics,
+			String name);
+
 	/*
 	 * Overridden methods to allow the covariant return of a PushStreamBuilder
 	 */
@@ -18,6 +18,7 @@
 
 package org.osgi.util.pushstream;
 
+import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
@@ -33,6 +34,8 @@ class PushStreamBuilderImpl<T, U extends BlockingQueue<PushEvent< ? extends T>>>
 
 	private boolean							unbuffered;
 
+	private StageMetrics					metrics;
+
 	PushStreamBuilderImpl(PushStreamProvider psp, Executor defaultExecutor,
 			ScheduledExecutorService defaultScheduler, PushEventSource<T> eventSource) {
 		this.psp = psp;
@@ -102,6 +105,19 @@ class PushStreamBuilderImpl<T, U extends BlockingQueue<PushEvent< ? extends T>>>
 		return this;
 	}
 
+	@Override
+	public PushStreamBuilder<T,U> withMetrics(PushStreamMetrics metrics,
+			String name) {
+		return withMetrics(
+				Objects.requireNonNull(metrics).register(
+						Objects.requireNonNull(name), 0));
+	}
+
+	PushStreamBuilder<T,U> withMetrics(StageMetrics stage) {
+		this.metrics = stage;
+		return this;
+	}
+
 	@Override
 	public PushStream<T> build() {
 		Executor workerToUse = worker == null ? previousExecutor : worker;
@@ -110,11 +126,11 @@ class PushStreamBuilderImpl<T, U extends BlockingQueue<PushEvent< ? extends T>>>
 
 		if (unbuffered) {
 			return psp.createUnbufferedStream(eventSource, workerToUse,
-					timerToUse);
+					timerToUse, metrics);
 		} else {
 			return psp.createStream(eventSource, concurrency, workerToUse,
 					timerToUse, buffer,
-					bufferingPolicy, backPressure);
+					bufferingPolicy, pushbackPolicy(), metrics);
 		}
 	}
 }
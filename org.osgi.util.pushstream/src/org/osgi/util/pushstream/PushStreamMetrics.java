@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+
+package org.osgi.util.pushstream;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.osgi.util.pushstream.PushEvent.EventType;
+
+/**
+ * A collector of per-stage statistics for instrumented {@link PushStream}s.
+ * <p>
+ * Instrumentation is opt-in. A stream is instrumented by passing a
+ * {@link PushStreamMetrics} to {@link PushStreamBuilder#withMetrics}, after
+ * which the stream and every stream derived from it record their activity.
+ * Streams which are not instrumented record nothing.
+ * <p>
+ * The first stage of an instrumented pipeline is reported using the name
+ * supplied to the builder. Each subsequent stage is reported as
+ * {@code name/depth}, where depth is the number of stages between it and the
+ * first stage. If more than one stage has the same name, for example after a
+ * {@link PushStream#split(java.util.function.Predicate...)}, then a
+ * {@code #n} suffix is added to make the name unique.
+ *
+ * @ThreadSafe
+ * @since 1.1
+ */
+public final class PushStreamMetrics {
+
+	private final Map<String,StageMetrics> stages = new LinkedHashMap<>();
+
+	/**
+	 * Create an empty {@link PushStreamMetrics}
+	 */
+	public PushStreamMetrics() {}
+
+	StageMetrics register(String pipeline, int depth) {
+		String base = depth == 0 ? pipeline : pipeline + "/" + depth;
+		synchronized (stages) {
+			String name = base;
+			for (int i = 2; stages.containsKey(name); i++) {
+				name = base + "#" + i;
+			}
+			StageMetrics stage = new StageMetrics(this, pipeline, depth,
+					name);
+			stages.put(name, stage);
+			return stage;
+		}
+	}
+
+	/**
+	 * Take a snapshot of the current statistics for every stage known to this
+	 * {@link PushStreamMetrics}, in the order that the stages were created.
+	 *
+	 * @return An immutable snapshot of each stage
+	 */
+	public List<StageSnapshot> snapshot() {
+		List<StageMetrics> toSnapshot;
+		synchronized (stages) {
+			toSnapshot = new ArrayList<>(stages.values());
+		}
+		List<StageSnapshot> result = new ArrayList<>(toSnapshot.size());
+		for (StageMetrics stage : toSnapshot) {
+			result.add(stage.snapshot());
+		}
+		return result;
+	}
+
+	/**
+	 * Stop reporting stages which have received a terminal event. Exporters
+	 * can call this after taking a {@link #snapshot()} so that the statistics
+	 * from short lived streams do not accumulate.
+	 */
+	public void removeTerminated() {
+		synchronized (stages) {
+			for (Iterator<StageMetrics> it = stages.values().iterator(); it
+					.hasNext();) {
+				if (it.next().isTerminated()) {
+					it.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The statistics for a single stage of a {@link PushStream} at the time
+	 * that a {@link PushStreamMetrics#snapshot()} was taken.
+	 * <p>
+	 * Times are reported in nanoseconds, and back pressure and pushback values
+	 * in the units that they were returned by the stream, which is
+	 * milliseconds.
+	 *
+	 * @Immutable
+	 */
+	public static final class StageSnapshot {
+		private final String	name;
+		private final EventType	terminatedBy;
+		private final long		events;
+		private final long		consumerNanos;
+		private final long		backPressureEvents;
+		private final long		backPressureTotal;
+		private final long		maxBackPressure;
+		private final boolean	buffered;
+		private final int		bufferDepth;
+		private final int		bufferRemainingCapacity;
+		private final long		maxBufferDepth;
+		private final long		offers;
+		private final long		offerNanos;
+		private final long		offerFailures;
+		private final long		pushbackEvents;
+		private final long		pushbackTotal;
+		private final long		maxPushback;
+
+		StageSnapshot(String name, EventType terminatedBy, long events,
+				long consumerNanos, long backPressureEvents,
+				long backPressureTotal, long maxBackPressure, boolean buffered,
+				int bufferDepth, int bufferRemainingCapacity,
+				long maxBufferDepth, long offers, long offerNanos,
+				long offerFailures, long pushbackEvents, long pushbackTotal,
+				long maxPushback) {
+			this.name = Objects.requireNonNull(name);
+			this.terminatedBy = terminatedBy;
+			this.events = events;
+			this.consumerNanos = consumerNanos;
+			this.backPressureEvents = backPressureEvents;
+			this.backPressureTotal = backPressureTotal;
+			this.maxBackPressure = maxBackPressure;
+			this.buffered = buffered;
+			this.bufferDepth = bufferDepth;
+			this.bufferRemainingCapacity = bufferRemainingCapacity;
+			this.maxBufferDepth = maxBufferDepth;
+			this.offers = offers;
+			this.offerNanos = offerNanos;
+			this.offerFailures = offerFailures;
+			this.pushbackEvents = pushbackEvents;
+			this.pushbackTotal = pushbackTotal;
+			this.maxPushback = maxPushback;
+		}
+
+		/**
+		 * @return The name of the stage
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return The type of the terminal event which closed the stage, or
+		 *         {@code null} if the stage is still open
+		 */
+		public EventType getTerminatedBy() {
+			return terminatedBy;
+		}
+
+		/**
+		 * @return The number of data events passed to the consumer of this
+		 *         stage
+		 */
+		public long getEvents() {
+			return events;
+		}
+
+		/**
+		 * @return The total time spent in the consumer of this stage. As
+		 *         stages call each other synchronously this includes the time
+		 *         spent in any unbuffered stages downstream.
+		 */
+		public long getConsumerNanos() {
+			return consumerNanos;
+		}
+
+		/**
+		 * @return The number of events for which the consumer returned
+		 *         positive back pressure
+		 */
+		public long getBackPressureEvents() {
+			return backPressureEvents;
+		}
+
+		/**
+		 * @return The sum of the positive back pressure returned by the
+		 *         consumer
+		 */
+		public long getBackPressureTotal() {
+			return backPressureTotal;
+		}
+
+		/**
+		 * @return The largest back pressure returned by the consumer
+		 */
+		public long getMaxBackPressure() {
+			return maxBackPressure;
+		}
+
+		/**
+		 * @return {@code true} if this stage has a buffer, in which case the
+		 *         buffer, queue policy and pushback statistics are valid
+		 */
+		public boolean isBuffered() {
+			return buffered;
+		}
+
+		/**
+		 * @return The number of events in the buffer
+		 */
+		public int getBufferDepth() {
+			return bufferDepth;
+		}
+
+		/**
+		 * @return The remaining capacity of the buffer
+		 */
+		public int getBufferRemainingCapacity() {
+			return bufferRemainingCapacity;
+		}
+
+		/**
+		 * @return The largest number of events seen in the buffer after an
+		 *         event was offered to it
+		 */
+		public long getMaxBufferDepth() {
+			return maxBufferDepth;
+		}
+
+		/**
+		 * @return The number of data events offered to the queue policy.
+		 *         Close and error events are not included, and neither are
+		 *         they in the other queue policy and pushback statistics.
+		 */
+		public long getOffers() {
+			return offers;
+		}
+
+		/**
+		 * @return The total time spent in the queue policy, including any
+		 *         time spent blocked waiting for space in the buffer
+		 */
+		public long getOfferNanos() {
+			return offerNanos;
+		}
+
+		/**
+		 * @return The number of events for which the queue policy failed,
+		 *         closing the stream
+		 */
+		public long getOfferFailures() {
+			return offerFailures;
+		}
+
+		/**
+		 * @return The number of events for which the pushback policy
+		 *         returned positive back pressure
+		 */
+		public long getPushbackEvents() {
+			return pushbackEvents;
+		}
+
+		/**
+		 * @return The sum of the positive back pressure returned by the
+		 *         pushback policy
+		 */
+		public long getPushbackTotal() {
+			return pushbackTotal;
+		}
+
+		/**
+		 * @return The largest back pressure returned by the pushback policy
+		 */
+		public long getMaxPushback() {
+			return maxPushback;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(name).append("[events=")
+					.append(events)
+					.append(", consumerNanos=")
+					.append(consumerNanos)
+					.append(", maxBackPressure=")
+					.append(maxBackPressure);
+			if (buffered) {
+				sb.append(", bufferDepth=")
+						.append(bufferDepth)
+						.append(", maxBufferDepth=")
+						.append(maxBufferDepth)
+						.append(", offerFailures=")
+						.append(offerFailures)
+						.append(", maxPushback=")
+						.append(maxPushback);
+			}
+			if (terminatedBy != null) {
+				sb.append(", terminatedBy=").append(terminatedBy);
+			}
+			return sb.append(']').toString();
+		}
+	}
+}
@@ -19,27 +19,32 @@
 package org.osgi.util.pushstream;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.osgi.util.pushstream.AbstractPushStreamImpl.State.CLOSED;
 import static org.osgi.util.pushstream.PushEvent.data;
 import static org.osgi.util.pushstream.PushEvent.error;
 import static org.osgi.util.pushstream.PushbackPolicyOption.LINEAR;
 import static org.osgi.util.pushstream.QueuePolicyOption.FAIL;
 
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Stream;
 
+import org.osgi.util.function.Function;
 import org.osgi.util.promise.PromiseFactory;
 
 /**
@@ -48,12 +53,146 @@ import org.osgi.util.promise.PromiseFactory;
  */
 public final class PushStreamProvider {
 
+	/**
+	 * The size of the shared worker pool when no maximum is configured
+	 */
+	private static final int			DEFAULT_WORKER_THREADS	= Math.max(16,
+			2 * Runtime.getRuntime().availableProcessors());
+
 	private final Lock					lock	= new ReentrantLock(true);
 
+	private final int					maxWorkerThreads;
+
+	private final ThreadFactory			workerThreadFactory;
+
 	private int							schedulerReferences;
 
 	private ScheduledExecutorService	sharedScheduler;
 
+	private int							workerReferences;
+
+	private ThreadPoolExecutor			sharedWorker;
+
+	/**
+	 * Create a {@link PushStreamProvider} whose streams share a worker pool of
+	 * platform threads. The pool has a default maximum size, which is at least
+	 * 16 threads, and shrinks when the streams are idle. This is equivalent to
+	 * calling
+	 * 
+	 * <pre>
+	 * new PushStreamProvider(0, false);
+	 * </pre>
+	 */
+	public PushStreamProvider() {
+		this(0, false);
+	}
+
+	/**
+	 * Create a {@link PushStreamProvider} with a custom shared worker pool.
+	 * <p>
+	 * Streams, event sources and buffered consumers created by this provider
+	 * without an explicit {@link Executor} deliver their events using a worker
+	 * pool shared with all of the other streams from this provider. Each one
+	 * is limited to its configured parallelism on the shared pool, and yields
+	 * its thread when other streams are waiting, so that a busy stream cannot
+	 * starve the others. Work waiting for a thread is queued in the shared
+	 * pool, and as each stream only queues up to its parallelism the queue is
+	 * bounded by the streams using the pool.
+	 * <p>
+	 * Threads blocked by the streams, for example when offering to a full
+	 * buffer with {@link QueuePolicyOption#BLOCK}, temporarily do not count
+	 * towards the maximum. Consumers which block for long periods should be
+	 * given their own {@link Executor}, as they occupy a thread of the shared
+	 * pool while they block.
+	 * 
+	 * @param maxWorkerThreads The maximum number of threads in the shared
+	 *            worker pool, or zero to use the default maximum.
+	 * @param virtualThreads {@code true} if the shared worker pool should use
+	 *            virtual threads rather than platform threads.
+	 * @throws IllegalArgumentException if {@code maxWorkerThreads} is less
+	 *             than zero
+	 * @throws UnsupportedOperationException if {@code virtualThreads} is
+	 *             {@code true} and the Java runtime does not support virtual
+	 *             threads
+	 * @since 1.1
+	 */
+	public PushStreamProvider(int maxWorkerThreads, boolean virtualThreads) {
+		if (maxWorkerThreads < 0) {
+			throw new IllegalArgumentException(
+					"The maximum number of worker threads cannot be less than zero. It was "
+							+ maxWorkerThreads);
+		}
+		this.maxWorkerThreads = maxWorkerThreads;
+		this.workerThreadFactory = virtualThreads ? virtualThreadFactory()
+				: platformThreadFactory();
+	}
+
+	private static ThreadFactory platformThreadFactory() {
+		ThreadFactory delegate = Executors.defaultThreadFactory();
+		return r -> {
+			Thread t = delegate.newThread(r);
+			t.setName("PushStream," + t.getName());
+			t.setDaemon(true);
+			return t;
+		};
+	}
+
+	private static ThreadFactory virtualThreadFactory() {
+		// Reflection keeps this code usable on Java 8 runtimes
+		try {
+			Class< ? > builderType = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderType.getMethod("name", String.class, long.class)
+					.invoke(builder, "PushStream,virtual-", Long.valueOf(0));
+			return (ThreadFactory) builderType.getMethod("factory")
+					.invoke(builder);
+		} catch (Exception e) {
+			throw new UnsupportedOperationException(
+					"Virtual threads are not supported by this Java runtime",
+					e);
+		}
+	}
+
+	Executor acquireWorker(int maxInFlight) {
+		try {
+			lock.lockInterruptibly();
+			try {
+				workerReferences += 1;
+
+				if (workerReferences == 1) {
+					int threads = maxWorkerThreads == 0 ? DEFAULT_WORKER_THREADS
+							: maxWorkerThreads;
+					sharedWorker = new ThreadPoolExecutor(threads, threads, 60,
+							SECONDS, new LinkedBlockingQueue<>(),
+							workerThreadFactory);
+					sharedWorker.allowCoreThreadTimeOut(true);
+				}
+				return new FairExecutor(sharedWorker, maxInFlight);
+			} finally {
+				lock.unlock();
+			}
+		} catch (InterruptedException e) {
+			throw new IllegalStateException("Unable to acquire the Executor",
+					e);
+		}
+	}
+
+	void releaseWorker() {
+		// Not interruptible, the reference must be released even if the
+		// closing thread has been interrupted, whose status is left set
+		lock.lock();
+		try {
+			workerReferences -= 1;
+
+			if (workerReferences == 0) {
+				sharedWorker.shutdown();
+				sharedWorker = null;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
 	private ScheduledExecutorService acquireScheduler() {
 		try {
 			lock.lockInterruptibly();
@@ -120,7 +259,7 @@ public final class PushStreamProvider {
 	public <T> PushStream<T> createStream(PushEventSource<T> eventSource) {
 		return createStream(eventSource, 1, null, null,
 				new ArrayBlockingQueue<>(32),
-				FAIL.getPolicy(), LINEAR.getPolicy(1000));
+				FAIL.getPolicy(), LINEAR.getPolicy(1000), null);
 	}
 	
 	/**
@@ -147,7 +286,7 @@ public final class PushStreamProvider {
 			PushEventSource<T> eventSource, int parallelism, Executor executor,
 			ScheduledExecutorService scheduler, U queue,
 			QueuePolicy<T,U> queuePolicy,
-			PushbackPolicy<T,U> pushbackPolicy) {
+			PushbackPolicy<T,U> pushbackPolicy, StageMetrics metrics) {
 
 		if (eventSource == null) {
 			throw new NullPointerException("There is no source of events");
@@ -161,14 +300,14 @@ public final class PushStreamProvider {
 			parallelism = 1;
 		}
 
-		boolean closeExecutorOnClose;
+		boolean releaseWorkerOnClose;
 		Executor workerToUse;
 		if (executor == null) {
-			workerToUse = Executors.newFixedThreadPool(parallelism);
-			closeExecutorOnClose = true;
+			workerToUse = acquireWorker(parallelism);
+			releaseWorkerOnClose = true;
 		} else {
 			workerToUse = Objects.requireNonNull(executor);
-			closeExecutorOnClose = false;
+			releaseWorkerOnClose = false;
 		}
 
 		boolean releaseSchedulerOnClose;
@@ -193,7 +332,7 @@ public final class PushStreamProvider {
 			pushbackPolicy = LINEAR.getPolicy(1000);
 		}
 
-		PushStream<T> stream = new BufferedPushStreamImpl<>(this,
+		BufferedPushStreamImpl<T,U> stream = new BufferedPushStreamImpl<>(this,
 				new PromiseFactory(workerToUse, timerToUse), queue,
 				parallelism, queuePolicy,
 				pushbackPolicy, aec -> {
@@ -204,18 +343,20 @@ public final class PushStreamProvider {
 								"Unable to connect to event source", e);
 					}
 				});
+		if (metrics != null) {
+			stream.metrics = metrics.buffered(queue);
+		}
 
-		return cleanupThreads(closeExecutorOnClose, workerToUse,
-				releaseSchedulerOnClose, stream);
+		return cleanupThreads(releaseWorkerOnClose, releaseSchedulerOnClose,
+				stream);
 	}
 
-	private <T> PushStream<T> cleanupThreads(boolean closeExecutorOnClose,
-			Executor workerToUse, boolean releaseSchedulerOnClose,
-			PushStream<T> stream) {
-		if (closeExecutorOnClose || releaseSchedulerOnClose) {
+	private <T> PushStream<T> cleanupThreads(boolean releaseWorkerOnClose,
+			boolean releaseSchedulerOnClose, PushStream<T> stream) {
+		if (releaseWorkerOnClose || releaseSchedulerOnClose) {
 			stream = stream.onClose(() -> {
-				if (closeExecutorOnClose) {
-					((ExecutorService) workerToUse).shutdown();
+				if (releaseWorkerOnClose) {
+					releaseWorker();
 				}
 				if (releaseSchedulerOnClose) {
 					releaseScheduler();
@@ -226,16 +367,17 @@ public final class PushStreamProvider {
 	}
 
 	<T> PushStream<T> createUnbufferedStream(PushEventSource<T> eventSource,
-			Executor executor, ScheduledExecutorService scheduler) {
+			Executor executor, ScheduledExecutorService scheduler,
+			StageMetrics metrics) {
 
-		boolean closeExecutorOnClose;
+		boolean releaseWorkerOnClose;
 		Executor workerToUse;
 		if (executor == null) {
-			workerToUse = Executors.newFixedThreadPool(2);
-			closeExecutorOnClose = true;
+			workerToUse = acquireWorker(2);
+			releaseWorkerOnClose = true;
 		} else {
 			workerToUse = Objects.requireNonNull(executor);
-			closeExecutorOnClose = false;
+			releaseWorkerOnClose = false;
 		}
 
 		boolean releaseSchedulerOnClose;
@@ -247,8 +389,8 @@ public final class PushStreamProvider {
 			timerToUse = Objects.requireNonNull(scheduler);
 			releaseSchedulerOnClose = false;
 		}
-		PushStream<T> stream = new UnbufferedPushStreamImpl<>(this,
-				new PromiseFactory(workerToUse, timerToUse),
+		UnbufferedPushStreamImpl<T,BlockingQueue<PushEvent< ? extends T>>> stream = new UnbufferedPushStreamImpl<>(
+				this, new PromiseFactory(workerToUse, timerToUse),
 				aec -> {
 					try {
 						return eventSource.open(aec);
@@ -257,9 +399,10 @@ public final class PushStreamProvider {
 								"Unable to connect to event source", e);
 					}
 				});
+		stream.metrics = metrics;
 
-		return cleanupThreads(closeExecutorOnClose, workerToUse,
-				releaseSchedulerOnClose, stream);
+		return cleanupThreads(releaseWorkerOnClose, releaseSchedulerOnClose,
+				stream);
 	}
 
 	/**
@@ -528,14 +671,14 @@ public final class PushStreamProvider {
 			parallelism = 1;
 		}
 
-		boolean closeExecutorOnClose;
+		boolean releaseWorkerOnClose;
 		Executor toUse;
 		if (executor == null) {
-			toUse = Executors.newFixedThreadPool(parallelism);
-			closeExecutorOnClose = true;
+			toUse = acquireWorker(parallelism);
+			releaseWorkerOnClose = true;
 		} else {
 			toUse = Objects.requireNonNull(executor);
-			closeExecutorOnClose = false;
+			releaseWorkerOnClose = false;
 		}
 
 		if (queue == null) {
@@ -555,8 +698,8 @@ public final class PushStreamProvider {
 					} catch (Exception e) {
 						// TODO log this?
 					}
-					if (closeExecutorOnClose) {
-						((ExecutorService) toUse).shutdown();
+					if (releaseWorkerOnClose) {
+						releaseWorker();
 					}
 					releaseScheduler();
 				});
@@ -623,7 +766,7 @@ public final class PushStreamProvider {
 				PushEventPipe<T> pipe = new PushEventPipe<>();
 				
 				createStream(pipe, concurrency, worker, timer, buffer,
-						bufferingPolicy, backPressure)
+						bufferingPolicy, pushbackPolicy(), null)
 					.forEachEvent(delegate);
 				
 				return pipe;
@@ -687,7 +830,7 @@ public final class PushStreamProvider {
 			return () -> closed.set(true);
 		};
 
-		return this.<T> createUnbufferedStream(pes, null, null);
+		return this.<T> createUnbufferedStream(pes, null, null, null);
 	}
 
 	/**
@@ -705,14 +848,14 @@ public final class PushStreamProvider {
 	public <T> PushStream<T> streamOf(Executor executor,
 			ScheduledExecutorService scheduler, Stream<T> items) {
 
-		boolean closeExecutorOnClose;
+		boolean releaseWorkerOnClose;
 		Executor workerToUse;
 		if (executor == null) {
-			workerToUse = Executors.newFixedThreadPool(2);
-			closeExecutorOnClose = true;
+			workerToUse = acquireWorker(2);
+			releaseWorkerOnClose = true;
 		} else {
 			workerToUse = Objects.requireNonNull(executor);
-			closeExecutorOnClose = false;
+			releaseWorkerOnClose = false;
 		}
 
 		boolean releaseSchedulerOnClose;
@@ -768,7 +911,47 @@ public final class PushStreamProvider {
 			}
 		};
 
-		return cleanupThreads(closeExecutorOnClose, workerToUse,
-				releaseSchedulerOnClose, stream);
+		return cleanupThreads(releaseWorkerOnClose, releaseSchedulerOnClose,
+				stream);
+	}
+
+	/**
+	 * Create a buffer which holds up to {@code capacity} events in memory and
+	 * spills any further events to disk, rather than blocking, discarding or
+	 * failing. The buffer can be passed to
+	 * {@link BufferBuilder#withBuffer(BlockingQueue)} of any builder whose
+	 * queue type is {@code BlockingQueue<PushEvent<? extends T>>}.
+	 * <p>
+	 * Spilled events are serialized using the supplied serializer and appended
+	 * to memory-mapped files created in the supplied directory. They are
+	 * deserialized and delivered in order once the consumer has caught up.
+	 * The spill files are deleted as they are created, and so do not outlive
+	 * the buffer. Their mappings are released once all of the events have
+	 * been delivered or the stream using the buffer is closed. If the total
+	 * size of the spilled events would exceed {@code maxSpillBytes} then the
+	 * buffer is full, and the {@link QueuePolicy} of the builder decides what
+	 * happens to the event.
+	 * <p>
+	 * If an event cannot be serialized then it cannot be added to the buffer.
+	 * If an event cannot be deserialized then it is replaced with an error
+	 * event.
+	 * 
+	 * @param capacity The maximum number of events to hold in memory, must be
+	 *            greater than zero
+	 * @param directory The directory in which to create spill files
+	 * @param maxSpillBytes The maximum number of bytes to spill to disk
+	 * @param serializer Used to convert event data into bytes
+	 * @param deserializer Used to convert bytes back into event data
+	 * @return A buffer which spills to disk
+	 * @throws IllegalArgumentException if capacity is less than one or
+	 *             maxSpillBytes is negative
+	 * @since 1.1
+	 */
+	public <T> BlockingQueue<PushEvent< ? extends T>> createSpillBuffer(
+			int capacity, Path directory, long maxSpillBytes,
+			Function< ? super T,byte[]> serializer,
+			Function<byte[], ? extends T> deserializer) {
+		return new SpillingBlockingQueue<>(capacity, directory, maxSpillBytes,
+				serializer, deserializer);
 	}
 }
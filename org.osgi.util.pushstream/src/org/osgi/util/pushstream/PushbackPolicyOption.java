@@ -83,6 +83,30 @@ public enum PushbackPolicyOption {
 				return (value * used) / (used + remainingCapacity);
 			};
 		}
+	},
+	/**
+	 * Measures how quickly events are removed from the buffer, and returns
+	 * back pressure which aims to keep the time that events spend in the
+	 * buffer close to the supplied value. When events are waiting for longer
+	 * than this the back pressure increases smoothly, and when they are
+	 * waiting for less it decreases smoothly, rather than switching between
+	 * no back pressure and a maximum value.
+	 * <p>
+	 * The value passed to {@link #getPolicy(long)} is the target time in
+	 * milliseconds, and must be greater than zero. A value of zero or less
+	 * causes {@link #getPolicy(long)} to throw an
+	 * {@link IllegalArgumentException}.
+	 * <p>
+	 * Each {@link PushbackPolicy} created by this option keeps its own
+	 * measurements, and so must only be used for a single buffer.
+	 * 
+	 * @since 1.1
+	 */
+	ADAPTIVE {
+		@Override
+		public <T, U extends BlockingQueue<PushEvent<? extends T>>> PushbackPolicy<T, U> getPolicy(long value) {
+			return new AdaptivePushbackPolicy<>(value);
+		}
 	};
 
 	/**
@@ -94,6 +118,9 @@ public enum PushbackPolicyOption {
 	 * 
 	 * @param value
 	 * @return A {@link PushbackPolicy} to use
+	 * @throws IllegalArgumentException if the value is not valid for this
+	 *             option, for example a value less than one for
+	 *             {@link #ADAPTIVE}
 	 */
 	public abstract <T, U extends BlockingQueue<PushEvent<? extends T>>> PushbackPolicy<T, U> getPolicy(long value);
 
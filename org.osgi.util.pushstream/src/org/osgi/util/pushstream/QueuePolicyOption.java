@@ -51,10 +51,9 @@ public enum QueuePolicyOption {
 		public <T, U extends BlockingQueue<PushEvent<? extends T>>> QueuePolicy<T, U> getPolicy() {
 			return (queue, event) -> {
 				try {
-					queue.put(event);
+					FairExecutor.managedBlock(() -> queue.put(event));
 				} catch (InterruptedException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
+					Thread.currentThread().interrupt();
 				}
 			};
 		}
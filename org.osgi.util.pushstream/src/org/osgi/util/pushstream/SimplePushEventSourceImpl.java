@@ -18,11 +18,10 @@
 
 package org.osgi.util.pushstream;
 
-import static java.util.Collections.emptyList;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
-import static java.util.stream.Collectors.toList;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -35,6 +34,9 @@ import org.osgi.util.promise.PromiseFactory;
 class SimplePushEventSourceImpl<T, U extends BlockingQueue<PushEvent< ? extends T>>>
 		implements SimplePushEventSource<T> {
 	
+	@SuppressWarnings("rawtypes")
+	private static final PushEventConsumer[]			NONE		= new PushEventConsumer[0];
+
 	private final Object								lock		= new Object();
 
 	private final PromiseFactory						promiseFactory;
@@ -48,17 +50,23 @@ class SimplePushEventSourceImpl<T, U extends BlockingQueue<PushEvent< ? extends
 
 	private final Semaphore								semaphore;
 
-	private final List<PushEventConsumer< ? super T>>	connected	= new ArrayList<>();
+	/**
+	 * The connected consumers. This array is never modified, it is replaced
+	 * (while holding the lock) whenever a consumer connects or disconnects so
+	 * that event delivery can read it without locking or copying.
+	 */
+	private volatile PushEventConsumer< ? super T>[]	connected;
 
 	private final Runnable								onClose;
 
-	private boolean										closed;
+	private volatile boolean							closed;
 	
 	private Deferred<Void>								connectPromise;
 
-	private boolean										waitForFinishes;
+	private volatile boolean							waitForFinishes;
 
 
+	@SuppressWarnings("unchecked")
 	public SimplePushEventSourceImpl(PromiseFactory promiseFactory,
 			QueuePolicy<T,U> queuePolicy,
 			U queue, int parallelism, Runnable onClose) {
@@ -70,6 +78,7 @@ class SimplePushEventSourceImpl<T, U extends BlockingQueue<PushEvent< ? extends
 		this.queue = queue;
 		this.parallelism = parallelism;
 		this.semaphore = new Semaphore(parallelism);
+		this.connected = NONE;
 		this.onClose = onClose;
 		this.closed = false;
 		this.connectPromise = null;
@@ -88,7 +97,11 @@ class SimplePushEventSourceImpl<T, U extends BlockingQueue<PushEvent< ? extends
 			toResolve = connectPromise;
 			connectPromise = null;
 
-			connected.add(pec);
+			PushEventConsumer< ? super T>[] current = connected;
+			PushEventConsumer< ? super T>[] updated = Arrays.copyOf(current,
+					current.length + 1);
+			updated[current.length] = pec;
+			connected = updated;
 		}
 
 		if (toResolve != null) {
@@ -104,13 +117,36 @@ class SimplePushEventSourceImpl<T, U extends BlockingQueue<PushEvent< ? extends
 			PushEvent<T> event) {
 		boolean sendClose;
 		synchronized (lock) {
-			sendClose = connected.remove(pec);
+			sendClose = remove(pec);
 		}
 		if (sendClose) {
 			doSend(pec, event);
 		}
 	}
 
+	/**
+	 * Must be called holding the lock
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean remove(PushEventConsumer< ? super T> pec) {
+		PushEventConsumer< ? super T>[] current = connected;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i].equals(pec)) {
+				if (current.length == 1) {
+					connected = NONE;
+				} else {
+					PushEventConsumer< ? super T>[] updated = Arrays
+							.copyOf(current, current.length - 1);
+					System.arraycopy(current, i + 1, updated, i,
+							current.length - i - 1);
+					connected = updated;
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private void doSend(PushEventConsumer< ? super T> pec, PushEvent<T> event) {
 		try {
 			promiseFactory.executor().execute(() -> safePush(pec, event));
@@ -168,15 +204,16 @@ class SimplePushEventSourceImpl<T, U extends BlockingQueue<PushEvent< ? extends
 		close(PushEvent.close());
 	}
 
+	@SuppressWarnings("unchecked")
 	private void close(PushEvent<T> event) {
-		List<PushEventConsumer< ? super T>> toClose;
+		PushEventConsumer< ? super T>[] toClose;
 		Deferred<Void> toFail = null;
 		synchronized (lock) {
 			if(!closed) {
 				closed = true;
 				
-				toClose = new ArrayList<>(connected);
-				connected.clear();
+				toClose = connected;
+				connected = NONE;
 				queue.clear();
 
 				if(connectPromise != null) {
@@ -184,11 +221,13 @@ class SimplePushEventSourceImpl<T, U extends BlockingQueue<PushEvent< ? extends
 					connectPromise = null;
 				}
 			} else {
-				toClose = emptyList();
+				toClose = NONE;
 			}
 		}
 
-		toClose.stream().forEach(pec -> doSend(pec, event));
+		for (PushEventConsumer< ? super T> pec : toClose) {
+			doSend(pec, event);
+		}
 
 		if (toFail != null) {
 			toFail.resolveWith(closedConnectPromise());
@@ -213,19 +252,15 @@ class SimplePushEventSourceImpl<T, U extends BlockingQueue<PushEvent< ? extends
 	}
 
 	private void enqueueEvent(PushEvent<T> event) {
-		synchronized (lock) {
-			if (closed || connected.isEmpty()) {
-				return;
-			}
+		if (closed || connected.length == 0) {
+			return;
 		}
 
 		try {
 			queuePolicy.doOffer(queue, event);
-			boolean start;
-			synchronized (lock) {
-				start = !waitForFinishes && semaphore.tryAcquire();
-			}
-			if (start) {
+			// A worker started while waiting for finishes will
+			// release its permit and wait, so no lock is needed here
+			if (!waitForFinishes && semaphore.tryAcquire()) {
 				startWorker();
 			}
 		} catch (Exception e) {
@@ -243,41 +278,61 @@ class SimplePushEventSourceImpl<T, U extends BlockingQueue<PushEvent< ? extends
 			try {
 				
 				for(;;) {
-					PushEvent<T> event;
-					List<PushEventConsumer< ? super T>> toCall;
-					boolean resetWait;
-					synchronized (lock) {
-						if(waitForFinishes) {
-							semaphore.release();
-							while(waitForFinishes) {
-								lock.notifyAll();
-								lock.wait();
+					if (waitForFinishes) {
+						synchronized (lock) {
+							if (waitForFinishes) {
+								semaphore.release();
+								while (waitForFinishes) {
+									lock.notifyAll();
+									FairExecutor.managedBlock(lock::wait);
+								}
+								FairExecutor.managedBlock(semaphore::acquire);
 							}
-							semaphore.acquire();
 						}
+					}
 
-						event = (PushEvent<T>) queue.poll();
-						
-						if(event == null) {
-							break;
-						}
+					PushEvent<T> event = (PushEvent<T>) queue.poll();
+					
+					if(event == null) {
+						break;
+					}
 
-						if (connected.isEmpty()) {
-							queue.clear();
-							break;
-						}
+					PushEventConsumer< ? super T>[] toCall = connected;
+					if (toCall.length == 0) {
+						queue.clear();
+						break;
+					}
 
-						toCall = new ArrayList<>(connected);
-						if (event.isTerminal()) {
+					boolean resetWait;
+					if (event.isTerminal()) {
+						synchronized (lock) {
+							toCall = connected;
 							waitForFinishes = true;
 							resetWait = true;
-							connected.clear();
+							connected = NONE;
 							while (!semaphore.tryAcquire(parallelism - 1)) {
-								lock.wait();
+								FairExecutor.managedBlock(lock::wait);
 							}
-						} else {
-							resetWait = false;
 						}
+					} else {
+						resetWait = false;
+					}
+
+					if (toCall.length == 1) {
+						// Fast path for a single consumer, no need to
+						// allocate a Promise to gather the back pressure
+						long until = System.nanoTime()
+								+ safePush(toCall[0], event);
+						handleReset(resetWait);
+
+						long toWait = until - System.nanoTime();
+						if (toWait > 0) {
+							promiseFactory.scheduledExecutor().schedule(
+									this::startWorker, toWait,
+									NANOSECONDS);
+							return;
+						}
+						continue;
 					}
 					
 					Promise<Long> backPressure = deliver(toCall, event);
@@ -337,36 +392,35 @@ class SimplePushEventSourceImpl<T, U extends BlockingQueue<PushEvent< ? extends
 		}
 	}
 
-	private Promise<Long> deliver(List<PushEventConsumer< ? super T>> toCall,
+	@SuppressWarnings("boxing")
+	private Promise<Long> deliver(PushEventConsumer< ? super T>[] toCall,
 			PushEvent<T> event) {
-		if (toCall.size() == 1) {
-			return doCall(event, toCall.get(0));
-		} else {
-			List<Promise<Long>> calls = toCall.stream().map(pec -> {
-				if (semaphore.tryAcquire()) {
-					return doSendWithBackPressure(pec, event)
-							.onResolve(() -> semaphore.release());
-				} else {
-					return doCall(event, pec);
+		long inline = System.nanoTime();
+		List<Promise<Long>> calls = null;
+		for (PushEventConsumer< ? super T> pec : toCall) {
+			if (semaphore.tryAcquire()) {
+				if (calls == null) {
+					calls = new ArrayList<>(toCall.length);
 				}
-			}).collect(toList());
-			return sameThread.all(calls)
-					.map(l -> l.stream().max(Long::compareTo).orElseGet(
-							() -> Long.valueOf(System.nanoTime())));
+				calls.add(doSendWithBackPressure(pec, event)
+						.onResolve(() -> semaphore.release()));
+			} else {
+				inline = Math.max(inline,
+						System.nanoTime() + safePush(pec, event));
+			}
 		}
-	}
-
-	private Promise<Long> doCall(PushEvent<T> event,
-			PushEventConsumer< ? super T> pec) {
-		return sameThread.resolved(
-				Long.valueOf(System.nanoTime() + safePush(pec, event)));
+		if (calls == null) {
+			return sameThread.resolved(inline);
+		}
+		long inlineResult = inline;
+		return sameThread.all(calls)
+				.map(l -> l.stream()
+						.reduce(inlineResult, Math::max));
 	}
 
 	@Override
 	public boolean isConnected() {
-		synchronized (lock) {
-			return !connected.isEmpty();
-		}
+		return connected.length != 0;
 	}
 
 	@Override
@@ -376,7 +430,7 @@ class SimplePushEventSourceImpl<T, U extends BlockingQueue<PushEvent< ? extends
 				return closedConnectPromise();
 			}
 
-			if (connected.isEmpty()) {
+			if (connected.length == 0) {
 				if (connectPromise == null) {
 					connectPromise = promiseFactory.deferred();
 				}
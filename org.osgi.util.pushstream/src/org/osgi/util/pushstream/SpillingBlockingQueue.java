@@ -0,0 +1,539 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+
+package org.osgi.util.pushstream;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.osgi.util.function.Function;
+
+/**
+ * The buffer created by
+ * {@link PushStreamProvider#createSpillBuffer(int, Path, long, Function, Function)}.
+ * <p>
+ * Up to {@code capacity} events are held on the heap. Once that is full, data
+ * events are serialized and appended to memory-mapped segment files, and are
+ * read back in order as the consumer takes events from the heap. Segment files
+ * are deleted as soon as they are mapped, so that nothing is left on disk if
+ * the stream is never closed.
+ * <p>
+ * A segment which has been read is kept for reuse if there is no spare
+ * segment already, and is otherwise unmapped. All of the segments are unmapped
+ * once the terminal event has been taken, or when the queue is closed. Where
+ * the Java runtime does not permit unmapping, the mappings are released by the
+ * garbage collector instead.
+ * <p>
+ * Terminal events are never spilled. One is always accepted, and is returned
+ * after every data event that was added before it.
+ * <p>
+ * The iterator of this queue only visits the events held on the heap.
+ */
+final class SpillingBlockingQueue<T>
+		extends AbstractQueue<PushEvent< ? extends T>>
+		implements BlockingQueue<PushEvent< ? extends T>> {
+
+	/**
+	 * The size of each segment file, unless a single event needs more
+	 */
+	private static final int						SEGMENT_SIZE		= 1 << 22;
+
+	/**
+	 * The assumed size of a spilled event before any have been written
+	 */
+	private static final int						DEFAULT_RECORD_SIZE	= 64;
+
+	/**
+	 * Releases the mapping of a buffer, or null if the runtime does not allow
+	 * it
+	 */
+	private static final MethodHandle				UNMAP				= findUnmap();
+
+	private final int								capacity;
+	private final Path								directory;
+	private final long								maxSpillBytes;
+	private final Function< ? super T,byte[]>		serializer;
+	private final Function<byte[], ? extends T>		deserializer;
+
+	private final ReentrantLock						lock				= new ReentrantLock();
+	private final Condition							notEmpty			= lock
+			.newCondition();
+	private final Condition							notFull				= lock
+			.newCondition();
+
+	private final ArrayDeque<PushEvent< ? extends T>>	heap;
+	private final ArrayDeque<Segment>				segments			= new ArrayDeque<>();
+	private final ArrayDeque<Segment>				spare				= new ArrayDeque<>(
+			1);
+
+	private long									spilledEvents;
+	private long									spilledBytes;
+	private long									recordSize			= DEFAULT_RECORD_SIZE;
+
+	private PushEvent< ? extends T>					terminal;
+	private boolean									terminated;
+	private boolean									closed;
+
+	SpillingBlockingQueue(int capacity, Path directory, long maxSpillBytes,
+			Function< ? super T,byte[]> serializer,
+			Function<byte[], ? extends T> deserializer) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException(
+					"The in memory capacity must be at least one. It was "
+							+ capacity);
+		}
+		if (maxSpillBytes < 0) {
+			throw new IllegalArgumentException(
+					"The maximum spill size cannot be negative. It was "
+							+ maxSpillBytes);
+		}
+		this.capacity = capacity;
+		this.directory = Objects.requireNonNull(directory);
+		this.maxSpillBytes = maxSpillBytes;
+		this.serializer = Objects.requireNonNull(serializer);
+		this.deserializer = Objects.requireNonNull(deserializer);
+		this.heap = new ArrayDeque<>(Math.min(capacity, 1024));
+	}
+
+	private static MethodHandle findUnmap() {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			// Java 9 and later
+			Class< ? > unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			return lookup
+					.findVirtual(unsafeClass, "invokeCleaner",
+							methodType(void.class, ByteBuffer.class))
+					.bindTo(theUnsafe.get(null));
+		} catch (Exception e) {
+			// Try the Java 8 cleaner
+		}
+		try {
+			Method cleaner = Class.forName("java.nio.DirectByteBuffer")
+					.getMethod("cleaner");
+			cleaner.setAccessible(true);
+			Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+			clean.setAccessible(true);
+			return MethodHandles
+					.filterReturnValue(lookup.unreflect(cleaner),
+							lookup.unreflect(clean))
+					.asType(methodType(void.class, ByteBuffer.class));
+		} catch (Exception e) {
+			// Leave the mappings to the garbage collector
+			return null;
+		}
+	}
+
+	/**
+	 * A memory-mapped file of length prefixed records
+	 */
+	private static final class Segment {
+		final MappedByteBuffer	buffer;
+		int						readPosition;
+		int						writePosition;
+
+		Segment(MappedByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		void unmap() {
+			if (UNMAP != null) {
+				try {
+					UNMAP.invokeExact((ByteBuffer) buffer);
+				} catch (Throwable t) {
+					// Leave the mapping to the garbage collector
+				}
+			}
+		}
+
+		boolean hasSpace(int bytes) {
+			return buffer.capacity() - writePosition >= bytes;
+		}
+	}
+
+	@Override
+	public boolean offer(PushEvent< ? extends T> e) {
+		Objects.requireNonNull(e);
+		lock.lock();
+		try {
+			return enqueue(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void put(PushEvent< ? extends T> e) throws InterruptedException {
+		Objects.requireNonNull(e);
+		lock.lockInterruptibly();
+		try {
+			while (!enqueue(e)) {
+				notFull.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean offer(PushEvent< ? extends T> e, long timeout,
+			TimeUnit unit) throws InterruptedException {
+		Objects.requireNonNull(e);
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (!enqueue(e)) {
+				if (nanos <= 0) {
+					return false;
+				}
+				nanos = notFull.awaitNanos(nanos);
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean enqueue(PushEvent< ? extends T> e) {
+		if (terminated) {
+			// Nothing may follow a terminal event
+			return true;
+		}
+		if (e.isTerminal()) {
+			terminal = e;
+			terminated = true;
+		} else if (spilledEvents == 0 && heap.size() < capacity) {
+			heap.add(e);
+		} else if (!spill(e)) {
+			return false;
+		}
+		notEmpty.signal();
+		return true;
+	}
+
+	private boolean spill(PushEvent< ? extends T> e) {
+		byte[] data;
+		try {
+			data = serializer.apply(e.getData());
+		} catch (Exception ex) {
+			throw new IllegalArgumentException(
+					"Unable to serialize the event data", ex);
+		}
+		int length = data.length + Integer.BYTES;
+		if (spilledBytes + length > maxSpillBytes) {
+			return false;
+		}
+
+		Segment segment = segments.peekLast();
+		if (segment == null || !segment.hasSpace(length)) {
+			segment = newSegment(length);
+			segments.add(segment);
+		}
+		segment.buffer.putInt(segment.writePosition, data.length);
+		segment.buffer.position(segment.writePosition + Integer.BYTES);
+		segment.buffer.put(data);
+		segment.writePosition += length;
+
+		spilledEvents++;
+		spilledBytes += length;
+		recordSize += (length - recordSize) >> 3;
+		return true;
+	}
+
+	private Segment newSegment(int minimumSize) {
+		Segment reused = spare.poll();
+		if (reused != null) {
+			if (reused.hasSpace(minimumSize)) {
+				return reused;
+			}
+			reused.unmap();
+		}
+		long size = Math.max(Math.min(SEGMENT_SIZE, maxSpillBytes),
+				minimumSize);
+		try {
+			Path file = Files.createTempFile(directory, "pushstream", ".spill");
+			// The file is deleted when the channel closes, but the mapping
+			// remains valid until it is garbage collected
+			try (FileChannel channel = FileChannel.open(file, READ, WRITE,
+					DELETE_ON_CLOSE)) {
+				return new Segment(channel.map(READ_WRITE, 0, size));
+			}
+		} catch (IOException ioe) {
+			throw new IllegalStateException(
+					"Unable to create a spill file in " + directory, ioe);
+		}
+	}
+
+	private PushEvent< ? extends T> unspill() {
+		Segment segment = segments.peek();
+		int length = segment.buffer.getInt(segment.readPosition);
+		byte[] data = new byte[length];
+		segment.buffer.position(segment.readPosition + Integer.BYTES);
+		segment.buffer.get(data);
+		segment.readPosition += length + Integer.BYTES;
+
+		spilledEvents--;
+		spilledBytes -= length + Integer.BYTES;
+		if (segment.readPosition == segment.writePosition) {
+			if (segments.size() == 1) {
+				// Reuse the last segment for the next burst
+				segment.readPosition = 0;
+				segment.writePosition = 0;
+			} else {
+				recycle(segments.poll());
+			}
+		}
+
+		try {
+			return PushEvent.data(deserializer.apply(data));
+		} catch (Exception ex) {
+			return PushEvent.error(ex);
+		}
+	}
+
+	/**
+	 * Keep a read segment for the next spill, or unmap it if there is already
+	 * a spare one
+	 */
+	private void recycle(Segment segment) {
+		segment.readPosition = 0;
+		segment.writePosition = 0;
+		if (spare.isEmpty() && !terminated) {
+			spare.add(segment);
+		} else {
+			segment.unmap();
+		}
+	}
+
+	private void releaseSegments() {
+		Segment segment;
+		while ((segment = segments.poll()) != null) {
+			segment.unmap();
+		}
+		while ((segment = spare.poll()) != null) {
+			segment.unmap();
+		}
+	}
+
+	/**
+	 * Discard the buffered events and release the spill files. Further
+	 * events are discarded.
+	 */
+	void close() {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			terminated = true;
+			terminal = null;
+			heap.clear();
+			spilledEvents = 0;
+			spilledBytes = 0;
+			releaseSegments();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private PushEvent< ? extends T> dequeue() {
+		PushEvent< ? extends T> e = heap.poll();
+		if (e == null) {
+			e = terminal;
+			terminal = null;
+			if (e != null) {
+				// Nothing more can be spilled
+				releaseSegments();
+			}
+		} else {
+			// Keep the heap full so that the head is always available
+			while (spilledEvents > 0 && heap.size() < capacity) {
+				heap.add(unspill());
+			}
+		}
+		if (e != null) {
+			notFull.signal();
+		}
+		return e;
+	}
+
+	@Override
+	public PushEvent< ? extends T> poll() {
+		lock.lock();
+		try {
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public PushEvent< ? extends T> take() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			PushEvent< ? extends T> e;
+			while ((e = dequeue()) == null) {
+				notEmpty.await();
+			}
+			return e;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public PushEvent< ? extends T> poll(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			PushEvent< ? extends T> e;
+			while ((e = dequeue()) == null) {
+				if (nanos <= 0) {
+					return null;
+				}
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return e;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public PushEvent< ? extends T> peek() {
+		lock.lock();
+		try {
+			PushEvent< ? extends T> e = heap.peek();
+			return e == null ? terminal : e;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			long size = heap.size() + spilledEvents + (terminal == null ? 0 : 1);
+			return (int) Math.min(Integer.MAX_VALUE, size);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * The number of further events that can be accepted. The spill files are
+	 * limited by size rather than count, so this uses the average size of the
+	 * spilled events.
+	 */
+	@Override
+	public int remainingCapacity() {
+		lock.lock();
+		try {
+			long remaining = (maxSpillBytes - spilledBytes) / recordSize;
+			if (spilledEvents == 0) {
+				remaining += capacity - heap.size();
+			}
+			return (int) Math.min(Integer.MAX_VALUE, remaining);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int drainTo(Collection< ? super PushEvent< ? extends T>> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection< ? super PushEvent< ? extends T>> c,
+			int maxElements) {
+		Objects.requireNonNull(c);
+		if (c == this) {
+			throw new IllegalArgumentException();
+		}
+		lock.lock();
+		try {
+			int drained = 0;
+			PushEvent< ? extends T> e;
+			while (drained < maxElements && (e = dequeue()) != null) {
+				c.add(e);
+				drained++;
+			}
+			return drained;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Iterator<PushEvent< ? extends T>> iterator() {
+		List<PushEvent< ? extends T>> snapshot;
+		lock.lock();
+		try {
+			snapshot = new ArrayList<>(heap);
+			if (terminal != null) {
+				snapshot.add(terminal);
+			}
+		} finally {
+			lock.unlock();
+		}
+		Iterator<PushEvent< ? extends T>> it = snapshot.iterator();
+		return new Iterator<PushEvent< ? extends T>>() {
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public PushEvent< ? extends T> next() {
+				return it.next();
+			}
+		};
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *******************************************************************************/
+
+package org.osgi.util.pushstream;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.osgi.util.pushstream.PushEvent.EventType;
+import org.osgi.util.pushstream.PushStreamMetrics.StageSnapshot;
+
+/**
+ * The live counters for a single stage of an instrumented {@link PushStream}.
+ * Stages which are not instrumented have no {@link StageMetrics} at all, so
+ * they pay nothing more than a null check per event.
+ */
+final class StageMetrics {
+
+	private final PushStreamMetrics	registry;
+	private final String			pipeline;
+	private final int				depth;
+	final String					name;
+
+	private final LongAdder			events				= new LongAdder();
+	private final LongAdder			consumerNanos		= new LongAdder();
+	private final LongAdder			backPressureEvents	= new LongAdder();
+	private final LongAdder			backPressureTotal	= new LongAdder();
+	private final AtomicLong		maxBackPressure		= new AtomicLong();
+
+	private volatile BlockingQueue< ? >	buffer;
+	private final AtomicLong		maxBufferDepth		= new AtomicLong();
+	private final LongAdder			offers				= new LongAdder();
+	private final LongAdder			offerNanos			= new LongAdder();
+	private final LongAdder			offerFailures		= new LongAdder();
+	private final LongAdder			pushbackEvents		= new LongAdder();
+	private final LongAdder			pushbackTotal		= new LongAdder();
+	private final AtomicLong		maxPushback			= new AtomicLong();
+
+	private volatile EventType		terminatedBy;
+
+	StageMetrics(PushStreamMetrics registry, String pipeline, int depth,
+			String name) {
+		this.registry = registry;
+		this.pipeline = pipeline;
+		this.depth = depth;
+		this.name = name;
+	}
+
+	/**
+	 * @return the metrics for a new stage fed by this one
+	 */
+	StageMetrics child() {
+		return registry.register(pipeline, depth + 1);
+	}
+
+	StageMetrics buffered(BlockingQueue< ? > queue) {
+		this.buffer = queue;
+		return this;
+	}
+
+	void delivered(long nanos, long backPressure) {
+		events.increment();
+		consumerNanos.add(nanos);
+		if (backPressure > 0) {
+			backPressureEvents.increment();
+			backPressureTotal.add(backPressure);
+			max(maxBackPressure, backPressure);
+		}
+	}
+
+	void offered(long nanos, int depth) {
+		offers.increment();
+		offerNanos.add(nanos);
+		max(maxBufferDepth, depth);
+	}
+
+	void offerFailed() {
+		offerFailures.increment();
+	}
+
+	void pushback(long pushback) {
+		if (pushback > 0) {
+			pushbackEvents.increment();
+			pushbackTotal.add(pushback);
+			max(maxPushback, pushback);
+		}
+	}
+
+	void terminated(EventType type) {
+		if (terminatedBy == null) {
+			terminatedBy = type;
+		}
+	}
+
+	boolean isTerminated() {
+		return terminatedBy != null;
+	}
+
+	private static void max(AtomicLong current, long value) {
+		long old;
+		while ((old = current.get()) < value
+				&& !current.compareAndSet(old, value)) {
+			// Retry
+		}
+	}
+
+	StageSnapshot snapshot() {
+		BlockingQueue< ? > queue = buffer;
+		return new StageSnapshot(name, terminatedBy, events.sum(),
+				consumerNanos.sum(), backPressureEvents.sum(),
+				backPressureTotal.sum(), maxBackPressure.get(), queue != null,
+				queue == null ? 0 : queue.size(),
+				queue == null ? 0 : queue.remainingCapacity(),
+				maxBufferDepth.get(), offers.sum(), offerNanos.sum(),
+				offerFailures.sum(), pushbackEvents.sum(), pushbackTotal.sum(),
+				maxPushback.get());
+	}
+}
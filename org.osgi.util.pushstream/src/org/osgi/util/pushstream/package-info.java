@@ -17,7 +17,7 @@
  *******************************************************************************/
 
 /**
- * Push Stream Package Version 1.0.
+ * Push Stream Package Version 1.1.
  * 
  * <p>
  * Bundles wishing to use this package must list the package in the
@@ -30,12 +30,12 @@
  * <p>
  * Example import for providers implementing the API in this package:
  * <p>
- * {@code Import-Package: org.osgi.util.pushstream; version="[1.0,1.1)"}
+ * {@code Import-Package: org.osgi.util.pushstream; version="[1.1,1.2)"}
  * 
  * @author $Id$
  */
 
-@Version("1.0.2")
+@Version("1.1.0")
 package org.osgi.util.pushstream;
 
 import org.osgi.annotation.versioning.Version;